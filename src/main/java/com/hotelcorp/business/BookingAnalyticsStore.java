@@ -0,0 +1,121 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingGroup;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.HotelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory columnar copy of the bookings ({@link BookingColumns}), for ad-hoc group-bys and filters over
+ * hotel, hotel rating, currency and pax that never reach the database.
+ * The record methods must be called in the transaction that writes the bookings or hotels; the store changes once it commits.
+ */
+@Service
+public class BookingAnalyticsStore {
+
+    private final BookingRepository bookingRepository;
+    private final HotelRepository hotelRepository;
+
+    // replaced as a whole when loaded
+    private volatile BookingColumns columns = new BookingColumns();
+
+    @Autowired
+    BookingAnalyticsStore(BookingRepository bookingRepository, HotelRepository hotelRepository) {
+        this.bookingRepository = bookingRepository;
+        this.hotelRepository = hotelRepository;
+    }
+
+    /**
+     * @see BookingColumns#groupBy
+     */
+    public List<BookingGroup> groupBy(Set<BookingGroup.Dimension> dimensions, Long hotelId, Byte rating, String currency,
+                                      Short minPax, Short maxPax) {
+        return columns.groupBy(dimensions, hotelId, rating, currency, minPax, maxPax);
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final List<Consumer<BookingColumns>> changes = new ArrayList<>();
+        bookings.forEach(b -> changes.add(put(b.getId(), BookingSnapshot.of(b))));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking booking) {
+        recordUpdated(booking.getId(), BookingSnapshot.of(booking));
+    }
+
+    /**
+     * @param after the booking as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long id, BookingSnapshot after) {
+        afterCommit(List.of(put(id, after)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(List<BookingSummary> bookings) {
+        final List<Consumer<BookingColumns>> changes = new ArrayList<>();
+        bookings.forEach(b -> changes.add(put(b.getId(), BookingSnapshot.of(b))));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long id) {
+        afterCommit(List.of(c -> c.remove(id)));
+    }
+
+    /**
+     * @param rating the rating of the hotel, null when unchanged
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordHotel(Long hotelId, Byte rating) {
+        if (rating != null) {
+            afterCommit(List.of(c -> c.putHotel(hotelId, rating)));
+        }
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final BookingColumns loaded = new BookingColumns();
+        hotelRepository.findAll().forEach(h -> loaded.putHotel(h.getId(), h.getRating()));
+        try (Stream<BookingSummary> summaries = bookingRepository.streamSummaries()) {
+            summaries.forEach(s -> loaded.put(s.getId(), s.getHotelId(), s.getNumberOfPax(), s.getPrice(), s.getCurrency()));
+        }
+        columns = loaded;
+    }
+
+    private static Consumer<BookingColumns> put(Long id, BookingSnapshot booking) {
+        return c -> c.put(id, booking.getHotelId(), booking.getNumberOfPax(), booking.getPrice(), booking.getCurrency());
+    }
+
+    private void afterCommit(List<Consumer<BookingColumns>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            final BookingColumns current = columns;
+            changes.forEach(change -> change.accept(current));
+        });
+    }
+}
@@ -0,0 +1,496 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.BookingGroup;
+import com.hotelcorp.data.BookingGroup.Dimension;
+import com.hotelcorp.data.HotelRevenue;
+import com.hotelcorp.data.ScaledAmount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bookings held column by column in primitive arrays, for group-bys scanning millions of bookings in memory.
+ * The booking with id {@code i} is row {@code i}: booking ids come from a sequence, so rows are dense and found
+ * without a lookup. Rows are split into segments of {@value #SEGMENT_ROWS}, allocated when a booking first falls
+ * into them and scanned in parallel.
+ * <p>
+ * Hotels and currencies are dictionary encoded, rows hold their code. Prices are held in thousandths
+ * ({@link ScaledAmount}) and summed exactly. Each scanning thread sums its rows into an array indexed by group
+ * when the grouped values have few enough combinations, into a hash table otherwise.
+ * Any number of threads may scan at a time, a write waits for the running scans.
+ */
+public class BookingColumns {
+
+    static final int SEGMENT_BITS = 16;
+    static final int SEGMENT_ROWS = 1 << SEGMENT_BITS;
+
+    // hotel codes take 28 bits of a group key
+    private static final int MAX_HOTELS = (1 << 28) - 1;
+    // combinations of grouped values summed into arrays indexed by group, 4 arrays of 128 KB per thread
+    static final int MAX_INDEXED_GROUPS = 1 << 14;
+
+    // column values of an absent booking and of null fields
+    private static final int NO_HOTEL = -1;
+    private static final short NO_PAX = Short.MIN_VALUE;
+    private static final short NO_CURRENCY = 0;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final byte NO_RATING = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment[] segments = new Segment[0];
+    private int size;
+
+    private final Map<Long, Integer> hotelCodes = new HashMap<>();
+    private long[] hotelIds = new long[64];
+    private byte[] hotelRatings = new byte[64];
+    private final Map<String, Short> currencyCodes = new HashMap<>();
+    // by code, NO_CURRENCY first
+    private final List<String> currencies = new ArrayList<>(Collections.singletonList(null));
+    // range of the pax ever put, empty while none
+    private short minPax = Short.MAX_VALUE;
+    private short maxPax = Short.MIN_VALUE;
+
+    /**
+     * Adds the booking with the given id, or replaces it.
+     */
+    public void put(long id, long hotelId, Short numberOfPax, BigDecimal price, String currency) {
+        // computed first, a value that cannot be held leaves the row as it was
+        final long units = price != null ? ScaledAmount.toUnits(price) : NO_PRICE;
+        lock.writeLock().lock();
+        try {
+            final int hotel = hotelCode(hotelId);
+            final short currencyCode = currencyCode(currency);
+            final Segment segment = segment(id, true);
+            final int row = row(id);
+            if (segment.hotels[row] == NO_HOTEL) {
+                segment.rows++;
+                size++;
+            }
+            segment.hotels[row] = hotel;
+            segment.paxes[row] = numberOfPax != null ? numberOfPax : NO_PAX;
+            if (numberOfPax != null && numberOfPax != NO_PAX) {
+                minPax = (short) Math.min(minPax, numberOfPax);
+                maxPax = (short) Math.max(maxPax, numberOfPax);
+            }
+            segment.prices[row] = units;
+            segment.currencies[row] = currencyCode;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            final Segment segment = segment(id, false);
+            final int row = row(id);
+            if (segment != null && segment.hotels[row] != NO_HOTEL) {
+                segment.hotels[row] = NO_HOTEL;
+                segment.rows--;
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the rating bookings of the hotel are grouped and filtered by.
+     */
+    public void putHotel(long hotelId, Byte rating) {
+        lock.writeLock().lock();
+        try {
+            // coded first, which may replace the array
+            final int hotel = hotelCode(hotelId);
+            hotelRatings[hotel] = rating != null ? rating : NO_RATING;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Groups the bookings matching every given filter, null filters match every booking.
+     * Bookings without a number of pax only match when no pax bound is given.
+     *
+     * @param dimensions the values bookings are grouped by, none for a single group of all matching bookings
+     * @return the groups ordered by hotel id, rating, currency and pax, none when no booking matches
+     */
+    public List<BookingGroup> groupBy(Set<Dimension> dimensions, Long hotelId, Byte rating, String currency,
+                                      Short minPax, Short maxPax) {
+        lock.readLock().lock();
+        try {
+            int hotelFilter = NO_HOTEL;
+            if (hotelId != null) {
+                final Integer code = hotelCodes.get(hotelId);
+                if (code == null) {
+                    return List.of();
+                }
+                hotelFilter = code;
+            }
+            int currencyFilter = -1;
+            if (currency != null) {
+                final Short code = currencyCodes.get(currency);
+                if (code == null) {
+                    return List.of();
+                }
+                currencyFilter = code;
+            }
+            final Scan scan = new Scan(dimensions, hotelRatings, hotelFilter, rating != null ? rating : -1, currencyFilter,
+                    minPax != null || maxPax != null,
+                    minPax != null ? minPax : Short.MIN_VALUE, maxPax != null ? maxPax : Short.MAX_VALUE);
+            final GroupIndex index = GroupIndex.of(dimensions, hotelCodes.size(), currencies.size(), this.minPax, this.maxPax);
+            // the segments are not changed before the read lock is released; one Groups per thread's share of segments
+            final Groups groups = Arrays.stream(segments)
+                    .parallel()
+                    .filter(s -> s != null && s.rows > 0)
+                    .collect(() -> new Groups(index), scan::scan, Groups::merge);
+            return toBookingGroups(groups, dimensions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<BookingGroup> toBookingGroups(Groups groups, Set<Dimension> dimensions) {
+        final boolean byCurrency = dimensions.contains(Dimension.CURRENCY);
+        final Map<Long, BookingGroup> bookingGroups = new HashMap<>();
+        for (int slot = 0; slot < groups.counts.length; slot++) {
+            if (groups.counts[slot] == 0) {
+                continue;
+            }
+            final long key = groups.key(slot);
+            final int hotel = (int) (key >>> 35) - 1;
+            final byte rating = (byte) ((key >>> 32) & 0x7);
+            final short currency = (short) (key >>> 16);
+            final short pax = (short) key;
+            // currency is always part of the key, prices are only summed within a currency
+            final BookingGroup group = bookingGroups.computeIfAbsent(byCurrency ? key : key & ~(0xFFFFL << 16), k ->
+                    new BookingGroup(
+                            hotel != NO_HOTEL ? hotelIds[hotel] : null,
+                            rating != NO_RATING ? rating : null,
+                            byCurrency ? currencies.get(currency) : null,
+                            pax != NO_PAX ? pax : null,
+                            0, 0, new TreeMap<>()));
+            group.setBookingCount(group.getBookingCount() + groups.counts[slot]);
+            group.setTotalPax(group.getTotalPax() + groups.paxes[slot]);
+            if (groups.priced[slot] > 0) {
+                group.getRevenue().put(Objects.requireNonNullElse(currencies.get(currency), HotelRevenue.NO_CURRENCY),
+                        ScaledAmount.toBigDecimal(groups.units[slot]));
+            }
+        }
+        final List<BookingGroup> sorted = new ArrayList<>(bookingGroups.values());
+        sorted.sort(Comparator.comparing(BookingGroup::getHotelId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(BookingGroup::getRating, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(BookingGroup::getCurrency, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(BookingGroup::getNumberOfPax, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return sorted;
+    }
+
+    private int hotelCode(long hotelId) {
+        final Integer existing = hotelCodes.get(hotelId);
+        if (existing != null) {
+            return existing;
+        }
+        final int code = hotelCodes.size();
+        if (code == MAX_HOTELS) {
+            throw new IllegalStateException("Too many hotels: " + code);
+        }
+        if (code == hotelIds.length) {
+            hotelIds = Arrays.copyOf(hotelIds, code * 2);
+            hotelRatings = Arrays.copyOf(hotelRatings, code * 2);
+        }
+        hotelIds[code] = hotelId;
+        hotelCodes.put(hotelId, code);
+        return code;
+    }
+
+    private short currencyCode(String currency) {
+        if (currency == null) {
+            return NO_CURRENCY;
+        }
+        final Short existing = currencyCodes.get(currency);
+        if (existing != null) {
+            return existing;
+        }
+        if (currencies.size() > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many currencies: " + currencies.size());
+        }
+        final short code = (short) currencies.size();
+        currencies.add(currency);
+        currencyCodes.put(currency, code);
+        return code;
+    }
+
+    private Segment segment(long id, boolean create) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid booking id: " + id);
+        }
+        final long index = id >>> SEGMENT_BITS;
+        if (index >= segments.length) {
+            if (!create) {
+                return null;
+            }
+            segments = Arrays.copyOf(segments, Math.toIntExact(Math.max(index + 1, segments.length * 2L)));
+        }
+        Segment segment = segments[(int) index];
+        if (segment == null && create) {
+            segment = new Segment();
+            segments[(int) index] = segment;
+        }
+        return segment;
+    }
+
+    private static int row(long id) {
+        return (int) (id & (SEGMENT_ROWS - 1));
+    }
+
+    /*
+     * Group key of a row: hotel code + 1 (28 bits), rating (3 bits), currency code (16 bits), pax (16 bits).
+     * Dimensions not grouped by are left at their "none" value.
+     */
+    private static long key(int hotel, byte rating, short currency, short pax) {
+        return (long) (hotel + 1) << 35 | (rating & 0x7L) << 32 | (currency & 0xFFFFL) << 16 | (pax & 0xFFFFL);
+    }
+
+    /**
+     * Index of a group among every combination of the grouped values, the values not grouped by count as one.
+     */
+    private static final class GroupIndex {
+        private final int hotels;
+        private final int ratings;
+        private final int currencies;
+        private final int paxes;
+        private final short minPax;
+
+        private GroupIndex(int hotels, int ratings, int currencies, int paxes, short minPax) {
+            this.hotels = hotels;
+            this.ratings = ratings;
+            this.currencies = currencies;
+            this.paxes = paxes;
+            this.minPax = minPax;
+        }
+
+        /**
+         * @return the index of the given dimensions, null when their values have too many combinations
+         */
+        private static GroupIndex of(Set<Dimension> dimensions, int hotels, int currencies, short minPax, short maxPax) {
+            // none first, then the hotel codes, the ratings and the pax put
+            final int hotelValues = dimensions.contains(Dimension.HOTEL) ? hotels + 1 : 1;
+            final int ratingValues = dimensions.contains(Dimension.RATING) ? 8 : 1;
+            final int paxValues = dimensions.contains(Dimension.PAX) ? Math.max(0, maxPax - minPax + 1) + 1 : 1;
+            final long size = (long) hotelValues * ratingValues * currencies * paxValues;
+            return size <= MAX_INDEXED_GROUPS ? new GroupIndex(hotelValues, ratingValues, currencies, paxValues, minPax) : null;
+        }
+
+        private int size() {
+            return hotels * ratings * currencies * paxes;
+        }
+
+        private int index(int hotel, byte rating, short currency, short pax) {
+            return (((hotel + 1) * ratings + (rating & 0x7)) * currencies + currency) * paxes
+                    + (pax == NO_PAX ? 0 : pax - minPax + 1);
+        }
+
+        private long key(int index) {
+            final int pax = index % paxes;
+            index /= paxes;
+            final int currency = index % currencies;
+            index /= currencies;
+            final int rating = index % ratings;
+            return BookingColumns.key(index / ratings - 1, (byte) rating, (short) currency,
+                    pax == 0 ? NO_PAX : (short) (pax - 1 + minPax));
+        }
+    }
+
+    private static final class Segment {
+        private final int[] hotels = new int[SEGMENT_ROWS];
+        private final short[] paxes = new short[SEGMENT_ROWS];
+        private final long[] prices = new long[SEGMENT_ROWS];
+        private final short[] currencies = new short[SEGMENT_ROWS];
+        private int rows;
+
+        private Segment() {
+            Arrays.fill(hotels, NO_HOTEL);
+        }
+    }
+
+    private static final class Scan {
+        private final boolean byHotel;
+        private final boolean byRating;
+        private final boolean byPax;
+        private final byte[] hotelRatings;
+        private final int hotelFilter;
+        private final int ratingFilter;
+        private final int currencyFilter;
+        private final boolean paxFiltered;
+        private final short minPax;
+        private final short maxPax;
+
+        private Scan(Set<Dimension> dimensions, byte[] hotelRatings, int hotelFilter, int ratingFilter, int currencyFilter,
+                     boolean paxFiltered, short minPax, short maxPax) {
+            this.byHotel = dimensions.contains(Dimension.HOTEL);
+            this.byRating = dimensions.contains(Dimension.RATING);
+            this.byPax = dimensions.contains(Dimension.PAX);
+            this.hotelRatings = hotelRatings;
+            this.hotelFilter = hotelFilter;
+            this.ratingFilter = ratingFilter;
+            this.currencyFilter = currencyFilter;
+            this.paxFiltered = paxFiltered;
+            this.minPax = minPax;
+            this.maxPax = maxPax;
+        }
+
+        private void scan(Groups groups, Segment segment) {
+            final int[] hotels = segment.hotels;
+            final short[] paxes = segment.paxes;
+            final long[] prices = segment.prices;
+            final short[] currencies = segment.currencies;
+            for (int row = 0; row < SEGMENT_ROWS; row++) {
+                final int hotel = hotels[row];
+                if (hotel == NO_HOTEL || (hotelFilter != NO_HOTEL && hotel != hotelFilter)) {
+                    continue;
+                }
+                final short currency = currencies[row];
+                if (currencyFilter >= 0 && currency != currencyFilter) {
+                    continue;
+                }
+                final short pax = paxes[row];
+                if (paxFiltered && (pax == NO_PAX || pax < minPax || pax > maxPax)) {
+                    continue;
+                }
+                final byte rating = hotelRatings[hotel];
+                if (ratingFilter >= 0 && rating != ratingFilter) {
+                    continue;
+                }
+                groups.add(byHotel ? hotel : NO_HOTEL, byRating ? rating : NO_RATING, currency, byPax ? pax : NO_PAX,
+                        pax, prices[row]);
+            }
+        }
+    }
+
+    /**
+     * Sums per group, at the index of the group or in an open addressing table keyed by group key:
+     * nothing is allocated per row either way.
+     */
+    private static final class Groups {
+        private static final long EMPTY = -1;
+
+        // null for the hash table
+        private final GroupIndex index;
+        // keys of the hash table slots, null when indexed
+        private long[] keys;
+        private long[] counts;
+        private long[] paxes;
+        private long[] units;
+        private long[] priced;
+        private int size;
+
+        private Groups(GroupIndex index) {
+            this.index = index;
+            final int capacity = index != null ? index.size() : 16;
+            keys = index != null ? null : emptyKeys(capacity);
+            counts = new long[capacity];
+            paxes = new long[capacity];
+            units = new long[capacity];
+            priced = new long[capacity];
+        }
+
+        private void add(int hotel, byte rating, short currency, short groupPax, short pax, long price) {
+            final int slot = index != null
+                    ? index.index(hotel, rating, currency, groupPax)
+                    : slot(BookingColumns.key(hotel, rating, currency, groupPax));
+            counts[slot]++;
+            if (pax != NO_PAX) {
+                paxes[slot] += pax;
+            }
+            if (price != NO_PRICE) {
+                units[slot] = ScaledAmount.add(units[slot], price);
+                priced[slot]++;
+            }
+        }
+
+        private long key(int slot) {
+            return index != null ? index.key(slot) : keys[slot];
+        }
+
+        private void merge(Groups other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    final int slot = index != null ? i : slot(other.keys[i]);
+                    counts[slot] += other.counts[i];
+                    paxes[slot] += other.paxes[i];
+                    units[slot] = ScaledAmount.add(units[slot], other.units[i]);
+                    priced[slot] += other.priced[i];
+                }
+            }
+        }
+
+        private int slot(long key) {
+            final int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != key) {
+                if (keys[slot] == EMPTY) {
+                    if (2 * (size + 1) > keys.length) {
+                        grow();
+                        return slot(key);
+                    }
+                    keys[slot] = key;
+                    size++;
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final long[] oldCounts = counts;
+            final long[] oldPaxes = paxes;
+            final long[] oldUnits = units;
+            final long[] oldPriced = priced;
+            final int capacity = oldKeys.length * 2;
+            keys = emptyKeys(capacity);
+            counts = new long[capacity];
+            paxes = new long[capacity];
+            units = new long[capacity];
+            priced = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    final int slot = slot(oldKeys[i]);
+                    counts[slot] = oldCounts[i];
+                    paxes[slot] = oldPaxes[i];
+                    units[slot] = oldUnits[i];
+                    priced[slot] = oldPriced[i];
+                }
+            }
+        }
+
+        private static long[] emptyKeys(int capacity) {
+            final long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingFilter;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.HotelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory {@link CompressedBitmap}s of the booking ids of every hotel, currency, number of pax and hotel rating,
+ * intersected to find the bookings matching these criteria of a {@link BookingFilter} without reading any booking.
+ * A {@link DDSketch} of all prices estimates how many bookings a price range holds, prices are not indexed.
+ * <p>
+ * The record methods must be called in the transaction that writes the bookings or hotels; the index changes
+ * once it commits.
+ */
+@Service
+public class BookingFilterIndex {
+
+    static final double PRICE_ACCURACY = 0.01;
+
+    private final BookingRepository bookingRepository;
+    private final HotelRepository hotelRepository;
+
+    // replaced as a whole when loaded
+    private volatile Bitmaps bitmaps = new Bitmaps();
+
+    @Autowired
+    BookingFilterIndex(BookingRepository bookingRepository, HotelRepository hotelRepository) {
+        this.bookingRepository = bookingRepository;
+        this.hotelRepository = hotelRepository;
+    }
+
+    /**
+     * @return the ids of the bookings matching the hotel, currency, rating and pax criteria of the filter,
+     * null when it has none of them
+     */
+    CompressedBitmap find(BookingFilter filter) {
+        final Bitmaps current = bitmaps;
+        current.lock.readLock().lock();
+        try {
+            CompressedBitmap matching = null;
+            if (filter.getHotelIds() != null) {
+                matching = and(matching, union(filter.getHotelIds(), current.byHotel));
+            }
+            if (filter.getCurrencies() != null) {
+                matching = and(matching, union(filter.getCurrencies(), current.byCurrency));
+            }
+            if (filter.getRatings() != null) {
+                matching = and(matching, union(filter.getRatings(), current.byRating));
+            }
+            if (filter.hasPaxRange()) {
+                final NavigableMap<Short, CompressedBitmap> paxRange = current.byPax.subMap(
+                        filter.getMinPax() != null ? filter.getMinPax() : Short.MIN_VALUE, true,
+                        filter.getMaxPax() != null ? filter.getMaxPax() : Short.MAX_VALUE, true);
+                matching = and(matching, union(paxRange.keySet(), paxRange));
+            }
+            return matching;
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed bookings
+     */
+    long count() {
+        final Bitmaps current = bitmaps;
+        current.lock.readLock().lock();
+        try {
+            return current.count;
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return about the number of bookings with a price in {@code [minPrice, maxPrice]}, open when null
+     */
+    long estimatePriceCount(BigDecimal minPrice, BigDecimal maxPrice) {
+        final Bitmaps current = bitmaps;
+        current.lock.readLock().lock();
+        try {
+            return current.prices.count(minPrice != null ? minPrice.doubleValue() : Double.NEGATIVE_INFINITY,
+                    maxPrice != null ? maxPrice.doubleValue() : Double.POSITIVE_INFINITY);
+        } finally {
+            current.lock.readLock().unlock();
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final List<Consumer<Bitmaps>> changes = new ArrayList<>();
+        bookings.forEach(b -> changes.add(add(b.getId(), BookingSnapshot.of(b))));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        recordUpdated(after.getId(), BookingSnapshot.of(before), BookingSnapshot.of(after));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long id, BookingSnapshot before, BookingSnapshot after) {
+        afterCommit(List.of(remove(id, before), add(id, after)));
+    }
+
+    /**
+     * @param after the bookings of {@code before}, in the same order, as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(List<BookingSummary> before, List<BookingSummary> after) {
+        final List<Consumer<Bitmaps>> changes = new ArrayList<>();
+        before.forEach(b -> changes.add(remove(b.getId(), BookingSnapshot.of(b))));
+        after.forEach(b -> changes.add(add(b.getId(), BookingSnapshot.of(b))));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        afterCommit(List.of(remove(booking.getId(), BookingSnapshot.of(booking))));
+    }
+
+    /**
+     * @param rating the rating of the hotel, null when unchanged
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordHotel(Long hotelId, Byte rating) {
+        if (rating != null) {
+            afterCommit(List.of(b -> b.putHotel(hotelId, rating)));
+        }
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final Bitmaps loaded = new Bitmaps();
+        hotelRepository.findAll().forEach(h -> loaded.putHotel(h.getId(), h.getRating()));
+        try (Stream<BookingSummary> summaries = bookingRepository.streamSummaries()) {
+            summaries.forEach(s -> loaded.add(s.getId(), s.getHotelId(), s.getCurrency(), s.getNumberOfPax(), s.getPrice()));
+        }
+        bitmaps = loaded;
+    }
+
+    private static Consumer<Bitmaps> add(Long id, BookingSnapshot booking) {
+        return b -> b.add(id, booking.getHotelId(), booking.getCurrency(), booking.getNumberOfPax(), booking.getPrice());
+    }
+
+    private static Consumer<Bitmaps> remove(Long id, BookingSnapshot booking) {
+        return b -> b.remove(id, booking.getHotelId(), booking.getCurrency(), booking.getNumberOfPax(), booking.getPrice());
+    }
+
+    private void afterCommit(List<Consumer<Bitmaps>> changes) {
+        TransactionCallbacks.afterCommit(() -> {
+            final Bitmaps current = bitmaps;
+            current.lock.writeLock().lock();
+            try {
+                changes.forEach(c -> c.accept(current));
+            } finally {
+                current.lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static <K> CompressedBitmap union(Collection<K> keys, Map<K, CompressedBitmap> bitmaps) {
+        CompressedBitmap union = new CompressedBitmap();
+        for (K key : keys) {
+            final CompressedBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                union = CompressedBitmap.or(union, bitmap);
+            }
+        }
+        return union;
+    }
+
+    private static CompressedBitmap and(CompressedBitmap matching, CompressedBitmap criterion) {
+        return matching != null ? CompressedBitmap.and(matching, criterion) : criterion;
+    }
+
+    /**
+     * The bitmaps of the bookings, a booking without a value for a field is in none of the bitmaps of the field.
+     */
+    private static final class Bitmaps {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, CompressedBitmap> byHotel = new HashMap<>();
+        private final Map<String, CompressedBitmap> byCurrency = new HashMap<>();
+        private final NavigableMap<Short, CompressedBitmap> byPax = new TreeMap<>();
+        // follows the current rating of the hotels
+        private final Map<Byte, CompressedBitmap> byRating = new HashMap<>();
+        private final Map<Long, Byte> hotelRatings = new HashMap<>();
+        private final DDSketch prices = new DDSketch(PRICE_ACCURACY);
+        private long count;
+
+        private void add(long id, Long hotelId, String currency, Short numberOfPax, BigDecimal price) {
+            add(byHotel, hotelId, id);
+            add(byCurrency, currency, id);
+            add(byPax, numberOfPax, id);
+            add(byRating, hotelRatings.get(hotelId), id);
+            if (price != null) {
+                prices.add(price.doubleValue());
+            }
+            count++;
+        }
+
+        private void remove(long id, Long hotelId, String currency, Short numberOfPax, BigDecimal price) {
+            remove(byHotel, hotelId, id);
+            remove(byCurrency, currency, id);
+            remove(byPax, numberOfPax, id);
+            remove(byRating, hotelRatings.get(hotelId), id);
+            if (price != null) {
+                prices.remove(price.doubleValue());
+            }
+            count--;
+        }
+
+        // the bookings of the hotel move from the bitmap of its former rating to the one of the new rating
+        private void putHotel(Long hotelId, Byte rating) {
+            final Byte former = hotelRatings.put(hotelId, rating);
+            if (rating == null ? former == null : rating.equals(former)) {
+                return;
+            }
+            final CompressedBitmap bookings = byHotel.get(hotelId);
+            if (bookings == null) {
+                return;
+            }
+            if (former != null) {
+                final CompressedBitmap remaining = CompressedBitmap.andNot(byRating.get(former), bookings);
+                if (remaining.isEmpty()) {
+                    byRating.remove(former);
+                } else {
+                    byRating.put(former, remaining);
+                }
+            }
+            if (rating != null) {
+                byRating.merge(rating, bookings.copy(), CompressedBitmap::or);
+            }
+        }
+
+        private static <K> void add(Map<K, CompressedBitmap> bitmaps, K key, long id) {
+            if (key != null) {
+                bitmaps.computeIfAbsent(key, k -> new CompressedBitmap()).add(id);
+            }
+        }
+
+        private static <K> void remove(Map<K, CompressedBitmap> bitmaps, K key, long id) {
+            final CompressedBitmap bitmap = key != null ? bitmaps.get(key) : null;
+            if (bitmap != null && bitmap.remove(id) && bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+}
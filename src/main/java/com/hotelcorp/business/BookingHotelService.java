@@ -1,32 +1,93 @@
 package com.hotelcorp.business;
 
-import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.CustomerHotelsDrift;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRank;
+import com.hotelcorp.data.ScaledAmount;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 @Service
 public class BookingHotelService {
 
+    static final String BY_BOOKINGS = "bookings";
+    static final String BY_REVENUE = "revenue";
+    static final int DEFAULT_TOP_HOTELS = 10;
+
     private HotelService hotelService;
 
-    private BookingService bookingService;
+    private CustomerHotelIndex customerHotelIndex;
+
+    private HotelRankingIndex hotelRankingIndex;
+
+    @Value("${hotel-demo.paging.max-page-size:" + CursorPaging.DEFAULT_MAX_PAGE_SIZE + "}")
+    private int maxPageSize = CursorPaging.DEFAULT_MAX_PAGE_SIZE;
 
     @Autowired
-    public BookingHotelService(HotelService hotelService, BookingService bookingService) {
+    public BookingHotelService(HotelService hotelService, CustomerHotelIndex customerHotelIndex, HotelRankingIndex hotelRankingIndex) {
         this.hotelService = hotelService;
-        this.bookingService = bookingService;
+        this.customerHotelIndex = customerHotelIndex;
+        this.hotelRankingIndex = hotelRankingIndex;
     }
 
+    // hotel ids come from the index, the hotels from the second-level cache: no booking is read
     public Iterable<Hotel> getHotelsForBookingsByCustomerLastName(String customerLastName) {
-        final var hotelIds = StreamSupport
-                .stream(bookingService.getBookingsForCustomer(customerLastName).spliterator(), false)
-                .map(Booking::getHotel)
-                .map(Hotel::getId)
-                .collect(Collectors.toSet());
-        return hotelService.getHotels(hotelIds);
+        return hotelService.getHotels(customerHotelIndex.getHotelIds(customerLastName));
+    }
+
+    /**
+     * The {@code k} hotels with the most bookings, or with the highest revenue in the given currency, from the
+     * {@link HotelRankingIndex}: like above, no booking is read.
+     *
+     * @param by       {@value #BY_BOOKINGS} or {@value #BY_REVENUE}
+     * @param currency of the revenue, required to rank by revenue
+     */
+    public List<HotelRank> getTopHotels(String by, String currency, Integer k) {
+        final int size = CursorPaging.pageSize(k != null ? k : DEFAULT_TOP_HOTELS, maxPageSize);
+        final List<Leaderboard.Score> top;
+        if (BY_BOOKINGS.equals(by)) {
+            top = hotelRankingIndex.getTopByBookings(size);
+        } else if (BY_REVENUE.equals(by)) {
+            if (currency == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A currency is required to rank hotels by revenue");
+            }
+            top = hotelRankingIndex.getTopByRevenue(currency, size);
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown ranking: " + by + ". Use " + BY_BOOKINGS + " or " + BY_REVENUE);
+        }
+
+        final Map<Long, Hotel> hotels = StreamSupport.stream(
+                hotelService.getHotels(top.stream().map(Leaderboard.Score::getId).collect(Collectors.toList())).spliterator(), false)
+                .collect(Collectors.toMap(Hotel::getId, Function.identity()));
+        final List<HotelRank> ranks = new ArrayList<>(top.size());
+        for (Leaderboard.Score score : top) {
+            final Hotel hotel = hotels.get(score.getId());
+            if (hotel == null) {
+                continue;
+            }
+            ranks.add(BY_BOOKINGS.equals(by)
+                    ? new HotelRank(ranks.size() + 1, hotel, score.getScore(), null, null)
+                    : new HotelRank(ranks.size() + 1, hotel, null, currency, ScaledAmount.toBigDecimal(score.getScore())));
+        }
+        return ranks;
+    }
+
+    public List<CustomerHotelsDrift> verifyCustomerIndex() {
+        return customerHotelIndex.verify();
+    }
+
+    public List<CustomerHotelsDrift> rebuildCustomerIndex() {
+        return customerHotelIndex.rebuild();
     }
 }
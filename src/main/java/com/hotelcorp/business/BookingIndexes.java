@@ -0,0 +1,117 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Records booking changes in everything derived from the bookings: the hotel revenue and the in-memory indexes.
+ * <p>
+ * The record methods must be called in the transaction that writes the bookings.
+ */
+@Service
+public class BookingIndexes {
+
+    private HotelRevenueService hotelRevenueService;
+    private CustomerHotelIndex customerHotelIndex;
+    private CustomerNameIndex customerNameIndex;
+    private HotelOccupancyIndex hotelOccupancyIndex;
+    private BookingAnalyticsStore bookingAnalyticsStore;
+    private BookingSketchIndex bookingSketchIndex;
+    private HotelRankingIndex hotelRankingIndex;
+    private BookingFilterIndex bookingFilterIndex;
+
+    @Autowired
+    BookingIndexes(HotelRevenueService hotelRevenueService,
+                   CustomerHotelIndex customerHotelIndex,
+                   CustomerNameIndex customerNameIndex,
+                   HotelOccupancyIndex hotelOccupancyIndex,
+                   BookingAnalyticsStore bookingAnalyticsStore,
+                   BookingSketchIndex bookingSketchIndex,
+                   HotelRankingIndex hotelRankingIndex,
+                   BookingFilterIndex bookingFilterIndex) {
+        this.hotelRevenueService = hotelRevenueService;
+        this.customerHotelIndex = customerHotelIndex;
+        this.customerNameIndex = customerNameIndex;
+        this.hotelOccupancyIndex = hotelOccupancyIndex;
+        this.bookingAnalyticsStore = bookingAnalyticsStore;
+        this.bookingSketchIndex = bookingSketchIndex;
+        this.hotelRankingIndex = hotelRankingIndex;
+        this.bookingFilterIndex = bookingFilterIndex;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        hotelRevenueService.recordCreated(bookings);
+        customerHotelIndex.recordCreated(bookings);
+        customerNameIndex.recordCreated(bookings);
+        hotelOccupancyIndex.recordCreated(bookings);
+        bookingAnalyticsStore.recordCreated(bookings);
+        bookingSketchIndex.recordCreated(bookings);
+        hotelRankingIndex.recordCreated(bookings);
+        bookingFilterIndex.recordCreated(bookings);
+    }
+
+    /**
+     * @param before a copy of the booking taken before it was changed
+     * @param after  the changed booking
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        hotelRevenueService.recordUpdated(before, after);
+        customerHotelIndex.recordUpdated(before, after);
+        customerNameIndex.recordUpdated(after.getId(), after.getCustomerName(), after.getCustomerLastName());
+        hotelOccupancyIndex.recordUpdated(before, after);
+        bookingAnalyticsStore.recordUpdated(after);
+        bookingSketchIndex.recordUpdated(before, after);
+        hotelRankingIndex.recordUpdated(before, after);
+        bookingFilterIndex.recordUpdated(before, after);
+    }
+
+    /**
+     * @param before the values of the booking read before it was updated
+     * @param values the non-null values the update set
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long id, BookingSnapshot before, Booking values) {
+        final BookingSnapshot after = before.updatedWith(values);
+        hotelRevenueService.recordUpdated(before, after);
+        customerHotelIndex.recordUpdated(before, after);
+        customerNameIndex.recordUpdated(id, values.getCustomerName(), values.getCustomerLastName());
+        hotelOccupancyIndex.recordUpdated(before, after);
+        bookingAnalyticsStore.recordUpdated(id, after);
+        bookingSketchIndex.recordUpdated(before, after);
+        hotelRankingIndex.recordUpdated(before, after);
+        bookingFilterIndex.recordUpdated(id, before, after);
+    }
+
+    /**
+     * Bookings whose prices changed, and nothing else but their versions.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRepriced(List<BookingSummary> before, List<BookingSummary> after) {
+        hotelRevenueService.recordUpdated(before, after);
+        bookingAnalyticsStore.recordUpdated(after);
+        bookingSketchIndex.recordUpdated(before, after);
+        hotelRankingIndex.recordUpdated(before, after);
+        bookingFilterIndex.recordUpdated(before, after);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        hotelRevenueService.recordDeleted(booking);
+        customerHotelIndex.recordDeleted(booking);
+        customerNameIndex.recordDeleted(booking.getId());
+        hotelOccupancyIndex.recordDeleted(booking);
+        bookingAnalyticsStore.recordDeleted(booking.getId());
+        bookingSketchIndex.recordDeleted(booking);
+        hotelRankingIndex.recordDeleted(booking);
+        bookingFilterIndex.recordDeleted(booking);
+    }
+}
@@ -0,0 +1,246 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
+import com.hotelcorp.data.BookingTicket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Asynchronous booking creation: bookings are checked without reaching the database, queued and acknowledged
+ * with a ticket right away. A single flusher thread writes the queued bookings in micro-batches through
+ * {@link BookingService#createBookings}, one transaction with batched inserts per flush, and completes their tickets.
+ * <p>
+ * The queue is bounded: when it is full, new bookings are refused (429) rather than held in memory.
+ * On shutdown no more bookings are accepted (503) and the queued ones are written before the flusher stops.
+ * Completed tickets are kept for the retention period, the most recently completed ones up to a maximum number.
+ */
+@Service
+public class BookingIntakeService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIntakeService.class);
+
+    // how often an idle flusher checks whether it is being stopped
+    private static final long POLL_MILLIS = 100;
+
+    private final BookingService bookingService;
+    private final BlockingQueue<Intake> queue;
+    private final int batchSize;
+    private final Duration drainTimeout;
+    private final Duration ticketRetention;
+    private final int maxCompletedTickets;
+    private final Clock clock;
+
+    private final Map<String, BookingTicket> tickets = new ConcurrentHashMap<>();
+    // in completion order, only touched by the flushing thread
+    private final Deque<BookingTicket> completedTickets = new ArrayDeque<>();
+
+    // submits check and queue under the read lock, the write lock stops accepting once they are queued
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    BookingIntakeService(BookingService bookingService,
+                         @Value("${hotel-demo.bookings.intake.queue-capacity:10000}") int queueCapacity,
+                         @Value("${hotel-demo.bookings.intake.batch-size:500}") int batchSize,
+                         @Value("${hotel-demo.bookings.intake.drain-timeout:30s}") Duration drainTimeout,
+                         @Value("${hotel-demo.bookings.intake.ticket-retention:1h}") Duration ticketRetention,
+                         @Value("${hotel-demo.bookings.intake.max-completed-tickets:100000}") int maxCompletedTickets) {
+        this(bookingService, queueCapacity, batchSize, drainTimeout, ticketRetention, maxCompletedTickets, Clock.systemUTC());
+    }
+
+    BookingIntakeService(BookingService bookingService, int queueCapacity, int batchSize,
+                         Duration drainTimeout, Duration ticketRetention, int maxCompletedTickets, Clock clock) {
+        this.bookingService = bookingService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.drainTimeout = drainTimeout;
+        this.ticketRetention = ticketRetention;
+        this.maxCompletedTickets = maxCompletedTickets;
+        this.clock = clock;
+        this.accepting = true;
+    }
+
+    /**
+     * @return the ticket of the queued booking
+     * @throws ResponseStatusException BAD_REQUEST when the booking is invalid, TOO_MANY_REQUESTS when the queue is full,
+     *                                 SERVICE_UNAVAILABLE when shutting down
+     */
+    public BookingTicket submit(Booking booking) {
+        final String invalidReason = bookingService.validateForBatch(booking);
+        if (invalidReason != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, invalidReason);
+        }
+        acceptingLock.readLock().lock();
+        try {
+            // a booking accepted here is queued before stop() lets the flusher drain the queue
+            if (!accepting) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Booking intake is shutting down");
+            }
+            final BookingTicket ticket = BookingTicket.pending(UUID.randomUUID().toString(), clock.instant());
+            tickets.put(ticket.getId(), ticket);
+            if (!queue.offer(new Intake(ticket.getId(), booking))) {
+                tickets.remove(ticket.getId());
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Booking intake queue is full, retry later");
+            }
+            return ticket;
+        } finally {
+            acceptingLock.readLock().unlock();
+        }
+    }
+
+    public Optional<BookingTicket> getTicket(String id) {
+        return Optional.ofNullable(tickets.get(id));
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Writes the bookings queued at the time, at most one batch.
+     *
+     * @return the number of bookings written or refused
+     */
+    int flush() {
+        return flush(null);
+    }
+
+    private int flush(Intake first) {
+        final List<Intake> batch = new ArrayList<>();
+        if (first != null) {
+            batch.add(first);
+        }
+        queue.drainTo(batch, batchSize - batch.size());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            final List<BookingBatchResult> results = bookingService.createBookings(batch.stream().map(i -> i.booking).iterator());
+            final Instant completedAt = clock.instant();
+            for (BookingBatchResult result : results) {
+                complete(batch.get(result.getIndex()).ticketId, t -> t.completed(result, completedAt));
+            }
+        } catch (RuntimeException e) {
+            log.error("Writing {} queued bookings failed", batch.size(), e);
+            final Instant completedAt = clock.instant();
+            batch.forEach(i -> complete(i.ticketId, t -> t.failed(e.getMessage(), completedAt)));
+        }
+        evictCompletedTickets();
+        return batch.size();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        setAccepting(true);
+        flusher = new Thread(this::flushUntilStopped, "booking-intake-flusher");
+        // stop() drains the queue on an orderly shutdown, the thread must not hold up the JVM otherwise
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        setAccepting(false);
+        running = false;
+        try {
+            flusher.join(drainTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} queued bookings were not written within {}", queue.size(), drainTimeout);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void flushUntilStopped() {
+        // once stopped, keeps flushing until the queue is empty
+        while (running || !queue.isEmpty()) {
+            try {
+                // waits for the first booking, the ones queued meanwhile join it in the batch
+                final Intake first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    flush(first);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Booking intake flush failed", e);
+            }
+        }
+    }
+
+    private void setAccepting(boolean accepting) {
+        acceptingLock.writeLock().lock();
+        try {
+            this.accepting = accepting;
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }
+    }
+
+    private void complete(String ticketId, UnaryOperator<BookingTicket> completion) {
+        final BookingTicket completed = tickets.computeIfPresent(ticketId, (id, ticket) -> completion.apply(ticket));
+        if (completed != null) {
+            completedTickets.add(completed);
+        }
+    }
+
+    // oldest first, up to the first ticket to keep
+    private void evictCompletedTickets() {
+        final Instant expired = clock.instant().minus(ticketRetention);
+        while (!completedTickets.isEmpty() && (completedTickets.size() > maxCompletedTickets
+                || completedTickets.peek().getCompletedAt().isBefore(expired))) {
+            tickets.remove(completedTickets.poll().getId());
+        }
+    }
+
+    private static final class Intake {
+        private final String ticketId;
+        private final Booking booking;
+
+        private Intake(String ticketId, Booking booking) {
+            this.ticketId = ticketId;
+            this.booking = booking;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingFilter;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Bookings matching any mix of hotel, currency, hotel rating, pax and price criteria, a page at a time in id order.
+ * <p>
+ * All criteria but the price are served by the bitmaps of the {@link BookingFilterIndex}. A price range is checked
+ * by the database, either read from the price index when it holds fewer bookings than would be walked through
+ * in id order to fill the page, or else checked on the bookings walked through by primary key.
+ */
+@Service
+public class BookingSearchService {
+
+    // candidate ids whose price is checked per statement
+    static final int CANDIDATE_BATCH_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final BookingFilterIndex bookingFilterIndex;
+
+    @Value("${hotel-demo.paging.max-page-size:" + CursorPaging.DEFAULT_MAX_PAGE_SIZE + "}")
+    private int maxPageSize = CursorPaging.DEFAULT_MAX_PAGE_SIZE;
+
+    @Value("${hotel-demo.search.default-limit:20}")
+    private int defaultSearchLimit = 20;
+
+    @Autowired
+    BookingSearchService(BookingRepository bookingRepository, BookingFilterIndex bookingFilterIndex) {
+        this.bookingRepository = bookingRepository;
+        this.bookingFilterIndex = bookingFilterIndex;
+    }
+
+    public CursorPage<BookingSummary> searchBookings(BookingFilter filter, Long after, Integer limit) {
+        validate(filter);
+        final int pageSize = limit == null ? Math.min(defaultSearchLimit, maxPageSize) : CursorPaging.pageSize(limit, maxPageSize);
+        final long afterId = CursorPaging.afterId(after);
+
+        final CompressedBitmap candidates = bookingFilterIndex.find(filter);
+        final List<Long> ids;
+        if (!filter.hasPriceRange()) {
+            ids = toList(candidates.next(afterId, pageSize + 1));
+        } else {
+            final BigDecimal minPrice = filter.getMinPrice() != null ? filter.getMinPrice() : Booking.MIN_PRICE;
+            final BigDecimal maxPrice = filter.getMaxPrice() != null ? filter.getMaxPrice() : Booking.MAX_PRICE;
+            if (isPriceRangeSelective(filter, candidates, pageSize)) {
+                ids = bookingRepository.findIdsByPriceBetween(minPrice, maxPrice, afterId).stream()
+                        .map(Number::longValue)
+                        .filter(id -> candidates == null || candidates.contains(id))
+                        .sorted()
+                        .limit(pageSize + 1)
+                        .collect(Collectors.toList());
+            } else if (candidates == null) {
+                ids = toLongs(bookingRepository.findIdsByIdGreaterThanAndPriceBetween(afterId, minPrice, maxPrice, pageSize + 1));
+            } else {
+                ids = findCandidatesByPrice(candidates, afterId, minPrice, maxPrice, pageSize + 1);
+            }
+        }
+
+        final List<BookingSummary> bookings = new ArrayList<>(ids.isEmpty() ? List.of() : bookingRepository.findSummariesByIdIn(ids));
+        bookings.sort(Comparator.comparing(BookingSummary::getId));
+        return CursorPaging.toPage(bookings, pageSize, BookingSummary::getId);
+    }
+
+    /**
+     * Whether reading the price range from its index reads fewer bookings than walking the candidates in id order
+     * until a page of them is in the range, prices and ids being taken as independent.
+     */
+    private boolean isPriceRangeSelective(BookingFilter filter, CompressedBitmap candidates, int pageSize) {
+        final long bookings = bookingFilterIndex.count();
+        final long inRange = bookingFilterIndex.estimatePriceCount(filter.getMinPrice(), filter.getMaxPrice());
+        final long walkable = candidates != null ? candidates.cardinality() : bookings;
+        final long walked = Math.min(walkable, (long) Math.ceil((pageSize + 1.0) * bookings / Math.max(1, inRange)));
+        return inRange < walked;
+    }
+
+    private List<Long> findCandidatesByPrice(CompressedBitmap candidates, long afterId,
+                                             BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        final List<Long> ids = new ArrayList<>();
+        long cursor = afterId;
+        while (ids.size() < limit) {
+            final long[] batch = candidates.next(cursor, CANDIDATE_BATCH_SIZE);
+            if (batch.length == 0) {
+                break;
+            }
+            toLongs(bookingRepository.findIdsByIdInAndPriceBetween(toList(batch), minPrice, maxPrice)).stream()
+                    .sorted()
+                    .forEach(ids::add);
+            cursor = batch[batch.length - 1];
+        }
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
+
+    private static void validate(BookingFilter filter) {
+        if (filter.getHotelIds() == null && filter.getCurrencies() == null && filter.getRatings() == null
+                && !filter.hasPaxRange() && !filter.hasPriceRange()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No booking filter, list all bookings with GET /bookings?limit=");
+        }
+        if (filter.getMinPax() != null && filter.getMaxPax() != null && filter.getMinPax() > filter.getMaxPax()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid pax range: " + filter.getMinPax() + " to " + filter.getMaxPax());
+        }
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid price range: " + filter.getMinPrice() + " to " + filter.getMaxPrice());
+        }
+    }
+
+    private static List<Long> toList(long[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toList());
+    }
+
+    private static List<Long> toLongs(List<Number> ids) {
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+}
@@ -1,32 +1,104 @@
 package com.hotelcorp.business;
 
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
 import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingRepricing;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
 import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.CursorPage;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelBookingStatistics;
+import com.hotelcorp.data.ScaledAmount;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
 
     private HotelService hotelService;
     private BookingRepository bookingRepository;
+    private BookingIndexes bookingIndexes;
+    private HotelRevenueService hotelRevenueService;
+    private CustomerNameIndex customerNameIndex;
+    private HotelCapacityAllocator hotelCapacityAllocator;
+    private FxRateService fxRateService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${hotel-demo.paging.max-page-size:" + CursorPaging.DEFAULT_MAX_PAGE_SIZE + "}")
+    private int maxPageSize = CursorPaging.DEFAULT_MAX_PAGE_SIZE;
+
+    @Value("${hotel-demo.bookings.batch.chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    @Value("${hotel-demo.bookings.reprice.chunk-size:1000}")
+    private int repriceChunkSize = 1000;
+
+    @Value("${hotel-demo.search.default-limit:20}")
+    private int defaultSearchLimit = 20;
 
     @Autowired
-    BookingService(HotelService hotelService, BookingRepository bookingRepository) {
+    BookingService(HotelService hotelService,
+                   BookingRepository bookingRepository,
+                   BookingIndexes bookingIndexes,
+                   HotelRevenueService hotelRevenueService,
+                   CustomerNameIndex customerNameIndex,
+                   HotelCapacityAllocator hotelCapacityAllocator,
+                   FxRateService fxRateService,
+                   EntityManager entityManager,
+                   PlatformTransactionManager transactionManager) {
         this.hotelService = hotelService;
         this.bookingRepository = bookingRepository;
+        this.bookingIndexes = bookingIndexes;
+        this.hotelRevenueService = hotelRevenueService;
+        this.customerNameIndex = customerNameIndex;
+        this.hotelCapacityAllocator = hotelCapacityAllocator;
+        this.fxRateService = fxRateService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Iterable<Booking> getAllBookings() {
         return bookingRepository.findAll();
     }
 
+    public CursorPage<Booking> getBookings(Long after, Integer limit) {
+        final int pageSize = CursorPaging.pageSize(limit, maxPageSize);
+        return CursorPaging.toPage(
+                bookingRepository.findByIdGreaterThanOrderById(CursorPaging.afterId(after), CursorPaging.probeRequest(pageSize)),
+                pageSize,
+                Booking::getId);
+    }
+
     public Iterable<Booking> getBookingsForCustomer(String lastName) {
         return bookingRepository.findByCustomerLastName(lastName);
     }
@@ -36,35 +108,204 @@ public class BookingService {
                 .orElseThrow(() -> bookingNotFoundException(id));
     }
 
+    /**
+     * Resolves the hotel, creating it when new, before the booking transaction is opened: creating a hotel takes a
+     * connection of its own, which must not be waited for while holding the one of the booking.
+     */
     public Booking createBooking(Booking booking) {
-        Hotel bookingHotel = booking.getHotel();
-        Optional<Hotel> optionalHotel = hotelService.getHotelByIdOrName(bookingHotel);
-
-        Hotel hotel = optionalHotel.orElseGet(() -> hotelService.createHotel(bookingHotel)); // create hotel if new
+        validateStay(booking.getCheckIn(), booking.getCheckOut());
+        Hotel hotel = hotelService.getOrCreateHotel(booking.getHotel()); // create hotel if new
         booking.setHotel(hotel);
-        return bookingRepository.save(booking);
+        return transactionTemplate.execute(status -> {
+            reserve(booking, null);
+            Booking created = bookingRepository.save(booking);
+            bookingIndexes.recordCreated(List.of(created));
+            return created;
+        });
+    }
+
+    /**
+     * Creates the given bookings in chunks, one transaction per chunk with batched inserts.
+     * <p>
+     * Hotels are resolved (and created when new) once per distinct id or name of the request.
+     * Invalid bookings are rejected without failing the others. When the database refuses a chunk,
+     * its bookings are retried one by one so that only the offending ones fail.
+     *
+     * @return one result per booking, in request order
+     */
+    public List<BookingBatchResult> createBookings(Iterator<Booking> bookings) {
+        final List<BookingBatchResult> results = new ArrayList<>();
+        final Map<Object, Hotel> resolvedHotels = new HashMap<>();
+        final Map<Object, String> unresolvedHotels = new HashMap<>();
+        final List<Booking> chunk = new ArrayList<>(batchChunkSize);
+        final List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+
+        int index = 0;
+        while (bookings.hasNext()) {
+            final int bookingIndex = index++;
+            final Booking booking = bookings.next();
+
+            final String invalidReason = validateForBatch(booking);
+            if (invalidReason != null) {
+                results.add(BookingBatchResult.rejected(bookingIndex, invalidReason));
+                continue;
+            }
+
+            final Object hotelKey = booking.getHotel().getId() != null
+                    ? booking.getHotel().getId()
+                    : booking.getHotel().getName();
+            if (unresolvedHotels.containsKey(hotelKey)) {
+                results.add(BookingBatchResult.rejected(bookingIndex, unresolvedHotels.get(hotelKey)));
+                continue;
+            }
+            try {
+                booking.setHotel(resolvedHotels.computeIfAbsent(hotelKey, k -> resolveBatchHotel(booking.getHotel())));
+            } catch (ResponseStatusException e) {
+                unresolvedHotels.put(hotelKey, e.getReason());
+                results.add(BookingBatchResult.rejected(bookingIndex, e.getReason()));
+                continue;
+            }
+
+            booking.setId(null); // always a new booking
+            booking.setVersion(null);
+            chunk.add(booking);
+            chunkIndexes.add(bookingIndex);
+            if (chunk.size() == batchChunkSize) {
+                persistChunk(chunk, chunkIndexes, results);
+            }
+        }
+        persistChunk(chunk, chunkIndexes, results);
+
+        results.sort(Comparator.comparingInt(BookingBatchResult::getIndex));
+        return results;
     }
 
+    @Transactional
     public Booking updateBooking(Booking newBooking, Long id) {
+        return updateBooking(newBooking, id, null);
+    }
+
+    /**
+     * @param expectedVersion version the update was based on, null to update whatever version is current
+     */
+    @Transactional
+    public Booking updateBooking(Booking newBooking, Long id, Long expectedVersion) {
         return bookingRepository.findById(id)
                 .map(b -> {
+                    if (expectedVersion != null && !expectedVersion.equals(b.getVersion())) {
+                        throw bookingModifiedException(id, b.getVersion());
+                    }
+                    validateStay(newBooking.getCheckIn() != null ? newBooking.getCheckIn() : b.getCheckIn(),
+                            newBooking.getCheckOut() != null ? newBooking.getCheckOut() : b.getCheckOut());
                     // update
                     if (newBooking.getHotel() != null) {
                         // check for valid hotel update info
                         Optional<Hotel> optionalHotel = hotelService.getHotelByIdOrName(newBooking.getHotel());
                         newBooking.setHotel(optionalHotel.orElse(null));
                     }
+                    Booking before = b.copy();
                     b.updateNonNullValues(newBooking);
-                    return bookingRepository.save(b);
+                    if (affectsOccupancy(newBooking) || newBooking.getHotel() != null) {
+                        reserve(b, id);
+                    }
+                    Booking updated = bookingRepository.save(b);
+                    bookingIndexes.recordUpdated(before, updated);
+                    return updated;
                 })
                 .orElseThrow(() -> bookingNotFoundException(id));
     }
 
+    /**
+     * Sets the given non-null fields with a single UPDATE, without loading the booking and its hotel first.
+     * The values it replaces are read beforehand for the customer indexes, the booking sketches, the hotel revenue and
+     * the occupancy index.
+     *
+     * @param expectedVersion version the update was based on, null to update whatever version is current
+     * @return the number of updated bookings
+     */
+    @Transactional
+    public int patchBooking(Booking patch, Long id, Long expectedVersion) {
+        Hotel hotel = null;
+        if (patch.getHotel() != null) {
+            // like updateBooking, a hotel that cannot be found is left unchanged
+            hotel = hotelService.getHotelByIdOrName(patch.getHotel()).orElse(null);
+        }
+        final Booking values = new Booking(patch.getCustomerName(), patch.getCustomerLastName(), patch.getNumberOfPax(),
+                patch.getPrice(), patch.getCurrency(), patch.getCheckIn(), patch.getCheckOut(), hotel);
+        if (values.getCustomerName() == null && values.getCustomerLastName() == null
+                && !affectsRevenue(values) && !affectsOccupancy(values)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No booking fields to update");
+        }
+
+        final BookingSnapshot before = bookingRepository.findSnapshotById(id)
+                .orElseThrow(() -> bookingNotFoundException(id));
+        if (expectedVersion != null && !expectedVersion.equals(before.getVersion())) {
+            throw bookingModifiedException(id, before.getVersion());
+        }
+        final BookingSnapshot after = before.updatedWith(values);
+        validateStay(after.getCheckIn(), after.getCheckOut());
+        if (affectsOccupancy(values) || values.getHotel() != null) {
+            final Integer capacity = (hotel != null ? hotel : hotelService.getHotelById(after.getHotelId())).getCapacity();
+            hotelCapacityAllocator.reserve(after.getHotelId(), capacity, after.getCheckIn(), after.getCheckOut(),
+                    after.getNumberOfPax() != null ? after.getNumberOfPax() : 0, id);
+        }
+        // guarded by the version read, so that revenue and index move away from the values actually replaced
+        final int updated = bookingRepository.updateNonNullValues(id, before.getVersion(), values);
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Booking with id: " + id + " has been modified concurrently");
+        }
+        bookingIndexes.recordUpdated(id, before, values);
+        return updated;
+    }
+
+    @Transactional
     public void deleteBooking(Long id) {
-        if (!bookingRepository.existsById(id)) {
-            throw bookingNotFoundException(id);
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> bookingNotFoundException(id));
+        bookingRepository.delete(booking);
+        bookingIndexes.recordDeleted(booking);
+    }
+
+    /**
+     * Reprices the bookings of a hotel in a currency with one UPDATE per chunk of bookings, each chunk in its own
+     * transaction together with the revenue and index changes it makes. The bookings of a chunk are locked by id as
+     * their prices are read, right before the update. Chunks committed before a failure stay repriced.
+     *
+     * @return the number of repriced bookings
+     */
+    public long repriceBookings(BookingRepricing repricing) {
+        validateRepricing(repricing);
+        hotelService.getHotelById(repricing.getHotelId()); // not found when unknown
+        final BigDecimal factor = repricing.getFactor() != null ? repricing.getFactor() : BigDecimal.ONE;
+        final BigDecimal delta = repricing.getDelta() != null ? repricing.getDelta() : BigDecimal.ZERO;
+
+        // repricing keeps the order of prices, checking the bounds of the range checks all of them
+        final BigDecimal[] range = bookingRepository.findPriceRangeToReprice(repricing);
+        if (range == null) {
+            return 0;
+        }
+        for (BigDecimal price : range) {
+            final BigDecimal repriced = reprice(price, factor, delta);
+            if (repriced.compareTo(Booking.MIN_PRICE) < 0 || repriced.compareTo(Booking.MAX_PRICE) > 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Repricing " + price + " gives " + repriced + ", prices range from "
+                                + Booking.MIN_PRICE + " to " + Booking.MAX_PRICE);
+            }
+        }
+
+        long repriced = 0;
+        long afterId = CursorPaging.afterId(null);
+        while (true) {
+            final List<Long> ids = bookingRepository.findIdsToReprice(repricing, afterId, repriceChunkSize);
+            if (ids.isEmpty()) {
+                return repriced;
+            }
+            repriced += transactionTemplate.execute(status -> repriceChunk(repricing, ids, factor, delta));
+            if (ids.size() < repriceChunkSize) {
+                return repriced;
+            }
+            afterId = ids.get(ids.size() - 1);
         }
-        bookingRepository.deleteById(id);
     }
 
     public Iterable<Booking> getBookingsForHotel(Long hotelId) {
@@ -75,11 +316,406 @@ public class BookingService {
         return bookingRepository.findByHotelName(hotelName);
     }
 
+    public CursorPage<Booking> getBookingsForHotel(Long hotelId, Long after, Integer limit) {
+        final int pageSize = CursorPaging.pageSize(limit, maxPageSize);
+        return CursorPaging.toPage(
+                bookingRepository.findByHotelIdAndIdGreaterThanOrderById(hotelId, CursorPaging.afterId(after), CursorPaging.probeRequest(pageSize)),
+                pageSize,
+                Booking::getId);
+    }
+
+    public CursorPage<Booking> getBookingsForHotel(String hotelName, Long after, Integer limit) {
+        final int pageSize = CursorPaging.pageSize(limit, maxPageSize);
+        return CursorPaging.toPage(
+                bookingRepository.findByHotelNameAndIdGreaterThanOrderById(hotelName, CursorPaging.afterId(after), CursorPaging.probeRequest(pageSize)),
+                pageSize,
+                Booking::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllBookings(Consumer<Booking> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamAll()) {
+            forEachDetached(bookings, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBookingsForHotel(Long hotelId, Consumer<Booking> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamByHotelId(hotelId)) {
+            forEachDetached(bookings, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBookingsForHotel(String hotelName, Consumer<Booking> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamByHotelName(hotelName)) {
+            forEachDetached(bookings, consumer);
+        }
+    }
+
+    // summaries: flat projections in read-only transactions, nothing enters the persistence context
+
+    @Transactional(readOnly = true)
+    public Iterable<BookingSummary> getBookingSummariesForHotel(Long hotelId) {
+        return bookingRepository.findSummariesByHotelId(hotelId);
+    }
+
+    @Transactional(readOnly = true)
+    public Iterable<BookingSummary> getBookingSummariesForHotel(String hotelName) {
+        return bookingRepository.findSummariesByHotelName(hotelName);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookingSummary> getBookingSummariesForHotel(Long hotelId, Long after, Integer limit) {
+        final int pageSize = CursorPaging.pageSize(limit, maxPageSize);
+        return CursorPaging.toPage(
+                bookingRepository.findSummariesByHotelIdAndIdGreaterThan(hotelId, CursorPaging.afterId(after), CursorPaging.probeRequest(pageSize)),
+                pageSize,
+                BookingSummary::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookingSummary> getBookingSummariesForHotel(String hotelName, Long after, Integer limit) {
+        final int pageSize = CursorPaging.pageSize(limit, maxPageSize);
+        return CursorPaging.toPage(
+                bookingRepository.findSummariesByHotelNameAndIdGreaterThan(hotelName, CursorPaging.afterId(after), CursorPaging.probeRequest(pageSize)),
+                pageSize,
+                BookingSummary::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBookingSummariesForHotel(Long hotelId, Consumer<BookingSummary> consumer) {
+        try (Stream<BookingSummary> summaries = bookingRepository.streamSummariesByHotelId(hotelId)) {
+            summaries.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBookingSummariesForHotel(String hotelName, Consumer<BookingSummary> consumer) {
+        try (Stream<BookingSummary> summaries = bookingRepository.streamSummariesByHotelName(hotelName)) {
+            summaries.forEach(consumer);
+        }
+    }
+
+    // customer search: ranked booking ids from the customer name index, the bookings by primary key
+
+    @Transactional(readOnly = true)
+    public List<BookingSummary> searchBookingSummariesByCustomerLastNamePrefix(String prefix, Integer limit) {
+        final List<Long> ids = customerNameIndex.findByLastNamePrefix(searchTerm(prefix), searchLimit(limit));
+        return inOrderOf(ids, ids.isEmpty() ? List.of() : bookingRepository.findSummariesByIdIn(ids), BookingSummary::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Booking> searchBookingsByCustomerLastNamePrefix(String prefix, Integer limit) {
+        final List<Long> ids = customerNameIndex.findByLastNamePrefix(searchTerm(prefix), searchLimit(limit));
+        return inOrderOf(ids, ids.isEmpty() ? List.of() : bookingRepository.findByIdIn(ids), Booking::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookingSummary> searchBookingSummariesByCustomer(String query, Integer limit) {
+        final List<Long> ids = customerNameIndex.search(searchTerm(query), searchLimit(limit));
+        return inOrderOf(ids, ids.isEmpty() ? List.of() : bookingRepository.findSummariesByIdIn(ids), BookingSummary::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Booking> searchBookingsByCustomer(String query, Integer limit) {
+        final List<Long> ids = customerNameIndex.search(searchTerm(query), searchLimit(limit));
+        return inOrderOf(ids, ids.isEmpty() ? List.of() : bookingRepository.findByIdIn(ids), Booking::getId);
+    }
+
     public Iterable<BookingPriceStatistics> getBookingStatsForHotel(Long hotelId) {
-        return bookingRepository.findSumAmountForHotel(hotelId);
+        return hotelRevenueService.getRevenueForHotel(hotelId);
+    }
+
+    /**
+     * Booking statistics per hotel and currency, of all hotels or of the given ones only.
+     */
+    public Iterable<HotelBookingStatistics> getBookingStats(Collection<Long> hotelIds) {
+        if (hotelIds == null) {
+            return bookingRepository.findStatisticsPerHotel();
+        }
+        if (hotelIds.isEmpty()) {
+            return List.of();
+        }
+        return bookingRepository.findStatisticsPerHotel(hotelIds);
+    }
+
+    // converted statistics: the rates are resolved once per request, then applied in a single pass over the rows
+
+    /**
+     * The revenue of the hotel in the reporting currency. Revenue in currencies without a rate, or in no currency,
+     * is listed as is after it.
+     */
+    public Iterable<BookingPriceStatistics> getBookingStatsForHotel(Long hotelId, String reportingCurrency) {
+        final Map<String, BigDecimal> factors = fxRateService.factorsTo(reportingCurrency);
+        BigDecimal sumAmount = null;
+        final List<BookingPriceStatistics> unconverted = new ArrayList<>();
+        for (BookingPriceStatistics revenue : hotelRevenueService.getRevenueForHotel(hotelId)) {
+            final BigDecimal factor = revenue.getCurrency() != null ? factors.get(revenue.getCurrency()) : null;
+            if (factor == null) {
+                unconverted.add(revenue);
+            } else if (revenue.getSumAmount() != null) {
+                sumAmount = add(sumAmount, revenue.getSumAmount().multiply(factor));
+            }
+        }
+        final List<BookingPriceStatistics> statistics = new ArrayList<>();
+        if (sumAmount != null) {
+            statistics.add(new BookingPriceStatistics(reportingCurrency, toAmount(sumAmount)));
+        }
+        statistics.addAll(unconverted);
+        return statistics;
+    }
+
+    /**
+     * Booking statistics per hotel in the reporting currency, of all hotels or of the given ones only.
+     * Statistics in currencies without a rate, or in no currency, are listed as is after those of their hotel.
+     */
+    public Iterable<HotelBookingStatistics> getBookingStats(Collection<Long> hotelIds, String reportingCurrency) {
+        final Map<String, BigDecimal> factors = fxRateService.factorsTo(reportingCurrency);
+        final List<HotelBookingStatistics> statistics = new ArrayList<>();
+        final List<HotelBookingStatistics> unconverted = new ArrayList<>();
+        ConvertedStatistics converted = null;
+        // rows come ordered by hotel
+        for (HotelBookingStatistics row : getBookingStats(hotelIds)) {
+            if (converted != null && !converted.hotelId.equals(row.getHotelId())) {
+                converted.addTo(statistics, reportingCurrency, unconverted);
+                converted = null;
+            }
+            if (converted == null) {
+                converted = new ConvertedStatistics(row.getHotelId(), row.getHotelName());
+            }
+            final BigDecimal factor = row.getCurrency() != null ? factors.get(row.getCurrency()) : null;
+            if (factor == null) {
+                unconverted.add(row);
+            } else {
+                converted.add(row, factor);
+            }
+        }
+        if (converted != null) {
+            converted.addTo(statistics, reportingCurrency, unconverted);
+        }
+        return statistics;
+    }
+
+    private String searchTerm(String term) {
+        if (term == null || term.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search term must not be blank");
+        }
+        return term;
+    }
+
+    private int searchLimit(Integer limit) {
+        return limit == null ? Math.min(defaultSearchLimit, maxPageSize) : CursorPaging.pageSize(limit, maxPageSize);
+    }
+
+    // rows in the order of the given ids, bookings deleted since they were found are left out
+    private static <T> List<T> inOrderOf(List<Long> ids, List<T> rows, Function<T, Long> idOf) {
+        final Map<Long, T> rowsById = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static BigDecimal add(BigDecimal sum, BigDecimal amount) {
+        return sum == null ? amount : sum.add(amount);
+    }
+
+    // at the scale of booking prices
+    private static BigDecimal toAmount(BigDecimal converted) {
+        return converted != null ? converted.setScale(3, RoundingMode.HALF_EVEN) : null;
+    }
+
+    // the statistics of one hotel in all currencies with a rate, added up in the reporting currency
+    private static final class ConvertedStatistics {
+        private final Long hotelId;
+        private final String hotelName;
+        private long bookingCount;
+        private long pricedCount;
+        private BigDecimal sumAmount;
+        private BigDecimal minAmount;
+        private BigDecimal maxAmount;
+
+        private ConvertedStatistics(Long hotelId, String hotelName) {
+            this.hotelId = hotelId;
+            this.hotelName = hotelName;
+        }
+
+        private void add(HotelBookingStatistics row, BigDecimal factor) {
+            bookingCount += row.getBookingCount();
+            pricedCount += row.getPricedCount();
+            if (row.getSumAmount() != null) {
+                sumAmount = BookingService.add(sumAmount, row.getSumAmount().multiply(factor));
+                // rates are positive, converting keeps the order of amounts
+                final BigDecimal min = row.getMinAmount().multiply(factor);
+                final BigDecimal max = row.getMaxAmount().multiply(factor);
+                minAmount = minAmount == null ? min : minAmount.min(min);
+                maxAmount = maxAmount == null ? max : maxAmount.max(max);
+            }
+        }
+
+        // the converted statistics, if any currency had a rate, followed by the unconverted ones
+        private void addTo(List<HotelBookingStatistics> statistics, String reportingCurrency,
+                           List<HotelBookingStatistics> unconverted) {
+            if (bookingCount > 0) {
+                statistics.add(new HotelBookingStatistics(hotelId, hotelName, reportingCurrency, bookingCount, pricedCount,
+                        toAmount(sumAmount), toAmount(minAmount), toAmount(maxAmount)));
+            }
+            statistics.addAll(unconverted);
+            unconverted.clear();
+        }
+    }
+
+    private boolean affectsRevenue(Booking values) {
+        return values.getPrice() != null || values.getCurrency() != null || values.getHotel() != null;
+    }
+
+    private boolean affectsOccupancy(Booking values) {
+        return values.getNumberOfPax() != null || values.getCheckIn() != null || values.getCheckOut() != null;
+    }
+
+    // a stay with a valid hotel, checked against the capacity of the hotel
+    private void reserve(Booking booking, Long id) {
+        final Hotel hotel = booking.getHotel();
+        hotelCapacityAllocator.reserve(hotel.getId(), hotel.getCapacity(), booking.getCheckIn(), booking.getCheckOut(),
+                booking.getNumberOfPax() != null ? booking.getNumberOfPax() : 0, id);
+    }
+
+    private void validateStay(LocalDate checkIn, LocalDate checkOut) {
+        try {
+            Booking.validateStay(checkIn, checkOut);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * @return why the booking cannot be created without looking it up in the database, null when it may be
+     */
+    String validateForBatch(Booking booking) {
+        if (booking == null) {
+            return "Booking is empty";
+        }
+        if (booking.getCustomerName() == null || booking.getCustomerLastName() == null) {
+            return "Customer name and last name are required";
+        }
+        if (booking.getHotel() == null || (booking.getHotel().getId() == null && booking.getHotel().getName() == null)) {
+            return "Hotel id or name is required";
+        }
+        try {
+            Hotel.validateCapacity(booking.getHotel().getCapacity());
+            Booking.validateStay(booking.getCheckIn(), booking.getCheckOut());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private void validateRepricing(BookingRepricing repricing) {
+        if (repricing.getHotelId() == null || repricing.getCurrency() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Hotel id and currency are required");
+        }
+        if ((repricing.getFactor() == null) == (repricing.getDelta() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either a price factor or a price delta is required");
+        }
+        if (repricing.getFactor() != null && repricing.getFactor().signum() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Price factor must be positive: " + repricing.getFactor());
+        }
+        if (repricing.getMinPax() != null && repricing.getMaxPax() != null && repricing.getMinPax() > repricing.getMaxPax()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid pax range: " + repricing.getMinPax() + " to " + repricing.getMaxPax());
+        }
+    }
+
+    // bookings changed since their ids were read are repriced as they are now, or left out when no longer matching
+    private int repriceChunk(BookingRepricing repricing, List<Long> ids, BigDecimal factor, BigDecimal delta) {
+        final List<BookingSummary> before = bookingRepository.findSummariesToReprice(repricing, ids);
+        if (before.isEmpty()) {
+            return 0;
+        }
+        final List<BookingSummary> after = new ArrayList<>(before.size());
+        for (BookingSummary b : before) {
+            after.add(new BookingSummary(b.getId(), b.getCustomerName(), b.getCustomerLastName(), b.getNumberOfPax(),
+                    reprice(b.getPrice(), factor, delta), b.getCurrency(), b.getHotelId(), b.getVersion() + 1));
+        }
+        final int updated = bookingRepository.repriceByIdIn(
+                after.stream().map(BookingSummary::getId).collect(Collectors.toList()), factor, delta);
+        bookingIndexes.recordRepriced(before, after);
+        return updated;
+    }
+
+    // as BookingRepository.repriceByIdIn rounds in the database
+    private static BigDecimal reprice(BigDecimal price, BigDecimal factor, BigDecimal delta) {
+        return price.multiply(factor).add(delta).setScale(ScaledAmount.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private Hotel resolveBatchHotel(Hotel bookingHotel) {
+        if (bookingHotel.getName() == null) {
+            // a bare id cannot be used to create a hotel
+            return hotelService.getHotelById(bookingHotel.getId());
+        }
+        return hotelService.getOrCreateHotel(bookingHotel); // create hotel if new
+    }
+
+    private void persistChunk(List<Booking> chunk, List<Integer> chunkIndexes, List<BookingBatchResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            // the chunk and the revenue it adds are committed together
+            transactionTemplate.execute(status -> {
+                hotelCapacityAllocator.lockHotels(chunk.stream().map(b -> b.getHotel().getId()).collect(Collectors.toSet()));
+                chunk.forEach(b -> reserve(b, null));
+                final Iterable<Booking> saved = bookingRepository.saveAll(chunk);
+                bookingIndexes.recordCreated(saved);
+                return null;
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BookingBatchResult.created(chunkIndexes.get(i), chunk.get(i).getId()));
+            }
+        } catch (DataAccessException | ResponseStatusException e) {
+            // the whole chunk was rolled back, retry the bookings one by one to isolate the failing ones
+            for (int i = 0; i < chunk.size(); i++) {
+                final Booking booking = chunk.get(i);
+                booking.setId(null);
+                booking.setVersion(null);
+                try {
+                    final Booking created = transactionTemplate.execute(status -> {
+                        reserve(booking, null);
+                        final Booking saved = bookingRepository.save(booking);
+                        bookingIndexes.recordCreated(List.of(saved));
+                        return saved;
+                    });
+                    results.add(BookingBatchResult.created(chunkIndexes.get(i), created.getId()));
+                } catch (DataAccessException ex) {
+                    results.add(BookingBatchResult.failed(chunkIndexes.get(i),
+                            NestedExceptionUtils.getMostSpecificCause(ex).getMessage()));
+                } catch (ResponseStatusException ex) {
+                    results.add(BookingBatchResult.rejected(chunkIndexes.get(i), ex.getReason()));
+                }
+            }
+        } finally {
+            // keep the persistence context from growing with the batch
+            entityManager.clear();
+            chunk.clear();
+            chunkIndexes.clear();
+        }
+    }
+
+    // hand each row over and evict it right away, so the persistence context does not grow with the result
+    private void forEachDetached(Stream<Booking> bookings, Consumer<Booking> consumer) {
+        bookings.forEach(b -> {
+            consumer.accept(b);
+            entityManager.detach(b);
+        });
     }
 
     private RuntimeException bookingNotFoundException(Long id) {
         return new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking with id: " + id + " does not exist");
     }
+
+    private RuntimeException bookingModifiedException(Long id, Long version) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Booking with id: " + id + " has been modified" + (version != null ? ", current version: " + version : ""));
+    }
 }
@@ -0,0 +1,263 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.HotelBookingSketches;
+import com.hotelcorp.data.HotelRevenue;
+import com.hotelcorp.data.PriceQuantiles;
+import com.hotelcorp.data.ScaledAmount;
+import com.hotelcorp.data.TopCustomer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sketches of the bookings of every hotel in every currency, kept as bookings are written and merged per hotel
+ * when read: {@link DDSketch} of the prices, {@link HyperLogLog} of the distinct customers and {@link CountMinSketch}
+ * of the bookings per customer, with the customers it counts most as candidates for the top customers.
+ * See {@link HotelBookingSketches} for their error bounds.
+ * <p>
+ * The record methods must be called in the transaction that writes the bookings; the sketches change once it commits.
+ */
+@Service
+public class BookingSketchIndex {
+
+    static final double PRICE_ACCURACY = 0.01;
+    // standard error 1.04 / sqrt(2^11) = 2.3%
+    static final int CUSTOMER_PRECISION = 11;
+    // overestimates by e / 256 = 1.1% of the bookings at most, with probability 1 - e^-4 = 98%
+    static final int COUNT_DEPTH = 4;
+    static final int COUNT_WIDTH = 256;
+
+    static final int DEFAULT_TOP_CUSTOMERS = 10;
+    static final int MAX_TOP_CUSTOMERS = 20;
+    // tracked per hotel and currency, more than asked for so that the top of the merged currencies is among them
+    private static final int TOP_CANDIDATES = 2 * MAX_TOP_CUSTOMERS;
+
+    // joins first and last name in a customer key, not part of any name
+    private static final char NAME_SEPARATOR = '\u001F';
+
+    private final BookingRepository bookingRepository;
+
+    // replaced as a whole when loaded; by hotel, then by currency
+    private volatile Map<Long, Map<String, Sketches>> sketchesByHotel = new ConcurrentHashMap<>();
+
+    @Autowired
+    BookingSketchIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * @param top number of top customers, {@value #DEFAULT_TOP_CUSTOMERS} when null
+     * @throws ResponseStatusException BAD_REQUEST when asking for more than {@value #MAX_TOP_CUSTOMERS} top customers
+     */
+    public HotelBookingSketches getSketches(Long hotelId, Integer top) {
+        final int size = top != null ? top : DEFAULT_TOP_CUSTOMERS;
+        if (size < 0 || size > MAX_TOP_CUSTOMERS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid number of top customers: " + size + ". Use values [0, " + MAX_TOP_CUSTOMERS + "]");
+        }
+        long bookingCount = 0;
+        final HyperLogLog customers = new HyperLogLog(CUSTOMER_PRECISION);
+        final CountMinSketch bookingsPerCustomer = new CountMinSketch(COUNT_DEPTH, COUNT_WIDTH);
+        final Set<String> candidates = new HashSet<>();
+        final List<PriceQuantiles> prices = new ArrayList<>();
+        // in currency order, the one of bookings without a currency first
+        for (Map.Entry<String, Sketches> entry : new TreeMap<>(sketchesByHotel.getOrDefault(hotelId, Map.of())).entrySet()) {
+            final Sketches sketches = entry.getValue();
+            synchronized (sketches) {
+                bookingCount += sketches.bookingCount;
+                customers.merge(sketches.customers);
+                bookingsPerCustomer.merge(sketches.bookingsPerCustomer);
+                candidates.addAll(sketches.topCandidates.keySet());
+                if (sketches.prices.count() > 0) {
+                    prices.add(new PriceQuantiles(HotelRevenue.NO_CURRENCY.equals(entry.getKey()) ? null : entry.getKey(),
+                            sketches.prices.count(),
+                            price(sketches.prices.quantile(0.50)),
+                            price(sketches.prices.quantile(0.95)),
+                            price(sketches.prices.quantile(0.99))));
+                }
+            }
+        }
+        final List<TopCustomer> topCustomers = candidates.stream()
+                .map(c -> Map.entry(c, bookingsPerCustomer.estimate(hash(c))))
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(size)
+                .map(e -> topCustomer(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+        return new HotelBookingSketches(hotelId, bookingCount, bookingCount > 0 ? customers.estimate() : 0, prices, topCustomers);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final List<Change> changes = new ArrayList<>();
+        bookings.forEach(b -> changes.add(new Change(BookingSnapshot.of(b), 1)));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        recordUpdated(BookingSnapshot.of(before), BookingSnapshot.of(after));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(BookingSnapshot before, BookingSnapshot after) {
+        afterCommit(List.of(new Change(before, -1), new Change(after, 1)));
+    }
+
+    /**
+     * @param after the bookings of {@code before}, in the same order, as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(List<BookingSummary> before, List<BookingSummary> after) {
+        final List<Change> changes = new ArrayList<>();
+        before.forEach(b -> changes.add(new Change(BookingSnapshot.of(b), -1)));
+        after.forEach(b -> changes.add(new Change(BookingSnapshot.of(b), 1)));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        afterCommit(List.of(new Change(BookingSnapshot.of(booking), -1)));
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final Map<Long, Map<String, Sketches>> loaded = new ConcurrentHashMap<>();
+        try (Stream<BookingSummary> summaries = bookingRepository.streamSummaries()) {
+            summaries.forEach(s -> apply(loaded, s.getHotelId(), s.getCurrency(), s.getPrice(),
+                    customerKey(s.getCustomerName(), s.getCustomerLastName()), 1));
+        }
+        sketchesByHotel = loaded;
+    }
+
+    private void afterCommit(List<Change> changes) {
+        TransactionCallbacks.afterCommit(() -> {
+            final Map<Long, Map<String, Sketches>> current = sketchesByHotel;
+            changes.forEach(c -> apply(current, c.booking.getHotelId(), c.booking.getCurrency(), c.booking.getPrice(),
+                    customerKey(c.booking.getCustomerName(), c.booking.getCustomerLastName()), c.sign));
+        });
+    }
+
+    private static void apply(Map<Long, Map<String, Sketches>> sketchesByHotel, Long hotelId, String currency,
+                              BigDecimal price, String customer, int sign) {
+        sketchesByHotel.computeIfAbsent(hotelId, h -> new ConcurrentHashMap<>())
+                .computeIfAbsent(currency != null ? currency : HotelRevenue.NO_CURRENCY, c -> new Sketches())
+                .add(price, customer, sign);
+    }
+
+    private static String customerKey(String customerName, String customerLastName) {
+        return (customerName != null ? customerName : "") + NAME_SEPARATOR + (customerLastName != null ? customerLastName : "");
+    }
+
+    private static TopCustomer topCustomer(String customer, long bookingCount) {
+        final int separator = customer.indexOf(NAME_SEPARATOR);
+        final String customerName = customer.substring(0, separator);
+        final String customerLastName = customer.substring(separator + 1);
+        return new TopCustomer(customerName.isEmpty() ? null : customerName,
+                customerLastName.isEmpty() ? null : customerLastName, bookingCount);
+    }
+
+    private static BigDecimal price(Double value) {
+        return BigDecimal.valueOf(value).setScale(ScaledAmount.SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    // 64-bit FNV-1a of the characters, with the MurmurHash3 finalizer to spread it over every bit
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Change {
+        private final BookingSnapshot booking;
+        private final int sign;
+
+        private Change(BookingSnapshot booking, int sign) {
+            this.booking = booking;
+            this.sign = sign;
+        }
+    }
+
+    /**
+     * The sketches of the bookings of a hotel in one currency.
+     */
+    private static final class Sketches {
+        private final DDSketch prices = new DDSketch(PRICE_ACCURACY);
+        private final HyperLogLog customers = new HyperLogLog(CUSTOMER_PRECISION);
+        private final CountMinSketch bookingsPerCustomer = new CountMinSketch(COUNT_DEPTH, COUNT_WIDTH);
+        // the customers counted most, with their count when last estimated
+        private final Map<String, Long> topCandidates = new HashMap<>();
+        private long bookingCount;
+
+        private synchronized void add(BigDecimal price, String customer, int sign) {
+            final long hash = hash(customer);
+            bookingCount += sign;
+            if (price != null) {
+                if (sign > 0) {
+                    prices.add(price.doubleValue());
+                } else {
+                    prices.remove(price.doubleValue());
+                }
+            }
+            if (sign > 0) {
+                // a removed customer stays counted, a HyperLogLog cannot forget
+                customers.add(hash);
+            }
+            bookingsPerCustomer.add(hash, sign);
+            updateCandidates(customer, bookingsPerCustomer.estimate(hash));
+        }
+
+        private void updateCandidates(String customer, long estimate) {
+            if (topCandidates.containsKey(customer) || topCandidates.size() < TOP_CANDIDATES) {
+                if (estimate > 0) {
+                    topCandidates.put(customer, estimate);
+                } else {
+                    topCandidates.remove(customer);
+                }
+                return;
+            }
+            // estimated again, the counts of the candidates only grow with the collisions of other customers
+            topCandidates.replaceAll((c, e) -> bookingsPerCustomer.estimate(hash(c)));
+            final Map.Entry<String, Long> lowest = topCandidates.entrySet().stream()
+                    .min(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry::getKey, Comparator.reverseOrder()))
+                    .orElseThrow();
+            if (estimate > lowest.getValue()) {
+                topCandidates.remove(lowest.getKey());
+                topCandidates.put(customer, estimate);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.CacheEvictionCounters;
+import com.hotelcorp.data.CacheRegions;
+import com.hotelcorp.data.CacheStatistics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class CacheStatisticsService {
+
+    private static final List<String> REGIONS = List.of(CacheRegions.HOTEL, CacheRegions.HOTEL_BY_NAME);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheEvictionCounters evictionCounters;
+
+    @Autowired
+    CacheStatisticsService(EntityManagerFactory entityManagerFactory, CacheEvictionCounters evictionCounters) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.evictionCounters = evictionCounters;
+    }
+
+    public Iterable<CacheStatistics> getCacheStatistics() {
+        final var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return REGIONS.stream()
+                .map(region -> toCacheStatistics(region, statistics.getCacheRegionStatistics(region)))
+                .collect(Collectors.toList());
+    }
+
+    private CacheStatistics toCacheStatistics(String region, CacheRegionStatistics regionStatistics) {
+        final boolean used = regionStatistics != null;
+        return new CacheStatistics(region,
+                used ? regionStatistics.getHitCount() : 0,
+                used ? regionStatistics.getMissCount() : 0,
+                used ? regionStatistics.getPutCount() : 0,
+                evictionCounters.getEvictions(region),
+                evictionCounters.getExpirations(region),
+                used ? Math.max(regionStatistics.getElementCountInMemory(), 0) : 0);
+    }
+}
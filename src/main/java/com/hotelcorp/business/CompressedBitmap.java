@@ -0,0 +1,469 @@
+package com.hotelcorp.business;
+
+import java.util.Arrays;
+
+/**
+ * Set of non-negative longs (booking ids) compressed the way Roaring bitmaps are: values are split by their high bits
+ * into chunks of 2^16, each held as a sorted array of its low 16 bits while it has at most {@value #ARRAY_MAX} values,
+ * and as a bitmap of 2^16 bits (8 KB) beyond. Sets are intersected and merged chunk by chunk, a word at a time
+ * between bitmaps.
+ * <p>
+ * The results of {@link #and}, {@link #or} and {@link #andNot} share nothing with their arguments. Not thread-safe.
+ */
+class CompressedBitmap {
+
+    // beyond, a chunk takes less room as a bitmap
+    static final int ARRAY_MAX = 4096;
+
+    // high bits of the chunks, ascending, and their low bits
+    private long[] keys = new long[0];
+    private Container[] containers = new Container[0];
+    private int chunks;
+
+    boolean add(long value) {
+        final long key = value >>> 16;
+        int chunk = chunk(key);
+        if (chunk < 0) {
+            chunk = -chunk - 1;
+            insertChunk(chunk, key, new ArrayContainer());
+        }
+        final int cardinality = containers[chunk].cardinality();
+        containers[chunk] = containers[chunk].add((char) value);
+        return containers[chunk].cardinality() > cardinality;
+    }
+
+    boolean remove(long value) {
+        final int chunk = chunk(value >>> 16);
+        if (chunk < 0) {
+            return false;
+        }
+        final int cardinality = containers[chunk].cardinality();
+        containers[chunk] = containers[chunk].remove((char) value);
+        final boolean removed = containers[chunk].cardinality() < cardinality;
+        if (containers[chunk].cardinality() == 0) {
+            removeChunk(chunk);
+        }
+        return removed;
+    }
+
+    boolean contains(long value) {
+        final int chunk = chunk(value >>> 16);
+        return chunk >= 0 && containers[chunk].contains((char) value);
+    }
+
+    long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < chunks; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return chunks == 0;
+    }
+
+    /**
+     * @return at most {@code limit} values greater than {@code after}, ascending
+     */
+    long[] next(long after, int limit) {
+        final long[] values = new long[limit];
+        int count = 0;
+        final long from = after + 1;
+        int chunk = chunk(from >>> 16);
+        int low = 0;
+        if (chunk >= 0) {
+            low = (int) (from & 0xFFFF);
+        } else {
+            chunk = -chunk - 1;
+        }
+        for (; chunk < chunks && count < limit; chunk++, low = 0) {
+            final Container container = containers[chunk];
+            for (int value = container.nextAtLeast(low); value >= 0 && count < limit; value = container.nextAtLeast(value + 1)) {
+                values[count++] = keys[chunk] << 16 | value;
+            }
+        }
+        return count == limit ? values : Arrays.copyOf(values, count);
+    }
+
+    CompressedBitmap copy() {
+        final CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, chunks);
+        copy.containers = new Container[chunks];
+        for (int i = 0; i < chunks; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.chunks = chunks;
+        return copy;
+    }
+
+    static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        final CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.chunks && j < b.chunks) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendChunk(a.keys[i], a.containers[i++].and(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        final CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.chunks || j < b.chunks) {
+            if (j == b.chunks || (i < a.chunks && a.keys[i] < b.keys[j])) {
+                result.appendChunk(a.keys[i], a.containers[i++].copy());
+            } else if (i == a.chunks || a.keys[i] > b.keys[j]) {
+                result.appendChunk(b.keys[j], b.containers[j++].copy());
+            } else {
+                result.appendChunk(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the values of {@code a} not in {@code b}
+     */
+    static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        final CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < a.chunks; i++) {
+            while (j < b.chunks && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            result.appendChunk(a.keys[i], j < b.chunks && b.keys[j] == a.keys[i]
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy());
+        }
+        return result;
+    }
+
+    private int chunk(long key) {
+        return Arrays.binarySearch(keys, 0, chunks, key);
+    }
+
+    // for keys greater than all present, empty containers are left out
+    private void appendChunk(long key, Container container) {
+        if (container.cardinality() == 0) {
+            return;
+        }
+        insertChunk(chunks, key, container);
+    }
+
+    private void insertChunk(int chunk, long key, Container container) {
+        if (chunks == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(4, chunks * 2));
+            containers = Arrays.copyOf(containers, keys.length);
+        }
+        System.arraycopy(keys, chunk, keys, chunk + 1, chunks - chunk);
+        System.arraycopy(containers, chunk, containers, chunk + 1, chunks - chunk);
+        keys[chunk] = key;
+        containers[chunk] = container;
+        chunks++;
+    }
+
+    private void removeChunk(int chunk) {
+        System.arraycopy(keys, chunk + 1, keys, chunk, chunks - chunk - 1);
+        System.arraycopy(containers, chunk + 1, containers, chunk, chunks - chunk - 1);
+        containers[--chunks] = null;
+    }
+
+    /**
+     * The low 16 bits of the values of a chunk. Changes return the container to use from then on,
+     * which is another kind of container once the cardinality crosses {@value #ARRAY_MAX}.
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        // the smallest value from the given one on, -1 when there is none
+        abstract int nextAtLeast(int value);
+
+        abstract Container copy();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            final int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int nextAtLeast(int value) {
+            if (value > 0xFFFF) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, (char) value);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < cardinality ? values[index] : -1;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            final char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            final ArrayContainer that = (ArrayContainer) other;
+            final char[] result = new char[cardinality + that.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < that.cardinality) {
+                if (j == that.cardinality || (i < cardinality && values[i] < that.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > that.values[j]) {
+                    result[count++] = that.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            final ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_MAX ? union.toBitmap() : union;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            final char[] result = new char[Math.max(1, cardinality)];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        private BitmapContainer toBitmap() {
+            final BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer() {
+            this(new long[1 << 10], 0);
+        }
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & 1L << value) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            if (!contains(value)) {
+                words[value >>> 6] |= 1L << value;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            if (contains(value)) {
+                words[value >>> 6] &= ~(1L << value);
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        int nextAtLeast(int value) {
+            if (value > 0xFFFF) {
+                return -1;
+            }
+            int word = value >>> 6;
+            long bits = words[word] & -1L << value;
+            while (bits == 0) {
+                if (++word == words.length) {
+                    return -1;
+                }
+                bits = words[word];
+            }
+            return word << 6 | Long.numberOfTrailingZeros(bits);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            final long[] that = ((BitmapContainer) other).words;
+            final long[] result = new long[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] & that[i];
+                count += Long.bitCount(result[i]);
+            }
+            return fit(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof ArrayContainer) {
+                final Container union = copy();
+                final ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0; i < that.cardinality; i++) {
+                    union.add(that.values[i]);
+                }
+                return union;
+            }
+            final long[] that = ((BitmapContainer) other).words;
+            final long[] result = new long[words.length];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                result[i] = words[i] | that[i];
+                count += Long.bitCount(result[i]);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            final long[] result = words.clone();
+            int count = cardinality;
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0; i < that.cardinality; i++) {
+                    final char value = that.values[i];
+                    if ((result[value >>> 6] & 1L << value) != 0) {
+                        result[value >>> 6] &= ~(1L << value);
+                        count--;
+                    }
+                }
+            } else {
+                final long[] that = ((BitmapContainer) other).words;
+                count = 0;
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= ~that[i];
+                    count += Long.bitCount(result[i]);
+                }
+            }
+            return fit(result, count);
+        }
+
+        private Container toArray() {
+            return fit(words, cardinality);
+        }
+
+        private static Container fit(long[] words, int cardinality) {
+            if (cardinality > ARRAY_MAX) {
+                return new BitmapContainer(words, cardinality);
+            }
+            final char[] values = new char[Math.max(1, cardinality)];
+            int count = 0;
+            for (int word = 0; word < words.length; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    values[count++] = (char) (word << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hotelcorp.business;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a transactional update and turns a concurrent modification of the same rows into 409 CONFLICT.
+ * <p>
+ * On request the update is run again, on the state committed in the meantime, up to a bounded number of attempts.
+ * Only meant for updates that apply the given fields onto whatever is current, so that re-running them
+ * keeps the other writer's changes.
+ */
+@Component
+public class ConcurrentUpdateRetrier {
+
+    @Value("${hotel-demo.updates.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /**
+     * @param update must start its own transaction, so that each attempt reads the current state
+     * @param retry  whether to re-run the update when it conflicts
+     */
+    public <T> T update(Supplier<T> update, boolean retry) {
+        final int attempts = retry ? maxAttempts : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= attempts) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Concurrent update, read the current version and retry", e);
+                }
+            }
+        }
+    }
+}
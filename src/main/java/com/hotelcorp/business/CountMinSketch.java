@@ -0,0 +1,69 @@
+package com.hotelcorp.business;
+
+/**
+ * Approximate counts of values (count-min): every value adds to one counter per row, its count is the smallest
+ * of them. With {@code depth} rows of {@code width} counters, a count exceeds the true one by at most
+ * {@code e / width} of the total with probability {@code 1 - e^-depth}, and is never below it while no value
+ * is removed more often than added. Values are counted by their 64-bit hash.
+ * Sketches of the same size merge into the sketch of all their values.
+ * <p>
+ * Not thread-safe.
+ */
+class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int[] counters;
+    private long total;
+
+    /**
+     * @param width a power of two
+     */
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Invalid size: " + depth + " x " + width + ". Use a power of two width");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new int[depth * width];
+    }
+
+    /**
+     * @param delta negative to remove
+     */
+    void add(long hash, int delta) {
+        for (int row = 0; row < depth; row++) {
+            counters[counter(hash, row)] += delta;
+        }
+        total += delta;
+    }
+
+    long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[counter(hash, row)]);
+        }
+        return estimate;
+    }
+
+    long total() {
+        return total;
+    }
+
+    void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different sizes");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    // one counter per row from the two halves of the hash (Kirsch-Mitzenmacher)
+    private int counter(long hash, int row) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        return row * width + ((h1 + row * h2) & (width - 1));
+    }
+}
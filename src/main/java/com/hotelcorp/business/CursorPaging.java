@@ -0,0 +1,50 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.CursorPage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Helpers for keyset pagination by primary key.
+ * <p>
+ * Pages are fetched with one extra row so that the existence of a next page can be
+ * detected without issuing a count query.
+ */
+final class CursorPaging {
+
+    static final int DEFAULT_MAX_PAGE_SIZE = 500;
+
+    private CursorPaging() {
+    }
+
+    static int pageSize(Integer limit, int maxPageSize) {
+        if (limit == null) {
+            return maxPageSize;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit: " + limit + ". Use values >= 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    static long afterId(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    static Pageable probeRequest(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    static <T> CursorPage<T> toPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        final List<T> items = List.copyOf(rows.subList(0, pageSize));
+        return new CursorPage<>(items, idOf.apply(items.get(pageSize - 1)));
+    }
+}
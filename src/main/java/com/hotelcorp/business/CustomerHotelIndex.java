@@ -0,0 +1,156 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.CustomerHotelBookings;
+import com.hotelcorp.data.CustomerHotelsDrift;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index from customer last name to the hotels booked under it, so that the hotels of a customer
+ * are found without reading their bookings.
+ * <p>
+ * Bookings are counted per hotel, a hotel leaves the index of a name with the last of its bookings.
+ * The record methods must be called in the transaction that writes the bookings; the index changes once it commits.
+ */
+@Service
+public class CustomerHotelIndex {
+
+    private final BookingRepository bookingRepository;
+
+    // the booking counts of a name are replaced as a whole, readers never see them half updated
+    private volatile ConcurrentHashMap<String, Map<Long, Long>> bookingsPerHotelByLastName = new ConcurrentHashMap<>();
+
+    @Autowired
+    CustomerHotelIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * @return the ids of the hotels with bookings of the given customer last name
+     */
+    public Set<Long> getHotelIds(String customerLastName) {
+        return bookingsPerHotelByLastName.getOrDefault(customerLastName, Map.of()).keySet();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final Map<String, Map<Long, Long>> deltas = new HashMap<>();
+        bookings.forEach(b -> addDelta(deltas, BookingSnapshot.of(b), 1));
+        applyAfterCommit(deltas);
+    }
+
+    /**
+     * @param before the booking as it was before the change (a copy, not the managed entity)
+     * @param after  the booking as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        recordUpdated(BookingSnapshot.of(before), BookingSnapshot.of(after));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(BookingSnapshot before, BookingSnapshot after) {
+        if (Objects.equals(before.getCustomerLastName(), after.getCustomerLastName())
+                && Objects.equals(before.getHotelId(), after.getHotelId())) {
+            return;
+        }
+        final Map<String, Map<Long, Long>> deltas = new HashMap<>();
+        addDelta(deltas, before, -1);
+        addDelta(deltas, after, 1);
+        applyAfterCommit(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        final Map<String, Map<Long, Long>> deltas = new HashMap<>();
+        addDelta(deltas, BookingSnapshot.of(booking), -1);
+        applyAfterCommit(deltas);
+    }
+
+    /**
+     * Compares the index with the bookings per customer last name and hotel counted in the database.
+     *
+     * @return the last names that differ, empty when consistent
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerHotelsDrift> verify() {
+        final Map<String, Map<Long, Long>> expected = count(bookingRepository.countByCustomerLastNameAndHotel());
+        final Map<String, Map<Long, Long>> actual = bookingsPerHotelByLastName;
+
+        final Set<String> lastNames = new HashSet<>(expected.keySet());
+        lastNames.addAll(actual.keySet());
+
+        final List<CustomerHotelsDrift> drifts = new ArrayList<>();
+        lastNames.stream().sorted().forEach(lastName -> {
+            if (!Objects.equals(expected.get(lastName), actual.get(lastName))) {
+                drifts.add(new CustomerHotelsDrift(lastName, expected.get(lastName), actual.get(lastName)));
+            }
+        });
+        return drifts;
+    }
+
+    /**
+     * Rebuilds the index from the bookings. Bookings committed while the rebuild runs may be missed,
+     * so besides startup it is meant for quiet periods or after {@link #verify()} reported a drift.
+     *
+     * @return the drift that was repaired
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerHotelsDrift> rebuild() {
+        final List<CustomerHotelsDrift> drifts = verify();
+        load();
+        return drifts;
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    public void load() {
+        bookingsPerHotelByLastName = count(bookingRepository.countByCustomerLastNameAndHotel());
+    }
+
+    private void addDelta(Map<String, Map<Long, Long>> deltas, BookingSnapshot snapshot, long sign) {
+        if (snapshot.getCustomerLastName() == null) {
+            return; // not searchable
+        }
+        deltas.computeIfAbsent(snapshot.getCustomerLastName(), k -> new HashMap<>())
+                .merge(snapshot.getHotelId(), sign, Long::sum);
+    }
+
+    private void applyAfterCommit(Map<String, Map<Long, Long>> deltas) {
+        TransactionCallbacks.afterCommit(() -> deltas.forEach((lastName, delta) ->
+                bookingsPerHotelByLastName.compute(lastName, (name, bookingsPerHotel) -> apply(bookingsPerHotel, delta))));
+    }
+
+    private static Map<Long, Long> apply(Map<Long, Long> bookingsPerHotel, Map<Long, Long> delta) {
+        final Map<Long, Long> updated = bookingsPerHotel != null ? new HashMap<>(bookingsPerHotel) : new HashMap<>();
+        delta.forEach((hotelId, count) -> updated.merge(hotelId, count, (a, b) -> a + b > 0 ? a + b : null));
+        updated.values().removeIf(count -> count <= 0);
+        return updated.isEmpty() ? null : Map.copyOf(updated);
+    }
+
+    private static ConcurrentHashMap<String, Map<Long, Long>> count(List<CustomerHotelBookings> bookings) {
+        final Map<String, Map<Long, Long>> counted = new HashMap<>();
+        bookings.forEach(b -> counted.computeIfAbsent(b.getCustomerLastName(), k -> new HashMap<>())
+                .put(b.getHotelId(), b.getBookingCount()));
+
+        final ConcurrentHashMap<String, Map<Long, Long>> index = new ConcurrentHashMap<>(counted.size());
+        counted.forEach((lastName, bookingsPerHotel) -> index.put(lastName, Map.copyOf(bookingsPerHotel)));
+        return index;
+    }
+}
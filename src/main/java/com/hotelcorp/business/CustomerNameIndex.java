@@ -0,0 +1,278 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingCustomerName;
+import com.hotelcorp.data.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index over the customer names of the bookings, to search bookings by partial name
+ * without scanning them. Names are matched case-insensitively.
+ * <p>
+ * Last names are kept sorted, so that the last names starting with a prefix are a range of them.
+ * Fuzzy queries match their words against the trigrams of the distinct names, which tolerates
+ * incomplete words and typos.
+ * The record methods must be called in the transaction that writes the bookings; the index changes once it commits.
+ */
+@Service
+public class CustomerNameIndex {
+
+    static final int DEFAULT_MAX_CANDIDATES = 10_000;
+
+    // share of the trigrams of a query word that a name must contain to match the word
+    private static final double MIN_WORD_COVERAGE = 0.5;
+
+    private final BookingRepository bookingRepository;
+    private final int maxCandidates;
+
+    // replaced as a whole when loaded, updated in place by one writer at a time
+    private volatile Postings postings = new Postings();
+
+    @Autowired
+    CustomerNameIndex(BookingRepository bookingRepository,
+                      @Value("${hotel-demo.search.max-candidates:" + DEFAULT_MAX_CANDIDATES + "}") int maxCandidates) {
+        this.bookingRepository = bookingRepository;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * @return ids of at most {@code limit} bookings whose customer last name starts with the given prefix,
+     * ordered by last name and id
+     */
+    public List<Long> findByLastNamePrefix(String prefix, int limit) {
+        final String from = normalize(prefix);
+        final List<Long> ids = new ArrayList<>();
+        for (Set<Long> bookingIds : postings.bookingIdsByLastName.subMap(from, from + Character.MAX_VALUE).values()) {
+            for (Long id : bookingIds) {
+                if (ids.size() == limit) {
+                    return ids;
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ranks bookings by how well their customer name and last name match the words of the query:
+     * every word adds the score of the name of the booking it matches best.
+     * Only the bookings of the best matching names are ranked, at most max-candidates of them.
+     *
+     * @return ids of at most {@code limit} bookings matching any word of the query, best first
+     */
+    public List<Long> search(String query, int limit) {
+        final Postings current = postings;
+        final List<Map<String, Double>> scoresPerWord = Stream.of(normalize(query).split("\\s+"))
+                .filter(word -> !word.isEmpty())
+                .map(current::match)
+                .collect(Collectors.toList());
+
+        final Map<String, Double> bestScores = new HashMap<>();
+        scoresPerWord.forEach(scores -> scores.forEach((name, score) -> bestScores.merge(name, score, Math::max)));
+        final Set<Long> candidates = new LinkedHashSet<>();
+        bestScores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .takeWhile(name -> candidates.size() < maxCandidates)
+                .forEach(name -> {
+                    candidates.addAll(current.bookingIdsByLastName.getOrDefault(name, Set.of()));
+                    candidates.addAll(current.bookingIdsByName.getOrDefault(name, Set.of()));
+                });
+
+        final Map<Long, Double> scoresPerBooking = new HashMap<>();
+        candidates.forEach(id -> {
+            final CustomerNames names = current.namesById.get(id);
+            if (names != null) {
+                scoresPerBooking.put(id, scoresPerWord.stream()
+                        .mapToDouble(scores -> Math.max(scores.getOrDefault(names.name, 0.0),
+                                scores.getOrDefault(names.lastName, 0.0)))
+                        .sum());
+            }
+        });
+        return scoresPerBooking.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final Map<Long, CustomerNames> created = new HashMap<>();
+        bookings.forEach(b -> created.put(b.getId(), new CustomerNames(b.getCustomerName(), b.getCustomerLastName())));
+        TransactionCallbacks.afterCommit(() -> created.forEach(this::put));
+    }
+
+    /**
+     * @param customerName     the new customer name, null when unchanged
+     * @param customerLastName the new customer last name, null when unchanged
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long bookingId, String customerName, String customerLastName) {
+        if (customerName == null && customerLastName == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> update(bookingId, customerName, customerLastName));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long bookingId) {
+        TransactionCallbacks.afterCommit(() -> remove(bookingId));
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final Postings loaded = new Postings();
+        try (Stream<BookingCustomerName> names = bookingRepository.streamCustomerNames()) {
+            names.forEach(n -> loaded.add(n.getBookingId(), new CustomerNames(n.getCustomerName(), n.getCustomerLastName())));
+        }
+        synchronized (this) {
+            postings = loaded;
+        }
+    }
+
+    private synchronized void put(Long bookingId, CustomerNames names) {
+        postings.remove(bookingId);
+        postings.add(bookingId, names);
+    }
+
+    private synchronized void update(Long bookingId, String customerName, String customerLastName) {
+        final CustomerNames current = postings.namesById.get(bookingId);
+        final CustomerNames updated = new CustomerNames(
+                customerName != null ? customerName : current != null ? current.name : null,
+                customerLastName != null ? customerLastName : current != null ? current.lastName : null);
+        postings.remove(bookingId);
+        postings.add(bookingId, updated);
+    }
+
+    private synchronized void remove(Long bookingId) {
+        postings.remove(bookingId);
+    }
+
+    static String normalize(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // the trigrams of a word padded like "  word ", so that its beginning weighs more than its end
+    static Set<String> trigrams(String word) {
+        final String padded = "  " + word + " ";
+        final Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // normalized names of a booking
+    private static final class CustomerNames {
+        private final String name;
+        private final String lastName;
+
+        private CustomerNames(String name, String lastName) {
+            this.name = normalize(name);
+            this.lastName = normalize(lastName);
+        }
+    }
+
+    // readers see the postings change one name at a time, never a half updated set
+    private static final class Postings {
+        private final Map<Long, CustomerNames> namesById = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<Long>> bookingIdsByLastName = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<Long>> bookingIdsByName = new ConcurrentHashMap<>();
+        // distinct names, first and last alike
+        private final Map<String, Set<String>> namesByTrigram = new ConcurrentHashMap<>();
+
+        private void add(Long bookingId, CustomerNames names) {
+            namesById.put(bookingId, names);
+            addPosting(bookingIdsByName, names.name, bookingId);
+            addPosting(bookingIdsByLastName, names.lastName, bookingId);
+        }
+
+        private void remove(Long bookingId) {
+            final CustomerNames names = namesById.remove(bookingId);
+            if (names != null) {
+                removePosting(bookingIdsByName, names.name, bookingId);
+                removePosting(bookingIdsByLastName, names.lastName, bookingId);
+            }
+        }
+
+        /**
+         * @return the names sharing enough trigrams with the word, scored by the share of the word they contain
+         * and, to favour names closer in length, by the share of both they have in common
+         */
+        private Map<String, Double> match(String word) {
+            final Set<String> wordTrigrams = trigrams(word);
+            final Map<String, Integer> shared = new HashMap<>();
+            wordTrigrams.forEach(trigram -> namesByTrigram.getOrDefault(trigram, Set.of())
+                    .forEach(name -> shared.merge(name, 1, Integer::sum)));
+
+            final Map<String, Double> scores = new HashMap<>();
+            shared.forEach((name, count) -> {
+                final double coverage = (double) count / wordTrigrams.size();
+                if (coverage >= MIN_WORD_COVERAGE) {
+                    final int nameTrigrams = name.length() + 1;
+                    final double similarity = (double) count / Math.max(count, wordTrigrams.size() + nameTrigrams - count);
+                    scores.put(name, (coverage + similarity) / 2);
+                }
+            });
+            return scores;
+        }
+
+        private void addPosting(Map<String, Set<Long>> index, String name, Long bookingId) {
+            if (name == null) {
+                return;
+            }
+            Set<Long> bookingIds = index.get(name);
+            if (bookingIds == null) {
+                if (!isIndexed(name)) {
+                    trigrams(name).forEach(trigram ->
+                            namesByTrigram.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(name));
+                }
+                bookingIds = new ConcurrentSkipListSet<>();
+                index.put(name, bookingIds);
+            }
+            bookingIds.add(bookingId);
+        }
+
+        private void removePosting(Map<String, Set<Long>> index, String name, Long bookingId) {
+            final Set<Long> bookingIds = name != null ? index.get(name) : null;
+            if (bookingIds == null) {
+                return;
+            }
+            bookingIds.remove(bookingId);
+            if (bookingIds.isEmpty()) {
+                index.remove(name);
+                if (!isIndexed(name)) {
+                    trigrams(name).forEach(trigram -> namesByTrigram.computeIfPresent(trigram,
+                            (t, names) -> names.remove(name) && names.isEmpty() ? null : names));
+                }
+            }
+        }
+
+        private boolean isIndexed(String name) {
+            return bookingIdsByName.containsKey(name) || bookingIdsByLastName.containsKey(name);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.hotelcorp.business;
+
+import java.util.Arrays;
+
+/**
+ * Quantiles of a stream of values within a relative accuracy (DDSketch): values are counted in buckets whose
+ * bounds grow geometrically, so that any value of a bucket is within the accuracy of the value the bucket stands for.
+ * Values can be removed as well as added, and sketches with the same accuracy merge into the sketch of all their values.
+ * <p>
+ * Not thread-safe.
+ */
+class DDSketch {
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double multiplier;
+
+    private final Buckets positive = new Buckets();
+    // by the index of the absolute value
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy how far, relative to it, a quantile may be from the true one, e.g. 0.01 for 1%
+     */
+    DDSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Invalid relative accuracy: " + relativeAccuracy + ". Use values (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+    }
+
+    void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Removes a value added before, a value never added is ignored.
+     */
+    void remove(double value) {
+        add(value, -1);
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * @param quantile in [0, 1], 0.5 for the median
+     * @return the value of the given quantile, null when there are no values
+     */
+    Double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Invalid quantile: " + quantile + ". Use values [0, 1]");
+        }
+        if (count == 0) {
+            return null;
+        }
+        // rank of the value, from 0
+        final long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        // ascending values: negative ones from the largest absolute value, zeros, positive ones
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return -value(negative.offset + i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return value(positive.offset + i);
+            }
+        }
+        // not reached while the counts add up
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    /**
+     * @return about the number of values in {@code [min, max]}: the values of the buckets standing for a value in it
+     */
+    long count(double min, double max) {
+        long count = 0;
+        for (int i = 0; i < negative.counts.length; i++) {
+            final double value = -value(negative.offset + i);
+            if (value >= min && value <= max) {
+                count += negative.counts[i];
+            }
+        }
+        if (min <= 0 && max >= 0) {
+            count += zeroCount;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            final double value = value(positive.offset + i);
+            if (value >= min && value <= max) {
+                count += positive.counts[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the values of the given sketch to this one.
+     */
+    void merge(DDSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracies");
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    private void add(double value, long delta) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Invalid value: " + value);
+        }
+        final boolean added;
+        if (value > 0) {
+            added = positive.add(index(value), delta);
+        } else if (value < 0) {
+            added = negative.add(index(-value), delta);
+        } else if (delta > 0 || zeroCount > 0) {
+            zeroCount += delta;
+            added = true;
+        } else {
+            added = false;
+        }
+        if (added) {
+            count += delta;
+        }
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) * multiplier);
+    }
+
+    // the value between the bucket bounds gamma^(index-1) and gamma^index, within the accuracy of both
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Counts of the buckets from {@code offset} on, the array spans the buckets used so far.
+     */
+    private static final class Buckets {
+        private long[] counts = new long[0];
+        private int offset;
+
+        private boolean add(int index, long delta) {
+            if (delta < 0 && (index < offset || index >= offset + counts.length || counts[index - offset] < -delta)) {
+                return false;
+            }
+            extendTo(index);
+            counts[index - offset] += delta;
+            return true;
+        }
+
+        private void merge(Buckets other) {
+            if (other.counts.length == 0) {
+                return;
+            }
+            extendTo(other.offset);
+            extendTo(other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+
+        private void extendTo(int index) {
+            if (counts.length == 0) {
+                counts = new long[1];
+                offset = index;
+            } else if (index < offset) {
+                final long[] extended = new long[counts.length + offset - index];
+                System.arraycopy(counts, 0, extended, offset - index, counts.length);
+                counts = extended;
+                offset = index;
+            } else if (index >= offset + counts.length) {
+                counts = Arrays.copyOf(counts, index - offset + 1);
+            }
+        }
+    }
+}
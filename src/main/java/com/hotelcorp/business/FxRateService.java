@@ -0,0 +1,119 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.FxRates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The current {@link FxRates}, read from a file or URL of {@code CURRENCY,rate} lines.
+ * Readers get the snapshot current at the time, a reload swaps in a new one only once it has been read completely.
+ */
+@Service
+public class FxRateService {
+
+    private static final Pattern CURRENCY = Pattern.compile("[A-Z]{3}");
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+
+    private volatile FxRates rates;
+
+    @Autowired
+    FxRateService(ResourceLoader resourceLoader,
+                  @Value("${hotel-demo.fx.rates-location:classpath:fx-rates.csv}") String location) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        try {
+            this.rates = load();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("FX rates could not be loaded from " + location, e);
+        }
+    }
+
+    public FxRates getRates() {
+        return rates;
+    }
+
+    /**
+     * Reads the rates again; when they cannot be read, the current ones are kept.
+     */
+    public FxRates reload() {
+        try {
+            final FxRates loaded = load();
+            rates = loaded;
+            return loaded;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                    "FX rates could not be loaded from " + location + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the factor converting an amount of each currency into the given one, from the current rates
+     */
+    public Map<String, BigDecimal> factorsTo(String currency) {
+        final FxRates current = rates;
+        if (!current.hasRate(currency)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No FX rate for currency: " + currency);
+        }
+        return current.factorsTo(currency);
+    }
+
+    private FxRates load() throws IOException {
+        final Resource resource = resourceLoader.getResource(location);
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return parse(location, reader);
+        }
+    }
+
+    static FxRates parse(String source, Reader reader) throws IOException {
+        final Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        final BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final String[] fields = line.split("\\s*,\\s*");
+            if (fields.length != 2 || !CURRENCY.matcher(fields[0]).matches()) {
+                throw new IllegalArgumentException("Line " + number + ": expected CURRENCY,rate but was " + line);
+            }
+            final BigDecimal rate;
+            try {
+                rate = new BigDecimal(fields[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + number + ": invalid rate " + fields[1]);
+            }
+            if (rate.signum() <= 0) {
+                throw new IllegalArgumentException("Line " + number + ": rate must be positive, was " + rate);
+            }
+            if (rates.put(fields[0], rate) != null) {
+                throw new IllegalArgumentException("Line " + number + ": duplicate currency " + fields[0]);
+            }
+        }
+        if (rates.isEmpty()) {
+            throw new IllegalArgumentException("No rates");
+        }
+        return new FxRates(source, Instant.now(), Collections.unmodifiableMap(rates));
+    }
+}
@@ -0,0 +1,168 @@
+package com.hotelcorp.business;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Points bucketed into the cells of a fixed latitude/longitude grid, so that the points within a distance
+ * are found by measuring only those in the cells the distance can reach.
+ * <p>
+ * Any number of threads may read while one writes.
+ */
+public class GeoGrid {
+
+    // mean earth radius
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+
+    private final Map<Long, Point> points = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Point>> pointsByCell = new ConcurrentHashMap<>();
+
+    /**
+     * @param cellDegrees side of a cell, a few times smaller than the usual search radius works best
+     */
+    public GeoGrid(double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("Invalid cell size: " + cellDegrees + ". Use values (0, 90]");
+        }
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public void put(Long id, double latitude, double longitude) {
+        remove(id);
+        final Point point = new Point(latitude, longitude);
+        pointsByCell.computeIfAbsent(cell(latitudeCell(latitude), longitudeCell(longitude)), c -> new ConcurrentHashMap<>())
+                .put(id, point);
+        points.put(id, point);
+    }
+
+    public void remove(Long id) {
+        final Point point = points.remove(id);
+        if (point != null) {
+            pointsByCell.computeIfPresent(cell(latitudeCell(point.latitude), longitudeCell(point.longitude)),
+                    (c, cellPoints) -> cellPoints.remove(id) != null && cellPoints.isEmpty() ? null : cellPoints);
+        }
+    }
+
+    public Point get(Long id) {
+        return points.get(id);
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * @return ids of at most {@code limit} points within the radius, nearest first, with their distance in km
+     */
+    public LinkedHashMap<Long, Double> near(double latitude, double longitude, double radiusKm, int limit) {
+        final double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        final double fromLatitude = Math.max(-90, latitude - latitudeDelta);
+        final double toLatitude = Math.min(90, latitude + latitudeDelta);
+        // meridians converge: the farther from the equator, the more degrees of longitude the radius spans
+        final double widestCos = Math.cos(Math.toRadians(Math.max(Math.abs(fromLatitude), Math.abs(toLatitude))));
+        final double longitudeDelta = widestCos > 0 ? latitudeDelta / widestCos : 180;
+
+        final int fromLatitudeCell = latitudeCell(fromLatitude);
+        final int toLatitudeCell = latitudeCell(toLatitude);
+        // both ends of a range leaving less than a cell out may fall into the same cell
+        final boolean allLongitudes = 2 * longitudeDelta >= 360 - cellDegrees;
+        final int fromLongitudeCell = allLongitudes ? 0 : longitudeCell(longitude - longitudeDelta);
+        final int longitudeCellSpan = allLongitudes
+                ? longitudeCells
+                : Math.min(longitudeCells, Math.floorMod(longitudeCell(longitude + longitudeDelta) - fromLongitudeCell, longitudeCells) + 1);
+
+        final List<Candidate> found = new ArrayList<>();
+        if ((long) (toLatitudeCell - fromLatitudeCell + 1) * longitudeCellSpan > points.size()) {
+            // the area spans more cells than there are points, measuring every point is cheaper
+            points.forEach((id, point) -> collect(id, point, latitude, longitude, radiusKm, found));
+        } else {
+            for (int latitudeCell = fromLatitudeCell; latitudeCell <= toLatitudeCell; latitudeCell++) {
+                for (int i = 0; i < longitudeCellSpan; i++) {
+                    // wraps around the antimeridian
+                    final int longitudeCell = (fromLongitudeCell + i) % longitudeCells;
+                    pointsByCell.getOrDefault(cell(latitudeCell, longitudeCell), Map.of())
+                            .forEach((id, point) -> collect(id, point, latitude, longitude, radiusKm, found));
+                }
+            }
+        }
+
+        final LinkedHashMap<Long, Double> nearest = new LinkedHashMap<>();
+        found.stream()
+                .sorted(Comparator.comparingDouble((Candidate c) -> c.distanceKm).thenComparing(c -> c.id))
+                .limit(limit)
+                .forEach(c -> nearest.put(c.id, c.distanceKm));
+        return nearest;
+    }
+
+    /**
+     * @return the great-circle distance between the given points in km
+     */
+    public static double haversineKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        final double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+        final double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+        final double a = Math.pow(Math.sin(latitudeDelta / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static void collect(Long id, Point point, double latitude, double longitude, double radiusKm, List<Candidate> found) {
+        final double distanceKm = haversineKm(latitude, longitude, point.latitude, point.longitude);
+        if (distanceKm <= radiusKm) {
+            found.add(new Candidate(id, distanceKm));
+        }
+    }
+
+    private int latitudeCell(double latitude) {
+        return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    // normalized to [-180, 180) first: when the cell size does not divide 360 the last cell is narrower,
+    // and a longitude past the antimeridian belongs to the first cells rather than past the last one
+    private int longitudeCell(double longitude) {
+        final double normalized = longitude - 360 * Math.floor((longitude + 180) / 360);
+        return Math.min(longitudeCells - 1, (int) Math.floor((normalized + 180) / cellDegrees));
+    }
+
+    private static long cell(int latitudeCell, int longitudeCell) {
+        return ((long) latitudeCell << 32) | longitudeCell;
+    }
+
+    public static final class Point {
+        private final double latitude;
+        private final double longitude;
+
+        private Point(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+
+    private static final class Candidate {
+        private final Long id;
+        private final double distanceKm;
+
+        private Candidate(Long id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelAvailability;
+import com.hotelcorp.data.HotelOccupancy;
+import com.hotelcorp.data.NightOccupancy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Occupancy and availability of hotels over ranges of nights {@code [from, to)}, from the {@link HotelOccupancyIndex}.
+ */
+@Service
+public class HotelAvailabilityService {
+
+    // longest range listed night by night
+    static final int MAX_NIGHTS = 366;
+
+    private final HotelService hotelService;
+    private final HotelOccupancyIndex hotelOccupancyIndex;
+
+    @Value("${hotel-demo.paging.max-page-size:" + CursorPaging.DEFAULT_MAX_PAGE_SIZE + "}")
+    private int maxPageSize = CursorPaging.DEFAULT_MAX_PAGE_SIZE;
+
+    @Value("${hotel-demo.search.default-limit:20}")
+    private int defaultSearchLimit = 20;
+
+    @Autowired
+    HotelAvailabilityService(HotelService hotelService, HotelOccupancyIndex hotelOccupancyIndex) {
+        this.hotelService = hotelService;
+        this.hotelOccupancyIndex = hotelOccupancyIndex;
+    }
+
+    public HotelOccupancy getOccupancy(Long hotelId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        if (ChronoUnit.DAYS.between(from, to) > MAX_NIGHTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid range: " + from + " to " + to + ". Use at most " + MAX_NIGHTS + " nights");
+        }
+        final Hotel hotel = hotelService.getHotelById(hotelId);
+
+        final int[] paxPerNight = hotelOccupancyIndex.getPaxPerNight(hotelId, from, to);
+        final List<NightOccupancy> nights = new ArrayList<>(paxPerNight.length);
+        int peakPax = 0;
+        for (int i = 0; i < paxPerNight.length; i++) {
+            nights.add(new NightOccupancy(from.plusDays(i), paxPerNight[i]));
+            peakPax = Math.max(peakPax, paxPerNight[i]);
+        }
+        final Integer availablePax = hotel.getCapacity() != null ? Math.max(0, hotel.getCapacity() - peakPax) : null;
+        return new HotelOccupancy(hotelId, hotel.getCapacity(), from, to, peakPax, availablePax, nights);
+    }
+
+    /**
+     * @return at most {@code limit} hotels with room for the given pax every night of the range, in id order
+     */
+    public List<HotelAvailability> getAvailableHotels(LocalDate from, LocalDate to, int pax, Integer limit) {
+        validateRange(from, to);
+        if (pax < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid pax: " + pax + ". Use values >= 1");
+        }
+        final int size = limit == null ? Math.min(defaultSearchLimit, maxPageSize) : CursorPaging.pageSize(limit, maxPageSize);
+
+        final List<HotelAvailability> available = new ArrayList<>();
+        for (Hotel hotel : hotelService.getHotelsWithCapacity(pax)) {
+            // busiest night of the range, whatever its length
+            final int peakPax = hotelOccupancyIndex.getPeakPax(hotel.getId(), from, to);
+            final int availablePax = hotel.getCapacity() - peakPax;
+            if (availablePax >= pax) {
+                available.add(new HotelAvailability(hotel, peakPax, availablePax));
+                if (available.size() == size) {
+                    break;
+                }
+            }
+        }
+        return available;
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        try {
+            Booking.validateStay(from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Checks that a stay fits the capacity of its hotel and keeps it reserved until the transaction writing it ends.
+ * <p>
+ * The stays already booked are read from the database while holding the lock of the hotel, which is only
+ * released once the transaction has committed or rolled back: stays for the same hotel are checked one after
+ * the other, each seeing the ones committed before it. Locks are striped by hotel id, so that bookings
+ * for different hotels rarely wait for each other. Hotels without a capacity take any stay.
+ */
+@Service
+public class HotelCapacityAllocator {
+
+    static final int DEFAULT_LOCK_STRIPES = 256;
+
+    private final BookingRepository bookingRepository;
+    private final StripedLocks hotelLocks;
+
+    @Autowired
+    HotelCapacityAllocator(BookingRepository bookingRepository,
+                           @Value("${hotel-demo.bookings.capacity-lock-stripes:" + DEFAULT_LOCK_STRIPES + "}") int lockStripes) {
+        this.bookingRepository = bookingRepository;
+        this.hotelLocks = new StripedLocks(lockStripes);
+    }
+
+    /**
+     * Locks the given hotels until the transaction ends, in an order that cannot deadlock with other transactions
+     * locking several hotels. Needed before reserving stays for more than one hotel in a transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockHotels(Collection<Long> hotelIds) {
+        hotelLocks.locksFor(hotelIds).forEach(HotelCapacityAllocator::lockUntilCompletion);
+    }
+
+    /**
+     * Reserves room for the stay, which must already be valid, in the calling transaction. Stays the transaction
+     * has written before are counted, so several stays of one transaction add up.
+     *
+     * @param capacity  pax per night of the hotel, null when unlimited
+     * @param bookingId the booking of the stay, whose current stay is not counted; null for a new booking
+     * @throws ResponseStatusException CONFLICT, when a night of the stay is already full
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long hotelId, Integer capacity, LocalDate checkIn, LocalDate checkOut, int pax, Long bookingId) {
+        if (capacity == null || checkIn == null || checkOut == null || pax <= 0) {
+            return;
+        }
+        lockUntilCompletion(hotelLocks.lockFor(hotelId));
+
+        // ids start at 1, 0 excludes no booking
+        final int peakPax = peakPax(bookingRepository.findSnapshotsOverlappingStay(hotelId, checkIn, checkOut,
+                bookingId != null ? bookingId : 0L), checkIn, checkOut);
+        if (peakPax + pax > capacity) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Hotel with id: " + hotelId + " has room for "
+                    + Math.max(0, capacity - peakPax) + " pax from " + checkIn + " to " + checkOut + ", " + pax + " requested");
+        }
+    }
+
+    /**
+     * @return the pax of the busiest night of {@code [from, to)} over the given stays
+     */
+    static int peakPax(Iterable<BookingSnapshot> stays, LocalDate from, LocalDate to) {
+        // pax arriving and leaving per night, swept in date order
+        final TreeMap<LocalDate, Integer> changes = new TreeMap<>();
+        for (BookingSnapshot stay : stays) {
+            if (stay.getNumberOfPax() == null || stay.getCheckIn() == null || stay.getCheckOut() == null) {
+                continue;
+            }
+            final LocalDate arrival = stay.getCheckIn().isBefore(from) ? from : stay.getCheckIn();
+            final LocalDate departure = stay.getCheckOut().isAfter(to) ? to : stay.getCheckOut();
+            if (arrival.isBefore(departure)) {
+                changes.merge(arrival, (int) stay.getNumberOfPax(), Integer::sum);
+                changes.merge(departure, -stay.getNumberOfPax(), Integer::sum);
+            }
+        }
+        int pax = 0;
+        int peakPax = 0;
+        for (Map.Entry<LocalDate, Integer> change : changes.entrySet()) {
+            pax += change.getValue();
+            peakPax = Math.max(peakPax, pax);
+        }
+        return peakPax;
+    }
+
+    private static void lockUntilCompletion(Lock lock) {
+        lock.lock();
+        TransactionCallbacks.afterCompletion(lock::unlock);
+    }
+}
@@ -0,0 +1,100 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+
+/**
+ * In-memory spatial index of the hotels with a location, on a {@link GeoGrid}.
+ * Hotels with only one of latitude and longitude are left out.
+ * The record methods must be called in the transaction that writes the hotel; the index changes once it commits.
+ */
+@Service
+public class HotelGeoIndex {
+
+    static final double DEFAULT_CELL_DEGREES = 0.1;
+
+    private final HotelRepository hotelRepository;
+    private final double cellDegrees;
+
+    // replaced as a whole when loaded, updated in place by one writer at a time
+    private volatile GeoGrid grid;
+
+    @Autowired
+    HotelGeoIndex(HotelRepository hotelRepository,
+                  @Value("${hotel-demo.hotels.geo-cell-degrees:" + DEFAULT_CELL_DEGREES + "}") double cellDegrees) {
+        this.hotelRepository = hotelRepository;
+        this.cellDegrees = cellDegrees;
+        this.grid = new GeoGrid(cellDegrees);
+    }
+
+    /**
+     * @return ids of at most {@code limit} hotels within the radius, nearest first, with their distance in km
+     */
+    public LinkedHashMap<Long, Double> findNear(double latitude, double longitude, double radiusKm, int limit) {
+        return grid.near(latitude, longitude, radiusKm, limit);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Hotel hotel) {
+        final Long id = hotel.getId();
+        final Double latitude = hotel.getLatitude();
+        final Double longitude = hotel.getLongitude();
+        if (latitude != null && longitude != null) {
+            TransactionCallbacks.afterCommit(() -> update(id, latitude, longitude));
+        }
+    }
+
+    /**
+     * @param latitude  the new latitude, null when unchanged
+     * @param longitude the new longitude, null when unchanged
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long hotelId, Double latitude, Double longitude) {
+        if (latitude == null && longitude == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> update(hotelId, latitude, longitude));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long hotelId) {
+        TransactionCallbacks.afterCommit(() -> remove(hotelId));
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final GeoGrid loaded = new GeoGrid(cellDegrees);
+        hotelRepository.findAll().forEach(h -> {
+            if (h.getLatitude() != null && h.getLongitude() != null) {
+                loaded.put(h.getId(), h.getLatitude(), h.getLongitude());
+            }
+        });
+        synchronized (this) {
+            grid = loaded;
+        }
+    }
+
+    private synchronized void update(Long hotelId, Double latitude, Double longitude) {
+        final GeoGrid.Point current = grid.get(hotelId);
+        final Double updatedLatitude = latitude != null ? latitude : current != null ? current.getLatitude() : null;
+        final Double updatedLongitude = longitude != null ? longitude : current != null ? current.getLongitude() : null;
+        if (updatedLatitude != null && updatedLongitude != null) {
+            grid.put(hotelId, updatedLatitude, updatedLongitude);
+        }
+    }
+
+    private synchronized void remove(Long hotelId) {
+        grid.remove(hotelId);
+    }
+}
@@ -0,0 +1,147 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory pax per night of every hotel, one {@link OccupancyTree} per hotel built from the stays of its bookings.
+ * Bookings without stay dates or number of pax take no room.
+ * The record methods must be called in the transaction that writes the booking; the index changes once it commits.
+ */
+@Service
+public class HotelOccupancyIndex {
+
+    private final BookingRepository bookingRepository;
+
+    // replaced as a whole when loaded, updated in place by one writer at a time
+    private volatile Map<Long, OccupancyTree> occupancyByHotel = new ConcurrentHashMap<>();
+
+    @Autowired
+    HotelOccupancyIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * @return the pax staying at the hotel each night of {@code [from, to)}
+     */
+    public int[] getPaxPerNight(Long hotelId, LocalDate from, LocalDate to) {
+        final OccupancyTree occupancy = occupancyByHotel.get(hotelId);
+        return occupancy != null ? occupancy.get(night(from), night(to)) : new int[nights(from, to)];
+    }
+
+    /**
+     * @return the pax staying at the hotel on the busiest night of {@code [from, to)}
+     */
+    public int getPeakPax(Long hotelId, LocalDate from, LocalDate to) {
+        final OccupancyTree occupancy = occupancyByHotel.get(hotelId);
+        return occupancy != null ? occupancy.max(night(from), night(to)) : 0;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final List<Stay> stays = new ArrayList<>();
+        bookings.forEach(b -> addStay(stays, BookingSnapshot.of(b), 1));
+        afterCommit(stays);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        recordUpdated(BookingSnapshot.of(before), BookingSnapshot.of(after));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(BookingSnapshot before, BookingSnapshot after) {
+        final List<Stay> stays = new ArrayList<>();
+        addStay(stays, before, -1);
+        addStay(stays, after, 1);
+        afterCommit(stays);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        final List<Stay> stays = new ArrayList<>();
+        addStay(stays, BookingSnapshot.of(booking), -1);
+        afterCommit(stays);
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final Map<Long, OccupancyTree> loaded = new ConcurrentHashMap<>();
+        final List<Stay> stays = new ArrayList<>();
+        try (Stream<BookingSnapshot> snapshots = bookingRepository.streamSnapshotsWithStay()) {
+            snapshots.forEach(s -> addStay(stays, s, 1));
+        }
+        stays.forEach(s -> apply(loaded, s));
+        synchronized (this) {
+            occupancyByHotel = loaded;
+        }
+    }
+
+    private synchronized void apply(List<Stay> stays) {
+        stays.forEach(s -> apply(occupancyByHotel, s));
+    }
+
+    private static void apply(Map<Long, OccupancyTree> occupancyByHotel, Stay stay) {
+        occupancyByHotel.computeIfAbsent(stay.hotelId, h -> new OccupancyTree()).add(stay.from, stay.to, stay.pax);
+    }
+
+    private static void addStay(List<Stay> stays, BookingSnapshot snapshot, int sign) {
+        if (snapshot.getHotelId() == null || snapshot.getCheckIn() == null || snapshot.getCheckOut() == null
+                || snapshot.getNumberOfPax() == null || snapshot.getNumberOfPax() <= 0) {
+            return;
+        }
+        try {
+            Booking.validateStay(snapshot.getCheckIn(), snapshot.getCheckOut());
+        } catch (IllegalArgumentException e) {
+            // written before stays were validated, takes no room
+            return;
+        }
+        stays.add(new Stay(snapshot.getHotelId(), night(snapshot.getCheckIn()), night(snapshot.getCheckOut()),
+                sign * snapshot.getNumberOfPax()));
+    }
+
+    private void afterCommit(List<Stay> stays) {
+        if (stays.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> apply(stays));
+    }
+
+    private static int night(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay() - Booking.MIN_STAY_DATE.toEpochDay());
+    }
+
+    private static int nights(LocalDate from, LocalDate to) {
+        return night(to) - night(from);
+    }
+
+    private static final class Stay {
+        private final Long hotelId;
+        private final int from;
+        private final int to;
+        private final int pax;
+
+        private Stay(Long hotelId, int from, int to, int pax) {
+            this.hotelId = hotelId;
+            this.from = from;
+            this.to = to;
+            this.pax = pax;
+        }
+    }
+}
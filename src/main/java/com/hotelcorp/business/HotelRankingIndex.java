@@ -0,0 +1,125 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.ScaledAmount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Live rankings of the hotels by number of bookings and by revenue in each currency, one {@link Leaderboard} each.
+ * Revenue is in thousandths ({@link ScaledAmount}), bookings without a price or currency add no revenue.
+ * The record methods must be called in the transaction that writes the bookings; the rankings change once it commits.
+ */
+@Service
+public class HotelRankingIndex {
+
+    private final BookingRepository bookingRepository;
+
+    // replaced as a whole when loaded
+    private volatile Rankings rankings = new Rankings();
+
+    @Autowired
+    HotelRankingIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public List<Leaderboard.Score> getTopByBookings(int k) {
+        return rankings.bookings.top(k);
+    }
+
+    public List<Leaderboard.Score> getTopByRevenue(String currency, int k) {
+        final Leaderboard revenue = rankings.revenueByCurrency.get(currency);
+        return revenue != null ? revenue.top(k) : List.of();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final List<Change> changes = new ArrayList<>();
+        bookings.forEach(b -> changes.add(new Change(BookingSnapshot.of(b), 1)));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        recordUpdated(BookingSnapshot.of(before), BookingSnapshot.of(after));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(BookingSnapshot before, BookingSnapshot after) {
+        afterCommit(List.of(new Change(before, -1), new Change(after, 1)));
+    }
+
+    /**
+     * @param after the bookings of {@code before}, in the same order, as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(List<BookingSummary> before, List<BookingSummary> after) {
+        final List<Change> changes = new ArrayList<>();
+        before.forEach(b -> changes.add(new Change(BookingSnapshot.of(b), -1)));
+        after.forEach(b -> changes.add(new Change(BookingSnapshot.of(b), 1)));
+        afterCommit(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        afterCommit(List.of(new Change(BookingSnapshot.of(booking), -1)));
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final Rankings loaded = new Rankings();
+        try (Stream<BookingSummary> summaries = bookingRepository.streamSummaries()) {
+            summaries.forEach(s -> loaded.add(s.getHotelId(), s.getCurrency(), s.getPrice(), 1));
+        }
+        rankings = loaded;
+    }
+
+    private void afterCommit(List<Change> changes) {
+        TransactionCallbacks.afterCommit(() -> {
+            final Rankings current = rankings;
+            changes.forEach(c -> current.add(c.booking.getHotelId(), c.booking.getCurrency(), c.booking.getPrice(), c.sign));
+        });
+    }
+
+    private static final class Change {
+        private final BookingSnapshot booking;
+        private final int sign;
+
+        private Change(BookingSnapshot booking, int sign) {
+            this.booking = booking;
+            this.sign = sign;
+        }
+    }
+
+    private static final class Rankings {
+        private final Leaderboard bookings = new Leaderboard();
+        private final Map<String, Leaderboard> revenueByCurrency = new ConcurrentHashMap<>();
+
+        private void add(Long hotelId, String currency, BigDecimal price, int sign) {
+            if (hotelId == null) {
+                return;
+            }
+            bookings.add(hotelId, sign);
+            if (currency != null && price != null) {
+                revenueByCurrency.computeIfAbsent(currency, c -> new Leaderboard())
+                        .add(hotelId, sign * ScaledAmount.toUnits(price));
+            }
+        }
+    }
+}
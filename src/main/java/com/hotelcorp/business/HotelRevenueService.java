@@ -0,0 +1,191 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.HotelRevenue;
+import com.hotelcorp.data.HotelRevenueDrift;
+import com.hotelcorp.data.HotelRevenueRepository;
+import com.hotelcorp.data.ScaledAmount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the revenue per hotel and currency up to date as bookings are created, changed and deleted,
+ * so that booking statistics are read from a handful of rows instead of aggregating all bookings of a hotel.
+ * <p>
+ * The record methods must be called in the transaction that writes the bookings.
+ */
+@Service
+public class HotelRevenueService {
+
+    // rows are updated in key order, so that transactions touching several of them cannot deadlock
+    private static final Comparator<HotelRevenue.Key> KEY_ORDER = Comparator
+            .comparing(HotelRevenue.Key::getHotelId)
+            .thenComparing(HotelRevenue.Key::getCurrency);
+
+    private HotelRevenueRepository hotelRevenueRepository;
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    HotelRevenueService(HotelRevenueRepository hotelRevenueRepository, BookingRepository bookingRepository) {
+        this.hotelRevenueRepository = hotelRevenueRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    public Iterable<BookingPriceStatistics> getRevenueForHotel(Long hotelId) {
+        return hotelRevenueRepository.findStatisticsByHotelId(hotelId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Iterable<Booking> bookings) {
+        final Map<HotelRevenue.Key, RevenueDelta> deltas = new TreeMap<>(KEY_ORDER);
+        bookings.forEach(b -> addDelta(deltas, BookingSnapshot.of(b), 1));
+        apply(deltas);
+    }
+
+    /**
+     * @param before the booking as it was before the change (a copy, not the managed entity)
+     * @param after  the booking as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Booking before, Booking after) {
+        recordUpdated(BookingSnapshot.of(before), BookingSnapshot.of(after));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(BookingSnapshot before, BookingSnapshot after) {
+        final Map<HotelRevenue.Key, RevenueDelta> deltas = new TreeMap<>(KEY_ORDER);
+        addDelta(deltas, before, -1);
+        addDelta(deltas, after, 1);
+        apply(deltas);
+    }
+
+    /**
+     * @param after the bookings of {@code before}, in the same order, as changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(List<BookingSummary> before, List<BookingSummary> after) {
+        final Map<HotelRevenue.Key, RevenueDelta> deltas = new TreeMap<>(KEY_ORDER);
+        before.forEach(b -> addDelta(deltas, BookingSnapshot.of(b), -1));
+        after.forEach(b -> addDelta(deltas, BookingSnapshot.of(b), 1));
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Booking booking) {
+        final Map<HotelRevenue.Key, RevenueDelta> deltas = new TreeMap<>(KEY_ORDER);
+        addDelta(deltas, BookingSnapshot.of(booking), -1);
+        apply(deltas);
+    }
+
+    /**
+     * Compares the materialized revenue with the one computed from the bookings.
+     *
+     * @return the hotels and currencies that differ, empty when consistent
+     */
+    @Transactional(readOnly = true)
+    public List<HotelRevenueDrift> verify() {
+        final Map<HotelRevenue.Key, HotelRevenue> expected = byKey(bookingRepository.computeRevenue());
+        final Map<HotelRevenue.Key, HotelRevenue> actual = byKey(hotelRevenueRepository.findAll());
+
+        final Set<HotelRevenue.Key> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+
+        final List<HotelRevenueDrift> drifts = new ArrayList<>();
+        keys.stream().sorted(KEY_ORDER).forEach(key -> {
+            if (!sameRevenue(expected.get(key), actual.get(key))) {
+                drifts.add(new HotelRevenueDrift(key, expected.get(key), actual.get(key)));
+            }
+        });
+        return drifts;
+    }
+
+    /**
+     * Recomputes the materialized revenue from the bookings. Bookings written while the rebuild runs
+     * may be missed, so it is meant for quiet periods or after {@link #verify()} reported a drift.
+     *
+     * @return the drift that was repaired
+     */
+    @Transactional
+    public List<HotelRevenueDrift> rebuild() {
+        final List<HotelRevenueDrift> drifts = verify();
+        hotelRevenueRepository.deleteAllInBulk();
+        hotelRevenueRepository.saveAll(bookingRepository.computeRevenue());
+        return drifts;
+    }
+
+    // sums are accumulated as scaled longs, a BigDecimal is only created per changed row
+    private void addDelta(Map<HotelRevenue.Key, RevenueDelta> deltas, BookingSnapshot snapshot, int sign) {
+        final RevenueDelta delta = deltas.computeIfAbsent(keyOf(snapshot), k -> new RevenueDelta());
+        if (snapshot.getPrice() != null) {
+            final long units = ScaledAmount.toUnits(snapshot.getPrice());
+            delta.sumUnits = sign > 0
+                    ? ScaledAmount.add(delta.sumUnits, units)
+                    : ScaledAmount.subtract(delta.sumUnits, units);
+        }
+        delta.bookingCount += sign;
+    }
+
+    private void apply(Map<HotelRevenue.Key, RevenueDelta> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (delta.bookingCount == 0 && delta.sumUnits == 0) {
+                return; // e.g. only the customer of the booking changed
+            }
+            final BigDecimal sumAmount = ScaledAmount.toBigDecimal(delta.sumUnits);
+            int updated = hotelRevenueRepository.addToRevenue(
+                    key.getHotelId(), key.getCurrency(), sumAmount, delta.bookingCount);
+            if (updated == 0) {
+                // the row may have been created by a transaction holding the hotel lock in the meantime
+                hotelRevenueRepository.lockHotel(key.getHotelId());
+                updated = hotelRevenueRepository.addToRevenue(
+                        key.getHotelId(), key.getCurrency(), sumAmount, delta.bookingCount);
+            }
+            if (updated == 0) {
+                // first booking of the hotel in this currency
+                hotelRevenueRepository.save(new HotelRevenue(key.getHotelId(), key.getCurrency(), sumAmount, delta.bookingCount));
+            } else if (delta.bookingCount < 0) {
+                hotelRevenueRepository.deleteIfEmpty(key.getHotelId(), key.getCurrency());
+            }
+        });
+    }
+
+    private HotelRevenue.Key keyOf(BookingSnapshot snapshot) {
+        return new HotelRevenue.Key(snapshot.getHotelId(),
+                snapshot.getCurrency() != null ? snapshot.getCurrency() : HotelRevenue.NO_CURRENCY);
+    }
+
+    private Map<HotelRevenue.Key, HotelRevenue> byKey(Iterable<HotelRevenue> revenues) {
+        final Map<HotelRevenue.Key, HotelRevenue> byKey = new HashMap<>();
+        revenues.forEach(r -> byKey.put(r.getKey(), r));
+        return byKey;
+    }
+
+    private boolean sameRevenue(HotelRevenue expected, HotelRevenue actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return expected.getSumAmount().compareTo(actual.getSumAmount()) == 0
+                && Objects.equals(expected.getBookingCount(), actual.getBookingCount());
+    }
+
+    private static class RevenueDelta {
+        private long sumUnits;
+        private long bookingCount;
+    }
+}
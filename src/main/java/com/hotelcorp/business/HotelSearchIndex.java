@@ -0,0 +1,205 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over the name and address of the hotels, for full-text search.
+ * <p>
+ * Text is split into words and folded: lower case, without accents and with the Greek final sigma as a plain one,
+ * so that "ΑΘΉΝΑ" and "Αθηνα" are the same word. Hotels are scored by BM25 over their words, name words weighing
+ * more than address words. The last query word also matches the words it is the beginning of, for search as you type.
+ * The record methods must be called in the transaction that writes the hotel; the index changes once it commits.
+ */
+@Service
+public class HotelSearchIndex {
+
+    static final double NAME_WEIGHT = 2.0;
+    static final double ADDRESS_WEIGHT = 1.0;
+    // matches of the last query word as a prefix count less than whole word matches
+    static final double PREFIX_WEIGHT = 0.5;
+
+    // BM25 term frequency saturation, lengths are short enough to leave unnormalized
+    private static final double K1 = 1.2;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final HotelRepository hotelRepository;
+
+    // replaced as a whole when loaded, updated in place by one writer at a time
+    private volatile Postings postings = new Postings();
+
+    @Autowired
+    HotelSearchIndex(HotelRepository hotelRepository) {
+        this.hotelRepository = hotelRepository;
+    }
+
+    /**
+     * @return ids of at most {@code limit} hotels matching any word of the query, best first
+     */
+    public List<Long> search(String query, int limit) {
+        final Postings current = postings;
+        final List<String> words = words(query);
+        final int hotels = current.documents.size();
+
+        final Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < words.size(); i++) {
+            final String word = words.get(i);
+            current.score(current.postingsByWord.getOrDefault(word, Map.of()), 1.0, hotels, scores);
+            if (i == words.size() - 1) {
+                current.postingsByWord.subMap(word, false, word + Character.MAX_VALUE, false)
+                        .forEach((longerWord, matches) -> current.score(matches, PREFIX_WEIGHT, hotels, scores));
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Hotel hotel) {
+        final Long id = hotel.getId();
+        final HotelText text = new HotelText(hotel.getName(), hotel.getAddress());
+        TransactionCallbacks.afterCommit(() -> put(id, text));
+    }
+
+    /**
+     * @param name    the new name, null when unchanged
+     * @param address the new address, null when unchanged
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Long hotelId, String name, String address) {
+        if (name == null && address == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> update(hotelId, name, address));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long hotelId) {
+        TransactionCallbacks.afterCommit(() -> remove(hotelId));
+    }
+
+    // before any request is served
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        final Postings loaded = new Postings();
+        hotelRepository.findAll().forEach(h -> loaded.add(h.getId(), new HotelText(h.getName(), h.getAddress())));
+        synchronized (this) {
+            postings = loaded;
+        }
+    }
+
+    private synchronized void put(Long hotelId, HotelText text) {
+        postings.remove(hotelId);
+        postings.add(hotelId, text);
+    }
+
+    private synchronized void update(Long hotelId, String name, String address) {
+        final HotelText current = postings.documents.get(hotelId);
+        final HotelText updated = new HotelText(
+                name != null ? name : current != null ? current.name : null,
+                address != null ? address : current != null ? current.address : null);
+        postings.remove(hotelId);
+        postings.add(hotelId, updated);
+    }
+
+    private synchronized void remove(Long hotelId) {
+        postings.remove(hotelId);
+    }
+
+    /**
+     * @return the folded words of the given text, in order
+     */
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        final String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace('ς', 'σ');
+        return Stream.of(NON_WORD.split(folded))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static final class HotelText {
+        private final String name;
+        private final String address;
+
+        private HotelText(String name, String address) {
+            this.name = name;
+            this.address = address;
+        }
+    }
+
+    // occurrences of a word in a hotel, per field
+    private static final class Occurrences {
+        private int inName;
+        private int inAddress;
+
+        private double weightedCount() {
+            return NAME_WEIGHT * inName + ADDRESS_WEIGHT * inAddress;
+        }
+    }
+
+    private static final class Postings {
+        private final Map<Long, HotelText> documents = new ConcurrentHashMap<>();
+        // sorted, for the words starting with the last query word
+        private final ConcurrentSkipListMap<String, Map<Long, Occurrences>> postingsByWord = new ConcurrentSkipListMap<>();
+
+        private void add(Long hotelId, HotelText text) {
+            final Map<String, Occurrences> occurrences = new HashMap<>();
+            words(text.name).forEach(word -> occurrences.computeIfAbsent(word, w -> new Occurrences()).inName++);
+            words(text.address).forEach(word -> occurrences.computeIfAbsent(word, w -> new Occurrences()).inAddress++);
+
+            documents.put(hotelId, text);
+            occurrences.forEach((word, o) -> postingsByWord.computeIfAbsent(word, w -> new ConcurrentHashMap<>()).put(hotelId, o));
+        }
+
+        private void remove(Long hotelId) {
+            final HotelText text = documents.remove(hotelId);
+            if (text == null) {
+                return;
+            }
+            final List<String> words = new ArrayList<>(words(text.name));
+            words.addAll(words(text.address));
+            words.forEach(word -> postingsByWord.computeIfPresent(word,
+                    (w, matches) -> matches.remove(hotelId) != null && matches.isEmpty() ? null : matches));
+        }
+
+        // adds the BM25 score of a word to the scores of the hotels it occurs in
+        private void score(Map<Long, Occurrences> matches, double weight, int hotels, Map<Long, Double> scores) {
+            if (matches.isEmpty()) {
+                return;
+            }
+            final double idf = Math.log(1 + (hotels - matches.size() + 0.5) / (matches.size() + 0.5));
+            matches.forEach((hotelId, o) -> {
+                final double count = o.weightedCount();
+                scores.merge(hotelId, weight * idf * count * (K1 + 1) / (count + K1), Double::sum);
+            });
+        }
+    }
+}
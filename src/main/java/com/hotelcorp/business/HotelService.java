@@ -1,32 +1,133 @@
 package com.hotelcorp.business;
 
+import com.hotelcorp.data.CursorPage;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelDistance;
 import com.hotelcorp.data.HotelRepository;
 import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 @Service
 public class HotelService {
 
+    static final int DEFAULT_NAME_LOCK_STRIPES = 64;
+
     private final HotelRepository hotelRepository;
+    private final TransactionTemplate newTransaction;
+    private final StripedLocks nameLocks;
+    private final HotelSearchIndex hotelSearchIndex;
+    private final HotelGeoIndex hotelGeoIndex;
+    private final BookingAnalyticsStore bookingAnalyticsStore;
+    private final BookingFilterIndex bookingFilterIndex;
+
+    @Value("${hotel-demo.paging.max-page-size:" + CursorPaging.DEFAULT_MAX_PAGE_SIZE + "}")
+    private int maxPageSize = CursorPaging.DEFAULT_MAX_PAGE_SIZE;
+
+    @Value("${hotel-demo.search.default-limit:20}")
+    private int defaultSearchLimit = 20;
 
     @Autowired
-    HotelService(HotelRepository hotelRepository) {
+    HotelService(HotelRepository hotelRepository,
+                 HotelSearchIndex hotelSearchIndex,
+                 HotelGeoIndex hotelGeoIndex,
+                 BookingAnalyticsStore bookingAnalyticsStore,
+                 BookingFilterIndex bookingFilterIndex,
+                 PlatformTransactionManager transactionManager,
+                 @Value("${hotel-demo.hotels.name-lock-stripes:" + DEFAULT_NAME_LOCK_STRIPES + "}") int nameLockStripes) {
         this.hotelRepository = hotelRepository;
+        this.hotelSearchIndex = hotelSearchIndex;
+        this.hotelGeoIndex = hotelGeoIndex;
+        this.bookingAnalyticsStore = bookingAnalyticsStore;
+        this.bookingFilterIndex = bookingFilterIndex;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nameLocks = new StripedLocks(nameLockStripes);
     }
 
     public Iterable<Hotel> getAllHotels() {
         return hotelRepository.findAll();
     }
 
-    public Iterable<Hotel> getHotels(Iterable<Long> ids) {
-        return hotelRepository.findAllById(ids);
+    public CursorPage<Hotel> getHotels(Long after, Integer limit) {
+        final int pageSize = CursorPaging.pageSize(limit, maxPageSize);
+        return CursorPaging.toPage(
+                hotelRepository.findByIdGreaterThanOrderById(CursorPaging.afterId(after), CursorPaging.probeRequest(pageSize)),
+                pageSize,
+                Hotel::getId);
+    }
+
+    /**
+     * Looks the hotels up by id one at a time, so that cached ones are served from the second-level cache.
+     *
+     * @return the hotels that exist, ordered by id
+     */
+    public Iterable<Hotel> getHotels(Collection<Long> ids) {
+        return ids.stream()
+                .sorted()
+                .map(hotelRepository::findById)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Full-text search over the name and address of the hotels.
+     *
+     * @return the best matching hotels, best first
+     */
+    public List<Hotel> searchHotels(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be blank");
+        }
+        final int size = limit == null ? Math.min(defaultSearchLimit, maxPageSize) : CursorPaging.pageSize(limit, maxPageSize);
+        // in rank order, from the second-level cache
+        return hotelSearchIndex.search(query, size).stream()
+                .map(hotelRepository::findById)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the hotels within the radius of the given point, nearest first
+     */
+    public List<HotelDistance> getHotelsNear(double latitude, double longitude, double radiusKm, Integer limit) {
+        try {
+            Hotel.validateLatitude(latitude);
+            Hotel.validateLongitude(longitude);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!(radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid radius: " + radiusKm + ". Use values > 0");
+        }
+        final int size = limit == null ? Math.min(defaultSearchLimit, maxPageSize) : CursorPaging.pageSize(limit, maxPageSize);
+        final List<HotelDistance> hotels = new ArrayList<>();
+        hotelGeoIndex.findNear(latitude, longitude, radiusKm, size).forEach((id, distanceKm) ->
+                hotelRepository.findById(id).ifPresent(h -> hotels.add(new HotelDistance(h, distanceKm))));
+        return hotels;
+    }
+
+    /**
+     * @return the hotels that can accommodate at least the given pax per night, in id order
+     */
+    public List<Hotel> getHotelsWithCapacity(int pax) {
+        return hotelRepository.findByCapacityGreaterThanEqualOrderById(pax);
     }
 
     public Hotel getHotelById(Long id) {
@@ -34,30 +135,154 @@ public class HotelService {
                 .orElseThrow(() -> hotelNotFoundException(id));
     }
 
+    @Transactional
     public Hotel createHotel(Hotel hotel) {
+        validateCapacity(hotel.getCapacity());
         throwIfExists(hotel.getName());
-        return hotelRepository.save(hotel);
+        final Hotel created = hotelRepository.save(hotel);
+        hotelSearchIndex.recordCreated(created);
+        hotelGeoIndex.recordCreated(created);
+        bookingAnalyticsStore.recordHotel(created.getId(), created.getRating());
+        bookingFilterIndex.recordHotel(created.getId(), created.getRating());
+        return created;
     }
 
+    @Transactional
     public Hotel updateHotel(Hotel newHotel, Long id) {
+        return updateHotel(newHotel, id, null);
+    }
+
+    /**
+     * @param expectedVersion version the update was based on, null to update whatever version is current
+     */
+    @Transactional
+    public Hotel updateHotel(Hotel newHotel, Long id, @Nullable Long expectedVersion) {
+        validateCapacity(newHotel.getCapacity());
         return hotelRepository.findById(id)
                 .map(h -> {
+                    if (expectedVersion != null && !expectedVersion.equals(h.getVersion())) {
+                        throw hotelModifiedException(id, h.getVersion());
+                    }
                     // update but first check for name dupe
                     final String updName = newHotel.getName();
                     if (updName != null && !updName.equals(h.getName())) {
                         throwIfExists(updName);
                     }
                     h.updateNonNullValues(newHotel);
-                    return hotelRepository.save(h);
+                    final Hotel updated = hotelRepository.save(h);
+                    hotelSearchIndex.recordUpdated(id, newHotel.getName(), newHotel.getAddress());
+                    hotelGeoIndex.recordUpdated(id, newHotel.getLatitude(), newHotel.getLongitude());
+                    bookingAnalyticsStore.recordHotel(id, newHotel.getRating());
+                    bookingFilterIndex.recordHotel(id, newHotel.getRating());
+                    return updated;
                 })
                 .orElseThrow(() -> hotelNotFoundException(id));
     }
 
+    /**
+     * Sets the given non-null fields with a single UPDATE, without loading the hotel first.
+     *
+     * @param expectedVersion version the update was based on, null to update whatever version is current
+     * @return the number of updated hotels
+     */
+    @Transactional
+    public int patchHotel(Hotel patch, Long id, @Nullable Long expectedVersion) {
+        if (patch.getName() == null && patch.getAddress() == null && patch.getRating() == null
+                && patch.getLatitude() == null && patch.getLongitude() == null && patch.getCapacity() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No hotel fields to update");
+        }
+        try {
+            Hotel.validateRating(patch.getRating());
+            Hotel.validateLatitude(patch.getLatitude());
+            Hotel.validateLongitude(patch.getLongitude());
+            Hotel.validateCapacity(patch.getCapacity());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (patch.getName() != null) {
+            // the name may stay the same, but must not be the one of another hotel
+            hotelRepository.findByName(patch.getName())
+                    .filter(h -> !h.getId().equals(id))
+                    .ifPresent(h -> {
+                        throw hotelAlreadyExistsException(patch.getName());
+                    });
+        }
+
+        final int updated = hotelRepository.updateNonNullValues(id, expectedVersion, patch);
+        if (updated == 0) {
+            throw hotelRepository.existsById(id) ? hotelModifiedException(id, null) : hotelNotFoundException(id);
+        }
+        hotelSearchIndex.recordUpdated(id, patch.getName(), patch.getAddress());
+        hotelGeoIndex.recordUpdated(id, patch.getLatitude(), patch.getLongitude());
+        bookingAnalyticsStore.recordHotel(id, patch.getRating());
+        bookingFilterIndex.recordHotel(id, patch.getRating());
+        return updated;
+    }
+
+    @Transactional
     public void deleteHotel(Long id) {
         if (!hotelRepository.existsById(id)) {
             throw hotelNotFoundException(id);
         }
         hotelRepository.deleteById(id);
+        hotelSearchIndex.recordDeleted(id);
+        hotelGeoIndex.recordDeleted(id);
+    }
+
+    /**
+     * Returns the hotel with the id or else the name of the given one, creating it when there is none.
+     * <p>
+     * Creation is single-flight per name: concurrent callers for the same new hotel wait on a striped lock
+     * while the first one inserts and commits it in its own transaction, then read the committed hotel.
+     * An insert losing against another instance sharing the database falls back to reading the winner's hotel.
+     * <p>
+     * Call it outside of any transaction: a caller holding a connection while waiting for the lock and the connection
+     * of the insert can exhaust the pool when as many callers create new hotels at once.
+     */
+    public Hotel getOrCreateHotel(@NonNull Hotel hotel) {
+        final Optional<Hotel> existing = getHotelByIdOrName(hotel);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        final String name = hotel.getName();
+        if (name == null) {
+            // a bare id cannot be used to create a hotel
+            throw hotelNotFoundException(hotel.getId());
+        }
+        validateCapacity(hotel.getCapacity());
+
+        final Long id;
+        final Lock lock = nameLocks.lockFor(name);
+        lock.lock();
+        try {
+            final Hotel created = new Hotel(name, hotel.getAddress(), hotel.getRating(), hotel.getLatitude(), hotel.getLongitude());
+            created.setCapacity(hotel.getCapacity());
+            id = insertIfAbsent(created);
+        } finally {
+            lock.unlock();
+        }
+        // read now that the hotel is committed
+        return getHotelById(id);
+    }
+
+    private Long insertIfAbsent(Hotel hotel) {
+        try {
+            return newTransaction.execute(status -> hotelRepository.findByName(hotel.getName())
+                    .orElseGet(() -> {
+                        final Hotel created = hotelRepository.save(hotel);
+                        hotelSearchIndex.recordCreated(created);
+                        hotelGeoIndex.recordCreated(created);
+                        bookingAnalyticsStore.recordHotel(created.getId(), created.getRating());
+                        bookingFilterIndex.recordHotel(created.getId(), created.getRating());
+                        return created;
+                    })
+                    .getId());
+        } catch (DataIntegrityViolationException e) {
+            // inserted concurrently outside this instance
+            return hotelRepository.findByName(hotel.getName())
+                    .orElseThrow(() -> e)
+                    .getId();
+        }
     }
 
     Optional<Hotel> getHotelByIdOrName(@NonNull Hotel hotel) {
@@ -69,6 +294,14 @@ public class HotelService {
                 : hotelRepository.findByName(hotel.getName());
     }
 
+    private void validateCapacity(@Nullable Integer capacity) {
+        try {
+            Hotel.validateCapacity(capacity);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     private void throwIfExists(@Nullable String hotelName) {
         if (hotelName != null &&
                 hotelRepository.findByName(hotelName).isPresent()) {
@@ -80,6 +313,11 @@ public class HotelService {
         return new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel with id: " + id + " does not exist");
     }
 
+    private RuntimeException hotelModifiedException(Long id, Long version) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Hotel with id: " + id + " has been modified" + (version != null ? ", current version: " + version : ""));
+    }
+
     private RuntimeException hotelAlreadyExistsException(String name) {
         return new ResponseStatusException(HttpStatus.CONFLICT, "Hotel : " + name + " already exists");
     }
@@ -0,0 +1,59 @@
+package com.hotelcorp.business;
+
+/**
+ * Approximate count of distinct values (HyperLogLog) in {@code 2^precision} one-byte registers, with a standard
+ * error of {@code 1.04 / sqrt(2^precision)}. Values are added by their 64-bit hash; values cannot be removed.
+ * Sketches of the same precision merge into the sketch of the union of their values.
+ * <p>
+ * Not thread-safe.
+ */
+class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Invalid precision: " + precision + ". Use values [4, 18]");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add(long hash) {
+        final int register = (int) (hash >>> (64 - precision));
+        // position of the first 1 bit of the remaining bits, 65 - precision when they are all 0
+        final int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double alpha = 0.7213 / (1 + 1.079 / m);
+        final double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // few values: counting the empty registers is more accurate
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precisions");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+}
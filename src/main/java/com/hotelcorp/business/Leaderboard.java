@@ -0,0 +1,172 @@
+package com.hotelcorp.business;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Scores of ids ranked from the highest, in an indexed binary heap: every entry knows its position in the heap array,
+ * so that a changed score moves up or down from there in O(log n). The top {@code k} are read from the heap in
+ * O(k log k), walking down from its root. Ids whose score returns to 0 leave the ranking.
+ * <p>
+ * Writers and readers are serialized; a read holds the lock for the {@code k} entries it copies only.
+ */
+public class Leaderboard {
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // heap[0] ranks first, each entry ranks before its children heap[2i + 1] and heap[2i + 2]
+    private Entry[] heap = new Entry[16];
+    private int size;
+
+    /**
+     * @param delta negative to lower the score
+     */
+    public synchronized void add(long id, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        final Entry entry = entries.get(id);
+        if (entry == null) {
+            final Entry added = new Entry(id, delta);
+            entries.put(id, added);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            place(added, size++);
+            siftUp(added.index);
+            return;
+        }
+        entry.score = Math.addExact(entry.score, delta);
+        if (entry.score == 0) {
+            entries.remove(id);
+            removeAt(entry.index);
+        } else if (delta > 0) {
+            siftUp(entry.index);
+        } else {
+            siftDown(entry.index);
+        }
+    }
+
+    /**
+     * @return the {@code k} highest scores, highest first
+     */
+    public synchronized List<Score> top(int k) {
+        final List<Score> top = new ArrayList<>(Math.min(k, size));
+        // candidates for the next rank: the children of the entries ranked so far
+        final PriorityQueue<Integer> next = new PriorityQueue<>(Math.max(1, Math.min(2 * k, size)),
+                (a, b) -> ranksBefore(heap[a], heap[b]) ? -1 : 1);
+        if (size > 0) {
+            next.add(0);
+        }
+        while (top.size() < k && !next.isEmpty()) {
+            final int index = next.poll();
+            top.add(new Score(heap[index].id, heap[index].score));
+            if (2 * index + 1 < size) {
+                next.add(2 * index + 1);
+            }
+            if (2 * index + 2 < size) {
+                next.add(2 * index + 2);
+            }
+        }
+        return top;
+    }
+
+    public synchronized long score(long id) {
+        final Entry entry = entries.get(id);
+        return entry != null ? entry.score : 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void removeAt(int index) {
+        final Entry last = heap[--size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        place(last, index);
+        siftUp(index);
+        siftDown(last.index);
+    }
+
+    private void siftUp(int index) {
+        final Entry entry = heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!ranksBefore(entry, heap[parent])) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(entry, index);
+    }
+
+    private void siftDown(int index) {
+        final Entry entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksBefore(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!ranksBefore(heap[child], entry)) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(entry, index);
+    }
+
+    private void place(Entry entry, int index) {
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    // highest score first, the lowest id first among equal scores
+    private static boolean ranksBefore(Entry a, Entry b) {
+        return a.score > b.score || (a.score == b.score && a.id < b.id);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private long score;
+        private int index;
+
+        private Entry(long id, long score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    public static final class Score {
+        private final long id;
+        private final long score;
+
+        Score(long id, long score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return id + "=" + score;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.hotelcorp.business;
+
+import java.util.Arrays;
+
+/**
+ * Pax per night of one hotel, as a segment tree over the nights {@code [0, NIGHTS)} whose nodes are created
+ * when a stay first reaches them. Adding a stay, reading a night and finding the busiest night of a range
+ * each take O(log NIGHTS), however many stays overlap.
+ * <p>
+ * Nodes are kept in arrays rather than objects, removed stays leave their nodes behind with zero pax.
+ */
+class OccupancyTree {
+
+    // 2^17 nights, from 1970 well into the 2300s
+    static final int NIGHTS = 1 << 17;
+
+    private static final int ROOT = 1;
+
+    // child node indexes, 0 for none; node 0 is never used and stays empty
+    private int[] left = new int[64];
+    private int[] right = new int[64];
+    // pax added to every night of the node range
+    private int[] added = new int[64];
+    // pax of the busiest night of the node range, including what was added to the node itself
+    private int[] max = new int[64];
+    private int nodes = ROOT + 1;
+
+    /**
+     * Adds the given pax, negative to remove them, to every night of {@code [from, to)}.
+     */
+    synchronized void add(int from, int to, int pax) {
+        checkRange(from, to);
+        add(ROOT, 0, NIGHTS, from, to, pax);
+    }
+
+    synchronized int get(int night) {
+        checkRange(night, night + 1);
+        return max(ROOT, 0, NIGHTS, night, night + 1);
+    }
+
+    /**
+     * @return the pax of each night of {@code [from, to)}
+     */
+    synchronized int[] get(int from, int to) {
+        checkRange(from, to);
+        final int[] pax = new int[to - from];
+        for (int night = from; night < to; night++) {
+            pax[night - from] = max(ROOT, 0, NIGHTS, night, night + 1);
+        }
+        return pax;
+    }
+
+    /**
+     * @return the pax of the busiest night of {@code [from, to)}
+     */
+    synchronized int max(int from, int to) {
+        checkRange(from, to);
+        return max(ROOT, 0, NIGHTS, from, to);
+    }
+
+    private void add(int node, int low, int high, int from, int to, int pax) {
+        if (from <= low && high <= to) {
+            added[node] += pax;
+            max[node] += pax;
+            return;
+        }
+        final int middle = (low + high) >>> 1;
+        if (from < middle) {
+            if (left[node] == 0) {
+                // assigned after allocating, which may replace the arrays
+                final int child = newNode();
+                left[node] = child;
+            }
+            add(left[node], low, middle, from, to, pax);
+        }
+        if (to > middle) {
+            if (right[node] == 0) {
+                final int child = newNode();
+                right[node] = child;
+            }
+            add(right[node], middle, high, from, to, pax);
+        }
+        max[node] = added[node] + Math.max(max[left[node]], max[right[node]]);
+    }
+
+    private int max(int node, int low, int high, int from, int to) {
+        if (node == 0) {
+            // nothing was ever added below, the ancestors hold the pax of these nights
+            return 0;
+        }
+        if (from <= low && high <= to) {
+            return max[node];
+        }
+        final int middle = (low + high) >>> 1;
+        int busiest = Integer.MIN_VALUE;
+        if (from < middle) {
+            busiest = Math.max(busiest, max(left[node], low, middle, from, to));
+        }
+        if (to > middle) {
+            busiest = Math.max(busiest, max(right[node], middle, high, from, to));
+        }
+        return added[node] + busiest;
+    }
+
+    private int newNode() {
+        if (nodes == left.length) {
+            final int capacity = nodes * 2;
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            added = Arrays.copyOf(added, capacity);
+            max = Arrays.copyOf(max, capacity);
+        }
+        return nodes++;
+    }
+
+    private static void checkRange(int from, int to) {
+        if (from < 0 || to > NIGHTS || from >= to) {
+            throw new IllegalArgumentException("Invalid nights: [" + from + ", " + to + ")");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hotelcorp.business;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * A fixed number of locks shared by all keys: equal keys always get the same lock,
+ * different keys only contend when they hash to the same stripe.
+ */
+class StripedLocks {
+
+    private final Lock[] locks;
+
+    StripedLocks(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripes must be positive: " + stripes);
+        }
+        // round up to a power of two so a stripe is picked by masking
+        final int size = Integer.highestOneBit(stripes - 1) << 1;
+        locks = new Lock[Math.max(size, 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    Lock lockFor(Object key) {
+        return locks[stripe(key)];
+    }
+
+    /**
+     * @return the distinct locks of the given keys, in stripe order: taking several of them in this order
+     * cannot deadlock with another caller doing the same
+     */
+    List<Lock> locksFor(Collection<?> keys) {
+        return keys.stream()
+                .mapToInt(this::stripe)
+                .distinct()
+                .sorted()
+                .mapToObj(i -> locks[i])
+                .collect(Collectors.toList());
+    }
+
+    int stripes() {
+        return locks.length;
+    }
+
+    private int stripe(Object key) {
+        final int h = key.hashCode();
+        // spread the high bits, as HashMap does
+        return (h ^ (h >>> 16)) & (locks.length - 1);
+    }
+}
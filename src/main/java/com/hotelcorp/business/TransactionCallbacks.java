@@ -0,0 +1,38 @@
+package com.hotelcorp.business;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for running code when the current transaction ends, registered from within that transaction.
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Runs the given callback once the current transaction has committed, not at all when it rolls back, so that
+     * in-memory data derived from the database only ever reflects committed changes.
+     */
+    static void afterCommit(Runnable callback) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                callback.run();
+            }
+        });
+    }
+
+    /**
+     * Runs the given callback once the current transaction has either committed or rolled back.
+     */
+    static void afterCompletion(Runnable callback) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.hotelcorp.controller;
+
+import com.hotelcorp.business.BookingAnalyticsStore;
+import com.hotelcorp.data.BookingGroup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+    private final BookingAnalyticsStore bookingAnalyticsStore;
+
+    @Autowired
+    public AnalyticsController(BookingAnalyticsStore bookingAnalyticsStore) {
+        this.bookingAnalyticsStore = bookingAnalyticsStore;
+    }
+
+    /**
+     * Groups the bookings by any of hotel, rating, currency and pax ({@code ?groupBy=currency,pax,rating}),
+     * optionally filtered, from memory.
+     */
+    @GetMapping(value = "/bookings")
+    public List<BookingGroup> groupBookings(@RequestParam(required = false) List<String> groupBy,
+                                            @RequestParam(required = false) Long hotelId,
+                                            @RequestParam(required = false) Byte rating,
+                                            @RequestParam(required = false) String currency,
+                                            @RequestParam(required = false) Short minPax,
+                                            @RequestParam(required = false) Short maxPax) {
+        return bookingAnalyticsStore.groupBy(dimensions(groupBy), hotelId, rating, currency, minPax, maxPax);
+    }
+
+    private static Set<BookingGroup.Dimension> dimensions(List<String> groupBy) {
+        final Set<BookingGroup.Dimension> dimensions = EnumSet.noneOf(BookingGroup.Dimension.class);
+        if (groupBy == null) {
+            return dimensions;
+        }
+        for (String name : groupBy) {
+            try {
+                dimensions.add(BookingGroup.Dimension.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown dimension: " + name + ", use hotel, rating, currency or pax");
+            }
+        }
+        return dimensions;
+    }
+}
@@ -1,20 +1,70 @@
 package com.hotelcorp.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.hotelcorp.business.BookingIntakeService;
 import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.BookingSketchIndex;
+import com.hotelcorp.business.ConcurrentUpdateRetrier;
+import com.hotelcorp.business.HotelRevenueService;
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
 import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingRepricing;
+import com.hotelcorp.data.BookingTicket;
+import com.hotelcorp.data.CursorPage;
+import com.hotelcorp.data.HotelBookingSketches;
+import com.hotelcorp.data.HotelBookingStatistics;
+import com.hotelcorp.data.HotelRevenueDrift;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.hotelcorp.controller.NdjsonResponses.APPLICATION_NDJSON_VALUE;
 
 @RestController
 @RequestMapping("/bookings")
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingIntakeService bookingIntakeService;
+    private final HotelRevenueService hotelRevenueService;
+    private final BookingSketchIndex bookingSketchIndex;
+    private final ConcurrentUpdateRetrier concurrentUpdateRetrier;
+    private final ObjectWriter objectWriter;
+    private final ObjectReader bookingReader;
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService,
+                             BookingIntakeService bookingIntakeService,
+                             HotelRevenueService hotelRevenueService,
+                             BookingSketchIndex bookingSketchIndex,
+                             ConcurrentUpdateRetrier concurrentUpdateRetrier,
+                             ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.bookingIntakeService = bookingIntakeService;
+        this.hotelRevenueService = hotelRevenueService;
+        this.bookingSketchIndex = bookingSketchIndex;
+        this.concurrentUpdateRetrier = concurrentUpdateRetrier;
+        this.objectWriter = objectMapper.writer();
+        this.bookingReader = objectMapper.readerFor(Booking.class);
     }
 
     @GetMapping
@@ -22,9 +72,21 @@ public class BookingController {
         return bookingService.getAllBookings();
     }
 
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        return NdjsonResponses.stream(objectWriter, bookingService::streamAllBookings);
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<Booking> getBookingsPage(@RequestParam(required = false) Long after,
+                                               @RequestParam Integer limit) {
+        return bookingService.getBookings(after, limit);
+    }
+
     @GetMapping(value = "/{id}")
-    public Booking getBooking(@PathVariable Long id) {
-        return bookingService.getBookingById(id);
+    public ResponseEntity<Booking> getBooking(@PathVariable Long id) {
+        final Booking booking = bookingService.getBookingById(id);
+        return ETags.ok(booking, booking.getVersion());
     }
 
     @PostMapping
@@ -32,9 +94,77 @@ public class BookingController {
         return bookingService.createBooking(booking);
     }
 
+    /**
+     * Queues the booking for creation and returns 202 with a ticket to follow it at its Location,
+     * 429 when too many bookings are already queued.
+     */
+    @PostMapping(params = "async=true")
+    public ResponseEntity<BookingTicket> submitBooking(@RequestBody Booking booking) {
+        final BookingTicket ticket = bookingIntakeService.submit(booking);
+        return ResponseEntity.accepted()
+                .location(URI.create("/bookings/tickets/" + ticket.getId()))
+                .body(ticket);
+    }
+
+    @GetMapping(value = "/tickets/{id}")
+    public BookingTicket getTicket(@PathVariable String id) {
+        return bookingIntakeService.getTicket(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ticket with id: " + id + " does not exist"));
+    }
+
+    /**
+     * Creates a JSON array of bookings. The array is read element by element while the
+     * bookings are persisted, so the request body is never held in memory as a whole.
+     * <p>
+     * A malformed element ends the batch: it is reported as rejected after the results of the bookings
+     * preceding it, which may already be stored. Only a batch malformed from its first element is a 400.
+     */
+    @PostMapping(value = "/batch")
+    public List<BookingBatchResult> createBookings(InputStream body) throws IOException {
+        try (MappingIterator<Booking> bookings = bookingReader.readValues(body)) {
+            final WellFormedBookings wellFormed = new WellFormedBookings(bookings);
+            final List<BookingBatchResult> results = bookingService.createBookings(wellFormed);
+            if (wellFormed.malformed == null) {
+                return results;
+            }
+            if (wellFormed.read == 0) {
+                throw malformedBatchException(wellFormed.malformed);
+            }
+            final List<BookingBatchResult> withMalformed = new ArrayList<>(results);
+            withMalformed.add(BookingBatchResult.rejected(wellFormed.read,
+                    "Malformed booking, the bookings after it were not read: " + wellFormed.malformed.getMessage()));
+            return withMalformed;
+        } catch (JsonProcessingException e) {
+            throw malformedBatchException(e);
+        }
+    }
+
+    /**
+     * Updates the given fields. With If-Match the update only applies to that version (412 otherwise),
+     * with ?retry=true an update that conflicts with a concurrent one is applied again on top of it.
+     */
     @PutMapping(value = "/{id}")
-    public Booking updateBooking(@RequestBody Booking newBooking, @PathVariable Long id) {
-        return bookingService.updateBooking(newBooking, id);
+    public ResponseEntity<Booking> updateBooking(@RequestBody Booking newBooking,
+                                                 @PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 @RequestParam(defaultValue = "false") boolean retry) {
+        final Long expectedVersion = ETags.expectedVersion(ifMatch);
+        final Booking updated = concurrentUpdateRetrier.update(
+                () -> bookingService.updateBooking(newBooking, id, expectedVersion), retry);
+        return ETags.ok(updated, updated.getVersion());
+    }
+
+    /**
+     * Sets only the given fields, in one UPDATE statement. Returns the number of updated bookings.
+     * If-Match and ?retry=true work as for PUT.
+     */
+    @PatchMapping(value = "/{id}")
+    public int patchBooking(@RequestBody Booking patch,
+                            @PathVariable Long id,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                            @RequestParam(defaultValue = "false") boolean retry) {
+        final Long expectedVersion = ETags.expectedVersion(ifMatch);
+        return concurrentUpdateRetrier.update(() -> bookingService.patchBooking(patch, id, expectedVersion), retry);
     }
 
     @DeleteMapping(value = "/{id}")
@@ -42,8 +172,103 @@ public class BookingController {
         bookingService.deleteBooking(id);
     }
 
+    // multiplies the prices of a hotel in a currency by ?factor=1.05 or shifts them by ?delta=-10, of ?minPax=&maxPax= only
+    @PostMapping(value = "/reprice")
+    public long repriceBookings(@RequestParam Long hotelId,
+                                @RequestParam String currency,
+                                @RequestParam(required = false) BigDecimal factor,
+                                @RequestParam(required = false) BigDecimal delta,
+                                @RequestParam(required = false) Short minPax,
+                                @RequestParam(required = false) Short maxPax) {
+        return bookingService.repriceBookings(new BookingRepricing(hotelId, currency, factor, delta, minPax, maxPax));
+    }
+
+    // ?reportingCurrency=EUR converts the amounts in all currencies with an FX rate into one total
+
     @GetMapping(value = "/stats", params = "hotelId")
-    public Iterable<BookingPriceStatistics> getBookingStatsForHotel(@RequestParam Long hotelId) {
-        return bookingService.getBookingStatsForHotel(hotelId);
+    public Iterable<BookingPriceStatistics> getBookingStatsForHotel(@RequestParam Long hotelId,
+                                                                    @RequestParam(required = false) String reportingCurrency) {
+        return reportingCurrency != null
+                ? bookingService.getBookingStatsForHotel(hotelId, reportingCurrency)
+                : bookingService.getBookingStatsForHotel(hotelId);
+    }
+
+    // all hotels in one call, optionally narrowed down with ?hotelIds=1,2,3
+    @GetMapping(value = "/stats")
+    public Iterable<HotelBookingStatistics> getBookingStats(@RequestParam(required = false) List<Long> hotelIds,
+                                                            @RequestParam(required = false) String reportingCurrency) {
+        return reportingCurrency != null
+                ? bookingService.getBookingStats(hotelIds, reportingCurrency)
+                : bookingService.getBookingStats(hotelIds);
+    }
+
+    // hotels and currencies whose materialized revenue no longer matches their bookings
+    @GetMapping(value = "/stats/drift")
+    public Iterable<HotelRevenueDrift> verifyBookingStats() {
+        return hotelRevenueService.verify();
+    }
+
+    @PostMapping(value = "/stats/rebuild")
+    public Iterable<HotelRevenueDrift> rebuildBookingStats() {
+        return hotelRevenueService.rebuild();
+    }
+
+    // approximate price percentiles, distinct and top customers of a hotel, ?top=5 for fewer top customers
+    @GetMapping(value = "/stats/sketches", params = "hotelId")
+    public HotelBookingSketches getBookingSketchesForHotel(@RequestParam Long hotelId,
+                                                           @RequestParam(required = false) Integer top) {
+        return bookingSketchIndex.getSketches(hotelId, top);
+    }
+
+    private RuntimeException malformedBatchException(Exception e) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed booking batch: " + e.getMessage());
+    }
+
+    /**
+     * The bookings of a batch up to its first malformed element, which ends the iteration instead of failing it.
+     * Each element is read ahead in hasNext(), so that the bookings handed out are all whole.
+     */
+    private static final class WellFormedBookings implements Iterator<Booking> {
+        private final MappingIterator<Booking> bookings;
+        // a null element is read as a null booking
+        private Booking next;
+        private boolean readAhead;
+        private int read;
+        private RuntimeException malformed;
+
+        private WellFormedBookings(MappingIterator<Booking> bookings) {
+            this.bookings = bookings;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!readAhead && malformed == null) {
+                try {
+                    if (bookings.hasNext()) {
+                        next = bookings.next();
+                        readAhead = true;
+                    }
+                } catch (RuntimeException e) {
+                    // the iterator reports parse errors as unchecked exceptions
+                    if (!(e instanceof RuntimeJsonMappingException || e.getCause() instanceof JsonProcessingException)) {
+                        throw e;
+                    }
+                    malformed = e;
+                }
+            }
+            return readAhead;
+        }
+
+        @Override
+        public Booking next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Booking booking = next;
+            next = null;
+            readAhead = false;
+            read++;
+            return booking;
+        }
     }
-}
\ No newline at end of file
+}
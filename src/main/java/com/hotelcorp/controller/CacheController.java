@@ -0,0 +1,25 @@
+package com.hotelcorp.controller;
+
+import com.hotelcorp.business.CacheStatisticsService;
+import com.hotelcorp.data.CacheStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/caches")
+public class CacheController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    public CacheController(CacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    @GetMapping(value = "/stats")
+    public Iterable<CacheStatistics> getCacheStatistics() {
+        return cacheStatisticsService.getCacheStatistics();
+    }
+}
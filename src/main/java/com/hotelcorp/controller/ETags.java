@@ -0,0 +1,44 @@
+package com.hotelcorp.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Entity versions as ETags: {@code "3"} for version 3.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag(version.toString());
+        }
+        return response.body(body);
+    }
+
+    /**
+     * @return the version an If-Match header asks for, null when there is no precondition
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            // not one of ours, cannot match any version
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown ETag: " + ifMatch);
+        }
+    }
+}
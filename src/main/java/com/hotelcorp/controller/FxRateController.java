@@ -0,0 +1,31 @@
+package com.hotelcorp.controller;
+
+import com.hotelcorp.business.FxRateService;
+import com.hotelcorp.data.FxRates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/fx-rates")
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    @Autowired
+    public FxRateController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    @GetMapping
+    public FxRates getRates() {
+        return fxRateService.getRates();
+    }
+
+    @PostMapping(value = "/reload")
+    public FxRates reloadRates() {
+        return fxRateService.reload();
+    }
+}
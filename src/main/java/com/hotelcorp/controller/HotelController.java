@@ -1,8 +1,13 @@
 package com.hotelcorp.controller;
 
+import com.hotelcorp.business.ConcurrentUpdateRetrier;
 import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.CursorPage;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelDistance;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -10,10 +15,12 @@ import org.springframework.web.bind.annotation.*;
 public class HotelController {
 
     private final HotelService hotelService;
+    private final ConcurrentUpdateRetrier concurrentUpdateRetrier;
 
     @Autowired
-    public HotelController(HotelService hotelService) {
+    public HotelController(HotelService hotelService, ConcurrentUpdateRetrier concurrentUpdateRetrier) {
         this.hotelService = hotelService;
+        this.concurrentUpdateRetrier = concurrentUpdateRetrier;
     }
 
     @GetMapping
@@ -21,10 +28,36 @@ public class HotelController {
         return hotelService.getAllHotels();
     }
 
+    @GetMapping(params = "limit")
+    public CursorPage<Hotel> getHotelsPage(@RequestParam(required = false) Long after,
+                                           @RequestParam Integer limit) {
+        return hotelService.getHotels(after, limit);
+    }
+
+    /**
+     * Hotels whose name or address match the words of the query, best first. Accents and case are ignored.
+     */
+    @GetMapping(value = "/search")
+    public Iterable<Hotel> searchHotels(@RequestParam String q,
+                                        @RequestParam(required = false) Integer limit) {
+        return hotelService.searchHotels(q, limit);
+    }
+
+    /**
+     * Hotels within {@code radiusKm} of the given point, nearest first, with their distance.
+     */
+    @GetMapping(value = "/near")
+    public Iterable<HotelDistance> getHotelsNear(@RequestParam double lat,
+                                                 @RequestParam double lon,
+                                                 @RequestParam double radiusKm,
+                                                 @RequestParam(required = false) Integer limit) {
+        return hotelService.getHotelsNear(lat, lon, radiusKm, limit);
+    }
 
     @GetMapping(value = "/{id}")
-    public Hotel getHotel(@PathVariable Long id) {
-        return hotelService.getHotelById(id);
+    public ResponseEntity<Hotel> getHotel(@PathVariable Long id) {
+        final Hotel hotel = hotelService.getHotelById(id);
+        return ETags.ok(hotel, hotel.getVersion());
     }
 
     @PostMapping
@@ -32,9 +65,32 @@ public class HotelController {
         return hotelService.createHotel(hotel);
     }
 
+    /**
+     * Updates the given fields. With If-Match the update only applies to that version (412 otherwise),
+     * with ?retry=true an update that conflicts with a concurrent one is applied again on top of it.
+     */
     @PutMapping(value = "/{id}")
-    public Hotel updateHotel(@RequestBody Hotel newHotel, @PathVariable Long id) {
-        return hotelService.updateHotel(newHotel, id);
+    public ResponseEntity<Hotel> updateHotel(@RequestBody Hotel newHotel,
+                                             @PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             @RequestParam(defaultValue = "false") boolean retry) {
+        final Long expectedVersion = ETags.expectedVersion(ifMatch);
+        final Hotel updated = concurrentUpdateRetrier.update(
+                () -> hotelService.updateHotel(newHotel, id, expectedVersion), retry);
+        return ETags.ok(updated, updated.getVersion());
+    }
+
+    /**
+     * Sets only the given fields, in one UPDATE statement. Returns the number of updated hotels.
+     * If-Match and ?retry=true work as for PUT.
+     */
+    @PatchMapping(value = "/{id}")
+    public int patchHotel(@RequestBody Hotel patch,
+                          @PathVariable Long id,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                          @RequestParam(defaultValue = "false") boolean retry) {
+        final Long expectedVersion = ETags.expectedVersion(ifMatch);
+        return concurrentUpdateRetrier.update(() -> hotelService.patchHotel(patch, id, expectedVersion), retry);
     }
 
     @DeleteMapping(value = "/{id}")
@@ -0,0 +1,47 @@
+package com.hotelcorp.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Builds newline delimited JSON responses that are written while the rows are produced.
+ */
+final class NdjsonResponses {
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    private NdjsonResponses() {
+    }
+
+    /**
+     * @param writer   the writer used for every row
+     * @param producer receives a row consumer and pushes every row of the result into it
+     */
+    static <T> ResponseEntity<StreamingResponseBody> stream(ObjectWriter writer, Consumer<Consumer<T>> producer) {
+        final StreamingResponseBody body = out -> producer.accept(row -> writeLine(writer, out, row));
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static void writeLine(ObjectWriter writer, OutputStream out, Object row) {
+        try {
+            out.write(writer.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize " + row, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
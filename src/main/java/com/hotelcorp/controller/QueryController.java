@@ -1,44 +1,210 @@
 package com.hotelcorp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.hotelcorp.business.BookingHotelService;
+import com.hotelcorp.business.BookingSearchService;
 import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelAvailabilityService;
 import com.hotelcorp.business.HotelService;
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingFilter;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.CursorPage;
+import com.hotelcorp.data.CustomerHotelsDrift;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelAvailability;
+import com.hotelcorp.data.HotelOccupancy;
+import com.hotelcorp.data.HotelRank;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import static com.hotelcorp.controller.NdjsonResponses.APPLICATION_NDJSON_VALUE;
+
 @RestController
 @RequestMapping("/queries")
 public class QueryController {
 
+    private static final String EXPAND_HOTEL = "hotel";
+
     private final BookingService bookingService;
     private final BookingHotelService bookingHotelService;
+    private final BookingSearchService bookingSearchService;
+    private final HotelAvailabilityService hotelAvailabilityService;
+    private final ObjectWriter objectWriter;
 
     @Autowired
-    public QueryController(BookingService bookingService, BookingHotelService bookingHotelService) {
+    public QueryController(BookingService bookingService,
+                           BookingHotelService bookingHotelService,
+                           BookingSearchService bookingSearchService,
+                           HotelAvailabilityService hotelAvailabilityService,
+                           ObjectMapper objectMapper) {
         this.bookingService = bookingService;
         this.bookingHotelService = bookingHotelService;
+        this.bookingSearchService = bookingSearchService;
+        this.hotelAvailabilityService = hotelAvailabilityService;
+        this.objectWriter = objectMapper.writer();
     }
 
+    // bookings are returned as flat summaries, ?expand=hotel returns the full bookings with their hotel
+
     @GetMapping(value = "/bookings", params = "hotelId")
-    public Iterable<Booking> getBookingsByHotelId(@RequestParam Long hotelId) {
-        return bookingService.getBookingsForHotel(hotelId);
+    public Iterable<?> getBookingsByHotelId(@RequestParam Long hotelId,
+                                            @RequestParam(required = false) String expand) {
+        return expandHotel(expand)
+                ? bookingService.getBookingsForHotel(hotelId)
+                : bookingService.getBookingSummariesForHotel(hotelId);
     }
 
     @GetMapping(value = "/bookings", params = "hotelName")
-    public Iterable<Booking> getBookingsByHotelName(@RequestParam String hotelName) {
-        return bookingService.getBookingsForHotel(hotelName);
+    public Iterable<?> getBookingsByHotelName(@RequestParam String hotelName,
+                                              @RequestParam(required = false) String expand) {
+        return expandHotel(expand)
+                ? bookingService.getBookingsForHotel(hotelName)
+                : bookingService.getBookingSummariesForHotel(hotelName);
+    }
+
+    @GetMapping(value = "/bookings", params = {"hotelId", "limit"})
+    public CursorPage<?> getBookingsPageByHotelId(@RequestParam Long hotelId,
+                                                  @RequestParam(required = false) Long after,
+                                                  @RequestParam Integer limit,
+                                                  @RequestParam(required = false) String expand) {
+        return expandHotel(expand)
+                ? bookingService.getBookingsForHotel(hotelId, after, limit)
+                : bookingService.getBookingSummariesForHotel(hotelId, after, limit);
+    }
+
+    @GetMapping(value = "/bookings", params = {"hotelName", "limit"})
+    public CursorPage<?> getBookingsPageByHotelName(@RequestParam String hotelName,
+                                                    @RequestParam(required = false) Long after,
+                                                    @RequestParam Integer limit,
+                                                    @RequestParam(required = false) String expand) {
+        return expandHotel(expand)
+                ? bookingService.getBookingsForHotel(hotelName, after, limit)
+                : bookingService.getBookingSummariesForHotel(hotelName, after, limit);
+    }
+
+    @GetMapping(value = "/bookings", params = "hotelId", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookingsByHotelId(@RequestParam Long hotelId,
+                                                                         @RequestParam(required = false) String expand) {
+        if (expandHotel(expand)) {
+            return NdjsonResponses.stream(objectWriter,
+                    (Consumer<Booking> consumer) -> bookingService.streamBookingsForHotel(hotelId, consumer));
+        }
+        return NdjsonResponses.stream(objectWriter,
+                (Consumer<BookingSummary> consumer) -> bookingService.streamBookingSummariesForHotel(hotelId, consumer));
+    }
+
+    @GetMapping(value = "/bookings", params = "hotelName", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookingsByHotelName(@RequestParam String hotelName,
+                                                                           @RequestParam(required = false) String expand) {
+        if (expandHotel(expand)) {
+            return NdjsonResponses.stream(objectWriter,
+                    (Consumer<Booking> consumer) -> bookingService.streamBookingsForHotel(hotelName, consumer));
+        }
+        return NdjsonResponses.stream(objectWriter,
+                (Consumer<BookingSummary> consumer) -> bookingService.streamBookingSummariesForHotel(hotelName, consumer));
+    }
+
+    // customer search, ranked and limited
+
+    @GetMapping(value = "/bookings", params = "customerLastNamePrefix")
+    public Iterable<?> searchBookingsByCustomerLastNamePrefix(@RequestParam String customerLastNamePrefix,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(required = false) String expand) {
+        return expandHotel(expand)
+                ? bookingService.searchBookingsByCustomerLastNamePrefix(customerLastNamePrefix, limit)
+                : bookingService.searchBookingSummariesByCustomerLastNamePrefix(customerLastNamePrefix, limit);
+    }
+
+    @GetMapping(value = "/bookings", params = "customerQuery")
+    public Iterable<?> searchBookingsByCustomer(@RequestParam String customerQuery,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String expand) {
+        return expandHotel(expand)
+                ? bookingService.searchBookingsByCustomer(customerQuery, limit)
+                : bookingService.searchBookingSummariesByCustomer(customerQuery, limit);
+    }
+
+    // any mix of filters, e.g. ?hotelId=1,2&currency=EUR&minPax=2&maxPrice=200; several values of a field match any
+
+    @GetMapping(value = "/bookings/search")
+    public CursorPage<BookingSummary> searchBookings(@RequestParam(value = "hotelId", required = false) List<Long> hotelIds,
+                                                     @RequestParam(value = "currency", required = false) List<String> currencies,
+                                                     @RequestParam(value = "rating", required = false) List<Byte> ratings,
+                                                     @RequestParam(required = false) Short minPax,
+                                                     @RequestParam(required = false) Short maxPax,
+                                                     @RequestParam(required = false) BigDecimal minPrice,
+                                                     @RequestParam(required = false) BigDecimal maxPrice,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer limit) {
+        return bookingSearchService.searchBookings(
+                new BookingFilter(hotelIds, currencies, ratings, minPax, maxPax, minPrice, maxPrice), after, limit);
     }
 
     @GetMapping(value = "/hotels", params = "customerLastName")
     public Iterable<Hotel> getHotelsForBookingsByCustomerLastName(@RequestParam("customerLastName") String lastName) {
         return bookingHotelService.getHotelsForBookingsByCustomerLastName(lastName);
     }
-}
\ No newline at end of file
+
+    // live leaderboard: ?by=bookings, or ?by=revenue&currency=EUR, k hotels (10 by default)
+    @GetMapping(value = "/hotels/top")
+    public Iterable<HotelRank> getTopHotels(@RequestParam String by,
+                                            @RequestParam(required = false) String currency,
+                                            @RequestParam(required = false) Integer k) {
+        return bookingHotelService.getTopHotels(by, currency, k);
+    }
+
+    @GetMapping(value = "/hotels/customer-index/drift")
+    public Iterable<CustomerHotelsDrift> verifyCustomerIndex() {
+        return bookingHotelService.verifyCustomerIndex();
+    }
+
+    @PostMapping(value = "/hotels/customer-index/rebuild")
+    public Iterable<CustomerHotelsDrift> rebuildCustomerIndex() {
+        return bookingHotelService.rebuildCustomerIndex();
+    }
+
+    // availability over the nights [from, to), dates as yyyy-MM-dd
+
+    @GetMapping(value = "/availability", params = {"hotelId", "from", "to"})
+    public HotelOccupancy getOccupancy(@RequestParam Long hotelId,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return hotelAvailabilityService.getOccupancy(hotelId, from, to);
+    }
+
+    @GetMapping(value = "/availability", params = {"from", "to", "pax", "!hotelId"})
+    public Iterable<HotelAvailability> getAvailableHotels(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                          @RequestParam int pax,
+                                                          @RequestParam(required = false) Integer limit) {
+        return hotelAvailabilityService.getAvailableHotels(from, to, pax, limit);
+    }
+
+    private static boolean expandHotel(String expand) {
+        if (expand == null) {
+            return false;
+        }
+        if (!EXPAND_HOTEL.equals(expand)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown expansion: " + expand + ", only " + EXPAND_HOTEL + " is supported");
+        }
+        return true;
+    }
+}
@@ -1,15 +1,26 @@
 package com.hotelcorp.data;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Data
 @Entity
 public class Booking {
+    // range of the stay dates, which the occupancy index covers
+    public static final LocalDate MIN_STAY_DATE = LocalDate.of(1970, 1, 1);
+    public static final LocalDate MAX_STAY_DATE = LocalDate.of(2299, 12, 31);
+    // range of the DECIMAL(10,3) price column
+    public static final BigDecimal MIN_PRICE = new BigDecimal("-9999999.999");
+    public static final BigDecimal MAX_PRICE = new BigDecimal("9999999.999");
+
+    // sequence ids are allocated in blocks, which keeps JDBC insert batching enabled (IDENTITY disables it)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "BOOKING_SEQ", allocationSize = 50)
     private Long id;
 
     private String customerName;
@@ -26,10 +37,20 @@ public class Booking {
     @Column(length = 3)
     private String currency;
 
+    // nights from check-in up to, but excluding, check-out
+    private LocalDate checkIn;
+
+    private LocalDate checkOut;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "HOTEL_ID", nullable = false)
     private Hotel hotel;
 
+    // optimistic locking, exposed as the ETag of the booking
+    @Version
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
     protected Booking() {
     }
 
@@ -47,12 +68,53 @@ public class Booking {
         this.hotel = hotel;
     }
 
+    public Booking(String customerName,
+                   String customerLastName,
+                   Short numberOfPax,
+                   BigDecimal price,
+                   String currency,
+                   LocalDate checkIn,
+                   LocalDate checkOut,
+                   Hotel hotel) {
+        this(customerName, customerLastName, numberOfPax, price, currency, hotel);
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+
+    /**
+     * Stays are optional, but need both dates, check-out after check-in.
+     */
+    public static void validateStay(LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null && checkOut == null) return;
+
+        if (checkIn == null || checkOut == null) {
+            throw new IllegalArgumentException("Check-in and check-out must be given together");
+        }
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("Invalid stay: " + checkIn + " to " + checkOut + ". Check-out must be after check-in");
+        }
+        if (checkIn.isBefore(MIN_STAY_DATE) || checkOut.isAfter(MAX_STAY_DATE)) {
+            throw new IllegalArgumentException("Invalid stay: " + checkIn + " to " + checkOut
+                    + ". Use dates [" + MIN_STAY_DATE + ", " + MAX_STAY_DATE + "]");
+        }
+    }
+
+    // detached snapshot of the current state, e.g. to compare with after an update
+    public Booking copy() {
+        final Booking copy = new Booking(customerName, customerLastName, numberOfPax, price, currency, checkIn, checkOut, hotel);
+        copy.id = id;
+        copy.version = version;
+        return copy;
+    }
+
     public void updateNonNullValues(Booking source) {
         if (source.customerName != null) this.customerName = source.customerName;
         if (source.customerLastName != null) this.customerLastName = source.customerLastName;
         if (source.numberOfPax != null) this.numberOfPax = source.numberOfPax;
         if (source.price != null) this.price = source.price;
         if (source.currency != null) this.currency = source.currency;
+        if (source.checkIn != null) this.checkIn = source.checkIn;
+        if (source.checkOut != null) this.checkOut = source.checkOut;
         if (source.hotel != null) this.hotel = source.hotel;
     }
 }
@@ -0,0 +1,42 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+/**
+ * Outcome of a single booking of a batch request, {@code index} is its position in the request.
+ */
+@Data
+public class BookingBatchResult {
+
+    public enum Status {
+        CREATED,
+        // the booking was not valid and was not sent to the database
+        REJECTED,
+        // the database refused the booking
+        FAILED
+    }
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+
+    private BookingBatchResult(int index, Long id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static BookingBatchResult created(int index, Long id) {
+        return new BookingBatchResult(index, id, Status.CREATED, null);
+    }
+
+    public static BookingBatchResult rejected(int index, String message) {
+        return new BookingBatchResult(index, null, Status.REJECTED, message);
+    }
+
+    public static BookingBatchResult failed(int index, String message) {
+        return new BookingBatchResult(index, null, Status.FAILED, message);
+    }
+}
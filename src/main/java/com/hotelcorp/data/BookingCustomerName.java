@@ -0,0 +1,19 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+/**
+ * Customer name and last name of a booking.
+ */
+@Data
+public class BookingCustomerName {
+    private Long bookingId;
+    private String customerName;
+    private String customerLastName;
+
+    public BookingCustomerName(Long bookingId, String customerName, String customerLastName) {
+        this.bookingId = bookingId;
+        this.customerName = customerName;
+        this.customerLastName = customerLastName;
+    }
+}
@@ -0,0 +1,40 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Criteria of a booking search, null when not filtered on: bookings match any of the values given for a field,
+ * and every field filtered on. Ranges include their bounds and may be open on either side.
+ */
+@Data
+public class BookingFilter {
+    private List<Long> hotelIds;
+    private List<String> currencies;
+    private List<Byte> ratings;
+    private Short minPax;
+    private Short maxPax;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    public BookingFilter(List<Long> hotelIds, List<String> currencies, List<Byte> ratings,
+                         Short minPax, Short maxPax, BigDecimal minPrice, BigDecimal maxPrice) {
+        this.hotelIds = hotelIds;
+        this.currencies = currencies;
+        this.ratings = ratings;
+        this.minPax = minPax;
+        this.maxPax = maxPax;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public boolean hasPaxRange() {
+        return minPax != null || maxPax != null;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+}
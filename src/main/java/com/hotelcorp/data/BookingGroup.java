@@ -0,0 +1,44 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Bookings sharing the values of the dimensions they were grouped by, the other dimensions are left null.
+ * Prices are only summed within a currency, so the revenue of the group is given per currency.
+ */
+@Data
+public class BookingGroup {
+
+    public enum Dimension {
+        HOTEL,
+        // rating of the hotel
+        RATING,
+        CURRENCY,
+        // number of pax of the booking
+        PAX
+    }
+
+    private Long hotelId;
+    private Byte rating;
+    private String currency;
+    private Short numberOfPax;
+    private long bookingCount;
+    // sum of the number of pax, bookings without one count none
+    private long totalPax;
+    // sum of the prices per currency, bookings without a currency under HotelRevenue.NO_CURRENCY
+    private Map<String, BigDecimal> revenue;
+
+    public BookingGroup(Long hotelId, Byte rating, String currency, Short numberOfPax,
+                        long bookingCount, long totalPax, Map<String, BigDecimal> revenue) {
+        this.hotelId = hotelId;
+        this.rating = rating;
+        this.currency = currency;
+        this.numberOfPax = numberOfPax;
+        this.bookingCount = bookingCount;
+        this.totalPax = totalPax;
+        this.revenue = revenue;
+    }
+}
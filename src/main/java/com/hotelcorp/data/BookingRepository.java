@@ -1,17 +1,195 @@
 package com.hotelcorp.data;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
-public interface BookingRepository extends CrudRepository<Booking, Long> {
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface BookingRepository extends CrudRepository<Booking, Long>, BookingRepositoryCustom {
+    // rows fetched per JDBC round trip by the streaming queries
+    String STREAM_FETCH_SIZE = "500";
+
+    // the hotel id is read from the foreign key column, the hotel itself is not joined
+    String SELECT_SUMMARY = "SELECT new com.hotelcorp.data.BookingSummary(b.id, b.customerName, b.customerLastName, " +
+            "b.numberOfPax, b.price, b.currency, b.hotel.id, b.version) FROM Booking b ";
+
+    String SELECT_SNAPSHOT = "SELECT new com.hotelcorp.data.BookingSnapshot(b.customerName, b.customerLastName, b.hotel.id, b.currency, b.price, " +
+            "b.numberOfPax, b.checkIn, b.checkOut, b.version) FROM Booking b ";
+
+    // booking ids in a price range, native so that their plans can be checked: read from IDX_BOOKING_PRICE (PRICE, ID)
+    // when the range is selective, else checked while seeking the primary key
+    String SQL_IDS_BY_PRICE = "SELECT ID FROM BOOKING WHERE PRICE BETWEEN :minPrice AND :maxPrice AND ID > :afterId";
+
+    String SQL_IDS_BY_ID_AND_PRICE = "SELECT ID FROM BOOKING WHERE ID IN (:ids) AND PRICE BETWEEN :minPrice AND :maxPrice";
+
+    // walks the primary key in id order, the price index would read the whole range before sorting
+    String SQL_IDS_AFTER_BY_PRICE = "SELECT ID FROM BOOKING USE INDEX () WHERE ID > :afterId AND PRICE BETWEEN :minPrice AND :maxPrice " +
+            "ORDER BY ID LIMIT :limit";
+
+    // the hotel of every booking is fetched in the same statement (no extra SELECT per distinct hotel)
+    @Override
+    @EntityGraph(attributePaths = "hotel")
+    Iterable<Booking> findAll();
+
+    @EntityGraph(attributePaths = "hotel")
     Iterable<Booking> findByHotelId(Long hotelId);
+
+    @EntityGraph(attributePaths = "hotel")
     Iterable<Booking> findByHotelName(String hotelName);
+
+    @EntityGraph(attributePaths = "hotel")
     Iterable<Booking> findByCustomerLastName(String lastName);
 
+    // keyset pagination: seek past the given id, the page size is taken from the pageable
+    @EntityGraph(attributePaths = "hotel")
+    List<Booking> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "hotel")
+    List<Booking> findByHotelIdAndIdGreaterThanOrderById(Long hotelId, Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "hotel")
+    List<Booking> findByHotelNameAndIdGreaterThanOrderById(String hotelName, Long afterId, Pageable pageable);
+
+    // read-only projections of the entity queries above
+    @Query(SELECT_SUMMARY + "WHERE b.hotel.id = :hotelId")
+    List<BookingSummary> findSummariesByHotelId(@Param("hotelId") Long hotelId);
+
+    @Query(SELECT_SUMMARY + "WHERE b.hotel.name = :hotelName")
+    List<BookingSummary> findSummariesByHotelName(@Param("hotelName") String hotelName);
+
+    @Query(SELECT_SUMMARY + "WHERE b.hotel.id = :hotelId AND b.id > :afterId ORDER BY b.id")
+    List<BookingSummary> findSummariesByHotelIdAndIdGreaterThan(@Param("hotelId") Long hotelId,
+                                                                @Param("afterId") Long afterId,
+                                                                Pageable pageable);
+
+    @Query(SELECT_SUMMARY + "WHERE b.hotel.name = :hotelName AND b.id > :afterId ORDER BY b.id")
+    List<BookingSummary> findSummariesByHotelNameAndIdGreaterThan(@Param("hotelName") String hotelName,
+                                                                  @Param("afterId") Long afterId,
+                                                                  Pageable pageable);
+
+    // search results, in no particular order
+    @Query(SELECT_SUMMARY + "WHERE b.id IN :ids")
+    List<BookingSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "hotel")
+    List<Booking> findByIdIn(Collection<Long> ids);
+
+    // ids as the database returns them (BIGINT is not mapped to Long by native queries)
+    @Query(value = SQL_IDS_BY_PRICE, nativeQuery = true)
+    List<Number> findIdsByPriceBetween(@Param("minPrice") BigDecimal minPrice,
+                                       @Param("maxPrice") BigDecimal maxPrice,
+                                       @Param("afterId") long afterId);
+
+    @Query(value = SQL_IDS_BY_ID_AND_PRICE, nativeQuery = true)
+    List<Number> findIdsByIdInAndPriceBetween(@Param("ids") Collection<Long> ids,
+                                              @Param("minPrice") BigDecimal minPrice,
+                                              @Param("maxPrice") BigDecimal maxPrice);
+
+    @Query(value = SQL_IDS_AFTER_BY_PRICE, nativeQuery = true)
+    List<Number> findIdsByIdGreaterThanAndPriceBetween(@Param("afterId") long afterId,
+                                                       @Param("minPrice") BigDecimal minPrice,
+                                                       @Param("maxPrice") BigDecimal maxPrice,
+                                                       @Param("limit") int limit);
+
+    // one statement for a chunk of bookings locked by findSummariesToReprice, rounded like ScaledAmount amounts
+    @Modifying
+    @Query("UPDATE Booking b SET b.price = ROUND(b.price * :factor + :delta, 3), b.version = b.version + 1 " +
+            "WHERE b.id IN :ids")
+    int repriceByIdIn(@Param("ids") Collection<Long> ids,
+                      @Param("factor") BigDecimal factor,
+                      @Param("delta") BigDecimal delta);
+
+    // what the derived data of a booking depends on, without loading the booking and its hotel
+    @Query(SELECT_SNAPSHOT + "WHERE b.id = :id")
+    Optional<BookingSnapshot> findSnapshotById(@Param("id") Long id);
+
+    // stays of the hotel overlapping the nights [from, to), but the one of the given booking
+    @Query(SELECT_SNAPSHOT + "WHERE b.hotel.id = :hotelId AND b.checkIn < :to AND b.checkOut > :from AND b.id <> :bookingId")
+    List<BookingSnapshot> findSnapshotsOverlappingStay(@Param("hotelId") Long hotelId,
+                                                       @Param("from") LocalDate from,
+                                                       @Param("to") LocalDate to,
+                                                       @Param("bookingId") Long bookingId);
+
+    // the bookings taking room in their hotel, to build the occupancy index
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_SNAPSHOT + "WHERE b.checkIn IS NOT NULL AND b.checkOut IS NOT NULL AND b.numberOfPax > 0")
+    Stream<BookingSnapshot> streamSnapshotsWithStay();
+
+    // streaming queries: must be consumed inside a (read-only) transaction and closed afterwards
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.hotel")
+    Stream<Booking> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.hotel h WHERE h.id = :hotelId")
+    Stream<Booking> streamByHotelId(@Param("hotelId") Long hotelId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT b FROM Booking b JOIN FETCH b.hotel h WHERE h.name = :hotelName")
+    Stream<Booking> streamByHotelName(@Param("hotelName") String hotelName);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_SUMMARY)
+    Stream<BookingSummary> streamSummaries();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_SUMMARY + "WHERE b.hotel.id = :hotelId")
+    Stream<BookingSummary> streamSummariesByHotelId(@Param("hotelId") Long hotelId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_SUMMARY + "WHERE b.hotel.name = :hotelName")
+    Stream<BookingSummary> streamSummariesByHotelName(@Param("hotelName") String hotelName);
+
+    // customer names of every booking, to build the customer name index from
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new com.hotelcorp.data.BookingCustomerName(b.id, b.customerName, b.customerLastName) FROM Booking b")
+    Stream<BookingCustomerName> streamCustomerNames();
+
     @Query("SELECT new com.hotelcorp.data.BookingPriceStatistics(currency, SUM(price)) " +
             "FROM Booking " +
             "WHERE hotel_id = :hotelId " +
             "GROUP BY currency")
     Iterable<BookingPriceStatistics> findSumAmountForHotel(@Param("hotelId") Long hotelId);
+
+    // statistics of all hotels in one grouped statement
+    @Query("SELECT new com.hotelcorp.data.HotelBookingStatistics(h.id, h.name, b.currency, " +
+            "COUNT(b), COUNT(b.price), SUM(b.price), MIN(b.price), MAX(b.price)) " +
+            "FROM Booking b JOIN b.hotel h " +
+            "GROUP BY h.id, h.name, b.currency " +
+            "ORDER BY h.id, b.currency")
+    List<HotelBookingStatistics> findStatisticsPerHotel();
+
+    @Query("SELECT new com.hotelcorp.data.HotelBookingStatistics(h.id, h.name, b.currency, " +
+            "COUNT(b), COUNT(b.price), SUM(b.price), MIN(b.price), MAX(b.price)) " +
+            "FROM Booking b JOIN b.hotel h " +
+            "WHERE h.id IN :hotelIds " +
+            "GROUP BY h.id, h.name, b.currency " +
+            "ORDER BY h.id, b.currency")
+    List<HotelBookingStatistics> findStatisticsPerHotel(@Param("hotelIds") Collection<Long> hotelIds);
+
+    // revenue per hotel and currency computed from the bookings themselves, to check the materialized one against
+    @Query("SELECT new com.hotelcorp.data.HotelRevenue(b.hotel.id, COALESCE(b.currency, ''), SUM(COALESCE(b.price, 0)), COUNT(b)) " +
+            "FROM Booking b " +
+            "GROUP BY b.hotel.id, b.currency")
+    List<HotelRevenue> computeRevenue();
+
+    // bookings per customer last name and hotel, to build the customer index from
+    @Query("SELECT new com.hotelcorp.data.CustomerHotelBookings(b.customerLastName, b.hotel.id, COUNT(b)) " +
+            "FROM Booking b " +
+            "WHERE b.customerLastName IS NOT NULL " +
+            "GROUP BY b.customerLastName, b.hotel.id")
+    List<CustomerHotelBookings> countByCustomerLastNameAndHotel();
 }
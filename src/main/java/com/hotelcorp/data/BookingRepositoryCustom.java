@@ -0,0 +1,31 @@
+package com.hotelcorp.data;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    /**
+     * Sets the non-null values of the booking in one statement, without loading it.
+     *
+     * @param version the version to update, null for any
+     * @return the number of updated rows, 0 when the booking does not exist or is at another version
+     */
+    int updateNonNullValues(Long id, Long version, Booking values);
+
+    /**
+     * @return the ids of the bookings the repricing applies to, in order from the one after the given id on
+     */
+    List<Long> findIdsToReprice(BookingRepricing repricing, long afterId, int limit);
+
+    /**
+     * The bookings with the given ids the repricing still applies to, locked until the transaction ends.
+     */
+    List<BookingSummary> findSummariesToReprice(BookingRepricing repricing, Collection<Long> ids);
+
+    /**
+     * @return the lowest and the highest price of the bookings the repricing applies to, null when there are none
+     */
+    BigDecimal[] findPriceRangeToReprice(BookingRepricing repricing);
+}
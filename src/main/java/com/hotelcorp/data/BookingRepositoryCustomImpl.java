@@ -0,0 +1,90 @@
+package com.hotelcorp.data;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateNonNullValues(Long id, Long version, Booking values) {
+        return new PartialUpdate<>(entityManager, Booking.class)
+                .setIfNotNull("customerName", values.getCustomerName())
+                .setIfNotNull("customerLastName", values.getCustomerLastName())
+                .setIfNotNull("numberOfPax", values.getNumberOfPax())
+                .setIfNotNull("price", values.getPrice())
+                .setIfNotNull("currency", values.getCurrency())
+                .setIfNotNull("checkIn", values.getCheckIn())
+                .setIfNotNull("checkOut", values.getCheckOut())
+                .setIfNotNull("hotel", values.getHotel())
+                .execute(id, version);
+    }
+
+    @Override
+    public List<Long> findIdsToReprice(BookingRepricing repricing, long afterId, int limit) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        final Root<Booking> booking = query.from(Booking.class);
+        query.select(booking.get("id"))
+                .where(criteriaBuilder.and(toReprice(criteriaBuilder, booking, repricing),
+                        criteriaBuilder.greaterThan(booking.get("id"), afterId)))
+                // in the order of IDX_BOOKING_HOTEL (HOTEL_ID, ID), read up to the limit instead of sorting the whole hotel
+                .orderBy(criteriaBuilder.asc(booking.get("hotel").get("id")), criteriaBuilder.asc(booking.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // locked by id: a locking read with a limit would lock every booking it matches, not just the ones it returns
+    @Override
+    public List<BookingSummary> findSummariesToReprice(BookingRepricing repricing, Collection<Long> ids) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<BookingSummary> query = criteriaBuilder.createQuery(BookingSummary.class);
+        final Root<Booking> booking = query.from(Booking.class);
+        query.select(criteriaBuilder.construct(BookingSummary.class,
+                booking.get("id"), booking.get("customerName"), booking.get("customerLastName"), booking.get("numberOfPax"),
+                booking.get("price"), booking.get("currency"), booking.get("hotel").get("id"), booking.get("version")))
+                .where(criteriaBuilder.and(toReprice(criteriaBuilder, booking, repricing), booking.get("id").in(ids)));
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    @Override
+    public BigDecimal[] findPriceRangeToReprice(BookingRepricing repricing) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        final Root<Booking> booking = query.from(Booking.class);
+        final Path<BigDecimal> price = booking.get("price");
+        query.multiselect(criteriaBuilder.min(price), criteriaBuilder.max(price))
+                .where(toReprice(criteriaBuilder, booking, repricing));
+        final Object[] range = entityManager.createQuery(query).getSingleResult();
+        return range[0] != null ? new BigDecimal[]{(BigDecimal) range[0], (BigDecimal) range[1]} : null;
+    }
+
+    private static Predicate toReprice(CriteriaBuilder criteriaBuilder, Root<Booking> booking, BookingRepricing repricing) {
+        final List<Predicate> predicates = new ArrayList<>();
+        predicates.add(criteriaBuilder.equal(booking.get("hotel").get("id"), repricing.getHotelId()));
+        predicates.add(criteriaBuilder.equal(booking.get("currency"), repricing.getCurrency()));
+        predicates.add(criteriaBuilder.isNotNull(booking.get("price")));
+        if (repricing.getMinPax() != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(booking.get("numberOfPax"), repricing.getMinPax()));
+        }
+        if (repricing.getMaxPax() != null) {
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(booking.get("numberOfPax"), repricing.getMaxPax()));
+        }
+        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+    }
+}
@@ -0,0 +1,28 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * A price change of the bookings of a hotel in a currency, of those with a number of pax in a range only when given:
+ * prices are multiplied by the factor or shifted by the delta. Bookings without a price are left as they are.
+ */
+@Data
+public class BookingRepricing {
+    private Long hotelId;
+    private String currency;
+    private BigDecimal factor;
+    private BigDecimal delta;
+    private Short minPax;
+    private Short maxPax;
+
+    public BookingRepricing(Long hotelId, String currency, BigDecimal factor, BigDecimal delta, Short minPax, Short maxPax) {
+        this.hotelId = hotelId;
+        this.currency = currency;
+        this.factor = factor;
+        this.delta = delta;
+        this.minPax = minPax;
+        this.maxPax = maxPax;
+    }
+}
@@ -0,0 +1,74 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The values of a booking that derived data depends on: customer last name and hotel for the customer index,
+ * hotel, currency and price for the hotel revenue, hotel, pax and stay dates for the occupancy index,
+ * customer names, hotel, currency and price for the booking sketches.
+ */
+@Data
+public class BookingSnapshot {
+    private String customerName;
+    private String customerLastName;
+    private Long hotelId;
+    private String currency;
+    private BigDecimal price;
+    private Short numberOfPax;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private Long version;
+
+    public BookingSnapshot(String customerLastName, Long hotelId, String currency, BigDecimal price, Long version) {
+        this(customerLastName, hotelId, currency, price, null, null, null, version);
+    }
+
+    public BookingSnapshot(String customerLastName, Long hotelId, String currency, BigDecimal price,
+                           Short numberOfPax, LocalDate checkIn, LocalDate checkOut, Long version) {
+        this(null, customerLastName, hotelId, currency, price, numberOfPax, checkIn, checkOut, version);
+    }
+
+    public BookingSnapshot(String customerName, String customerLastName, Long hotelId, String currency, BigDecimal price,
+                           Short numberOfPax, LocalDate checkIn, LocalDate checkOut, Long version) {
+        this.customerName = customerName;
+        this.customerLastName = customerLastName;
+        this.hotelId = hotelId;
+        this.currency = currency;
+        this.price = price;
+        this.numberOfPax = numberOfPax;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.version = version;
+    }
+
+    public static BookingSnapshot of(Booking booking) {
+        return new BookingSnapshot(booking.getCustomerName(), booking.getCustomerLastName(), booking.getHotel().getId(),
+                booking.getCurrency(), booking.getPrice(),
+                booking.getNumberOfPax(), booking.getCheckIn(), booking.getCheckOut(), booking.getVersion());
+    }
+
+    // without the stay dates, which summaries leave out
+    public static BookingSnapshot of(BookingSummary summary) {
+        return new BookingSnapshot(summary.getCustomerName(), summary.getCustomerLastName(), summary.getHotelId(),
+                summary.getCurrency(), summary.getPrice(), summary.getNumberOfPax(), null, null, summary.getVersion());
+    }
+
+    /**
+     * @return this snapshot with the non-null values of the given booking applied
+     */
+    public BookingSnapshot updatedWith(Booking values) {
+        return new BookingSnapshot(
+                values.getCustomerName() != null ? values.getCustomerName() : customerName,
+                values.getCustomerLastName() != null ? values.getCustomerLastName() : customerLastName,
+                values.getHotel() != null ? values.getHotel().getId() : hotelId,
+                values.getCurrency() != null ? values.getCurrency() : currency,
+                values.getPrice() != null ? values.getPrice() : price,
+                values.getNumberOfPax() != null ? values.getNumberOfPax() : numberOfPax,
+                values.getCheckIn() != null ? values.getCheckIn() : checkIn,
+                values.getCheckOut() != null ? values.getCheckOut() : checkOut,
+                version);
+    }
+}
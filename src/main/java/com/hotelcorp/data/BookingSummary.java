@@ -0,0 +1,33 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of a booking with a flat reference to its hotel, selected directly into this class:
+ * no entity is loaded, managed or dirty-checked.
+ */
+@Data
+public class BookingSummary {
+    private Long id;
+    private String customerName;
+    private String customerLastName;
+    private Short numberOfPax;
+    private BigDecimal price;
+    private String currency;
+    private Long hotelId;
+    private Long version;
+
+    public BookingSummary(Long id, String customerName, String customerLastName, Short numberOfPax,
+                          BigDecimal price, String currency, Long hotelId, Long version) {
+        this.id = id;
+        this.customerName = customerName;
+        this.customerLastName = customerLastName;
+        this.numberOfPax = numberOfPax;
+        this.price = price;
+        this.currency = currency;
+        this.hotelId = hotelId;
+        this.version = version;
+    }
+}
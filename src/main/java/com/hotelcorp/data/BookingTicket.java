@@ -0,0 +1,44 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Status of a booking accepted for asynchronous creation. Never changed once created:
+ * a ticket is replaced by its completed copy when the booking has been written.
+ */
+@Data
+public class BookingTicket {
+
+    public enum Status {
+        // queued, not written yet
+        PENDING,
+        CREATED,
+        // the booking was not valid and was not sent to the database
+        REJECTED,
+        // the database refused the booking
+        FAILED
+    }
+
+    private final String id;
+    private final Status status;
+    // the created booking
+    private final Long bookingId;
+    private final String message;
+    private final Instant acceptedAt;
+    private final Instant completedAt;
+
+    public static BookingTicket pending(String id, Instant acceptedAt) {
+        return new BookingTicket(id, Status.PENDING, null, null, acceptedAt, null);
+    }
+
+    public BookingTicket completed(BookingBatchResult result, Instant completedAt) {
+        return new BookingTicket(id, Status.valueOf(result.getStatus().name()), result.getId(), result.getMessage(),
+                acceptedAt, completedAt);
+    }
+
+    public BookingTicket failed(String message, Instant completedAt) {
+        return new BookingTicket(id, Status.FAILED, null, message, acceptedAt, completedAt);
+    }
+}
@@ -0,0 +1,44 @@
+package com.hotelcorp.data;
+
+import org.ehcache.event.CacheEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the entries dropped by the second-level cache regions, either to honour their size
+ * bound (evictions) or their time to live (expirations).
+ */
+public class CacheEvictionCounters {
+
+    private final Map<String, LongAdder> evictions = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> expirations = new ConcurrentHashMap<>();
+
+    CacheEventListener<Object, Object> listenerFor(String region) {
+        final LongAdder regionEvictions = evictions.computeIfAbsent(region, r -> new LongAdder());
+        final LongAdder regionExpirations = expirations.computeIfAbsent(region, r -> new LongAdder());
+        return event -> {
+            switch (event.getType()) {
+                case EVICTED:
+                    regionEvictions.increment();
+                    break;
+                case EXPIRED:
+                    regionExpirations.increment();
+                    break;
+                default:
+                    break;
+            }
+        };
+    }
+
+    public long getEvictions(String region) {
+        final LongAdder count = evictions.get(region);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getExpirations(String region) {
+        final LongAdder count = expirations.get(region);
+        return count == null ? 0 : count.sum();
+    }
+}
@@ -0,0 +1,16 @@
+package com.hotelcorp.data;
+
+/**
+ * Names of the Hibernate second-level cache regions.
+ */
+public final class CacheRegions {
+
+    public static final String HOTEL = "hotel";
+    public static final String HOTEL_BY_NAME = "hotel-by-name";
+    // Hibernate defaults, used for the timestamps of the last update of every table
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+    public static final String QUERY_RESULTS = "default-query-results-region";
+
+    private CacheRegions() {
+    }
+}
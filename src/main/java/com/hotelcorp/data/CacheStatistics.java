@@ -0,0 +1,30 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+@Data
+public class CacheStatistics {
+    private String region;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long evictionCount;
+    private long expirationCount;
+    private long size;
+
+    public CacheStatistics(String region,
+                           long hitCount,
+                           long missCount,
+                           long putCount,
+                           long evictionCount,
+                           long expirationCount,
+                           long size) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.size = size;
+    }
+}
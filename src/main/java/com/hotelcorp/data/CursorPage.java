@@ -0,0 +1,22 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A single page of a keyset (cursor) paginated listing.
+ * <p>
+ * {@code nextCursor} holds the id of the last item of the page when more items follow,
+ * and is {@code null} on the last page. Pass it back as {@code after} to fetch the next page.
+ */
+@Data
+public class CursorPage<T> {
+    private List<T> items;
+    private Long nextCursor;
+
+    public CursorPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
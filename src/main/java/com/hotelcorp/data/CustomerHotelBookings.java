@@ -0,0 +1,19 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+/**
+ * Number of bookings of a customer last name at a hotel.
+ */
+@Data
+public class CustomerHotelBookings {
+    private String customerLastName;
+    private Long hotelId;
+    private long bookingCount;
+
+    public CustomerHotelBookings(String customerLastName, Long hotelId, long bookingCount) {
+        this.customerLastName = customerLastName;
+        this.hotelId = hotelId;
+        this.bookingCount = bookingCount;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Difference between the indexed bookings per hotel of a customer last name and the ones counted from the bookings.
+ */
+@Data
+public class CustomerHotelsDrift {
+    private String customerLastName;
+    private Map<Long, Long> expectedBookingsPerHotel;
+    private Map<Long, Long> actualBookingsPerHotel;
+
+    public CustomerHotelsDrift(String customerLastName, Map<Long, Long> expected, Map<Long, Long> actual) {
+        this.customerLastName = customerLastName;
+        this.expectedBookingsPerHotel = expected != null ? expected : Map.of();
+        this.actualBookingsPerHotel = actual != null ? actual : Map.of();
+    }
+}
@@ -0,0 +1,34 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exchange rates as loaded at one point in time, never changed afterwards: a reload replaces the whole snapshot.
+ */
+@Data
+public class FxRates {
+    private final String source;
+    private final Instant loadedAt;
+    // units of each currency per unit of a common base currency
+    private final Map<String, BigDecimal> rates;
+
+    public boolean hasRate(String currency) {
+        return rates.containsKey(currency);
+    }
+
+    /**
+     * @return the factor converting an amount of each currency into the given one, which must have a rate
+     */
+    public Map<String, BigDecimal> factorsTo(String currency) {
+        final BigDecimal target = rates.get(currency);
+        final Map<String, BigDecimal> factors = new HashMap<>();
+        rates.forEach((c, rate) -> factors.put(c, target.divide(rate, MathContext.DECIMAL64)));
+        return factors;
+    }
+}
@@ -1,14 +1,21 @@
 package com.hotelcorp.data;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Version;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.HOTEL)
 public class Hotel {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,13 +27,32 @@ public class Hotel {
 
     private Byte rating;
 
+    // WGS84 degrees, both or none of them are set for the hotel to be found by location
+    private Double latitude;
+
+    private Double longitude;
+
+    // pax the hotel can accommodate per night, hotels without one are left out of availability searches
+    private Integer capacity;
+
+    // optimistic locking, exposed as the ETag of the hotel
+    @Version
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
     public Hotel(String name, String address, Byte rating) {
         this.name = name;
         this.address = address;
         setRating(rating);
     }
 
-    private void validateRating(Byte rating) {
+    public Hotel(String name, String address, Byte rating, Double latitude, Double longitude) {
+        this(name, address, rating);
+        setLatitude(latitude);
+        setLongitude(longitude);
+    }
+
+    public static void validateRating(Byte rating) {
         if (rating == null) return;
 
         final int starValue = rating.intValue();
@@ -35,6 +61,24 @@ public class Hotel {
         }
     }
 
+    public static void validateLatitude(Double latitude) {
+        if (latitude != null && !(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Invalid latitude value: " + latitude + ". Use values [-90, 90]");
+        }
+    }
+
+    public static void validateLongitude(Double longitude) {
+        if (longitude != null && !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid longitude value: " + longitude + ". Use values [-180, 180]");
+        }
+    }
+
+    public static void validateCapacity(Integer capacity) {
+        if (capacity != null && capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity value: " + capacity + ". Use values >= 0");
+        }
+    }
+
     protected Hotel() {
     }
 
@@ -42,10 +86,23 @@ public class Hotel {
         if (source.name != null) this.name = source.name;
         if (source.address != null) this.address = source.address;
         if (source.rating != null) this.rating = source.rating;
+        if (source.latitude != null) this.latitude = source.latitude;
+        if (source.longitude != null) this.longitude = source.longitude;
+        if (source.capacity != null) this.capacity = source.capacity;
     }
 
     void setRating(Byte rating) {
         validateRating(rating);
         this.rating = rating;
     }
+
+    void setLatitude(Double latitude) {
+        validateLatitude(latitude);
+        this.latitude = latitude;
+    }
+
+    void setLongitude(Double longitude) {
+        validateLongitude(longitude);
+        this.longitude = longitude;
+    }
 }
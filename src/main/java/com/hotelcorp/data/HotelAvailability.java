@@ -0,0 +1,19 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+/**
+ * A hotel with room for the requested pax, with the pax of its busiest night and the room left on it.
+ */
+@Data
+public class HotelAvailability {
+    private Hotel hotel;
+    private int peakPax;
+    private int availablePax;
+
+    public HotelAvailability(Hotel hotel, int peakPax, int availablePax) {
+        this.hotel = hotel;
+        this.peakPax = peakPax;
+        this.availablePax = availablePax;
+    }
+}
@@ -0,0 +1,34 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Approximate booking statistics of a hotel, read from sketches rather than computed over its bookings.
+ * <ul>
+ * <li>price quantiles per currency within 1% of the true ones</li>
+ * <li>distinct customers (first and last name) with a standard error of 2.3%, counting every customer who booked
+ * since the sketches were built, also when the booking was deleted or renamed since</li>
+ * <li>top customers whose booking counts exceed the true ones by at most 1.1% of the bookings of the hotel
+ * in each currency, with a probability of 98%</li>
+ * </ul>
+ */
+@Data
+public class HotelBookingSketches {
+    private Long hotelId;
+    // exact
+    private long bookingCount;
+    private long distinctCustomers;
+    private List<PriceQuantiles> prices;
+    private List<TopCustomer> topCustomers;
+
+    public HotelBookingSketches(Long hotelId, long bookingCount, long distinctCustomers,
+                                List<PriceQuantiles> prices, List<TopCustomer> topCustomers) {
+        this.hotelId = hotelId;
+        this.bookingCount = bookingCount;
+        this.distinctCustomers = distinctCustomers;
+        this.prices = prices;
+        this.topCustomers = topCustomers;
+    }
+}
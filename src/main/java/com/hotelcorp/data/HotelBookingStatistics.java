@@ -0,0 +1,48 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Booking price statistics of a hotel in one currency.
+ */
+@Data
+public class HotelBookingStatistics {
+    private Long hotelId;
+    private String hotelName;
+    private String currency;
+    private long bookingCount;
+    // bookings with a price
+    private long pricedCount;
+    private BigDecimal sumAmount;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private BigDecimal avgAmount;
+
+    /**
+     * @param pricedCount number of bookings with a price, the average is taken over those only
+     */
+    public HotelBookingStatistics(Long hotelId,
+                                  String hotelName,
+                                  String currency,
+                                  Long bookingCount,
+                                  Long pricedCount,
+                                  BigDecimal sumAmount,
+                                  BigDecimal minAmount,
+                                  BigDecimal maxAmount) {
+        this.hotelId = hotelId;
+        this.hotelName = hotelName;
+        this.currency = currency;
+        this.bookingCount = bookingCount;
+        this.pricedCount = pricedCount;
+        this.sumAmount = sumAmount;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        // computed from the exact sum rather than with AVG(), which Hibernate returns as a double
+        this.avgAmount = pricedCount > 0
+                ? sumAmount.divide(BigDecimal.valueOf(pricedCount), 3, RoundingMode.HALF_EVEN)
+                : null;
+    }
+}
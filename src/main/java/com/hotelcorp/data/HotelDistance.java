@@ -0,0 +1,17 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+/**
+ * A hotel found near a point, with its distance to it.
+ */
+@Data
+public class HotelDistance {
+    private Hotel hotel;
+    private double distanceKm;
+
+    public HotelDistance(Hotel hotel, double distanceKm) {
+        this.hotel = hotel;
+        this.distanceKm = distanceKm;
+    }
+}
@@ -0,0 +1,32 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The pax staying at a hotel each night of {@code [from, to)}, and the pax it still has room for on all of them.
+ */
+@Data
+public class HotelOccupancy {
+    private Long hotelId;
+    private Integer capacity;
+    private LocalDate from;
+    private LocalDate to;
+    private int peakPax;
+    // null when the capacity of the hotel is unknown
+    private Integer availablePax;
+    private List<NightOccupancy> nights;
+
+    public HotelOccupancy(Long hotelId, Integer capacity, LocalDate from, LocalDate to, int peakPax,
+                          Integer availablePax, List<NightOccupancy> nights) {
+        this.hotelId = hotelId;
+        this.capacity = capacity;
+        this.from = from;
+        this.to = to;
+        this.peakPax = peakPax;
+        this.availablePax = availablePax;
+        this.nights = nights;
+    }
+}
@@ -0,0 +1,26 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * A hotel of a leaderboard with its rank from 1, and its number of bookings or its revenue in the given currency,
+ * whichever it is ranked by.
+ */
+@Data
+public class HotelRank {
+    private int rank;
+    private Hotel hotel;
+    private Long bookingCount;
+    private String currency;
+    private BigDecimal revenue;
+
+    public HotelRank(int rank, Hotel hotel, Long bookingCount, String currency, BigDecimal revenue) {
+        this.rank = rank;
+        this.hotel = hotel;
+        this.bookingCount = bookingCount;
+        this.currency = currency;
+        this.revenue = revenue;
+    }
+}
@@ -1,9 +1,27 @@
 package com.hotelcorp.data;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 
-public interface HotelRepository extends CrudRepository<Hotel, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
+public interface HotelRepository extends CrudRepository<Hotel, Long>, HotelRepositoryCustom {
+    // name is the natural key of a hotel: the result is kept in the query cache
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.HOTEL_BY_NAME)
+    })
     Optional<Hotel> findByName(String name);
+
+    // keyset pagination: seek past the given id, the page size is taken from the pageable
+    List<Hotel> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
+
+    // candidates of an availability search, before their occupancy is checked
+    List<Hotel> findByCapacityGreaterThanEqualOrderById(Integer capacity);
 }
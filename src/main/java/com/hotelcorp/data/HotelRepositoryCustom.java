@@ -0,0 +1,12 @@
+package com.hotelcorp.data;
+
+public interface HotelRepositoryCustom {
+
+    /**
+     * Sets the non-null name, address and rating of the hotel in one statement, without loading it.
+     *
+     * @param version the version to update, null for any
+     * @return the number of updated rows, 0 when the hotel does not exist or is at another version
+     */
+    int updateNonNullValues(Long id, Long version, Hotel values);
+}
@@ -0,0 +1,22 @@
+package com.hotelcorp.data;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+class HotelRepositoryCustomImpl implements HotelRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateNonNullValues(Long id, Long version, Hotel values) {
+        return new PartialUpdate<>(entityManager, Hotel.class)
+                .setIfNotNull("name", values.getName())
+                .setIfNotNull("address", values.getAddress())
+                .setIfNotNull("rating", values.getRating())
+                .setIfNotNull("latitude", values.getLatitude())
+                .setIfNotNull("longitude", values.getLongitude())
+                .setIfNotNull("capacity", values.getCapacity())
+                .execute(id, version);
+    }
+}
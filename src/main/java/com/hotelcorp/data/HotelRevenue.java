@@ -0,0 +1,61 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Materialized revenue of a hotel in one currency: sum of the booking prices and number of bookings.
+ * Maintained in the same transaction as the bookings it aggregates.
+ */
+@Data
+@Entity
+@IdClass(HotelRevenue.Key.class)
+public class HotelRevenue {
+    // bookings without a currency are aggregated under this key (primary key columns cannot be null)
+    public static final String NO_CURRENCY = "";
+
+    @Id
+    @Column(name = "HOTEL_ID")
+    private Long hotelId;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "SUM_AMOUNT", scale = 3)
+    private BigDecimal sumAmount;
+
+    @Column(name = "BOOKING_COUNT")
+    private Long bookingCount;
+
+    protected HotelRevenue() {
+    }
+
+    public HotelRevenue(Long hotelId, String currency, BigDecimal sumAmount, Long bookingCount) {
+        this.hotelId = hotelId;
+        this.currency = currency;
+        this.sumAmount = sumAmount;
+        this.bookingCount = bookingCount;
+    }
+
+    public Key getKey() {
+        return new Key(hotelId, currency);
+    }
+
+    @Data
+    public static class Key implements Serializable {
+        private Long hotelId;
+        private String currency;
+
+        protected Key() {
+        }
+
+        public Key(Long hotelId, String currency) {
+            this.hotelId = hotelId;
+            this.currency = currency;
+        }
+    }
+}
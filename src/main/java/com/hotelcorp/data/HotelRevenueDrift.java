@@ -0,0 +1,27 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Difference between the materialized revenue of a hotel and currency and the one computed from the bookings.
+ */
+@Data
+public class HotelRevenueDrift {
+    private Long hotelId;
+    private String currency;
+    private BigDecimal expectedSumAmount;
+    private BigDecimal actualSumAmount;
+    private long expectedBookingCount;
+    private long actualBookingCount;
+
+    public HotelRevenueDrift(HotelRevenue.Key key, HotelRevenue expected, HotelRevenue actual) {
+        this.hotelId = key.getHotelId();
+        this.currency = HotelRevenue.NO_CURRENCY.equals(key.getCurrency()) ? null : key.getCurrency();
+        this.expectedSumAmount = expected != null ? expected.getSumAmount() : BigDecimal.ZERO;
+        this.actualSumAmount = actual != null ? actual.getSumAmount() : BigDecimal.ZERO;
+        this.expectedBookingCount = expected != null ? expected.getBookingCount() : 0;
+        this.actualBookingCount = actual != null ? actual.getBookingCount() : 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.hotelcorp.data;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+
+public interface HotelRevenueRepository extends CrudRepository<HotelRevenue, HotelRevenue.Key> {
+
+    @Query("SELECT new com.hotelcorp.data.BookingPriceStatistics(NULLIF(r.currency, ''), r.sumAmount) " +
+            "FROM HotelRevenue r " +
+            "WHERE r.hotelId = :hotelId")
+    Iterable<BookingPriceStatistics> findStatisticsByHotelId(@Param("hotelId") Long hotelId);
+
+    // applied in place, so concurrent bookings of the same hotel and currency serialize on the row lock
+    @Modifying
+    @Query("UPDATE HotelRevenue r " +
+            "SET r.sumAmount = r.sumAmount + :amount, r.bookingCount = r.bookingCount + :count " +
+            "WHERE r.hotelId = :hotelId AND r.currency = :currency")
+    int addToRevenue(@Param("hotelId") Long hotelId,
+                     @Param("currency") String currency,
+                     @Param("amount") BigDecimal amount,
+                     @Param("count") long count);
+
+    // taken before creating a revenue row of the hotel, so concurrent first bookings do not insert it twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h.id FROM Hotel h WHERE h.id = :hotelId")
+    Long lockHotel(@Param("hotelId") Long hotelId);
+
+    @Modifying
+    @Query("DELETE FROM HotelRevenue r " +
+            "WHERE r.hotelId = :hotelId AND r.currency = :currency AND r.bookingCount = 0")
+    int deleteIfEmpty(@Param("hotelId") Long hotelId, @Param("currency") String currency);
+
+    // rows loaded before the bulk delete must not be merged back afterwards
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM HotelRevenue")
+    int deleteAllInBulk();
+}
@@ -0,0 +1,19 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * The pax staying at a hotel one night.
+ */
+@Data
+public class NightOccupancy {
+    private LocalDate night;
+    private int pax;
+
+    public NightOccupancy(LocalDate night, int pax) {
+        this.night = night;
+        this.pax = pax;
+    }
+}
@@ -0,0 +1,51 @@
+package com.hotelcorp.data;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * A single {@code UPDATE ... WHERE id = ?} setting only the given non-null attributes of a versioned entity,
+ * without loading it first. The version is incremented like a regular update would.
+ */
+class PartialUpdate<T> {
+    private final EntityManager entityManager;
+    private final CriteriaBuilder criteriaBuilder;
+    private final CriteriaUpdate<T> update;
+    private final Root<T> root;
+    private boolean empty = true;
+
+    PartialUpdate(EntityManager entityManager, Class<T> entityClass) {
+        this.entityManager = entityManager;
+        this.criteriaBuilder = entityManager.getCriteriaBuilder();
+        this.update = criteriaBuilder.createCriteriaUpdate(entityClass);
+        this.root = update.from(entityClass);
+    }
+
+    PartialUpdate<T> setIfNotNull(String attribute, Object value) {
+        if (value != null) {
+            update.set(root.get(attribute), value);
+            empty = false;
+        }
+        return this;
+    }
+
+    /**
+     * @param version the version to update, null for any
+     * @return the number of updated rows, 0 when the entity does not exist or is at another version
+     */
+    int execute(Long id, Long version) {
+        if (empty) {
+            throw new IllegalArgumentException("No attribute to update");
+        }
+        update.set(root.<Long>get("version"), criteriaBuilder.sum(root.<Long>get("version"), 1L));
+
+        Predicate where = criteriaBuilder.equal(root.get("id"), id);
+        if (version != null) {
+            where = criteriaBuilder.and(where, criteriaBuilder.equal(root.get("version"), version));
+        }
+        return entityManager.createQuery(update.where(where)).executeUpdate();
+    }
+}
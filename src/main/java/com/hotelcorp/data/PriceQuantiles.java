@@ -0,0 +1,26 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Approximate quantiles of the booking prices of a hotel in one currency, each within 1% of the true quantile.
+ */
+@Data
+public class PriceQuantiles {
+    private String currency;
+    // bookings with a price, exact
+    private long pricedCount;
+    private BigDecimal p50;
+    private BigDecimal p95;
+    private BigDecimal p99;
+
+    public PriceQuantiles(String currency, long pricedCount, BigDecimal p50, BigDecimal p95, BigDecimal p99) {
+        this.currency = currency;
+        this.pricedCount = pricedCount;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+}
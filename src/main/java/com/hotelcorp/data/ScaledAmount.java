@@ -0,0 +1,38 @@
+package com.hotelcorp.data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts held in a plain {@code long} as a count of thousandths, the scale of booking prices.
+ * <p>
+ * Sums of many amounts are accumulated in a {@code long} instead of allocating a {@link BigDecimal} per addition,
+ * and converted back with {@link #toBigDecimal(long)} once the result leaves the application.
+ * Arithmetic throws {@link ArithmeticException} on overflow instead of wrapping around.
+ */
+public final class ScaledAmount {
+    public static final int SCALE = 3;
+
+    private ScaledAmount() {
+    }
+
+    /**
+     * @return the amount in thousandths, rounded half up like the scale 3 price column does
+     */
+    public static long toUnits(BigDecimal amount) {
+        // setScale returns the amount itself when already at the price scale
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    public static long add(long units, long otherUnits) {
+        return Math.addExact(units, otherUnits);
+    }
+
+    public static long subtract(long units, long otherUnits) {
+        return Math.subtractExact(units, otherUnits);
+    }
+}
@@ -0,0 +1,72 @@
+package com.hotelcorp.data;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.event.EventType;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Size and time bounded Ehcache regions backing the Hibernate second-level cache.
+ */
+@Configuration
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfiguration {
+
+    // table update timestamps: one entry per table, must outlive the cached query results
+    private static final long UPDATE_TIMESTAMPS_MAX_ENTRIES = 1_000;
+
+    @Bean
+    public CacheEvictionCounters cacheEvictionCounters() {
+        return new CacheEvictionCounters();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(SecondLevelCacheProperties properties, CacheEvictionCounters counters) {
+        final var configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .addCache(CacheRegions.HOTEL, region(CacheRegions.HOTEL, properties.getHotel(), counters))
+                .addCache(CacheRegions.HOTEL_BY_NAME, region(CacheRegions.HOTEL_BY_NAME, properties.getHotelByName(), counters))
+                .addCache(CacheRegions.QUERY_RESULTS, region(CacheRegions.QUERY_RESULTS, properties.getHotelByName(), counters))
+                .addCache(CacheRegions.UPDATE_TIMESTAMPS, CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(UPDATE_TIMESTAMPS_MAX_ENTRIES))
+                        .build())
+                .build();
+
+        final var provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // a distinct URI per application context, the provider hands out one manager per URI
+        return provider.getCacheManager(URI.create("urn:hotel-demo:second-level-cache:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static CacheConfiguration<Object, Object> region(String name,
+                                                             SecondLevelCacheProperties.Region bounds,
+                                                             CacheEvictionCounters counters) {
+        final Duration timeToLive = bounds.getTimeToLive();
+        return CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(bounds.getMaxEntries()))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .add(CacheEventListenerConfigurationBuilder
+                        .newEventListenerConfiguration(counters.listenerFor(name), EventType.EVICTED, EventType.EXPIRED)
+                        .unordered()
+                        .synchronous())
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the second-level cache regions, see {@code hotel-demo.cache.*} in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "hotel-demo.cache")
+public class SecondLevelCacheProperties {
+
+    // hotels by id
+    private Region hotel = new Region();
+
+    // hotel ids by name (query cache)
+    private Region hotelByName = new Region();
+
+    @Data
+    public static class Region {
+        private long maxEntries = 10_000;
+        private Duration timeToLive = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,20 @@
+package com.hotelcorp.data;
+
+import lombok.Data;
+
+/**
+ * A customer among those with the most bookings at a hotel, with an estimate of their bookings that may exceed
+ * the true count but is never below it.
+ */
+@Data
+public class TopCustomer {
+    private String customerName;
+    private String customerLastName;
+    private long bookingCount;
+
+    public TopCustomer(String customerName, String customerLastName, long bookingCount) {
+        this.customerName = customerName;
+        this.customerLastName = customerLastName;
+        this.bookingCount = bookingCount;
+    }
+}
@@ -1,19 +1,24 @@
-INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING) VALUES (1, 'Hilton', 'Leof. Vasilissis Sofias 46, Athina 115 28', 4);
-INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING) VALUES (2, 'Grande Bretagne', '1 Vasileos Georgiou A, Syntagma Square Str, Athina 105 64', 5);
-INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING) VALUES (3, 'A for Athens', 'Miaouli 2, Athina 105 54', 3);
-INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING) VALUES (4, 'King George', '3 Vasileos Georgiou A, Syntagma Square Str, Athina 105 64', 5);
+INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING, LATITUDE, LONGITUDE, CAPACITY) VALUES (1, 'Hilton', 'Leof. Vasilissis Sofias 46, Athina 115 28', 4, 37.9763, 23.7503, 5);
+INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING, LATITUDE, LONGITUDE, CAPACITY) VALUES (2, 'Grande Bretagne', '1 Vasileos Georgiou A, Syntagma Square Str, Athina 105 64', 5, 37.9759, 23.7348, 120);
+INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING, LATITUDE, LONGITUDE, CAPACITY) VALUES (3, 'A for Athens', 'Miaouli 2, Athina 105 54', 3, 37.9771, 23.7245, 3);
+INSERT INTO HOTEL (ID, NAME, ADDRESS, RATING, LATITUDE, LONGITUDE, CAPACITY) VALUES (4, 'King George', '3 Vasileos Georgiou A, Syntagma Square Str, Athina 105 64', 5, 37.9755, 23.7352, NULL);
 
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Luke', 'Skywalker', 3, 199.99, 'EUR', 1);
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Luke', 'Skywalker', 1, 100.00, 'USD', 3);
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Luke', 'Skywalker', 2, 99, 'EUR', 3);
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Obi-Wan', 'Kenobi', 1, 199.99, 'GBP', 1);
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Leia', 'Organa', 2, 299.99, 'GBP', 1);
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Han', 'Solo', 2, 99.99, 'EUR', 1);
-INSERT INTO BOOKING(CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, HOTEL_ID)
-            VALUES ('Han', 'Solo', 1, 399.99, 'EUR', 2);
\ No newline at end of file
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (1, 'Luke', 'Skywalker', 3, 199.99, 'EUR', '2025-06-01', '2025-06-05', 1);
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (2, 'Luke', 'Skywalker', 1, 100.00, 'USD', '2025-06-02', '2025-06-03', 3);
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (3, 'Luke', 'Skywalker', 2, 99, 'EUR', '2025-06-02', '2025-06-06', 3);
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (4, 'Obi-Wan', 'Kenobi', 1, 199.99, 'GBP', '2025-06-03', '2025-06-04', 1);
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (5, 'Leia', 'Organa', 2, 299.99, 'GBP', '2025-06-04', '2025-06-08', 1);
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (6, 'Han', 'Solo', 2, 99.99, 'EUR', NULL, NULL, 1);
+INSERT INTO BOOKING(ID, CUSTOMER_NAME, CUSTOMER_LASTNAME, PAX_NUMBER, PRICE, CURRENCY, CHECK_IN, CHECK_OUT, HOTEL_ID)
+            VALUES (7, 'Han', 'Solo', 1, 399.99, 'EUR', '2025-07-10', '2025-07-12', 2);
+
+ALTER SEQUENCE BOOKING_SEQ RESTART WITH 8;
+
+INSERT INTO HOTEL_REVENUE(HOTEL_ID, CURRENCY, SUM_AMOUNT, BOOKING_COUNT)
+            SELECT HOTEL_ID, COALESCE(CURRENCY, ''), SUM(COALESCE(PRICE, 0)), COUNT(*) FROM BOOKING GROUP BY HOTEL_ID, CURRENCY;
@@ -2,22 +2,45 @@ CREATE TABLE HOTEL(
   ID BIGINT AUTO_INCREMENT PRIMARY KEY,
   NAME VARCHAR(64) NOT NULL UNIQUE,
   ADDRESS VARCHAR(200),
-  RATING TINYINT
+  RATING TINYINT,
+  LATITUDE DOUBLE,
+  LONGITUDE DOUBLE,
+  CAPACITY INT,
+  VERSION BIGINT DEFAULT 0 NOT NULL
 );
 
+CREATE SEQUENCE BOOKING_SEQ START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE BOOKING(
-  ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+  ID BIGINT DEFAULT NEXT VALUE FOR BOOKING_SEQ PRIMARY KEY,
   CUSTOMER_NAME VARCHAR(64) NOT NULL,
   CUSTOMER_LASTNAME VARCHAR(64) NOT NULL,
   PAX_NUMBER SMALLINT,
   PRICE DECIMAL(10,3),
   CURRENCY CHAR(3),
-  HOTEL_ID BIGINT NOT NULL
+  CHECK_IN DATE,
+  CHECK_OUT DATE,
+  HOTEL_ID BIGINT NOT NULL,
+  VERSION BIGINT DEFAULT 0 NOT NULL
+);
+
+-- revenue per hotel and currency, maintained with the bookings (no currency is stored as '')
+CREATE TABLE HOTEL_REVENUE(
+  HOTEL_ID BIGINT NOT NULL,
+  CURRENCY VARCHAR(3) NOT NULL,
+  SUM_AMOUNT DECIMAL(19,3) NOT NULL,
+  BOOKING_COUNT BIGINT NOT NULL,
+  PRIMARY KEY (HOTEL_ID, CURRENCY)
 );
 
 -- FKs
 ALTER TABLE BOOKING ADD FOREIGN KEY (HOTEL_ID) REFERENCES HOTEL(ID);
+ALTER TABLE HOTEL_REVENUE ADD FOREIGN KEY (HOTEL_ID) REFERENCES HOTEL(ID);
 
 -- INDEXES
 CREATE UNIQUE INDEX IDX_HOTEL_NAME ON HOTEL(NAME);
 CREATE INDEX IDX_BOOKING_LASTNAME ON BOOKING(CUSTOMER_LASTNAME);
+CREATE INDEX IDX_BOOKING_HOTEL ON BOOKING(HOTEL_ID, ID);
+-- stays overlapping a date range seek on the check-out, past stays are not read however many there are
+CREATE INDEX IDX_BOOKING_HOTEL_STAY ON BOOKING(HOTEL_ID, CHECK_OUT);
+CREATE INDEX IDX_BOOKING_PRICE ON BOOKING(PRICE, ID);
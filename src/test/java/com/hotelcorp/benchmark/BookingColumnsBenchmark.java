@@ -0,0 +1,69 @@
+package com.hotelcorp.benchmark;
+
+import com.hotelcorp.business.BookingColumns;
+import com.hotelcorp.data.BookingGroup;
+import com.hotelcorp.data.BookingGroup.Dimension;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups 10M bookings of 10k hotels by currency, pax and hotel rating the way {@code GET /analytics/bookings} does,
+ * with and without a filter on the hotel rating, from {@link BookingColumns}.
+ * <p>
+ * Not part of the test suite, run {@link #main(String[])} after {@code mvn test-compile}
+ * (the columns take about 160 MB, give the fork a heap of 1 GB or more).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BookingColumnsBenchmark {
+
+    private static final int HOTELS = 10_000;
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP", "CHF", "JPY"};
+
+    @Param({"10000000"})
+    private int bookings;
+
+    private BookingColumns columns;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        columns = new BookingColumns();
+        for (long hotel = 1; hotel <= HOTELS; hotel++) {
+            columns.putHotel(hotel, (byte) (1 + random.nextInt(5)));
+        }
+        for (long id = 1; id <= bookings; id++) {
+            columns.put(id, 1 + random.nextInt(HOTELS), (short) (1 + random.nextInt(6)),
+                    BigDecimal.valueOf(random.nextInt(1_000_000), 3), CURRENCIES[random.nextInt(CURRENCIES.length)]);
+        }
+    }
+
+    @Benchmark
+    public List<BookingGroup> groupByCurrencyPaxRating() {
+        return columns.groupBy(EnumSet.of(Dimension.CURRENCY, Dimension.PAX, Dimension.RATING), null, null, null, null, null);
+    }
+
+    @Benchmark
+    public List<BookingGroup> groupByCurrencyOfFiveStarHotels() {
+        return columns.groupBy(EnumSet.of(Dimension.CURRENCY), null, (byte) 5, null, null, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingColumnsBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.hotelcorp.benchmark;
+
+import com.hotelcorp.HotelDemoApplication;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves hotels the way booking creation does while 8 threads hit new names at once:
+ * with {@code contenders} 1 every call creates a hotel of its own, with 8 consecutive calls
+ * race for the same new hotel, which only one of them may insert.
+ * <p>
+ * Not part of the test suite, run {@link #main(String[])} after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class HotelGetOrCreateBenchmark {
+
+    @Param({"1", "8"})
+    private int contenders;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private HotelService hotelService;
+    private long seededHotels;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(HotelDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                // as arguments, to take precedence over application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark-" + contenders,
+                        "--logging.level.org.hibernate.SQL=WARN");
+        hotelService = context.getBean(HotelService.class);
+        seededHotels = context.getBean(HotelRepository.class).count();
+    }
+
+    @TearDown
+    public void tearDown() {
+        // every name must have been inserted exactly once, whoever won its race
+        final long names = (calls.get() + contenders - 1) / contenders;
+        final long hotels = context.getBean(HotelRepository.class).count();
+        context.close();
+        if (hotels != seededHotels + names) {
+            throw new IllegalStateException(hotels + " hotels for " + names + " names");
+        }
+    }
+
+    @Benchmark
+    public Hotel getOrCreateHotel() {
+        final long name = calls.getAndIncrement() / contenders;
+        return hotelService.getOrCreateHotel(new Hotel("Benchmark " + name, null, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotelGetOrCreateBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
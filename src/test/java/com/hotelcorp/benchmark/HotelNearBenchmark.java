@@ -0,0 +1,97 @@
+package com.hotelcorp.benchmark;
+
+import com.hotelcorp.business.GeoGrid;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the 20 nearest hotels within a radius the way {@code GET /hotels/near} does, from a {@link GeoGrid}
+ * of 0.1 degree cells versus measuring the distance to every hotel.
+ * Hotels are spread uniformly over Europe, about one per cell of the grid at 100k of them.
+ * <p>
+ * Not part of the test suite, run {@link #main(String[])} after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotelNearBenchmark {
+
+    private static final int LIMIT = 20;
+    private static final int QUERIES = 1024;
+
+    @Param({"100000"})
+    private int hotels;
+
+    @Param({"2", "25"})
+    private double radiusKm;
+
+    private GeoGrid grid;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[][] queries;
+    private int query;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        grid = new GeoGrid(0.1);
+        latitudes = new double[hotels];
+        longitudes = new double[hotels];
+        for (int i = 0; i < hotels; i++) {
+            latitudes[i] = 36 + random.nextDouble() * 24;
+            longitudes[i] = -10 + random.nextDouble() * 40;
+            grid.put((long) i, latitudes[i], longitudes[i]);
+        }
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new double[]{36 + random.nextDouble() * 24, -10 + random.nextDouble() * 40};
+        }
+    }
+
+    @Benchmark
+    public LinkedHashMap<Long, Double> grid() {
+        final double[] point = nextQuery();
+        return grid.near(point[0], point[1], radiusKm, LIMIT);
+    }
+
+    @Benchmark
+    public LinkedHashMap<Long, Double> haversineScan() {
+        final double[] point = nextQuery();
+        final List<double[]> found = new ArrayList<>();
+        for (int i = 0; i < hotels; i++) {
+            final double distanceKm = GeoGrid.haversineKm(point[0], point[1], latitudes[i], longitudes[i]);
+            if (distanceKm <= radiusKm) {
+                found.add(new double[]{i, distanceKm});
+            }
+        }
+        final LinkedHashMap<Long, Double> nearest = new LinkedHashMap<>();
+        found.stream()
+                .sorted(Comparator.comparingDouble(f -> f[1]))
+                .limit(LIMIT)
+                .forEach(f -> nearest.put((long) f[0], f[1]));
+        return nearest;
+    }
+
+    private double[] nextQuery() {
+        return queries[query++ & (QUERIES - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotelNearBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
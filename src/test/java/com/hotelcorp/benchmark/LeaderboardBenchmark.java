@@ -0,0 +1,72 @@
+package com.hotelcorp.benchmark;
+
+import com.hotelcorp.business.Leaderboard;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves hotels of a 10k hotel leaderboard the way a booking write does in {@code HotelRankingIndex}: one change
+ * of the booking count and one of the revenue, and reads the top 10 the way {@code GET /queries/hotels/top} does.
+ * <p>
+ * Not part of the test suite, run {@link #main(String[])} after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeaderboardBenchmark {
+
+    private static final int HOTELS = 10_000;
+    // random hotels and prices drawn up front, so that the random numbers are not measured
+    private static final int CHANGES = 1 << 16;
+
+    private Leaderboard bookings;
+    private Leaderboard revenue;
+    private long[] hotels;
+    private long[] prices;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        bookings = new Leaderboard();
+        revenue = new Leaderboard();
+        for (long hotel = 1; hotel <= HOTELS; hotel++) {
+            bookings.add(hotel, 1 + random.nextInt(1000));
+            revenue.add(hotel, 1 + random.nextInt(100_000_000));
+        }
+        hotels = new long[CHANGES];
+        prices = new long[CHANGES];
+        for (int i = 0; i < CHANGES; i++) {
+            hotels[i] = 1 + random.nextInt(HOTELS);
+            prices[i] = random.nextInt(1_000_000);
+        }
+    }
+
+    @Benchmark
+    public void recordBooking() {
+        final int i = next++ & (CHANGES - 1);
+        bookings.add(hotels[i], 1);
+        revenue.add(hotels[i], prices[i]);
+    }
+
+    @Benchmark
+    public List<Leaderboard.Score> top10() {
+        return revenue.top(10);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LeaderboardBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
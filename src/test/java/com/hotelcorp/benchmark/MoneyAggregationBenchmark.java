@@ -0,0 +1,78 @@
+package com.hotelcorp.benchmark;
+
+import com.hotelcorp.data.ScaledAmount;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums booking prices per currency the way the revenue aggregation does, with {@link BigDecimal} additions
+ * versus {@link ScaledAmount} longs.
+ * <p>
+ * Not part of the test suite, run {@link #main(String[])} after {@code mvn test-compile}
+ * (add {@code -prof gc} to the options to compare allocation rates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyAggregationBenchmark {
+
+    private static final int CURRENCIES = 4;
+
+    @Param({"10000"})
+    private int bookings;
+
+    private BigDecimal[] prices;
+    private int[] currencies;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        prices = new BigDecimal[bookings];
+        currencies = new int[bookings];
+        for (int i = 0; i < bookings; i++) {
+            // scale 3, as read from the price column
+            prices[i] = BigDecimal.valueOf(random.nextInt(1_000_000), ScaledAmount.SCALE);
+            currencies[i] = random.nextInt(CURRENCIES);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal[] bigDecimalSums() {
+        final BigDecimal[] sums = new BigDecimal[CURRENCIES];
+        Arrays.fill(sums, BigDecimal.ZERO);
+        for (int i = 0; i < bookings; i++) {
+            sums[currencies[i]] = sums[currencies[i]].add(prices[i]);
+        }
+        return sums;
+    }
+
+    @Benchmark
+    public BigDecimal[] scaledAmountSums() {
+        final long[] units = new long[CURRENCIES];
+        for (int i = 0; i < bookings; i++) {
+            units[currencies[i]] = ScaledAmount.add(units[currencies[i]], ScaledAmount.toUnits(prices[i]));
+        }
+        final BigDecimal[] sums = new BigDecimal[CURRENCIES];
+        for (int c = 0; c < CURRENCIES; c++) {
+            sums[c] = ScaledAmount.toBigDecimal(units[c]);
+        }
+        return sums;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyAggregationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
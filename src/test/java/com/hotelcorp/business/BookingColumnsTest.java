@@ -0,0 +1,126 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.BookingGroup;
+import com.hotelcorp.data.BookingGroup.Dimension;
+import com.hotelcorp.data.HotelRevenue;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class BookingColumnsTest {
+
+    private final BookingColumns columns = new BookingColumns();
+
+    @Test
+    public void test_GroupBy_ShouldSumPerGroupAndCurrency() {
+        columns.putHotel(1L, (byte) 4);
+        columns.putHotel(2L, (byte) 5);
+        columns.put(1, 1L, (short) 2, new BigDecimal("100.5"), "EUR");
+        columns.put(2, 1L, (short) 2, new BigDecimal("50"), "USD");
+        columns.put(3, 2L, (short) 1, new BigDecimal("10.25"), "EUR");
+        columns.put(4, 2L, null, null, null);
+
+        assertThat(columns.groupBy(EnumSet.noneOf(Dimension.class), null, null, null, null, null), contains(
+                new BookingGroup(null, null, null, null, 4, 5, Map.of(
+                        "EUR", new BigDecimal("110.750"), "USD", new BigDecimal("50.000")))));
+        assertThat(columns.groupBy(EnumSet.of(Dimension.RATING, Dimension.PAX), null, null, null, null, null), contains(
+                new BookingGroup(null, (byte) 4, null, (short) 2, 2, 4, Map.of(
+                        "EUR", new BigDecimal("100.500"), "USD", new BigDecimal("50.000"))),
+                new BookingGroup(null, (byte) 5, null, null, 1, 0, Map.of()),
+                new BookingGroup(null, (byte) 5, null, (short) 1, 1, 1, Map.of("EUR", new BigDecimal("10.250")))));
+        assertThat(columns.groupBy(EnumSet.of(Dimension.HOTEL, Dimension.CURRENCY), 2L, null, null, null, null), contains(
+                new BookingGroup(2L, null, null, null, 1, 0, Map.of()),
+                new BookingGroup(2L, null, "EUR", null, 1, 1, Map.of("EUR", new BigDecimal("10.250")))));
+    }
+
+    @Test
+    public void test_GroupBy_WithFilters_ShouldOnlyCountMatchingBookings() {
+        columns.putHotel(1L, (byte) 4);
+        columns.put(1, 1L, (short) 1, BigDecimal.ONE, "EUR");
+        columns.put(2, 1L, (short) 3, BigDecimal.ONE, "EUR");
+        columns.put(3, 1L, null, BigDecimal.ONE, "EUR");
+        columns.put(4, 2L, (short) 3, BigDecimal.ONE, "USD");
+
+        final Set<Dimension> none = EnumSet.noneOf(Dimension.class);
+        assertThat(columns.groupBy(none, null, null, null, (short) 2, null).get(0).getBookingCount(), is(2L));
+        assertThat(columns.groupBy(none, null, null, "EUR", null, (short) 2).get(0).getBookingCount(), is(1L));
+        // hotel 2 has no rating
+        assertThat(columns.groupBy(none, null, (byte) 4, null, null, null).get(0).getBookingCount(), is(3L));
+        assertThat(columns.groupBy(none, null, null, "GBP", null, null), is(empty()));
+        assertThat(columns.groupBy(none, 3L, null, null, null, null), is(empty()));
+    }
+
+    @Test
+    public void test_Put_WithExistingId_ShouldReplaceBookingAndRemoveShouldDropIt() {
+        columns.put(7, 1L, (short) 2, BigDecimal.TEN, "EUR");
+        columns.put(7, 2L, (short) 3, BigDecimal.ONE, "USD");
+        columns.putHotel(2L, (byte) 3);
+
+        assertThat(columns.size(), is(1));
+        assertThat(columns.groupBy(EnumSet.of(Dimension.HOTEL, Dimension.RATING), null, null, null, null, null), contains(
+                new BookingGroup(2L, (byte) 3, null, null, 1, 3, Map.of("USD", new BigDecimal("1.000")))));
+
+        columns.remove(7);
+        columns.remove(8);
+        columns.remove(1_000_000);
+        assertThat(columns.size(), is(0));
+        assertThat(columns.groupBy(EnumSet.noneOf(Dimension.class), null, null, null, null, null), is(empty()));
+    }
+
+    @Test
+    public void test_GroupBy_ShouldMatchGroupingEveryBookingAcrossSegments() {
+        final Random random = new Random(42);
+        final String[] currencies = {"EUR", "USD", "GBP", null};
+        final Map<List<Object>, long[]> expectedByRating = new HashMap<>();
+        final Map<List<Object>, long[]> expectedByHotel = new HashMap<>();
+        for (int hotel = 1; hotel <= 100; hotel++) {
+            columns.putHotel(hotel, (byte) (1 + hotel % 5));
+        }
+        final int bookings = 3 * BookingColumns.SEGMENT_ROWS + 100;
+        for (long id = 1; id <= bookings; id++) {
+            final long hotel = 1 + random.nextInt(100);
+            final short pax = (short) (1 + random.nextInt(200));
+            final String currency = currencies[random.nextInt(currencies.length)];
+            final long units = random.nextInt(100_000);
+            columns.put(id, hotel, pax, BigDecimal.valueOf(units, 3), currency);
+            count(expectedByRating.computeIfAbsent(List.of(1 + hotel % 5, pax), k -> new long[3]), pax, currency, units);
+            count(expectedByHotel.computeIfAbsent(List.of(hotel, pax), k -> new long[3]), pax, currency, units);
+        }
+
+        // few enough ratings and pax to sum into arrays, too many hotels and pax for that
+        final List<BookingGroup> byRating = columns.groupBy(EnumSet.of(Dimension.RATING, Dimension.PAX), null, null, null, null, null);
+        final List<BookingGroup> byHotel = columns.groupBy(EnumSet.of(Dimension.HOTEL, Dimension.PAX), null, null, null, null, null);
+
+        assertThat(byRating.size(), is(expectedByRating.size()));
+        byRating.forEach(g -> assertSums(g, expectedByRating.get(List.of((long) g.getRating(), g.getNumberOfPax()))));
+        assertThat(byHotel.size(), is(expectedByHotel.size()));
+        byHotel.forEach(g -> assertSums(g, expectedByHotel.get(List.of(g.getHotelId(), g.getNumberOfPax()))));
+    }
+
+    private static void count(long[] sums, short pax, String currency, long units) {
+        sums[0]++;
+        sums[1] += pax;
+        if (currency == null) {
+            sums[2] += units;
+        }
+    }
+
+    private static void assertSums(BookingGroup group, long[] sums) {
+        assertThat(group.getBookingCount(), is(sums[0]));
+        assertThat(group.getTotalPax(), is(sums[1]));
+        // sparse groups may have no booking without a currency
+        assertThat(group.getRevenue().getOrDefault(HotelRevenue.NO_CURRENCY, BigDecimal.valueOf(0, 3)),
+                is(BigDecimal.valueOf(sums[2], 3)));
+    }
+}
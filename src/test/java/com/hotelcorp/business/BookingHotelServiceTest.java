@@ -1,7 +1,7 @@
 package com.hotelcorp.business;
 
-import com.hotelcorp.data.Booking;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRank;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -10,8 +10,10 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+
 import java.util.List;
 import java.util.Set;
 
@@ -30,17 +32,20 @@ public class BookingHotelServiceTest {
     public ExpectedException expectedException = ExpectedException.none();
 
     @Mock
-    private BookingService mockBookingService;
+    private CustomerHotelIndex mockCustomerHotelIndex;
 
     @Mock
     private HotelService mockHotelService;
 
+    @Mock
+    private HotelRankingIndex mockHotelRankingIndex;
+
     // service under test
     private BookingHotelService bookingHotelService;
 
     @Before
     public void setUp() throws Exception {
-        bookingHotelService = new BookingHotelService(mockHotelService, mockBookingService);
+        bookingHotelService = new BookingHotelService(mockHotelService, mockCustomerHotelIndex, mockHotelRankingIndex);
     }
 
     @Test
@@ -50,11 +55,8 @@ public class BookingHotelServiceTest {
         var hotel2 = new Hotel("Hotel2", "address2", null);
         hotel2.setId(2L);
 
-        when(mockBookingService.getBookingsForCustomer(anyString()))
-                .thenReturn(List.of(
-                        new Booking("R2", "D2", (short) 5, BigDecimal.TEN, "EUR", hotel1),
-                        new Booking("R2", "D2", (short) 3, BigDecimal.ONE, "USD", hotel2),
-                        new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "USD", hotel1)));
+        when(mockCustomerHotelIndex.getHotelIds(anyString()))
+                .thenReturn(Set.of(1L, 2L));
 
         when(mockHotelService.getHotels(Set.of(1L, 2L)))
                 .thenReturn(List.of(hotel1, hotel2));
@@ -66,8 +68,8 @@ public class BookingHotelServiceTest {
 
     @Test
     public void test_GetHotelsForBookingByCustomerName_WithNonMatchingBookings_ShouldReturnEmptyList() {
-        when(mockBookingService.getBookingsForCustomer(anyString()))
-                .thenReturn(List.of());
+        when(mockCustomerHotelIndex.getHotelIds(anyString()))
+                .thenReturn(Set.of());
 
         when(mockHotelService.getHotels(Set.of()))
                 .thenReturn(List.of());
@@ -76,4 +78,39 @@ public class BookingHotelServiceTest {
 
         assertThat(hotels, emptyIterable());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_GetTopHotels_ByRevenue_ShouldRankHotelsInLeaderboardOrder() {
+        var hotel1 = new Hotel("Hotel1", "address1", null);
+        hotel1.setId(1L);
+        var hotel2 = new Hotel("Hotel2", "address2", null);
+        hotel2.setId(2L);
+
+        when(mockHotelRankingIndex.getTopByRevenue("EUR", 2))
+                .thenReturn(List.of(new Leaderboard.Score(2L, 300_500L), new Leaderboard.Score(1L, 99_000L)));
+        when(mockHotelService.getHotels(List.of(2L, 1L)))
+                .thenReturn(List.of(hotel1, hotel2));
+
+        List<HotelRank> ranks = bookingHotelService.getTopHotels("revenue", "EUR", 2);
+
+        assertThat(ranks, contains(
+                new HotelRank(1, hotel2, null, "EUR", new BigDecimal("300.500")),
+                new HotelRank(2, hotel1, null, "EUR", new BigDecimal("99.000"))));
+    }
+
+    @Test
+    public void test_GetTopHotels_ByRevenueWithoutCurrency_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+
+        bookingHotelService.getTopHotels("revenue", null, null);
+    }
+
+    @Test
+    public void test_GetTopHotels_ByUnknownRanking_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+
+        bookingHotelService.getTopHotels("rating", null, null);
+    }
+}
@@ -0,0 +1,107 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class BookingIndexesTest {
+
+    @Mock
+    private HotelRevenueService mockHotelRevenueService;
+
+    @Mock
+    private CustomerHotelIndex mockCustomerHotelIndex;
+
+    @Mock
+    private CustomerNameIndex mockCustomerNameIndex;
+
+    @Mock
+    private HotelOccupancyIndex mockHotelOccupancyIndex;
+
+    @Mock
+    private BookingAnalyticsStore mockBookingAnalyticsStore;
+
+    @Mock
+    private BookingSketchIndex mockBookingSketchIndex;
+
+    @Mock
+    private HotelRankingIndex mockHotelRankingIndex;
+
+    @Mock
+    private BookingFilterIndex mockBookingFilterIndex;
+
+    // dispatcher under test
+    private BookingIndexes bookingIndexes;
+
+    @Before
+    public void setUp() {
+        bookingIndexes = new BookingIndexes(mockHotelRevenueService, mockCustomerHotelIndex, mockCustomerNameIndex,
+                mockHotelOccupancyIndex, mockBookingAnalyticsStore, mockBookingSketchIndex, mockHotelRankingIndex,
+                mockBookingFilterIndex);
+    }
+
+    @Test
+    public void test_RecordCreated_ShouldRecordInAllIndexes() {
+        final List<Booking> bookings = List.of(
+                new Booking("Luke", "Skywalker", (short) 2, new BigDecimal("100.000"), "EUR", null));
+
+        bookingIndexes.recordCreated(bookings);
+
+        verify(mockHotelRevenueService).recordCreated(bookings);
+        verify(mockCustomerHotelIndex).recordCreated(bookings);
+        verify(mockCustomerNameIndex).recordCreated(bookings);
+        verify(mockHotelOccupancyIndex).recordCreated(bookings);
+        verify(mockBookingAnalyticsStore).recordCreated(bookings);
+        verify(mockBookingSketchIndex).recordCreated(bookings);
+        verify(mockHotelRankingIndex).recordCreated(bookings);
+        verify(mockBookingFilterIndex).recordCreated(bookings);
+    }
+
+    @Test
+    public void test_RecordUpdated_WithSnapshot_ShouldRecordTheValuesSet() {
+        final BookingSnapshot before = new BookingSnapshot("Skywalker", 1L, "EUR", new BigDecimal("100.000"), 0L);
+        final Booking values = new Booking(null, "Organa", null, null, null, null);
+
+        bookingIndexes.recordUpdated(7L, before, values);
+
+        verify(mockCustomerHotelIndex).recordUpdated(eq(before),
+                argThat(after -> after.getCustomerLastName().equals("Organa")));
+        verify(mockCustomerNameIndex).recordUpdated(7L, null, "Organa");
+        verify(mockBookingFilterIndex).recordUpdated(eq(7L), eq(before),
+                argThat(after -> after.getCustomerLastName().equals("Organa")));
+    }
+
+    @Test
+    public void test_RecordRepriced_ShouldLeaveCustomerAndOccupancyIndexesAlone() {
+        final List<BookingSummary> before = List.of(new BookingSummary(7L, "Luke", "Skywalker", (short) 2,
+                new BigDecimal("100.000"), "EUR", 1L, 0L));
+        final List<BookingSummary> after = List.of(new BookingSummary(7L, "Luke", "Skywalker", (short) 2,
+                new BigDecimal("110.000"), "EUR", 1L, 1L));
+
+        bookingIndexes.recordRepriced(before, after);
+
+        verify(mockHotelRevenueService).recordUpdated(before, after);
+        verify(mockBookingAnalyticsStore).recordUpdated(after);
+        verify(mockBookingSketchIndex).recordUpdated(before, after);
+        verify(mockHotelRankingIndex).recordUpdated(before, after);
+        verify(mockBookingFilterIndex).recordUpdated(before, after);
+        verifyZeroInteractions(mockCustomerHotelIndex, mockCustomerNameIndex, mockHotelOccupancyIndex);
+    }
+}
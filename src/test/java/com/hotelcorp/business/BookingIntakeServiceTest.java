@@ -0,0 +1,209 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
+import com.hotelcorp.data.BookingTicket;
+import com.hotelcorp.data.Hotel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookingIntakeServiceTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock
+    private BookingService bookingService;
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-06-01T10:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void test_Flush_ShouldWriteQueuedBookingsInOneBatchAndCompleteTickets() {
+        final var intake = newIntake(10);
+        when(bookingService.createBookings(any())).thenAnswer(invocation -> {
+            final Iterator<Booking> bookings = invocation.getArgument(0);
+            final List<BookingBatchResult> results = new ArrayList<>();
+            for (int i = 0; bookings.hasNext(); i++) {
+                final Booking booking = bookings.next();
+                results.add(booking.getPrice() != null
+                        ? BookingBatchResult.created(i, 100L + i)
+                        : BookingBatchResult.failed(i, "price"));
+            }
+            return results;
+        });
+
+        final var created = intake.submit(newBooking(BigDecimal.ONE));
+        final var failed = intake.submit(newBooking(null));
+        assertThat(intake.getTicket(created.getId()).get().getStatus(), is(BookingTicket.Status.PENDING));
+
+        assertThat(intake.flush(), is(2));
+
+        verify(bookingService, times(1)).createBookings(any());
+        assertThat(intake.getTicket(created.getId()).get().getStatus(), is(BookingTicket.Status.CREATED));
+        assertThat(intake.getTicket(created.getId()).get().getBookingId(), is(100L));
+        assertThat(intake.getTicket(failed.getId()).get().getStatus(), is(BookingTicket.Status.FAILED));
+        assertThat(intake.flush(), is(0));
+    }
+
+    @Test
+    public void test_Flush_WhenBatchThrows_ShouldFailEveryTicketOfTheBatch() {
+        final var intake = newIntake(10);
+        when(bookingService.createBookings(any())).thenThrow(new IllegalStateException("database down"));
+
+        final var ticket = intake.submit(newBooking(BigDecimal.ONE));
+        intake.flush();
+
+        assertThat(intake.getTicket(ticket.getId()).get().getStatus(), is(BookingTicket.Status.FAILED));
+        assertThat(intake.getTicket(ticket.getId()).get().getMessage(), is("database down"));
+    }
+
+    @Test
+    public void test_Submit_WithFullQueue_ShouldRaiseTooManyRequests() {
+        final var intake = newIntake(1);
+        intake.submit(newBooking(BigDecimal.ONE));
+
+        try {
+            intake.submit(newBooking(BigDecimal.ONE));
+            fail("Expected the second booking to be refused");
+        } catch (ResponseStatusException e) {
+            assertThat(e.getStatus(), is(HttpStatus.TOO_MANY_REQUESTS));
+        }
+        assertThat(intake.queued(), is(1));
+    }
+
+    @Test
+    public void test_Submit_WithInvalidBooking_ShouldRaiseBadRequestWithoutQueueing() {
+        final var intake = newIntake(10);
+        final var booking = newBooking(BigDecimal.ONE);
+        when(bookingService.validateForBatch(booking)).thenReturn("Hotel is mandatory");
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("Hotel is mandatory");
+        try {
+            intake.submit(booking);
+        } finally {
+            assertThat(intake.queued(), is(0));
+        }
+    }
+
+    @Test
+    public void test_Stop_ShouldWriteQueuedBookingsAndRefuseNewOnes() {
+        final var intake = newIntake(10);
+        when(bookingService.createBookings(any())).thenReturn(List.of());
+        intake.start();
+        for (int i = 0; i < 5; i++) {
+            intake.submit(newBooking(BigDecimal.ONE));
+        }
+
+        intake.stop();
+
+        assertThat(intake.queued(), is(0));
+        assertThat(intake.isRunning(), is(false));
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("shutting down");
+        intake.submit(newBooking(BigDecimal.ONE));
+    }
+
+    @Test
+    public void test_Flush_BeyondMaxCompletedTickets_ShouldEvictTheEarliestCompleted() {
+        final var intake = newIntake(10, 2);
+        when(bookingService.createBookings(any())).thenAnswer(invocation -> {
+            invocation.<Iterator<Booking>>getArgument(0).next();
+            return List.of(BookingBatchResult.created(0, 100L));
+        });
+        final List<BookingTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tickets.add(intake.submit(newBooking(BigDecimal.ONE)));
+            intake.flush();
+        }
+
+        assertThat(intake.getTicket(tickets.get(0).getId()).isPresent(), is(false));
+        assertThat(intake.getTicket(tickets.get(1).getId()).get().getStatus(), is(BookingTicket.Status.CREATED));
+        assertThat(intake.getTicket(tickets.get(2).getId()).get().getStatus(), is(BookingTicket.Status.CREATED));
+    }
+
+    @Test
+    public void test_Stop_WhileSubmitting_ShouldWriteEveryAcceptedBooking() throws Exception {
+        final var intake = newIntake(100_000);
+        when(bookingService.createBookings(any())).thenAnswer(invocation -> {
+            final Iterator<Booking> bookings = invocation.getArgument(0);
+            final List<BookingBatchResult> results = new ArrayList<>();
+            for (int i = 0; bookings.hasNext(); i++) {
+                bookings.next();
+                results.add(BookingBatchResult.created(i, (long) i));
+            }
+            return results;
+        });
+        intake.start();
+        final List<BookingTicket> accepted = Collections.synchronizedList(new ArrayList<>());
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> submitters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                submitters.add(executor.submit(() -> {
+                    while (true) {
+                        try {
+                            accepted.add(intake.submit(newBooking(BigDecimal.ONE)));
+                        } catch (ResponseStatusException e) {
+                            // until refused for shutting down, a full queue is retried
+                            if (e.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+                                return;
+                            }
+                            assertThat(e.getStatus(), is(HttpStatus.TOO_MANY_REQUESTS));
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(50);
+            intake.stop();
+            for (Future<?> submitter : submitters) {
+                submitter.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(accepted.isEmpty(), is(false));
+        assertThat(accepted.stream().filter(t -> intake.getTicket(t.getId()).get().getStatus() == BookingTicket.Status.PENDING).count(),
+                is(0L));
+    }
+
+    private BookingIntakeService newIntake(int queueCapacity) {
+        return newIntake(queueCapacity, 10_000);
+    }
+
+    private BookingIntakeService newIntake(int queueCapacity, int maxCompletedTickets) {
+        return new BookingIntakeService(bookingService, queueCapacity, 500, Duration.ofSeconds(10), Duration.ofHours(1),
+                maxCompletedTickets, clock);
+    }
+
+    private static Booking newBooking(BigDecimal price) {
+        return new Booking("R2", "D2", (short) 1, price, "EUR", new Hotel("Intake Inn", null, null));
+    }
+}
@@ -0,0 +1,145 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingFilter;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.CursorPage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookingSearchServiceTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    @Mock
+    private BookingFilterIndex mockBookingFilterIndex;
+
+    // service under test
+    private BookingSearchService bookingSearchService;
+
+    @Before
+    public void setUp() {
+        bookingSearchService = new BookingSearchService(mockBookingRepository, mockBookingFilterIndex);
+    }
+
+    @Test
+    public void test_SearchBookings_WithoutPriceRange_ShouldPageIndexedIdsWithoutQueryingPrices() {
+        final var filter = new BookingFilter(List.of(1L), null, null, null, null, null, null);
+        when(mockBookingFilterIndex.find(filter)).thenReturn(bitmap(4, 2, 9));
+        when(mockBookingRepository.findSummariesByIdIn(List.of(4L, 9L)))
+                .thenReturn(List.of(summary(9), summary(4)));
+
+        CursorPage<BookingSummary> page = bookingSearchService.searchBookings(filter, 2L, 1);
+
+        assertThat(page.getItems(), contains(summary(4)));
+        assertThat(page.getNextCursor(), is(4L));
+    }
+
+    @Test
+    public void test_SearchBookings_WithSelectivePriceRange_ShouldReadPriceIndexAndIntersect() {
+        final var filter = new BookingFilter(null, List.of("EUR"), null, null, null, new BigDecimal("100"), new BigDecimal("110"));
+        when(mockBookingFilterIndex.find(filter)).thenReturn(bitmap(1, 2, 3, 4, 5, 6, 7, 8));
+        when(mockBookingFilterIndex.count()).thenReturn(1_000_000L);
+        when(mockBookingFilterIndex.estimatePriceCount(filter.getMinPrice(), filter.getMaxPrice())).thenReturn(5L);
+        when(mockBookingRepository.findIdsByPriceBetween(filter.getMinPrice(), filter.getMaxPrice(), 0L))
+                .thenReturn(List.of(7L, 3L, 12L));
+        when(mockBookingRepository.findSummariesByIdIn(List.of(3L, 7L)))
+                .thenReturn(List.of(summary(3), summary(7)));
+
+        CursorPage<BookingSummary> page = bookingSearchService.searchBookings(filter, null, 20);
+
+        assertThat(page.getItems(), contains(summary(3), summary(7)));
+        assertThat(page.getNextCursor(), nullValue());
+        verify(mockBookingRepository, never()).findIdsByIdInAndPriceBetween(any(), any(), any());
+    }
+
+    @Test
+    public void test_SearchBookings_WithWidePriceRange_ShouldCheckPricesOfCandidates() {
+        final var filter = new BookingFilter(null, List.of("EUR"), null, null, null, null, new BigDecimal("1000"));
+        when(mockBookingFilterIndex.find(filter)).thenReturn(bitmap(1, 2, 3));
+        when(mockBookingFilterIndex.count()).thenReturn(1_000L);
+        when(mockBookingFilterIndex.estimatePriceCount(null, filter.getMaxPrice())).thenReturn(900L);
+        when(mockBookingRepository.findIdsByIdInAndPriceBetween(List.of(1L, 2L, 3L), Booking.MIN_PRICE, filter.getMaxPrice()))
+                .thenReturn(new ArrayList<>(List.of(3L, 1L)));
+        when(mockBookingRepository.findSummariesByIdIn(List.of(1L, 3L)))
+                .thenReturn(List.of(summary(1), summary(3)));
+
+        CursorPage<BookingSummary> page = bookingSearchService.searchBookings(filter, null, 20);
+
+        assertThat(page.getItems(), contains(summary(1), summary(3)));
+        verify(mockBookingRepository, never()).findIdsByPriceBetween(any(), any(), anyLong());
+    }
+
+    @Test
+    public void test_SearchBookings_WithOnlyWidePriceRange_ShouldSeekIdsInOrder() {
+        final var filter = new BookingFilter(null, null, null, null, null, BigDecimal.ONE, null);
+        when(mockBookingFilterIndex.count()).thenReturn(1_000L);
+        when(mockBookingFilterIndex.estimatePriceCount(BigDecimal.ONE, null)).thenReturn(1_000L);
+        when(mockBookingRepository.findIdsByIdGreaterThanAndPriceBetween(0L, BigDecimal.ONE, Booking.MAX_PRICE, 3))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(mockBookingRepository.findSummariesByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(summary(1), summary(2), summary(3)));
+
+        CursorPage<BookingSummary> page = bookingSearchService.searchBookings(filter, null, 2);
+
+        assertThat(page.getItems(), contains(summary(1), summary(2)));
+        assertThat(page.getNextCursor(), is(2L));
+        verify(mockBookingRepository, never()).findIdsByPriceBetween(any(), any(), anyLong());
+    }
+
+    @Test
+    public void test_SearchBookings_WithoutFilter_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+
+        bookingSearchService.searchBookings(new BookingFilter(null, null, null, null, null, null, null), null, null);
+    }
+
+    @Test
+    public void test_SearchBookings_WithInvertedPaxRange_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+
+        bookingSearchService.searchBookings(new BookingFilter(null, null, null, (short) 3, (short) 2, null, null), null, null);
+        verify(mockBookingRepository, never()).findIdsByIdGreaterThanAndPriceBetween(anyLong(), any(), any(), anyInt());
+    }
+
+    private static CompressedBitmap bitmap(long... ids) {
+        final var bitmap = new CompressedBitmap();
+        for (long id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    private static BookingSummary summary(long id) {
+        return new BookingSummary(id, "Luke", "Skywalker", (short) 1, BigDecimal.TEN, "EUR", 1L, 0L);
+    }
+}
@@ -1,8 +1,14 @@
 package com.hotelcorp.business;
 
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
+import com.hotelcorp.data.BookingRepricing;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.BookingSummary;
 import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingPriceStatistics;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelBookingStatistics;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -11,15 +17,31 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
 
@@ -36,12 +58,53 @@ public class BookingServiceTest {
     @Mock
     private BookingRepository mockBookingRepository;
 
+    @Mock
+    private HotelRevenueService mockHotelRevenueService;
+
+    @Mock
+    private CustomerHotelIndex mockCustomerHotelIndex;
+
+    @Mock
+    private CustomerNameIndex mockCustomerNameIndex;
+
+    @Mock
+    private HotelOccupancyIndex mockHotelOccupancyIndex;
+
+    @Mock
+    private BookingAnalyticsStore mockBookingAnalyticsStore;
+
+    @Mock
+    private BookingSketchIndex mockBookingSketchIndex;
+
+    @Mock
+    private HotelRankingIndex mockHotelRankingIndex;
+
+    @Mock
+    private BookingFilterIndex mockBookingFilterIndex;
+
+    @Mock
+    private HotelCapacityAllocator mockHotelCapacityAllocator;
+
+    @Mock
+    private FxRateService mockFxRateService;
+
+    @Mock
+    private EntityManager mockEntityManager;
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
     // service under test
     private BookingService bookingService;
 
     @Before
     public void setUp() throws Exception {
-        bookingService = new BookingService(mockHotelService, mockBookingRepository);
+        final BookingIndexes bookingIndexes = new BookingIndexes(mockHotelRevenueService, mockCustomerHotelIndex,
+                mockCustomerNameIndex, mockHotelOccupancyIndex, mockBookingAnalyticsStore, mockBookingSketchIndex,
+                mockHotelRankingIndex, mockBookingFilterIndex);
+        bookingService = new BookingService(mockHotelService, mockBookingRepository, bookingIndexes,
+                mockHotelRevenueService, mockCustomerNameIndex, mockHotelCapacityAllocator, mockFxRateService,
+                mockEntityManager, mockTransactionManager);
     }
 
     @Test
@@ -83,7 +146,7 @@ public class BookingServiceTest {
                 mockHotel);
 
         // hotel already exists
-        when(mockHotelService.getHotelByIdOrName(mockHotel)).thenReturn(Optional.of(mockHotel));
+        when(mockHotelService.getOrCreateHotel(mockHotel)).thenReturn(mockHotel);
         // on invocation of save(b) -> return b
         when(mockBookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
 
@@ -105,19 +168,20 @@ public class BookingServiceTest {
                 "EUR",
                 mockHotel);
 
-        // hotel does not exist
-        when(mockHotelService.getHotelByIdOrName(mockHotel)).thenReturn(Optional.empty());
-        // create hotel
-        when(mockHotelService.createHotel(mockHotel)).thenReturn(mockHotel);
+        // hotel does not exist and is created
+        final var createdHotel = new Hotel("Plaza", null, Byte.valueOf("5"));
+        createdHotel.setId(5L);
+        when(mockHotelService.getOrCreateHotel(mockHotel)).thenReturn(createdHotel);
         // on invocation of save(b) -> return b
         when(mockBookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
 
         Booking createdBooking = bookingService.createBooking(mockBooking);
         assertThat(createdBooking, notNullValue());
         assertThat(createdBooking.getCustomerLastName(), is("D2"));
-        assertThat(createdBooking.getHotel(), is(mockHotel));
-        // verify that createHotel() was indeed invoked
-        verify(mockHotelService, times(1)).createHotel(mockHotel);
+        assertThat(createdBooking.getHotel().getId(), is(5L));
+        // the hotel is created through the race-free get-or-create, not the conflicting create
+        verify(mockHotelService, times(1)).getOrCreateHotel(mockHotel);
+        verify(mockHotelService, never()).createHotel(any(Hotel.class));
     }
 
     @Test
@@ -218,21 +282,463 @@ public class BookingServiceTest {
     }
 
     @Test
-    public void test_DeleteBooking_WithExistingId_ShouldDeleteBooking() {
-        when(mockBookingRepository.existsById(any(Long.class)))
-                .thenReturn(true);
+    public void test_UpdateBooking_WithStaleVersion_ShouldRaiseExceptionWithoutSaving() {
+        final var booking = bookingWithId(1L, new Hotel("Plaza", null, null));
+        booking.setVersion(4L);
+        when(mockBookingRepository.findById(1L))
+                .thenReturn(Optional.of(booking));
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("PRECONDITION_FAILED");
+        try {
+            bookingService.updateBooking(new Booking(null, "dummy", null, null, null, null), 1L, 3L);
+        } finally {
+            verify(mockBookingRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    public void test_DeleteBooking_WithExistingId_ShouldDeleteBookingAndItsRevenue() {
+        final var booking = bookingWithId(1L, new Hotel("Plaza", null, null));
+        when(mockBookingRepository.findById(any(Long.class)))
+                .thenReturn(Optional.of(booking));
 
         bookingService.deleteBooking(1L);
-        verify(mockBookingRepository, times(1)).deleteById(1L);
+        verify(mockBookingRepository, times(1)).delete(booking);
+        verify(mockHotelRevenueService, times(1)).recordDeleted(booking);
+        verify(mockCustomerHotelIndex, times(1)).recordDeleted(booking);
     }
 
     @Test
     public void test_DeleteBooking_WithNonExistingId_ShouldRaiseException() {
-        when(mockBookingRepository.existsById(any(Long.class)))
-                .thenReturn(false);
+        when(mockBookingRepository.findById(any(Long.class)))
+                .thenReturn(Optional.empty());
 
         expectedException.expect(ResponseStatusException.class);
         expectedException.expectMessage("NOT_FOUND");
         bookingService.deleteBooking(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_UpdateBooking_ShouldRecordRevenueChangeFromPreviousState() {
+        final var plaza = new Hotel("Plaza", null, null);
+        final var ritz = new Hotel("Ritz", null, null);
+        final var booking = bookingWithId(1L, plaza);
+
+        when(mockBookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(mockHotelService.getHotelByIdOrName(any(Hotel.class))).thenReturn(Optional.of(ritz));
+        when(mockBookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
+
+        bookingService.updateBooking(new Booking(null, null, null, BigDecimal.TEN, "USD", ritz), 1L);
+
+        verify(mockHotelRevenueService, times(1)).recordUpdated(
+                argThat((Booking before) -> before.getHotel() == plaza && before.getCurrency().equals("EUR")
+                        && before.getPrice().equals(BigDecimal.ONE)),
+                argThat((Booking after) -> after.getHotel() == ritz && after.getCurrency().equals("USD")
+                        && after.getPrice().equals(BigDecimal.TEN)));
+    }
+
+    @Test
+    public void test_PatchBooking_WithCustomerName_ShouldMoveSketchesFromReplacedName() {
+        final BookingSnapshot before = new BookingSnapshot("R2", "D2", 3L, "EUR", BigDecimal.ONE, (short) 1, null, null, 7L);
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(before));
+        when(mockBookingRepository.updateNonNullValues(eq(1L), eq(7L), any(Booking.class)))
+                .thenReturn(1);
+
+        assertThat(bookingService.patchBooking(new Booking("Luke", null, null, null, null, null), 1L, null), is(1));
+        verify(mockBookingRepository, never()).findById(any());
+        verify(mockBookingSketchIndex, times(1)).recordUpdated(before,
+                new BookingSnapshot("Luke", "D2", 3L, "EUR", BigDecimal.ONE, (short) 1, null, null, 7L));
+        verify(mockCustomerNameIndex, times(1)).recordUpdated(1L, "Luke", null);
+        verifyZeroInteractions(mockHotelCapacityAllocator);
+    }
+
+    @Test
+    public void test_PatchBooking_WithCheckOut_ShouldMoveOccupancyFromReplacedStay() {
+        final LocalDate checkIn = LocalDate.of(2024, 5, 1);
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, (short) 2, checkIn, checkIn.plusDays(2), 7L)));
+        when(mockBookingRepository.updateNonNullValues(eq(1L), eq(7L), any(Booking.class)))
+                .thenReturn(1);
+        when(mockHotelService.getHotelById(3L)).thenReturn(new Hotel("Plaza", null, null));
+
+        bookingService.patchBooking(new Booking(null, null, null, null, null, null, checkIn.plusDays(5), null), 1L, null);
+
+        verify(mockHotelOccupancyIndex, times(1)).recordUpdated(
+                new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, (short) 2, checkIn, checkIn.plusDays(2), 7L),
+                new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, (short) 2, checkIn, checkIn.plusDays(5), 7L));
+    }
+
+    @Test
+    public void test_PatchBooking_WithCheckOutBeforeCheckIn_ShouldRaiseBadRequest() {
+        final LocalDate checkIn = LocalDate.of(2024, 5, 1);
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, (short) 2, checkIn, checkIn.plusDays(2), 7L)));
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+        try {
+            bookingService.patchBooking(new Booking(null, null, null, null, null, null, checkIn, null), 1L, null);
+        } finally {
+            verify(mockBookingRepository, never()).updateNonNullValues(any(), any(), any());
+            verifyZeroInteractions(mockHotelOccupancyIndex);
+        }
+    }
+
+    @Test
+    public void test_CreateBooking_WithFullHotel_ShouldNotSaveBooking() {
+        final var hotel = new Hotel("Plaza", null, null);
+        hotel.setId(1L);
+        hotel.setCapacity(2);
+        final LocalDate checkIn = LocalDate.of(2024, 5, 1);
+        when(mockHotelService.getOrCreateHotel(any(Hotel.class))).thenReturn(hotel);
+        doThrow(new ResponseStatusException(HttpStatus.CONFLICT, "full"))
+                .when(mockHotelCapacityAllocator).reserve(1L, 2, checkIn, checkIn.plusDays(1), 3, null);
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("CONFLICT");
+        try {
+            bookingService.createBooking(new Booking("Luke", "Skywalker", (short) 3, null, null, checkIn, checkIn.plusDays(1), hotel));
+        } finally {
+            verify(mockBookingRepository, never()).save(any());
+            verifyZeroInteractions(mockHotelOccupancyIndex);
+        }
+    }
+
+    @Test
+    public void test_CreateBooking_WithOnlyCheckIn_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("Check-in and check-out must be given together");
+        try {
+            bookingService.createBooking(new Booking("Luke", "Skywalker", (short) 1, null, null,
+                    LocalDate.of(2024, 5, 1), null, new Hotel("Plaza", null, null)));
+        } finally {
+            verify(mockBookingRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    public void test_PatchBooking_WithCustomerLastName_ShouldMoveIndexFromReplacedLastName() {
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, 7L)));
+        when(mockBookingRepository.updateNonNullValues(eq(1L), eq(7L), any(Booking.class)))
+                .thenReturn(1);
+
+        bookingService.patchBooking(new Booking(null, "3Pio", null, null, null, null), 1L, null);
+
+        verify(mockCustomerHotelIndex, times(1)).recordUpdated(
+                new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, 7L),
+                new BookingSnapshot("3Pio", 3L, "EUR", BigDecimal.ONE, 7L));
+    }
+
+    @Test
+    public void test_PatchBooking_WithPrice_ShouldMoveRevenueFromReplacedPrice() {
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, 7L)));
+        when(mockBookingRepository.updateNonNullValues(eq(1L), eq(7L), any(Booking.class)))
+                .thenReturn(1);
+
+        bookingService.patchBooking(new Booking(null, null, null, BigDecimal.TEN, null, null), 1L, null);
+
+        verify(mockHotelRevenueService, times(1)).recordUpdated(
+                new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, 7L),
+                new BookingSnapshot("D2", 3L, "EUR", BigDecimal.TEN, 7L));
+    }
+
+    @Test
+    public void test_PatchBooking_WithPriceChangedConcurrently_ShouldRaiseConcurrencyFailure() {
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.of(new BookingSnapshot("D2", 3L, "EUR", BigDecimal.ONE, 7L)));
+        when(mockBookingRepository.updateNonNullValues(eq(1L), eq(7L), any(Booking.class)))
+                .thenReturn(0);
+
+        expectedException.expect(OptimisticLockingFailureException.class);
+        try {
+            bookingService.patchBooking(new Booking(null, null, null, BigDecimal.TEN, null, null), 1L, null);
+        } finally {
+            verifyZeroInteractions(mockHotelRevenueService);
+        }
+    }
+
+    @Test
+    public void test_PatchBooking_WithNonExistingId_ShouldRaiseException() {
+        when(mockBookingRepository.findSnapshotById(1L))
+                .thenReturn(Optional.empty());
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("NOT_FOUND");
+        try {
+            bookingService.patchBooking(new Booking("Luke", null, null, null, null, null), 1L, null);
+        } finally {
+            verify(mockBookingRepository, never()).updateNonNullValues(any(), any(), any());
+        }
+    }
+
+    @Test
+    public void test_GetBookingStatsForHotel_ShouldReadMaterializedRevenue() {
+        bookingService.getBookingStatsForHotel(1L);
+
+        verify(mockHotelRevenueService, times(1)).getRevenueForHotel(1L);
+        verify(mockBookingRepository, never()).findSumAmountForHotel(any());
+    }
+
+    @Test
+    public void test_GetBookingStats_WithoutHotelIds_ShouldAggregateAllHotels() {
+        bookingService.getBookingStats(null);
+
+        verify(mockBookingRepository, times(1)).findStatisticsPerHotel();
+    }
+
+    @Test
+    public void test_GetBookingStats_WithEmptyHotelIds_ShouldNotQuery() {
+        assertThat(bookingService.getBookingStats(List.of()), is(emptyIterable()));
+
+        verifyZeroInteractions(mockBookingRepository);
+    }
+
+    @Test
+    public void test_GetBookingStats_WithReportingCurrency_ShouldConvertEachHotelIntoOneRow() {
+        when(mockFxRateService.factorsTo("EUR")).thenReturn(Map.of("EUR", BigDecimal.ONE, "GBP", BigDecimal.valueOf(2)));
+        when(mockBookingRepository.findStatisticsPerHotel()).thenReturn(List.of(
+                new HotelBookingStatistics(1L, "Plaza", "EUR", 2L, 2L, BigDecimal.TEN, BigDecimal.valueOf(4), BigDecimal.valueOf(6)),
+                new HotelBookingStatistics(1L, "Plaza", "GBP", 1L, 1L, BigDecimal.valueOf(5), BigDecimal.valueOf(5), BigDecimal.valueOf(5)),
+                new HotelBookingStatistics(1L, "Plaza", null, 1L, 0L, null, null, null),
+                new HotelBookingStatistics(2L, "Ritz", "XXX", 1L, 1L, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE)));
+
+        final var statistics = new ArrayList<HotelBookingStatistics>();
+        bookingService.getBookingStats(null, "EUR").forEach(statistics::add);
+
+        assertThat(statistics.size(), is(3));
+        final var plaza = statistics.get(0);
+        assertThat(plaza.getCurrency(), is("EUR"));
+        assertThat(plaza.getBookingCount(), is(3L));
+        assertThat(plaza.getSumAmount(), is(new BigDecimal("20.000")));
+        assertThat(plaza.getMinAmount(), is(new BigDecimal("4.000")));
+        assertThat(plaza.getMaxAmount(), is(new BigDecimal("10.000")));
+        assertThat(plaza.getAvgAmount(), is(new BigDecimal("6.667")));
+        // no rate, listed as is
+        assertThat(statistics.get(1).getCurrency(), nullValue());
+        assertThat(statistics.get(2).getCurrency(), is("XXX"));
+    }
+
+    @Test
+    public void test_GetBookingStatsForHotel_WithReportingCurrency_ShouldSumConvertedRevenue() {
+        when(mockFxRateService.factorsTo("USD")).thenReturn(Map.of("USD", BigDecimal.ONE, "EUR", new BigDecimal("1.1")));
+        when(mockHotelRevenueService.getRevenueForHotel(1L)).thenReturn(List.of(
+                new BookingPriceStatistics("EUR", BigDecimal.TEN),
+                new BookingPriceStatistics("USD", BigDecimal.ONE)));
+
+        final var statistics = new ArrayList<BookingPriceStatistics>();
+        bookingService.getBookingStatsForHotel(1L, "USD").forEach(statistics::add);
+
+        assertThat(statistics, contains(new BookingPriceStatistics("USD", new BigDecimal("12.000"))));
+    }
+
+    @Test
+    public void test_GetBookings_WithMoreRowsThanLimit_ShouldReturnPageWithNextCursor() {
+        final var hotel = new Hotel("Plaza", null, null);
+        final var booking1 = bookingWithId(3L, hotel);
+        final var booking2 = bookingWithId(4L, hotel);
+        final var booking3 = bookingWithId(7L, hotel);
+
+        // one extra row is requested to detect a next page
+        when(mockBookingRepository.findByIdGreaterThanOrderById(eq(2L), any()))
+                .thenReturn(List.of(booking1, booking2, booking3));
+
+        final var page = bookingService.getBookings(2L, 2);
+
+        assertThat(page.getItems(), contains(booking1, booking2));
+        assertThat(page.getNextCursor(), is(4L));
+    }
+
+    @Test
+    public void test_GetBookings_WithLastPage_ShouldReturnPageWithoutNextCursor() {
+        final var booking = bookingWithId(3L, new Hotel("Plaza", null, null));
+
+        when(mockBookingRepository.findByIdGreaterThanOrderById(eq(0L), any()))
+                .thenReturn(List.of(booking));
+
+        final var page = bookingService.getBookings(null, 2);
+
+        assertThat(page.getItems(), contains(booking));
+        assertThat(page.getNextCursor(), nullValue());
+    }
+
+    @Test
+    public void test_GetBookings_WithLimitAboveMaximum_ShouldClampPageSize() {
+        when(mockBookingRepository.findByIdGreaterThanOrderById(eq(0L), any()))
+                .thenReturn(List.of());
+
+        bookingService.getBookings(null, Integer.MAX_VALUE);
+
+        verify(mockBookingRepository).findByIdGreaterThanOrderById(eq(0L),
+                argThat(pageable -> pageable.getPageSize() == CursorPaging.DEFAULT_MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void test_GetBookings_WithInvalidLimit_ShouldRaiseException() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+        bookingService.getBookings(null, 0);
+    }
+
+    @Test
+    public void test_SearchBookingSummariesByCustomer_ShouldKeepRankOfIndexAndSkipDeletedBookings() {
+        when(mockCustomerNameIndex.search("skywalker", 20)).thenReturn(List.of(3L, 1L, 2L));
+        // the repository returns the rows in its own order, booking 2 has been deleted meanwhile
+        when(mockBookingRepository.findSummariesByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(
+                new BookingSummary(1L, "Luke", "Skywalker", (short) 1, BigDecimal.ONE, "EUR", 1L, 0L),
+                new BookingSummary(3L, "Luke", "Skywalker", (short) 1, BigDecimal.ONE, "EUR", 1L, 0L)));
+
+        final var summaries = bookingService.searchBookingSummariesByCustomer("skywalker", null);
+
+        assertThat(summaries.stream().map(BookingSummary::getId).collect(Collectors.toList()), contains(3L, 1L));
+    }
+
+    @Test
+    public void test_SearchBookingsByCustomerLastNamePrefix_WithBlankPrefix_ShouldRaiseException() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+        bookingService.searchBookingsByCustomerLastNamePrefix(" ", null);
+    }
+
+    @Test
+    public void test_StreamBookingsForHotel_ShouldPassEachBookingAndDetachIt() {
+        final var hotel = new Hotel("Plaza", null, null);
+        final var booking1 = bookingWithId(1L, hotel);
+        final var booking2 = bookingWithId(2L, hotel);
+
+        when(mockBookingRepository.streamByHotelId(1L)).thenReturn(Stream.of(booking1, booking2));
+
+        final List<Booking> streamed = new ArrayList<>();
+        bookingService.streamBookingsForHotel(1L, streamed::add);
+
+        assertThat(streamed, contains(booking1, booking2));
+        verify(mockEntityManager).detach(booking1);
+        verify(mockEntityManager).detach(booking2);
+    }
+
+    @Test
+    public void test_CreateBookings_WithSameHotelName_ShouldResolveHotelOnceAndCreateAll() {
+        final var hotel = new Hotel("Plaza", null, null);
+        hotel.setId(1L);
+
+        when(mockHotelService.getOrCreateHotel(any(Hotel.class))).thenReturn(hotel);
+        when(mockBookingRepository.saveAll(any())).thenAnswer(i -> {
+            long id = 10;
+            for (Booking b : i.<Iterable<Booking>>getArgument(0)) {
+                b.setId(id++);
+            }
+            return i.getArgument(0);
+        });
+
+        final var results = bookingService.createBookings(List.of(
+                new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", new Hotel("Plaza", null, null)),
+                new Booking("C", "3Pio", (short) 1, BigDecimal.ONE, "EUR", new Hotel("Plaza", null, null))).iterator());
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).getStatus(), is(BookingBatchResult.Status.CREATED));
+        assertThat(results.get(0).getId(), is(10L));
+        assertThat(results.get(1).getId(), is(11L));
+        verify(mockHotelService, times(1)).getOrCreateHotel(any(Hotel.class));
+        verify(mockBookingRepository, times(1)).saveAll(any());
+        verify(mockHotelRevenueService, times(1)).recordCreated(any());
+        verify(mockCustomerHotelIndex, times(1)).recordCreated(any());
+    }
+
+    @Test
+    public void test_CreateBookings_WithInvalidBookings_ShouldRejectOnlyTheInvalidOnes() {
+        final var hotel = new Hotel("Plaza", null, null);
+        hotel.setId(1L);
+
+        when(mockHotelService.getHotelById(1L)).thenReturn(hotel);
+        when(mockHotelService.getHotelById(2L))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel with id: 2 does not exist"));
+        when(mockBookingRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+
+        final var existingHotel = new Hotel(null, null, null);
+        existingHotel.setId(1L);
+        final var missingHotel = new Hotel(null, null, null);
+        missingHotel.setId(2L);
+
+        final var results = bookingService.createBookings(List.of(
+                new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", missingHotel),
+                new Booking(null, "D2", (short) 1, BigDecimal.ONE, "EUR", existingHotel),
+                new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", existingHotel),
+                new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", missingHotel)).iterator());
+
+        assertThat(results.get(0).getStatus(), is(BookingBatchResult.Status.REJECTED));
+        assertThat(results.get(0).getMessage(), is("Hotel with id: 2 does not exist"));
+        assertThat(results.get(1).getStatus(), is(BookingBatchResult.Status.REJECTED));
+        assertThat(results.get(2).getStatus(), is(BookingBatchResult.Status.CREATED));
+        assertThat(results.get(3).getStatus(), is(BookingBatchResult.Status.REJECTED));
+        // unresolvable hotels are looked up only once as well
+        verify(mockHotelService, times(1)).getHotelById(2L);
+    }
+
+    @Test
+    public void test_ValidateForBatch_WithNegativeHotelCapacity_ShouldRejectTheBooking() {
+        final var hotel = new Hotel("New", null, null);
+        hotel.setCapacity(-1);
+
+        assertThat(bookingService.validateForBatch(new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", hotel)),
+                is("Invalid capacity value: -1. Use values >= 0"));
+    }
+
+    @Test
+    public void test_RepriceBookings_ShouldUpdateEachChunkWithOneStatement() {
+        ReflectionTestUtils.setField(bookingService, "repriceChunkSize", 2);
+        final var repricing = new BookingRepricing(1L, "EUR", new BigDecimal("1.1"), null, null, null);
+        when(mockBookingRepository.findPriceRangeToReprice(repricing))
+                .thenReturn(new BigDecimal[]{new BigDecimal("100"), new BigDecimal("300")});
+        final var firstChunk = List.of(summary(1L, "100"), summary(2L, "300"));
+        final var lastChunk = List.of(summary(5L, "200"));
+        when(mockBookingRepository.findIdsToReprice(repricing, 0L, 2)).thenReturn(List.of(1L, 2L));
+        when(mockBookingRepository.findIdsToReprice(repricing, 2L, 2)).thenReturn(List.of(5L));
+        when(mockBookingRepository.findSummariesToReprice(repricing, List.of(1L, 2L))).thenReturn(firstChunk);
+        when(mockBookingRepository.findSummariesToReprice(repricing, List.of(5L))).thenReturn(lastChunk);
+        when(mockBookingRepository.repriceByIdIn(any(), any(), any())).thenAnswer(i -> i.<List<Long>>getArgument(0).size());
+
+        assertThat(bookingService.repriceBookings(repricing), is(3L));
+
+        verify(mockBookingRepository).repriceByIdIn(List.of(1L, 2L), new BigDecimal("1.1"), BigDecimal.ZERO);
+        verify(mockBookingRepository).repriceByIdIn(List.of(5L), new BigDecimal("1.1"), BigDecimal.ZERO);
+        verify(mockHotelRevenueService).recordUpdated(eq(firstChunk), argThat(after -> after.get(1).getPrice().equals(new BigDecimal("330.000"))
+                && after.get(1).getVersion() == 1L));
+        verify(mockBookingFilterIndex).recordUpdated(eq(lastChunk), argThat(after -> after.get(0).getPrice().equals(new BigDecimal("220.000"))));
+    }
+
+    @Test
+    public void test_RepriceBookings_WithFactorAndDelta_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+
+        bookingService.repriceBookings(new BookingRepricing(1L, "EUR", BigDecimal.TEN, BigDecimal.ONE, null, null));
+    }
+
+    @Test
+    public void test_RepriceBookings_BeyondPriceColumn_ShouldRaiseBadRequestBeforeUpdating() {
+        final var repricing = new BookingRepricing(1L, "EUR", null, new BigDecimal("9999999"), null, null);
+        when(mockBookingRepository.findPriceRangeToReprice(repricing))
+                .thenReturn(new BigDecimal[]{BigDecimal.ONE, BigDecimal.TEN});
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+        try {
+            bookingService.repriceBookings(repricing);
+        } finally {
+            verify(mockBookingRepository, never()).repriceByIdIn(any(), any(), any());
+        }
+    }
+
+    private static BookingSummary summary(Long id, String price) {
+        return new BookingSummary(id, "R2", "D2", (short) 1, new BigDecimal(price), "EUR", 1L, 0L);
+    }
+
+    private static Booking bookingWithId(Long id, Hotel hotel) {
+        final var booking = new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", hotel);
+        booking.setId(id);
+        return booking;
+    }
+}
@@ -0,0 +1,84 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CompressedBitmapTest {
+
+    @Test
+    public void test_AddAndRemove_ShouldMatchSetAcrossArrayAndBitmapChunks() {
+        final var random = new Random(42);
+        final var bitmap = new CompressedBitmap();
+        final var expected = new TreeSet<Long>();
+        // dense enough for the first chunks to become bitmaps and back
+        for (int i = 0; i < 50_000; i++) {
+            final long value = random.nextInt(3 << 16);
+            if (random.nextInt(4) == 0) {
+                assertThat(bitmap.remove(value), is(expected.remove(value)));
+            } else {
+                assertThat(bitmap.add(value), is(expected.add(value)));
+            }
+        }
+
+        assertThat(bitmap.cardinality(), is((long) expected.size()));
+        assertThat(values(bitmap), is(expected));
+        assertThat(bitmap.contains(expected.first()), is(true));
+    }
+
+    @Test
+    public void test_SetOperations_ShouldMatchSets() {
+        final var random = new Random(7);
+        final var a = new CompressedBitmap();
+        final var b = new CompressedBitmap();
+        final var expectedA = new TreeSet<Long>();
+        final var expectedB = new TreeSet<Long>();
+        for (int i = 0; i < 20_000; i++) {
+            // a dense in the first chunk, sparse beyond; b sparse everywhere
+            final long valueA = i < 10_000 ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+            final long valueB = random.nextInt(1 << 22) % 7 == 0 ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+            a.add(valueA);
+            expectedA.add(valueA);
+            b.add(valueB);
+            expectedB.add(valueB);
+        }
+
+        final var and = new TreeSet<>(expectedA);
+        and.retainAll(expectedB);
+        final var or = new TreeSet<>(expectedA);
+        or.addAll(expectedB);
+        final var andNot = new TreeSet<>(expectedA);
+        andNot.removeAll(expectedB);
+        assertThat(values(CompressedBitmap.and(a, b)), is(and));
+        assertThat(values(CompressedBitmap.or(a, b)), is(or));
+        assertThat(values(CompressedBitmap.andNot(a, b)), is(andNot));
+        // arguments unchanged
+        assertThat(values(a), is(expectedA));
+        assertThat(values(b), is(expectedB));
+    }
+
+    @Test
+    public void test_Next_ShouldPageValuesAfterCursor() {
+        final var bitmap = new CompressedBitmap();
+        bitmap.add(3);
+        bitmap.add(70_000);
+        bitmap.add(70_001);
+        bitmap.add(5_000_000_000L);
+
+        assertThat(bitmap.next(0, 2), is(new long[]{3, 70_000}));
+        assertThat(bitmap.next(70_000, 5), is(new long[]{70_001, 5_000_000_000L}));
+        assertThat(bitmap.next(5_000_000_000L, 5), is(new long[0]));
+    }
+
+    private static TreeSet<Long> values(CompressedBitmap bitmap) {
+        final var values = new TreeSet<Long>();
+        for (long value : bitmap.next(-1, (int) bitmap.cardinality())) {
+            values.add(value);
+        }
+        return values;
+    }
+}
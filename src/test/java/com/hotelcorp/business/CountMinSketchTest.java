@@ -0,0 +1,68 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void test_Estimate_ShouldNeverUnderestimateAndRarelyExceedErrorBound() {
+        final var random = new Random(7);
+        final var sketch = new CountMinSketch(4, 256);
+        final int[] counts = new int[1000];
+        for (int i = 0; i < 50_000; i++) {
+            // skewed: low values far more often
+            final int value = (int) Math.min(counts.length - 1, Math.abs(random.nextGaussian()) * 100);
+            counts[value]++;
+            sketch.add(BookingSketchIndex.hash("customer" + value), 1);
+        }
+
+        final double bound = Math.E / 256 * sketch.total();
+        int exceeding = 0;
+        for (int value = 0; value < counts.length; value++) {
+            final long estimate = sketch.estimate(BookingSketchIndex.hash("customer" + value));
+            assertThat(estimate, greaterThanOrEqualTo((long) counts[value]));
+            if (estimate - counts[value] > bound) {
+                exceeding++;
+            }
+        }
+        // 1 - e^-4 = 98% within the bound
+        assertThat(exceeding, lessThanOrEqualTo(counts.length / 50));
+    }
+
+    @Test
+    public void test_Add_WithNegativeDelta_ShouldRemoveCount() {
+        final var sketch = new CountMinSketch(4, 256);
+        final long hash = BookingSketchIndex.hash("Luke\u001FSkywalker");
+        sketch.add(hash, 1);
+        sketch.add(hash, 1);
+        sketch.add(hash, -1);
+
+        assertThat(sketch.estimate(hash), is(1L));
+        assertThat(sketch.total(), is(1L));
+    }
+
+    @Test
+    public void test_Merge_ShouldAddCounts() {
+        final var first = new CountMinSketch(4, 256);
+        final var second = new CountMinSketch(4, 256);
+        final long hash = BookingSketchIndex.hash("Han\u001FSolo");
+        first.add(hash, 2);
+        second.add(hash, 3);
+        first.merge(second);
+
+        assertThat(first.estimate(hash), is(5L));
+        assertThat(first.total(), is(5L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_Create_WithWidthNotPowerOfTwo_ShouldRaiseException() {
+        new CountMinSketch(4, 100);
+    }
+}
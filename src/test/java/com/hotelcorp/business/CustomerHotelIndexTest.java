@@ -0,0 +1,136 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.CustomerHotelBookings;
+import com.hotelcorp.data.CustomerHotelsDrift;
+import com.hotelcorp.data.Hotel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class CustomerHotelIndexTest {
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    // index under test
+    private CustomerHotelIndex customerHotelIndex;
+
+    private Hotel plaza = hotel(1L, "Plaza");
+    private Hotel ritz = hotel(2L, "Ritz");
+
+    @Before
+    public void setUp() {
+        customerHotelIndex = new CustomerHotelIndex(mockBookingRepository);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void test_RecordCreated_ShouldIndexHotelsOnceCommitted() {
+        customerHotelIndex.recordCreated(List.of(booking("D2", plaza), booking("D2", ritz), booking("3Pio", plaza)));
+        assertThat(customerHotelIndex.getHotelIds("D2"), is(empty()));
+
+        commit();
+
+        assertThat(customerHotelIndex.getHotelIds("D2"), containsInAnyOrder(1L, 2L));
+        assertThat(customerHotelIndex.getHotelIds("3Pio"), contains(1L));
+    }
+
+    @Test
+    public void test_RecordCreated_WhenRolledBack_ShouldNotIndexHotels() {
+        customerHotelIndex.recordCreated(List.of(booking("D2", plaza)));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(customerHotelIndex.getHotelIds("D2"), is(empty()));
+    }
+
+    @Test
+    public void test_RecordDeleted_ShouldKeepHotelUntilItsLastBookingIsDeleted() {
+        final var first = booking("D2", plaza);
+        final var second = booking("D2", plaza);
+        customerHotelIndex.recordCreated(List.of(first, second));
+        commit();
+
+        customerHotelIndex.recordDeleted(first);
+        commit();
+        assertThat(customerHotelIndex.getHotelIds("D2"), contains(1L));
+
+        customerHotelIndex.recordDeleted(second);
+        commit();
+        assertThat(customerHotelIndex.getHotelIds("D2"), is(empty()));
+    }
+
+    @Test
+    public void test_RecordUpdated_WithLastNameAndHotelChange_ShouldMoveBooking() {
+        final var booking = booking("D2", plaza);
+        customerHotelIndex.recordCreated(List.of(booking));
+        commit();
+
+        customerHotelIndex.recordUpdated(booking, booking("3Pio", ritz));
+        commit();
+
+        assertThat(customerHotelIndex.getHotelIds("D2"), is(empty()));
+        assertThat(customerHotelIndex.getHotelIds("3Pio"), contains(2L));
+    }
+
+    @Test
+    public void test_Verify_WithIndexBehindBookings_ShouldReportDriftAndRebuildRepairIt() {
+        when(mockBookingRepository.countByCustomerLastNameAndHotel()).thenReturn(List.of(
+                new CustomerHotelBookings("D2", 1L, 2),
+                new CustomerHotelBookings("3Pio", 2L, 1)));
+        customerHotelIndex.recordCreated(List.of(booking("D2", plaza), booking("D2", plaza)));
+        commit();
+
+        assertThat(customerHotelIndex.verify(), contains(new CustomerHotelsDrift("3Pio", Map.of(2L, 1L), null)));
+
+        assertThat(customerHotelIndex.rebuild(), contains(new CustomerHotelsDrift("3Pio", Map.of(2L, 1L), null)));
+        assertThat(customerHotelIndex.getHotelIds("3Pio"), contains(2L));
+        assertThat(customerHotelIndex.verify(), is(empty()));
+    }
+
+    // runs the registered after commit updates, as a committing transaction would
+    private void commit() {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static Hotel hotel(Long id, String name) {
+        final var hotel = new Hotel(name, null, null);
+        hotel.setId(id);
+        return hotel;
+    }
+
+    private static Booking booking(String lastName, Hotel hotel) {
+        return new Booking("R2", lastName, (short) 1, BigDecimal.ONE, "EUR", hotel);
+    }
+}
@@ -0,0 +1,114 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingCustomerName;
+import com.hotelcorp.data.BookingRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class CustomerNameIndexTest {
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    // index under test
+    private CustomerNameIndex customerNameIndex;
+
+    @Before
+    public void setUp() {
+        customerNameIndex = new CustomerNameIndex(mockBookingRepository, CustomerNameIndex.DEFAULT_MAX_CANDIDATES);
+        when(mockBookingRepository.streamCustomerNames()).thenReturn(Stream.of(
+                new BookingCustomerName(1L, "Luke", "Skywalker"),
+                new BookingCustomerName(2L, "Anakin", "Skywalker"),
+                new BookingCustomerName(3L, "Sky", "Sky"),
+                new BookingCustomerName(4L, "Han", "Solo"),
+                new BookingCustomerName(5L, "Luke", "Skyler")));
+        customerNameIndex.load();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void test_FindByLastNamePrefix_ShouldMatchCaseInsensitivelyInLastNameOrder() {
+        assertThat(customerNameIndex.findByLastNamePrefix("SKY", 10), contains(3L, 5L, 1L, 2L));
+        assertThat(customerNameIndex.findByLastNamePrefix("skyw", 10), contains(1L, 2L));
+        assertThat(customerNameIndex.findByLastNamePrefix("Vader", 10), is(empty()));
+    }
+
+    @Test
+    public void test_FindByLastNamePrefix_WithLimit_ShouldStopAtLimit() {
+        assertThat(customerNameIndex.findByLastNamePrefix("sky", 2), contains(3L, 5L));
+    }
+
+    @Test
+    public void test_Search_WithTypo_ShouldFindClosestNames() {
+        assertThat(customerNameIndex.search("skywlker", 10), contains(1L, 2L));
+    }
+
+    @Test
+    public void test_Search_WithNameAndLastName_ShouldRankBookingsMatchingBothFirst() {
+        // an exact first name outranks a partial last name
+        assertThat(customerNameIndex.search("luke skywalk", 10), contains(1L, 5L, 2L));
+        assertThat(customerNameIndex.search("luke skywalk", 1), contains(1L));
+    }
+
+    @Test
+    public void test_RecordUpdated_ShouldFindBookingByNewNameOnceCommitted() {
+        customerNameIndex.recordUpdated(4L, null, "Organa");
+        assertThat(customerNameIndex.findByLastNamePrefix("org", 10), is(empty()));
+
+        commit();
+
+        assertThat(customerNameIndex.findByLastNamePrefix("org", 10), contains(4L));
+        assertThat(customerNameIndex.findByLastNamePrefix("solo", 10), is(empty()));
+        assertThat(customerNameIndex.search("solo", 10), is(empty()));
+        // the unchanged name is kept
+        assertThat(customerNameIndex.search("han", 10), contains(4L));
+    }
+
+    @Test
+    public void test_RecordCreatedAndDeleted_ShouldIndexAndUnindexBooking() {
+        final var booking = new Booking("Leia", "Organa", (short) 1, BigDecimal.ONE, "EUR", null);
+        booking.setId(6L);
+        customerNameIndex.recordCreated(List.of(booking));
+        commit();
+        assertThat(customerNameIndex.search("leia", 10), contains(6L));
+
+        customerNameIndex.recordDeleted(6L);
+        commit();
+        assertThat(customerNameIndex.search("leia", 10), is(empty()));
+        assertThat(customerNameIndex.findByLastNamePrefix("organa", 10), is(empty()));
+    }
+
+    // runs the registered after commit updates, as a committing transaction would
+    private void commit() {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,70 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DDSketchTest {
+
+    @Test
+    public void test_Quantile_ShouldBeWithinRelativeAccuracy() {
+        final var random = new Random(7);
+        final var sketch = new DDSketch(0.01);
+        final double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // log-normal, like prices
+            values[i] = Math.exp(4 + random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[]{0, 0.5, 0.95, 0.99, 1}) {
+            final double expected = values[(int) Math.floor(quantile * (values.length - 1))];
+            assertThat(sketch.quantile(quantile), closeTo(expected, expected * 0.01));
+        }
+        assertThat(sketch.count(), is(100_000L));
+    }
+
+    @Test
+    public void test_Remove_ShouldForgetRemovedValues() {
+        final var sketch = new DDSketch(0.01);
+        sketch.add(-5);
+        sketch.add(0);
+        sketch.add(10);
+        sketch.add(1000);
+        sketch.remove(1000);
+        sketch.remove(2000);
+
+        assertThat(sketch.count(), is(3L));
+        assertThat(sketch.quantile(0), closeTo(-5, 0.05));
+        assertThat(sketch.quantile(0.5), is(0.0));
+        assertThat(sketch.quantile(1), closeTo(10, 0.1));
+    }
+
+    @Test
+    public void test_Merge_ShouldEqualSketchOfAllValues() {
+        final var low = new DDSketch(0.01);
+        final var high = new DDSketch(0.01);
+        final var all = new DDSketch(0.01);
+        for (int i = 1; i <= 1000; i++) {
+            (i <= 500 ? low : high).add(i);
+            all.add(i);
+        }
+        low.merge(high);
+
+        assertThat(low.count(), is(all.count()));
+        assertThat(low.quantile(0.5), is(all.quantile(0.5)));
+        assertThat(low.quantile(0.99), is(all.quantile(0.99)));
+    }
+
+    @Test
+    public void test_Quantile_WithNoValues_ShouldBeNull() {
+        assertThat(new DDSketch(0.01).quantile(0.5), nullValue());
+    }
+}
@@ -0,0 +1,72 @@
+package com.hotelcorp.business;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class FxRateServiceTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_Parse_ShouldSkipCommentsAndBlankLines() throws Exception {
+        final var rates = FxRateService.parse("test", new StringReader("# per EUR\n\nEUR,1\n USD , 1.25 \n"));
+
+        assertThat(rates.getRates().keySet().toString(), is("[EUR, USD]"));
+        assertThat(rates.factorsTo("EUR").get("USD"), is(new BigDecimal("0.8")));
+        assertThat(rates.factorsTo("USD").get("EUR"), is(new BigDecimal("1.25")));
+    }
+
+    @Test
+    public void test_Parse_WithNonPositiveRate_ShouldRaiseException() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Line 2: rate must be positive");
+        FxRateService.parse("test", new StringReader("EUR,1\nUSD,0\n"));
+    }
+
+    @Test
+    public void test_FactorsTo_WithUnknownCurrency_ShouldRaiseBadRequest() throws Exception {
+        final var fxRateService = new FxRateService(new DefaultResourceLoader(), "classpath:fx-rates.csv");
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("No FX rate for currency: XXX");
+        fxRateService.factorsTo("XXX");
+    }
+
+    @Test
+    public void test_Reload_ShouldSwapRatesOnlyWhenReadCompletely() throws Exception {
+        final File file = folder.newFile("fx-rates.csv");
+        Files.writeString(file.toPath(), "EUR,1\nUSD,1.10\n");
+        final var fxRateService = new FxRateService(new DefaultResourceLoader(), "file:" + file.getAbsolutePath());
+
+        Files.writeString(file.toPath(), "EUR,1\nUSD,1.20\n");
+        assertThat(fxRateService.reload().getRates().get("USD"), is(new BigDecimal("1.20")));
+
+        final var current = fxRateService.getRates();
+        Files.writeString(file.toPath(), "EUR,1\nUSD,n/a\n");
+        try {
+            fxRateService.reload();
+            fail("Reload of malformed rates should fail");
+        } catch (ResponseStatusException e) {
+            assertThat(e.getReason().contains("invalid rate n/a"), is(true));
+        }
+        assertThat(fxRateService.getRates(), sameInstance(current));
+    }
+}
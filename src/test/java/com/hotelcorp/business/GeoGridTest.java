@@ -0,0 +1,93 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+
+public class GeoGridTest {
+
+    private final GeoGrid grid = new GeoGrid(0.1);
+
+    @Test
+    public void test_HaversineKm_ShouldMeasureGreatCircleDistance() {
+        // Athens - Thessaloniki
+        assertThat(GeoGrid.haversineKm(37.9838, 23.7275, 40.6401, 22.9444), closeTo(302.0, 1.0));
+        assertThat(GeoGrid.haversineKm(10, 20, 10, 20), is(0.0));
+    }
+
+    @Test
+    public void test_Near_ShouldReturnPointsWithinRadiusNearestFirst() {
+        grid.put(1L, 37.9763, 23.7503);
+        grid.put(2L, 37.9759, 23.7348);
+        grid.put(3L, 37.9771, 23.7245);
+        grid.put(4L, 40.6401, 22.9444);
+
+        final var near = grid.near(37.9755, 23.7352, 2, 10);
+
+        assertThat(near.keySet(), contains(2L, 3L, 1L));
+        assertThat(near.get(2L), closeTo(0.06, 0.01));
+        assertThat(grid.near(37.9755, 23.7352, 2, 1).keySet(), contains(2L));
+    }
+
+    @Test
+    public void test_Near_AcrossAntimeridian_ShouldFindPointsOnBothSides() {
+        grid.put(1L, -16.5, 179.95);
+        grid.put(2L, -16.5, -179.95);
+        grid.put(3L, -16.5, 179.0);
+
+        assertThat(grid.near(-16.5, -179.99, 20, 10).keySet(), contains(2L, 1L));
+    }
+
+    @Test
+    public void test_Near_AcrossAntimeridian_WithCellSizeNotDividing360_ShouldFindPointsOnBothSides() {
+        for (double cellDegrees : new double[]{0.7, 7}) {
+            final GeoGrid grid = new GeoGrid(cellDegrees);
+            grid.put(1L, 0, -179.95);
+            grid.put(2L, 0, 60);
+            // enough points elsewhere for the search to visit cells rather than scan all points
+            for (long id = 3; id < 200; id++) {
+                grid.put(id, 45, id / 10.0);
+            }
+
+            assertThat(cellDegrees + " degrees", grid.near(0, 179.95, 50, 10).keySet(), contains(1L));
+            // spans all but 2.8 degrees of longitude, its two ends falling into the same 7 degree cell
+            assertThat(cellDegrees + " degrees", grid.near(0, 10, 7530, Integer.MAX_VALUE), hasKey(2L));
+        }
+    }
+
+    @Test
+    public void test_Put_WithMovedPoint_ShouldOnlyBeFoundAtItsNewLocation() {
+        grid.put(1L, 37.9763, 23.7503);
+        grid.put(1L, 40.6401, 22.9444);
+
+        assertThat(grid.near(37.9763, 23.7503, 10, 10).isEmpty(), is(true));
+        assertThat(grid.near(40.6401, 22.9444, 10, 10).keySet(), contains(1L));
+
+        grid.remove(1L);
+        assertThat(grid.near(40.6401, 22.9444, 10, 10).isEmpty(), is(true));
+        assertThat(grid.size(), is(0));
+    }
+
+    @Test
+    public void test_Near_ShouldFindTheSamePointsAsScanningAll() {
+        final Random random = new Random(42);
+        for (long id = 0; id < 5_000; id++) {
+            grid.put(id, 35 + random.nextDouble() * 30, -10 + random.nextDouble() * 40);
+        }
+        // small radius visits a few cells, the large one scans every point
+        for (double radiusKm : new double[]{15, 400, 20_000}) {
+            final var near = grid.near(48.0, 11.0, radiusKm, Integer.MAX_VALUE);
+            final long scanned = LongStream.range(0, 5_000)
+                    .filter(id -> GeoGrid.haversineKm(48.0, 11.0, grid.get(id).getLatitude(), grid.get(id).getLongitude()) <= radiusKm)
+                    .count();
+            assertThat(radiusKm + " km", (long) near.size(), is(scanned));
+        }
+    }
+}
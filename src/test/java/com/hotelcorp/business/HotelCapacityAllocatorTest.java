@@ -0,0 +1,102 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class HotelCapacityAllocatorTest {
+
+    private static final LocalDate JUNE_1 = LocalDate.of(2025, 6, 1);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    // allocator under test
+    private HotelCapacityAllocator hotelCapacityAllocator;
+
+    @Before
+    public void setUp() {
+        hotelCapacityAllocator = new HotelCapacityAllocator(mockBookingRepository, 16);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        // releases the locks taken, as an ending transaction would
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    @Test
+    public void test_PeakPax_ShouldCountOnlyNightsOfTheRange() {
+        final var stays = List.of(
+                stay(3, JUNE_1.minusDays(3), JUNE_1.plusDays(1)),
+                stay(2, JUNE_1.plusDays(1), JUNE_1.plusDays(3)),
+                stay(4, JUNE_1.plusDays(5), JUNE_1.plusDays(6)));
+
+        assertThat(HotelCapacityAllocator.peakPax(stays, JUNE_1, JUNE_1.plusDays(5)), is(3));
+        assertThat(HotelCapacityAllocator.peakPax(stays, JUNE_1.plusDays(1), JUNE_1.plusDays(6)), is(4));
+        assertThat(HotelCapacityAllocator.peakPax(List.of(), JUNE_1, JUNE_1.plusDays(6)), is(0));
+    }
+
+    @Test
+    public void test_Reserve_WithRoomLeft_ShouldHoldLockUntilCompletion() {
+        when(mockBookingRepository.findSnapshotsOverlappingStay(1L, JUNE_1, JUNE_1.plusDays(2), 0L))
+                .thenReturn(List.of(stay(3, JUNE_1, JUNE_1.plusDays(1))));
+
+        hotelCapacityAllocator.reserve(1L, 5, JUNE_1, JUNE_1.plusDays(2), 2, null);
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations().size(), is(1));
+    }
+
+    @Test
+    public void test_Reserve_WithNightFull_ShouldRaiseConflict() {
+        when(mockBookingRepository.findSnapshotsOverlappingStay(1L, JUNE_1, JUNE_1.plusDays(2), 7L))
+                .thenReturn(List.of(stay(3, JUNE_1.plusDays(1), JUNE_1.plusDays(4))));
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("has room for 2 pax");
+        hotelCapacityAllocator.reserve(1L, 5, JUNE_1, JUNE_1.plusDays(2), 3, 7L);
+    }
+
+    @Test
+    public void test_Reserve_WithoutCapacityOrStay_ShouldNotLookUpStays() {
+        hotelCapacityAllocator.reserve(1L, null, JUNE_1, JUNE_1.plusDays(2), 3, null);
+        hotelCapacityAllocator.reserve(1L, 5, null, null, 3, null);
+
+        verifyZeroInteractions(mockBookingRepository);
+        assertThat(TransactionSynchronizationManager.getSynchronizations().isEmpty(), is(true));
+    }
+
+    private static BookingSnapshot stay(int pax, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingSnapshot("Skywalker", 1L, "EUR", BigDecimal.ONE, (short) pax, checkIn, checkOut, 0L);
+    }
+}
@@ -0,0 +1,117 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSnapshot;
+import com.hotelcorp.data.Hotel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class HotelOccupancyIndexTest {
+
+    private static final LocalDate JUNE_1 = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    // index under test
+    private HotelOccupancyIndex hotelOccupancyIndex;
+
+    @Before
+    public void setUp() {
+        hotelOccupancyIndex = new HotelOccupancyIndex(mockBookingRepository);
+        when(mockBookingRepository.streamSnapshotsWithStay()).thenReturn(Stream.of(
+                stay(1L, 3, JUNE_1, JUNE_1.plusDays(4)),
+                stay(1L, 2, JUNE_1.plusDays(3), JUNE_1.plusDays(7)),
+                stay(2L, 1, JUNE_1, JUNE_1.plusDays(1))));
+        hotelOccupancyIndex.load();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void test_GetPaxPerNight_ShouldSumOverlappingStays() {
+        assertThat(hotelOccupancyIndex.getPaxPerNight(1L, JUNE_1.minusDays(1), JUNE_1.plusDays(8)),
+                is(new int[]{0, 3, 3, 3, 5, 2, 2, 2, 0}));
+        assertThat(hotelOccupancyIndex.getPeakPax(1L, JUNE_1, JUNE_1.plusDays(3)), is(3));
+        assertThat(hotelOccupancyIndex.getPeakPax(1L, JUNE_1, JUNE_1.plusDays(30)), is(5));
+        // unknown hotel
+        assertThat(hotelOccupancyIndex.getPaxPerNight(9L, JUNE_1, JUNE_1.plusDays(2)), is(new int[]{0, 0}));
+        assertThat(hotelOccupancyIndex.getPeakPax(9L, JUNE_1, JUNE_1.plusDays(2)), is(0));
+    }
+
+    @Test
+    public void test_RecordUpdated_ShouldMoveStayOnceCommitted() {
+        hotelOccupancyIndex.recordUpdated(
+                stay(2L, 1, JUNE_1, JUNE_1.plusDays(1)),
+                stay(1L, 1, JUNE_1.plusDays(1), JUNE_1.plusDays(2)));
+        assertThat(hotelOccupancyIndex.getPeakPax(2L, JUNE_1, JUNE_1.plusDays(1)), is(1));
+
+        commit();
+
+        assertThat(hotelOccupancyIndex.getPeakPax(2L, JUNE_1, JUNE_1.plusDays(1)), is(0));
+        assertThat(hotelOccupancyIndex.getPaxPerNight(1L, JUNE_1, JUNE_1.plusDays(3)), is(new int[]{3, 4, 3}));
+    }
+
+    @Test
+    public void test_RecordCreatedAndDeleted_ShouldAddAndRemoveStay() {
+        final Booking booking = booking(3L, (short) 4, JUNE_1, JUNE_1.plusDays(2));
+        hotelOccupancyIndex.recordCreated(List.of(booking));
+        commit();
+        assertThat(hotelOccupancyIndex.getPaxPerNight(3L, JUNE_1, JUNE_1.plusDays(3)), is(new int[]{4, 4, 0}));
+
+        hotelOccupancyIndex.recordDeleted(booking);
+        commit();
+        assertThat(hotelOccupancyIndex.getPeakPax(3L, JUNE_1, JUNE_1.plusDays(3)), is(0));
+    }
+
+    @Test
+    public void test_RecordCreated_WithoutStayOrPax_ShouldTakeNoRoom() {
+        hotelOccupancyIndex.recordCreated(List.of(
+                booking(3L, (short) 4, null, null),
+                booking(3L, null, JUNE_1, JUNE_1.plusDays(2))));
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations().isEmpty(), is(true));
+    }
+
+    // runs the registered after commit updates, as a committing transaction would
+    private void commit() {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static BookingSnapshot stay(Long hotelId, int pax, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingSnapshot("Skywalker", hotelId, "EUR", BigDecimal.ONE, (short) pax, checkIn, checkOut, 0L);
+    }
+
+    private static Booking booking(Long hotelId, Short pax, LocalDate checkIn, LocalDate checkOut) {
+        final var hotel = new Hotel("Plaza", null, null);
+        hotel.setId(hotelId);
+        return new Booking("Luke", "Skywalker", pax, BigDecimal.ONE, "EUR", checkIn, checkOut, hotel);
+    }
+}
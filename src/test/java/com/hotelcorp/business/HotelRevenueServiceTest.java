@@ -0,0 +1,160 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRevenue;
+import com.hotelcorp.data.HotelRevenueRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class HotelRevenueServiceTest {
+
+    @Mock
+    private HotelRevenueRepository mockHotelRevenueRepository;
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    // service under test
+    private HotelRevenueService hotelRevenueService;
+
+    private Hotel plaza = hotel(1L, "Plaza");
+    private Hotel ritz = hotel(2L, "Ritz");
+
+    @Before
+    public void setUp() {
+        hotelRevenueService = new HotelRevenueService(mockHotelRevenueRepository, mockBookingRepository);
+    }
+
+    @Test
+    public void test_RecordCreated_ShouldAddPerHotelAndCurrencyTotals() {
+        when(mockHotelRevenueRepository.addToRevenue(anyLong(), anyString(), any(), anyLong())).thenReturn(1);
+
+        hotelRevenueService.recordCreated(List.of(
+                booking(plaza, "10.5", "EUR"),
+                booking(plaza, "4.5", "EUR"),
+                booking(plaza, "7", null)));
+
+        verify(mockHotelRevenueRepository).addToRevenue(1L, HotelRevenue.NO_CURRENCY, new BigDecimal("7.000"), 1L);
+        verify(mockHotelRevenueRepository).addToRevenue(1L, "EUR", new BigDecimal("15.000"), 2L);
+        verify(mockHotelRevenueRepository, never()).save(any());
+    }
+
+    @Test
+    public void test_RecordCreated_WithFirstBookingOfCurrency_ShouldInsertRevenue() {
+        when(mockHotelRevenueRepository.addToRevenue(anyLong(), anyString(), any(), anyLong())).thenReturn(0);
+
+        hotelRevenueService.recordCreated(List.of(booking(plaza, "10", "EUR")));
+
+        final InOrder inOrder = inOrder(mockHotelRevenueRepository);
+        inOrder.verify(mockHotelRevenueRepository).lockHotel(1L);
+        inOrder.verify(mockHotelRevenueRepository).save(new HotelRevenue(1L, "EUR", new BigDecimal("10.000"), 1L));
+    }
+
+    @Test
+    public void test_RecordCreated_WithRevenueCreatedConcurrently_ShouldAddToItAfterLockingHotel() {
+        when(mockHotelRevenueRepository.addToRevenue(anyLong(), anyString(), any(), anyLong()))
+                .thenReturn(0)
+                .thenReturn(1);
+
+        hotelRevenueService.recordCreated(List.of(booking(plaza, "10", "EUR")));
+
+        verify(mockHotelRevenueRepository).lockHotel(1L);
+        verify(mockHotelRevenueRepository, times(2)).addToRevenue(1L, "EUR", new BigDecimal("10.000"), 1L);
+        verify(mockHotelRevenueRepository, never()).save(any());
+    }
+
+    @Test
+    public void test_RecordUpdated_WithHotelAndCurrencyChange_ShouldMoveRevenueInKeyOrder() {
+        when(mockHotelRevenueRepository.addToRevenue(anyLong(), anyString(), any(), anyLong())).thenReturn(1);
+
+        hotelRevenueService.recordUpdated(booking(ritz, "10", "EUR"), booking(plaza, "12", "USD"));
+
+        final InOrder inOrder = inOrder(mockHotelRevenueRepository);
+        inOrder.verify(mockHotelRevenueRepository).addToRevenue(1L, "USD", new BigDecimal("12.000"), 1L);
+        inOrder.verify(mockHotelRevenueRepository).addToRevenue(2L, "EUR", new BigDecimal("-10.000"), -1L);
+        inOrder.verify(mockHotelRevenueRepository).deleteIfEmpty(2L, "EUR");
+    }
+
+    @Test
+    public void test_RecordUpdated_WithoutPriceChange_ShouldNotTouchRevenue() {
+        hotelRevenueService.recordUpdated(booking(plaza, "10", "EUR"), booking(plaza, "10", "EUR"));
+
+        verifyZeroInteractions(mockHotelRevenueRepository);
+    }
+
+    @Test
+    public void test_Verify_WithMatchingRevenue_ShouldReportNoDrift() {
+        when(mockBookingRepository.computeRevenue())
+                .thenReturn(List.of(new HotelRevenue(1L, "EUR", new BigDecimal("10.000"), 2L)));
+        when(mockHotelRevenueRepository.findAll())
+                .thenReturn(List.of(new HotelRevenue(1L, "EUR", BigDecimal.TEN, 2L)));
+
+        assertThat(hotelRevenueService.verify(), is(empty()));
+    }
+
+    @Test
+    public void test_Verify_WithMissingAndWrongRevenue_ShouldReportDrift() {
+        when(mockBookingRepository.computeRevenue())
+                .thenReturn(List.of(
+                        new HotelRevenue(1L, "EUR", BigDecimal.TEN, 2L),
+                        new HotelRevenue(2L, HotelRevenue.NO_CURRENCY, BigDecimal.ONE, 1L)));
+        when(mockHotelRevenueRepository.findAll())
+                .thenReturn(List.of(new HotelRevenue(1L, "EUR", BigDecimal.ONE, 1L)));
+
+        final var drifts = hotelRevenueService.verify();
+
+        assertThat(drifts.size(), is(2));
+        assertThat(drifts.get(0).getHotelId(), is(1L));
+        assertThat(drifts.get(0).getExpectedSumAmount(), is(BigDecimal.TEN));
+        assertThat(drifts.get(0).getActualSumAmount(), is(BigDecimal.ONE));
+        assertThat(drifts.get(1).getHotelId(), is(2L));
+        assertThat(drifts.get(1).getCurrency(), is(nullValue()));
+        assertThat(drifts.get(1).getActualBookingCount(), is(0L));
+    }
+
+    @Test
+    public void test_Rebuild_ShouldReplaceRevenueWithComputedOne() {
+        final var computed = List.of(new HotelRevenue(1L, "EUR", BigDecimal.TEN, 2L));
+        when(mockBookingRepository.computeRevenue()).thenReturn(computed);
+        when(mockHotelRevenueRepository.findAll()).thenReturn(List.of());
+
+        hotelRevenueService.rebuild();
+
+        final InOrder inOrder = inOrder(mockHotelRevenueRepository);
+        inOrder.verify(mockHotelRevenueRepository).deleteAllInBulk();
+        inOrder.verify(mockHotelRevenueRepository).saveAll(eq(computed));
+    }
+
+    private static Hotel hotel(Long id, String name) {
+        final var hotel = new Hotel(name, null, null);
+        hotel.setId(id);
+        return hotel;
+    }
+
+    private static Booking booking(Hotel hotel, String price, String currency) {
+        return new Booking("R2", "D2", (short) 1, new BigDecimal(price), currency, hotel);
+    }
+}
@@ -0,0 +1,113 @@
+package com.hotelcorp.business;
+
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(MockitoJUnitRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+public class HotelSearchIndexTest {
+
+    @Mock
+    private HotelRepository mockHotelRepository;
+
+    // index under test
+    private HotelSearchIndex hotelSearchIndex;
+
+    @Before
+    public void setUp() {
+        hotelSearchIndex = new HotelSearchIndex(mockHotelRepository);
+        when(mockHotelRepository.findAll()).thenReturn(List.of(
+                hotel(1L, "Hilton", "Leof. Vasilissis Sofias 46, Athina 115 28"),
+                hotel(2L, "Μεγάλη Βρεταννία", "Πλατεία Συντάγματος, Αθήνα"),
+                hotel(3L, "A for Athens", "Miaouli 2, Athina 105 54"),
+                hotel(4L, "Athina Palace", "Kolokotroni 1, Athina")));
+        hotelSearchIndex.load();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void test_Words_ShouldFoldCaseAccentsAndFinalSigma() {
+        assertThat(HotelSearchIndex.words("ΠΛΑΤΕΊΑ Συντάγματος, Αθήνα-105"), contains("πλατεια", "συνταγματοσ", "αθηνα", "105"));
+    }
+
+    @Test
+    public void test_Search_ShouldRankNameMatchesAboveAddressMatches() {
+        assertThat(hotelSearchIndex.search("athina", 10), contains(4L, 1L, 3L));
+        assertThat(hotelSearchIndex.search("athina", 1), contains(4L));
+    }
+
+    @Test
+    public void test_Search_WithoutAccents_ShouldMatchAccentedGreek() {
+        assertThat(hotelSearchIndex.search("ΑΘΗΝΑ", 10), contains(2L));
+        assertThat(hotelSearchIndex.search("συνταγματος", 10), contains(2L));
+    }
+
+    @Test
+    public void test_Search_WithIncompleteLastWord_ShouldMatchAsPrefix() {
+        assertThat(hotelSearchIndex.search("vasilissis sof", 10), contains(1L));
+        assertThat(hotelSearchIndex.search("sof vasilissis", 10), contains(1L));
+        assertThat(hotelSearchIndex.search("plaza", 10), is(empty()));
+    }
+
+    @Test
+    public void test_RecordUpdated_ShouldReindexChangedFieldOnceCommitted() {
+        hotelSearchIndex.recordUpdated(3L, null, "Plaka, Athens");
+        assertThat(hotelSearchIndex.search("miaouli", 10), contains(3L));
+
+        commit();
+
+        assertThat(hotelSearchIndex.search("miaouli", 10), is(empty()));
+        assertThat(hotelSearchIndex.search("plaka", 10), contains(3L));
+        // the unchanged name is kept
+        assertThat(hotelSearchIndex.search("for", 10), contains(3L));
+    }
+
+    @Test
+    public void test_RecordCreatedAndDeleted_ShouldIndexAndUnindexHotel() {
+        hotelSearchIndex.recordCreated(hotel(5L, "Electra", "Ermou 5, Athina"));
+        commit();
+        assertThat(hotelSearchIndex.search("electra", 10), contains(5L));
+
+        hotelSearchIndex.recordDeleted(5L);
+        commit();
+        assertThat(hotelSearchIndex.search("electra", 10), is(empty()));
+        assertThat(hotelSearchIndex.search("ermou", 10), is(empty()));
+    }
+
+    // runs the registered after commit updates, as a committing transaction would
+    private void commit() {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static Hotel hotel(Long id, String name, String address) {
+        final var hotel = new Hotel(name, address, null);
+        hotel.setId(id);
+        return hotel;
+    }
+}
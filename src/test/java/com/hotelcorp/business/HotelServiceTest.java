@@ -1,6 +1,7 @@
 package com.hotelcorp.business;
 
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelDistance;
 import com.hotelcorp.data.HotelRepository;
 import org.junit.Before;
 import org.junit.Rule;
@@ -10,15 +11,25 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
 
@@ -31,12 +42,27 @@ public class HotelServiceTest {
     @Mock
     private HotelRepository mockHotelRepository;
 
+    @Mock
+    private HotelSearchIndex mockHotelSearchIndex;
+
+    @Mock
+    private HotelGeoIndex mockHotelGeoIndex;
+
+    @Mock
+    private BookingAnalyticsStore mockBookingAnalyticsStore;
+
+    @Mock
+    private BookingFilterIndex mockBookingFilterIndex;
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
     // service under test
-    private HotelService hotelService = new HotelService(mockHotelRepository);
+    private HotelService hotelService;
 
     @Before
     public void setUp() throws Exception {
-        hotelService = new HotelService(mockHotelRepository);
+        hotelService = new HotelService(mockHotelRepository, mockHotelSearchIndex, mockHotelGeoIndex, mockBookingAnalyticsStore, mockBookingFilterIndex, mockTransactionManager, HotelService.DEFAULT_NAME_LOCK_STRIPES);
     }
 
     @Test
@@ -74,6 +100,7 @@ public class HotelServiceTest {
 
         assertThat(createdHotel, notNullValue());
         assertThat(createdHotel.getName(), is(mockHotel.getName()));
+        verify(mockHotelSearchIndex, times(1)).recordCreated(createdHotel);
     }
 
     @Test
@@ -157,6 +184,79 @@ public class HotelServiceTest {
         hotelService.updateHotel(new Hotel("dummy", null, null), 1L);
     }
 
+    @Test
+    public void test_UpdateHotel_WithStaleVersion_ShouldRaiseExceptionWithoutSaving() {
+        final var hotel = new Hotel("Plaza", null, null);
+        hotel.setVersion(4L);
+        when(mockHotelRepository.findById(1L))
+                .thenReturn(Optional.of(hotel));
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("PRECONDITION_FAILED");
+        try {
+            hotelService.updateHotel(new Hotel(null, "new address", null), 1L, 3L);
+        } finally {
+            verify(mockHotelRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    public void test_PatchHotel_WithValidValues_ShouldUpdateWithoutLoadingHotel() {
+        final var patch = new Hotel(null, "new address", null);
+        when(mockHotelRepository.updateNonNullValues(1L, 2L, patch))
+                .thenReturn(1);
+
+        assertThat(hotelService.patchHotel(patch, 1L, 2L), is(1));
+        verify(mockHotelRepository, never()).findById(any());
+        verify(mockHotelSearchIndex, times(1)).recordUpdated(1L, null, "new address");
+    }
+
+    @Test
+    public void test_PatchHotel_WithInvalidRating_ShouldRaiseBadRequest() {
+        final var patch = new Hotel(null, "new address", null);
+        ReflectionTestUtils.setField(patch, "rating", (byte) 9);
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("Invalid rating value: 9");
+        hotelService.patchHotel(patch, 1L, null);
+    }
+
+    @Test
+    public void test_PatchHotel_WithNameOfAnotherHotel_ShouldRaiseConflict() {
+        final var other = new Hotel("Ritz", null, null);
+        other.setId(2L);
+        when(mockHotelRepository.findByName("Ritz"))
+                .thenReturn(Optional.of(other));
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("CONFLICT");
+        hotelService.patchHotel(new Hotel("Ritz", null, null), 1L, null);
+    }
+
+    @Test
+    public void test_PatchHotel_WithStaleVersion_ShouldRaisePreconditionFailed() {
+        when(mockHotelRepository.updateNonNullValues(eq(1L), eq(2L), any(Hotel.class)))
+                .thenReturn(0);
+        when(mockHotelRepository.existsById(1L))
+                .thenReturn(true);
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("PRECONDITION_FAILED");
+        hotelService.patchHotel(new Hotel(null, "new address", null), 1L, 2L);
+    }
+
+    @Test
+    public void test_PatchHotel_WithNonExistingHotel_ShouldRaiseNotFound() {
+        when(mockHotelRepository.updateNonNullValues(eq(1L), isNull(), any(Hotel.class)))
+                .thenReturn(0);
+        when(mockHotelRepository.existsById(1L))
+                .thenReturn(false);
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("NOT_FOUND");
+        hotelService.patchHotel(new Hotel(null, "new address", null), 1L, null);
+    }
+
     @Test
     public void test_DeleteHotel_WithExistingHotel_ShouldDeleteHotel() {
         when(mockHotelRepository.existsById(any(Long.class)))
@@ -164,6 +264,7 @@ public class HotelServiceTest {
 
         hotelService.deleteHotel(1L);
         verify(mockHotelRepository, times(1)).deleteById(any(Long.class));
+        verify(mockHotelSearchIndex, times(1)).recordDeleted(1L);
     }
 
     @Test
@@ -202,4 +303,145 @@ public class HotelServiceTest {
         assertThat(optionalHotel.isPresent(), is(true));
         assertThat(optionalHotel.get().getName(), is(mockHotel.getName()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_GetHotels_WithIds_ShouldLookUpEachInIdOrderAndSkipMissing() {
+        final var hotel1 = new Hotel("Plaza", null, null);
+        final var hotel3 = new Hotel("Ritz", null, null);
+        when(mockHotelRepository.findById(1L)).thenReturn(Optional.of(hotel1));
+        when(mockHotelRepository.findById(2L)).thenReturn(Optional.empty());
+        when(mockHotelRepository.findById(3L)).thenReturn(Optional.of(hotel3));
+
+        assertThat(hotelService.getHotels(Set.of(3L, 2L, 1L)), contains(hotel1, hotel3));
+        verify(mockHotelRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void test_SearchHotels_ShouldReturnHotelsInRankOrderAndSkipDeleted() {
+        final var hotel1 = new Hotel("Plaza", null, null);
+        final var hotel3 = new Hotel("Ritz", null, null);
+        when(mockHotelSearchIndex.search("athens", 20)).thenReturn(List.of(3L, 2L, 1L));
+        when(mockHotelRepository.findById(1L)).thenReturn(Optional.of(hotel1));
+        when(mockHotelRepository.findById(2L)).thenReturn(Optional.empty());
+        when(mockHotelRepository.findById(3L)).thenReturn(Optional.of(hotel3));
+
+        assertThat(hotelService.searchHotels("athens", null), contains(hotel3, hotel1));
+    }
+
+    @Test
+    public void test_SearchHotels_WithBlankQuery_ShouldRaiseException() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("BAD_REQUEST");
+        hotelService.searchHotels("", null);
+    }
+
+    @Test
+    public void test_GetHotelsNear_ShouldReturnHotelsNearestFirstWithDistance() {
+        final var hotel1 = new Hotel("Plaza", null, null);
+        final var hotel2 = new Hotel("Ritz", null, null);
+        final var near = new LinkedHashMap<Long, Double>();
+        near.put(2L, 0.5);
+        near.put(1L, 1.5);
+        when(mockHotelGeoIndex.findNear(37.97, 23.73, 2.0, 20)).thenReturn(near);
+        when(mockHotelRepository.findById(1L)).thenReturn(Optional.of(hotel1));
+        when(mockHotelRepository.findById(2L)).thenReturn(Optional.of(hotel2));
+
+        assertThat(hotelService.getHotelsNear(37.97, 23.73, 2.0, null),
+                contains(new HotelDistance(hotel2, 0.5), new HotelDistance(hotel1, 1.5)));
+    }
+
+    @Test
+    public void test_GetHotelsNear_WithInvalidLatitude_ShouldRaiseBadRequest() {
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("Invalid latitude value: 91.0");
+        hotelService.getHotelsNear(91, 23.73, 2.0, null);
+    }
+
+    @Test
+    public void test_GetOrCreateHotel_WithExistingName_ShouldNotInsert() {
+        final var plaza = new Hotel("Plaza", null, null);
+        plaza.setId(1L);
+        when(mockHotelRepository.findByName("Plaza")).thenReturn(Optional.of(plaza));
+
+        assertThat(hotelService.getOrCreateHotel(new Hotel("Plaza", null, null)), is(plaza));
+        verify(mockHotelRepository, never()).save(any(Hotel.class));
+        verifyZeroInteractions(mockTransactionManager);
+    }
+
+    @Test
+    public void test_GetOrCreateHotel_WithNewName_ShouldInsertInNewTransactionAndReadCommittedHotel() {
+        final var created = new Hotel("Plaza", "Main Square", (byte) 4);
+        created.setId(5L);
+        when(mockHotelRepository.findByName("Plaza")).thenReturn(Optional.empty());
+        when(mockHotelRepository.save(any(Hotel.class))).thenReturn(created);
+        when(mockHotelRepository.findById(5L)).thenReturn(Optional.of(created));
+
+        final var requested = new Hotel("Plaza", "Main Square", (byte) 4);
+        requested.setId(42L);
+        requested.setVersion(3L);
+        final var hotel = hotelService.getOrCreateHotel(requested);
+
+        assertThat(hotel, is(created));
+        // a fresh hotel is inserted, whatever id or version the request carried
+        verify(mockHotelRepository, times(1)).save(argThat(h -> h.getId() == null && h.getVersion() == null
+                && h.getName().equals("Plaza") && h.getAddress().equals("Main Square") && h.getRating() == 4));
+        verify(mockTransactionManager, times(1)).getTransaction(
+                argThat(d -> d.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(mockTransactionManager, times(1)).commit(any());
+        verify(mockHotelSearchIndex, times(1)).recordCreated(created);
+    }
+
+    @Test
+    public void test_GetOrCreateHotel_WithNameInsertedConcurrently_ShouldReturnTheOtherHotel() {
+        final var other = new Hotel("Plaza", null, null);
+        other.setId(6L);
+        when(mockHotelRepository.findByName("Plaza"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(other));
+        when(mockHotelRepository.save(any(Hotel.class)))
+                .thenThrow(new DataIntegrityViolationException("IDX_HOTEL_NAME"));
+        when(mockHotelRepository.findById(6L)).thenReturn(Optional.of(other));
+
+        assertThat(hotelService.getOrCreateHotel(new Hotel("Plaza", null, null)), is(other));
+        verify(mockTransactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void test_GetOrCreateHotel_WithUnknownIdAndNoName_ShouldRaiseNotFound() {
+        final var hotel = new Hotel(null, null, null);
+        hotel.setId(99L);
+        when(mockHotelRepository.findById(99L)).thenReturn(Optional.empty());
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("NOT_FOUND");
+        hotelService.getOrCreateHotel(hotel);
+    }
+
+    @Test
+    public void test_GetOrCreateHotel_WithNewNameAndNegativeCapacity_ShouldRaiseBadRequest() {
+        when(mockHotelRepository.findByName("New")).thenReturn(Optional.empty());
+        final var hotel = new Hotel("New", null, null);
+        hotel.setCapacity(-1);
+
+        expectedException.expect(ResponseStatusException.class);
+        expectedException.expectMessage("Invalid capacity value: -1");
+        hotelService.getOrCreateHotel(hotel);
+    }
+
+    @Test
+    public void test_GetHotels_WithMoreRowsThanLimit_ShouldReturnPageWithNextCursor() {
+        final var hotel1 = new Hotel("Plaza", null, null);
+        hotel1.setId(1L);
+        final var hotel2 = new Hotel("Hilton", null, null);
+        hotel2.setId(2L);
+
+        when(mockHotelRepository.findByIdGreaterThanOrderById(eq(0L), any()))
+                .thenReturn(List.of(hotel1, hotel2));
+
+        final var page = hotelService.getHotels(null, 1);
+
+        assertThat(page.getItems(), contains(hotel1));
+        assertThat(page.getNextCursor(), is(1L));
+    }
+}
@@ -0,0 +1,51 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void test_Estimate_ShouldBeWithinThreeStandardErrors() {
+        final var sketch = new HyperLogLog(11);
+        for (int i = 0; i < 100_000; i++) {
+            // every value twice
+            sketch.add(BookingSketchIndex.hash("customer" + i));
+            sketch.add(BookingSketchIndex.hash("customer" + i));
+        }
+
+        assertThat((double) sketch.estimate(), closeTo(100_000, 100_000 * 3 * 0.023));
+    }
+
+    @Test
+    public void test_Estimate_WithFewValues_ShouldBeNearlyExact() {
+        final var sketch = new HyperLogLog(11);
+        for (int i = 0; i < 20; i++) {
+            sketch.add(BookingSketchIndex.hash("customer" + i));
+        }
+
+        assertThat((double) sketch.estimate(), closeTo(20, 1));
+        assertThat(new HyperLogLog(11).estimate(), is(0L));
+    }
+
+    @Test
+    public void test_Merge_ShouldEstimateUnion() {
+        final var first = new HyperLogLog(11);
+        final var second = new HyperLogLog(11);
+        for (int i = 0; i < 10_000; i++) {
+            first.add(BookingSketchIndex.hash("customer" + i));
+            second.add(BookingSketchIndex.hash("customer" + (i + 5_000)));
+        }
+        first.merge(second);
+
+        assertThat((double) first.estimate(), closeTo(15_000, 15_000 * 3 * 0.023));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_Merge_WithDifferentPrecision_ShouldRaiseException() {
+        new HyperLogLog(11).merge(new HyperLogLog(12));
+    }
+}
@@ -0,0 +1,75 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class LeaderboardTest {
+
+    @Test
+    public void test_Top_ShouldRankHighestScoresFirstAndLowestIdsFirstAmongEqualScores() {
+        final var leaderboard = new Leaderboard();
+        leaderboard.add(1, 5);
+        leaderboard.add(2, 7);
+        leaderboard.add(3, 5);
+        leaderboard.add(4, 1);
+
+        assertThat(ids(leaderboard.top(3)), contains(2L, 1L, 3L));
+        assertThat(ids(leaderboard.top(10)), contains(2L, 1L, 3L, 4L));
+    }
+
+    @Test
+    public void test_Add_ShouldMoveIdAndDropItAtZero() {
+        final var leaderboard = new Leaderboard();
+        leaderboard.add(1, 5);
+        leaderboard.add(2, 7);
+        leaderboard.add(1, 3);
+        assertThat(ids(leaderboard.top(2)), contains(1L, 2L));
+        assertThat(leaderboard.score(1), is(8L));
+
+        leaderboard.add(1, -8);
+        assertThat(ids(leaderboard.top(2)), contains(2L));
+        assertThat(leaderboard.size(), is(1));
+        assertThat(leaderboard.score(1), is(0L));
+    }
+
+    @Test
+    public void test_Top_AfterRandomChanges_ShouldMatchSortedScores() {
+        final var random = new Random(42);
+        final var leaderboard = new Leaderboard();
+        final Map<Long, Long> scores = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            final long id = random.nextInt(200);
+            final long delta = random.nextInt(1000) - 300;
+            leaderboard.add(id, delta);
+            scores.merge(id, delta, Long::sum);
+        }
+
+        final List<Long> expected = scores.entrySet().stream()
+                .filter(e -> e.getValue() != 0)
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .limit(20)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        assertThat(ids(leaderboard.top(20)), is(expected));
+    }
+
+    @Test
+    public void test_Top_WithNoScores_ShouldBeEmpty() {
+        assertThat(new Leaderboard().top(5), empty());
+    }
+
+    private static List<Long> ids(List<Leaderboard.Score> scores) {
+        return scores.stream().map(Leaderboard.Score::getId).collect(Collectors.toList());
+    }
+}
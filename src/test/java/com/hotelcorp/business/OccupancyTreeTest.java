@@ -0,0 +1,65 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class OccupancyTreeTest {
+
+    private final OccupancyTree tree = new OccupancyTree();
+
+    @Test
+    public void test_Add_ShouldCountPaxOnEveryNightBeforeCheckOut() {
+        tree.add(10, 14, 3);
+        tree.add(12, 13, 1);
+        tree.add(13, 17, 2);
+
+        assertThat(tree.get(9, 18), is(new int[]{0, 3, 3, 4, 5, 2, 2, 2, 0}));
+        assertThat(tree.max(10, 13), is(4));
+        assertThat(tree.max(14, 18), is(2));
+        assertThat(tree.max(0, OccupancyTree.NIGHTS), is(5));
+    }
+
+    @Test
+    public void test_Add_WithNegativePax_ShouldRemoveStay() {
+        tree.add(10, 14, 3);
+        tree.add(12, 20, 2);
+        tree.add(10, 14, -3);
+
+        assertThat(tree.get(11), is(0));
+        assertThat(tree.get(12), is(2));
+        assertThat(tree.max(0, OccupancyTree.NIGHTS), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_Add_WithEmptyRange_ShouldRaiseException() {
+        tree.add(10, 10, 1);
+    }
+
+    @Test
+    public void test_Max_ShouldMatchCountingEveryNight() {
+        final Random random = new Random(42);
+        final int nights = 2_000;
+        final int[] expected = new int[nights];
+        for (int i = 0; i < 5_000; i++) {
+            final int from = random.nextInt(nights - 1);
+            final int to = Math.min(nights, from + 1 + random.nextInt(30));
+            // removals included
+            final int pax = random.nextInt(5) - 1;
+            tree.add(from, to, pax);
+            for (int night = from; night < to; night++) {
+                expected[night] += pax;
+            }
+        }
+        for (int i = 0; i < 1_000; i++) {
+            final int from = random.nextInt(nights - 1);
+            final int to = from + 1 + random.nextInt(nights - from - 1);
+            assertThat(from + ".." + to, tree.max(from, to), is(Arrays.stream(expected, from, to).max().getAsInt()));
+        }
+        assertThat(tree.get(0, nights), is(expected));
+    }
+}
@@ -0,0 +1,42 @@
+package com.hotelcorp.business;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class StripedLocksTest {
+
+    @Test
+    public void test_Stripes_ShouldRoundUpToPowerOfTwo() {
+        assertThat(new StripedLocks(1).stripes(), is(1));
+        assertThat(new StripedLocks(2).stripes(), is(2));
+        assertThat(new StripedLocks(50).stripes(), is(64));
+        assertThat(new StripedLocks(64).stripes(), is(64));
+    }
+
+    @Test
+    public void test_LockFor_WithEqualKeys_ShouldReturnSameLock() {
+        final var locks = new StripedLocks(64);
+        assertThat(locks.lockFor(new String("Plaza")), sameInstance(locks.lockFor("Plaza")));
+    }
+
+    @Test
+    public void test_LocksFor_ShouldReturnDistinctLocksInTheSameOrderForAnyKeyOrder() {
+        final var locks = new StripedLocks(4);
+        final var forward = locks.locksFor(List.of(1L, 2L, 3L, 4L, 5L));
+        final var backward = locks.locksFor(List.of(5L, 4L, 3L, 2L, 1L));
+
+        assertThat(forward, hasSize(4));
+        assertThat(backward, is(forward));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_Create_WithNoStripes_ShouldRaiseException() {
+        new StripedLocks(0);
+    }
+}
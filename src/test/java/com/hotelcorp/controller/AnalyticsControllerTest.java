@@ -0,0 +1,69 @@
+package com.hotelcorp.controller;
+
+import com.hotelcorp.business.BookingAnalyticsStore;
+import com.hotelcorp.data.BookingGroup;
+import com.hotelcorp.data.BookingGroup.Dimension;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(AnalyticsController.class)
+public class AnalyticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookingAnalyticsStore bookingAnalyticsStore;
+
+    @Test
+    public void test_GroupBookings_ShouldPassDimensionsAndFilters() throws Exception {
+        when(bookingAnalyticsStore.groupBy(EnumSet.of(Dimension.CURRENCY, Dimension.PAX), null, (byte) 4, null, (short) 2, null))
+                .thenReturn(List.of(new BookingGroup(null, null, "EUR", (short) 2, 3, 6, Map.of("EUR", new BigDecimal("120.500")))));
+
+        mockMvc.perform(get("/analytics/bookings").param("groupBy", "currency,Pax").param("rating", "4").param("minPax", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].currency", is("EUR")))
+                .andExpect(jsonPath("$[0].numberOfPax", is(2)))
+                .andExpect(jsonPath("$[0].bookingCount", is(3)))
+                .andExpect(jsonPath("$[0].revenue.EUR", is(120.5)));
+    }
+
+    @Test
+    public void test_GroupBookings_WithUnknownDimension_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/analytics/bookings").param("groupBy", "currency,country"))
+                .andExpect(status().isBadRequest());
+        verify(bookingAnalyticsStore, never()).groupBy(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void test_GroupBookings_WithoutGroupBy_ShouldReturnSingleGroup() throws Exception {
+        when(bookingAnalyticsStore.groupBy(eq(EnumSet.noneOf(Dimension.class)), isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(List.of(new BookingGroup(null, null, null, null, 7, 12, Map.of())));
+
+        mockMvc.perform(get("/analytics/bookings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingCount", is(7)));
+    }
+}
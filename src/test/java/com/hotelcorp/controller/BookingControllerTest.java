@@ -1,14 +1,31 @@
 package com.hotelcorp.controller;
 
+import com.hotelcorp.business.BookingIntakeService;
+import com.hotelcorp.business.ConcurrentUpdateRetrier;
 import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.BookingSketchIndex;
+import com.hotelcorp.business.HotelRevenueService;
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
 import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingRepricing;
+import com.hotelcorp.data.BookingTicket;
+import com.hotelcorp.data.CursorPage;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelBookingSketches;
+import com.hotelcorp.data.HotelBookingStatistics;
+import com.hotelcorp.data.HotelRevenue;
+import com.hotelcorp.data.HotelRevenueDrift;
+import com.hotelcorp.data.PriceQuantiles;
+import com.hotelcorp.data.TopCustomer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -16,19 +33,29 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.hotelcorp.utils.Utils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(BookingController.class)
+@Import(ConcurrentUpdateRetrier.class)
 public class BookingControllerTest {
 
     @Autowired
@@ -37,6 +64,15 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private BookingIntakeService bookingIntakeService;
+
+    @MockBean
+    private HotelRevenueService hotelRevenueService;
+
+    @MockBean
+    private BookingSketchIndex bookingSketchIndex;
+
     private Hotel hotel = new Hotel("Plaza", "address", null);
 
     @Test
@@ -69,6 +105,22 @@ public class BookingControllerTest {
     }
 
 
+    @Test
+    public void test_GetBookingsPage_WithLimit_ShouldReturnPageWithNextCursor() throws Exception {
+        when(bookingService.getBookings(2L, 2))
+                .thenReturn(new CursorPage<>(List.of(
+                        new Booking("R2", "D2", (short) 5, BigDecimal.TEN, "EUR", hotel),
+                        new Booking("C", "3Pio", (short) 3, BigDecimal.ONE, "USD", hotel)),
+                        4L));
+
+        mockMvc.perform(get("/bookings").param("after", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0]", hasEntry("customerLastName", "D2")))
+                .andExpect(jsonPath("$.nextCursor").value(4))
+                .andReturn();
+    }
+
     @Test
     public void test_GetSingleBooking_WithBookingExisting_ShouldReturnBooking() throws Exception {
         var booking = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
@@ -126,11 +178,114 @@ public class BookingControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void test_Post_WithAsync_ShouldReturnAcceptedWithTicket() throws Exception {
+        var booking = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
+        when(bookingIntakeService.submit(any(Booking.class)))
+                .thenReturn(BookingTicket.pending("t-1", Instant.parse("2025-06-01T10:00:00Z")));
+
+        mockMvc.perform(post("/bookings").param("async", "true")
+                .content(asJsonString(booking))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/bookings/tickets/t-1"))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+        verify(bookingService, never()).createBooking(any());
+    }
+
+    @Test
+    public void test_Post_WithAsyncAndFullQueue_ShouldReturnTooManyRequests() throws Exception {
+        when(bookingIntakeService.submit(any(Booking.class)))
+                .thenThrow(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS));
+
+        mockMvc.perform(post("/bookings").param("async", "true")
+                .content(asJsonString(new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void test_GetTicket_WithUnknownId_ShouldReturnNotFound() throws Exception {
+        when(bookingIntakeService.getTicket("t-1")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/bookings/tickets/{id}", "t-1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_PostBatch_WithBookingArray_ShouldReturnResultPerBooking() throws Exception {
+        var booking1 = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
+        var booking2 = new Booking(null, "3Pio", null, BigDecimal.ONE, "EUR", hotel);
+
+        when(bookingService.createBookings(any(Iterator.class)))
+                .thenAnswer(i -> {
+                    Iterator<Booking> bookings = i.getArgument(0);
+                    assertThat(bookings.next().getCustomerLastName(), is("D2"));
+                    assertThat(bookings.next().getCustomerLastName(), is("3Pio"));
+                    assertThat(bookings.hasNext(), is(false));
+                    return List.of(BookingBatchResult.created(0, 8L),
+                            BookingBatchResult.rejected(1, "Customer name and last name are required"));
+                });
+
+        mockMvc.perform(post("/bookings/batch")
+                .content(asJsonString(List.of(booking1, booking2)))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", hasEntry("status", "CREATED")))
+                .andExpect(jsonPath("$[0]", hasEntry("id", 8)))
+                .andExpect(jsonPath("$[1]", hasEntry("status", "REJECTED")))
+                .andReturn();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_PostBatch_WithMalformedJson_ShouldReturnStatusBadRequest() throws Exception {
+        when(bookingService.createBookings(any(Iterator.class)))
+                .thenAnswer(i -> {
+                    i.<Iterator<Booking>>getArgument(0).forEachRemaining(b -> { });
+                    return List.of();
+                });
+
+        mockMvc.perform(post("/bookings/batch")
+                .content("[{\"customerName\": ")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_PostBatch_WithMalformedElementAfterStoredOnes_ShouldReturnTheirResultsAndRejectIt() throws Exception {
+        when(bookingService.createBookings(any(Iterator.class)))
+                .thenAnswer(i -> {
+                    Iterator<Booking> bookings = i.getArgument(0);
+                    assertThat(bookings.next().getCustomerLastName(), is("D2"));
+                    assertThat(bookings.hasNext(), is(false));
+                    return List.of(BookingBatchResult.created(0, 8L));
+                });
+
+        mockMvc.perform(post("/bookings/batch")
+                .content("[" + asJsonString(new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel))
+                        + ", {\"numberOfPax\": \"many\"}, " + asJsonString(new Booking("C3", "3Pio", null, BigDecimal.ONE, "EUR", hotel)) + "]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", hasEntry("id", 8)))
+                .andExpect(jsonPath("$[1]", hasEntry("index", 1)))
+                .andExpect(jsonPath("$[1]", hasEntry("status", "REJECTED")))
+                .andReturn();
+    }
+
     @Test
     public void test_Put_WithExistingBooking_ShouldReturnUpdatedBooking() throws Exception {
         var booking = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
 
-        when(bookingService.updateBooking(any(Booking.class), any(Long.class)))
+        when(bookingService.updateBooking(any(Booking.class), any(Long.class), isNull()))
                 .thenReturn(booking);
 
         mockMvc.perform(put("/bookings/{id}", 1)
@@ -146,7 +301,7 @@ public class BookingControllerTest {
     public void test_Put_WithNonExistingBooking_ShouldReturnStatusNotFound() throws Exception {
         var booking = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
 
-        when(bookingService.updateBooking(any(Booking.class), any(Long.class)))
+        when(bookingService.updateBooking(any(Booking.class), any(Long.class), isNull()))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
 
         mockMvc.perform(put("/bookings/{id}", 1)
@@ -197,6 +352,20 @@ public class BookingControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void test_GetBookingStats_WithReportingCurrency_ShouldReturnConvertedStats() throws Exception {
+        when(bookingService.getBookingStats(null, "EUR"))
+                .thenReturn(List.of(
+                        new HotelBookingStatistics(1L, "Plaza", "EUR", 3L, 3L, new BigDecimal("20.000"), BigDecimal.ONE, BigDecimal.TEN)));
+
+        mockMvc.perform(get("/bookings/stats").param("reportingCurrency", "EUR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", hasEntry("currency", "EUR")))
+                .andExpect(jsonPath("$[0]", hasEntry("sumAmount", 20.0)));
+        verify(bookingService, never()).getBookingStats(any());
+    }
+
     @Test
     public void test_GetBookingStatsForHotel_WithNonExistingHotel_ShouldReturnEmptyList() throws Exception {
         when(bookingService.getBookingStatsForHotel(any(Long.class)))
@@ -207,4 +376,163 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)))
                 .andReturn();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_GetBookingStats_WithHotelIds_ShouldReturnStatsOfGivenHotels() throws Exception {
+        when(bookingService.getBookingStats(List.of(1L, 2L)))
+                .thenReturn(List.of(
+                        new HotelBookingStatistics(1L, "Plaza", "EUR", 2L, 2L, BigDecimal.TEN, BigDecimal.ONE, new BigDecimal("9")),
+                        new HotelBookingStatistics(2L, "Ritz", "USD", 1L, 1L, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE)));
+
+        mockMvc.perform(get("/bookings/stats").param("hotelIds", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", hasEntry("hotelName", "Plaza")))
+                .andExpect(jsonPath("$[0]", hasEntry("bookingCount", 2)))
+                .andExpect(jsonPath("$[0]", hasEntry("avgAmount", 5.0)))
+                .andExpect(jsonPath("$[1]", hasEntry("currency", "USD")))
+                .andReturn();
+    }
+
+    @Test
+    public void test_GetBookingStats_WithoutHotelIds_ShouldReturnStatsOfAllHotels() throws Exception {
+        when(bookingService.getBookingStats(null))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/bookings/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andReturn();
+        verify(bookingService, times(1)).getBookingStats(null);
+        verify(bookingService, never()).getBookingStatsForHotel(any());
+    }
+
+    @Test
+    public void test_RebuildBookingStats_ShouldReturnRepairedDrift() throws Exception {
+        when(hotelRevenueService.rebuild())
+                .thenReturn(List.of(new HotelRevenueDrift(new HotelRevenue.Key(1L, "EUR"),
+                        new HotelRevenue(1L, "EUR", BigDecimal.TEN, 2L),
+                        new HotelRevenue(1L, "EUR", BigDecimal.ONE, 1L))));
+
+        mockMvc.perform(post("/bookings/stats/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", hasEntry("currency", "EUR")))
+                .andExpect(jsonPath("$[0]", hasEntry("expectedSumAmount", 10)))
+                .andExpect(jsonPath("$[0]", hasEntry("actualSumAmount", 1)))
+                .andReturn();
+    }
+
+    @Test
+    public void test_RepriceBookings_ShouldReturnRepricedCount() throws Exception {
+        when(bookingService.repriceBookings(new BookingRepricing(1L, "EUR", new BigDecimal("1.05"), null, (short) 2, null)))
+                .thenReturn(42L);
+
+        mockMvc.perform(post("/bookings/reprice")
+                        .param("hotelId", "1").param("currency", "EUR").param("factor", "1.05").param("minPax", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("42"));
+    }
+
+    @Test
+    public void test_GetBookingSketchesForHotel_ShouldReturnSketches() throws Exception {
+        when(bookingSketchIndex.getSketches(1L, 3))
+                .thenReturn(new HotelBookingSketches(1L, 4L, 3L,
+                        List.of(new PriceQuantiles("EUR", 4L, new BigDecimal("99.000"), new BigDecimal("150.000"), new BigDecimal("150.000"))),
+                        List.of(new TopCustomer("Luke", "Skywalker", 2L))));
+
+        mockMvc.perform(get("/bookings/stats/sketches").param("hotelId", "1").param("top", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasEntry("distinctCustomers", 3)))
+                .andExpect(jsonPath("$.prices[0]", hasEntry("p50", 99.0)))
+                .andExpect(jsonPath("$.topCustomers[0]", hasEntry("customerLastName", "Skywalker")))
+                .andExpect(jsonPath("$.topCustomers[0]", hasEntry("bookingCount", 2)))
+                .andReturn();
+    }
+
+    @Test
+    public void test_GetBooking_ShouldReturnVersionAsETag() throws Exception {
+        var booking = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
+        booking.setVersion(3L);
+
+        when(bookingService.getBookingById(1L))
+                .thenReturn(booking);
+
+        mockMvc.perform(get("/bookings/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn();
+    }
+
+    @Test
+    public void test_Put_WithIfMatch_ShouldUpdateGivenVersionAndReturnNewETag() throws Exception {
+        var booking = new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel);
+        booking.setVersion(4L);
+
+        when(bookingService.updateBooking(any(Booking.class), eq(1L), eq(3L)))
+                .thenReturn(booking);
+
+        mockMvc.perform(put("/bookings/{id}", 1)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(asJsonString(booking))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andReturn();
+    }
+
+    @Test
+    public void test_Put_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        when(bookingService.updateBooking(any(Booking.class), eq(1L), eq(2L)))
+                .thenThrow(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+
+        mockMvc.perform(put("/bookings/{id}", 1)
+                .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                .content(asJsonString(new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andReturn();
+    }
+
+    @Test
+    public void test_Put_WithConcurrentUpdate_ShouldReturnConflict() throws Exception {
+        when(bookingService.updateBooking(any(Booking.class), eq(1L), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("stale"));
+
+        mockMvc.perform(put("/bookings/{id}", 1)
+                .content(asJsonString(new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andReturn();
+        verify(bookingService, times(1)).updateBooking(any(Booking.class), eq(1L), isNull());
+    }
+
+    @Test
+    public void test_Put_WithConcurrentUpdateAndRetry_ShouldApplyUpdateAgain() throws Exception {
+        when(bookingService.updateBooking(any(Booking.class), eq(1L), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("stale"))
+                .thenReturn(new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel));
+
+        mockMvc.perform(put("/bookings/{id}", 1)
+                .param("retry", "true")
+                .content(asJsonString(new Booking("R2", "D2", null, BigDecimal.ONE, "EUR", hotel)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        verify(bookingService, times(2)).updateBooking(any(Booking.class), eq(1L), isNull());
+    }
+
+    @Test
+    public void test_Patch_ShouldReturnUpdatedCount() throws Exception {
+        when(bookingService.patchBooking(any(Booking.class), eq(1L), eq(3L)))
+                .thenReturn(1);
+
+        mockMvc.perform(patch("/bookings/{id}", 1)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(asJsonString(new Booking(null, null, null, BigDecimal.TEN, null, null)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"))
+                .andReturn();
+    }
+}
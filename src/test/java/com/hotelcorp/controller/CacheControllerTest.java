@@ -0,0 +1,47 @@
+package com.hotelcorp.controller;
+
+import com.hotelcorp.business.CacheStatisticsService;
+import com.hotelcorp.data.CacheStatistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(CacheController.class)
+public class CacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Test
+    public void test_GetCacheStatistics_ShouldReturnStatisticsPerRegion() throws Exception {
+        when(cacheStatisticsService.getCacheStatistics())
+                .thenReturn(List.of(
+                        new CacheStatistics("hotel", 10, 2, 2, 1, 0, 1),
+                        new CacheStatistics("hotel-by-name", 5, 1, 1, 0, 0, 1)));
+
+        mockMvc.perform(get("/caches/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", hasEntry("region", "hotel")))
+                .andExpect(jsonPath("$[0]", hasEntry("hitCount", 10)))
+                .andExpect(jsonPath("$[0]", hasEntry("evictionCount", 1)))
+                .andReturn();
+    }
+}
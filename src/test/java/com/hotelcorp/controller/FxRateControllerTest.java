@@ -0,0 +1,57 @@
+package com.hotelcorp.controller;
+
+import com.hotelcorp.business.FxRateService;
+import com.hotelcorp.data.FxRates;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(FxRateController.class)
+public class FxRateControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FxRateService fxRateService;
+
+    @Test
+    public void test_GetRates_ShouldReturnCurrentSnapshot() throws Exception {
+        when(fxRateService.getRates())
+                .thenReturn(new FxRates("classpath:fx-rates.csv", Instant.parse("2025-06-01T10:00:00Z"),
+                        Map.of("EUR", BigDecimal.ONE, "USD", new BigDecimal("1.0850"))));
+
+        mockMvc.perform(get("/fx-rates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source", is("classpath:fx-rates.csv")))
+                .andExpect(jsonPath("$.loadedAt", is("2025-06-01T10:00:00Z")))
+                .andExpect(jsonPath("$.rates.USD", is(1.085)));
+    }
+
+    @Test
+    public void test_ReloadRates_WithUnreadableSource_ShouldReturnBadGateway() throws Exception {
+        when(fxRateService.reload())
+                .thenThrow(new ResponseStatusException(HttpStatus.BAD_GATEWAY, "FX rates could not be loaded"));
+
+        mockMvc.perform(post("/fx-rates/reload"))
+                .andExpect(status().isBadGateway());
+    }
+}
@@ -1,12 +1,18 @@
 package com.hotelcorp.controller;
 
+import com.hotelcorp.business.ConcurrentUpdateRetrier;
 import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.CursorPage;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelDistance;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -19,13 +25,18 @@ import static com.hotelcorp.utils.Utils.asJsonString;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(HotelController.class)
+@Import(ConcurrentUpdateRetrier.class)
 public class HotelControllerTest {
 
     @Autowired
@@ -63,6 +74,45 @@ public class HotelControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void test_GetHotelsPage_WithLastPage_ShouldReturnPageWithoutNextCursor() throws Exception {
+        when(hotelService.getHotels(null, 10))
+                .thenReturn(new CursorPage<>(List.of(new Hotel("Plaza", "address1", null)), null));
+
+        mockMvc.perform(get("/hotels").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0]", hasEntry("name", "Plaza")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andReturn();
+    }
+
+    @Test
+    public void test_SearchHotels_WithQuery_ShouldReturnHotelsInRankOrder() throws Exception {
+        when(hotelService.searchHotels("Syntagma", 5))
+                .thenReturn(List.of(new Hotel("King George", "address1", null), new Hotel("Grande Bretagne", "address2", null)));
+
+        mockMvc.perform(get("/hotels/search").param("q", "Syntagma").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", hasEntry("name", "King George")))
+                .andReturn();
+    }
+
+    @Test
+    public void test_GetHotelsNear_WithPointAndRadius_ShouldReturnHotelsWithDistance() throws Exception {
+        when(hotelService.getHotelsNear(37.97, 23.73, 1.5, null))
+                .thenReturn(List.of(new HotelDistance(new Hotel("Plaza", "address1", null, 37.975, 23.735), 0.7)));
+
+        mockMvc.perform(get("/hotels/near").param("lat", "37.97").param("lon", "23.73").param("radiusKm", "1.5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].hotel", hasEntry("name", "Plaza")))
+                .andExpect(jsonPath("$[0].hotel", hasEntry("latitude", 37.975)))
+                .andExpect(jsonPath("$[0]", hasEntry("distanceKm", 0.7)))
+                .andReturn();
+    }
+
     @Test
     public void test_GetSingleHotel_WithHotelExisting_ShouldReturnHotel() throws Exception {
 
@@ -121,7 +171,7 @@ public class HotelControllerTest {
     public void test_Put_WithExistingHotel_ShouldReturnUpdatedHotel() throws Exception {
         var hotel = new Hotel("Plaza", "new address", null);
 
-        when(hotelService.updateHotel(any(Hotel.class), any(Long.class)))
+        when(hotelService.updateHotel(any(Hotel.class), any(Long.class), isNull()))
                 .thenReturn(hotel);
 
         mockMvc.perform(put("/hotels/{id}", 1)
@@ -138,7 +188,7 @@ public class HotelControllerTest {
     public void test_Put_WithNonExistingHotel_ShouldReturnStatusNotFound() throws Exception {
         var hotel = new Hotel("Plaza", "new address", null);
 
-        when(hotelService.updateHotel(any(Hotel.class), any(Long.class)))
+        when(hotelService.updateHotel(any(Hotel.class), any(Long.class), isNull()))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
 
         mockMvc.perform(put("/hotels/{id}", 1)
@@ -170,4 +220,90 @@ public class HotelControllerTest {
                 .andExpect(status().isNotFound())
                 .andReturn();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_GetHotel_ShouldReturnVersionAsETag() throws Exception {
+        var hotel = new Hotel("Plaza", "new address", null);
+        hotel.setVersion(3L);
+
+        when(hotelService.getHotelById(1L))
+                .thenReturn(hotel);
+
+        mockMvc.perform(get("/hotels/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn();
+    }
+
+    @Test
+    public void test_Put_WithIfMatch_ShouldUpdateGivenVersionAndReturnNewETag() throws Exception {
+        var hotel = new Hotel("Plaza", "new address", null);
+        hotel.setVersion(4L);
+
+        when(hotelService.updateHotel(any(Hotel.class), eq(1L), eq(3L)))
+                .thenReturn(hotel);
+
+        mockMvc.perform(put("/hotels/{id}", 1)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(asJsonString(hotel))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andReturn();
+    }
+
+    @Test
+    public void test_Put_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        when(hotelService.updateHotel(any(Hotel.class), eq(1L), eq(2L)))
+                .thenThrow(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+
+        mockMvc.perform(put("/hotels/{id}", 1)
+                .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                .content(asJsonString(new Hotel("Plaza", "new address", null)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andReturn();
+    }
+
+    @Test
+    public void test_Put_WithConcurrentUpdate_ShouldReturnConflict() throws Exception {
+        when(hotelService.updateHotel(any(Hotel.class), eq(1L), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("stale"));
+
+        mockMvc.perform(put("/hotels/{id}", 1)
+                .content(asJsonString(new Hotel("Plaza", "new address", null)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andReturn();
+        verify(hotelService, times(1)).updateHotel(any(Hotel.class), eq(1L), isNull());
+    }
+
+    @Test
+    public void test_Put_WithConcurrentUpdateAndRetry_ShouldApplyUpdateAgain() throws Exception {
+        when(hotelService.updateHotel(any(Hotel.class), eq(1L), isNull()))
+                .thenThrow(new OptimisticLockingFailureException("stale"))
+                .thenReturn(new Hotel("Plaza", "new address", null));
+
+        mockMvc.perform(put("/hotels/{id}", 1)
+                .param("retry", "true")
+                .content(asJsonString(new Hotel("Plaza", "new address", null)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        verify(hotelService, times(2)).updateHotel(any(Hotel.class), eq(1L), isNull());
+    }
+
+    @Test
+    public void test_Patch_ShouldReturnUpdatedCount() throws Exception {
+        when(hotelService.patchHotel(any(Hotel.class), eq(1L), eq(3L)))
+                .thenReturn(1);
+
+        mockMvc.perform(patch("/hotels/{id}", 1)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(asJsonString(new Hotel(null, "new address", null)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"))
+                .andReturn();
+    }
+}
@@ -1,9 +1,19 @@
 package com.hotelcorp.controller;
 
 import com.hotelcorp.business.BookingHotelService;
+import com.hotelcorp.business.BookingSearchService;
 import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelAvailabilityService;
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingFilter;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.CursorPage;
+import com.hotelcorp.data.CustomerHotelsDrift;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelAvailability;
+import com.hotelcorp.data.HotelOccupancy;
+import com.hotelcorp.data.HotelRank;
+import com.hotelcorp.data.NightOccupancy;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,15 +23,29 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -37,32 +61,64 @@ public class QueryControllerTest {
     @MockBean
     private BookingHotelService bookingHotelService;
 
+    @MockBean
+    private BookingSearchService bookingSearchService;
+
+    @MockBean
+    private HotelAvailabilityService hotelAvailabilityService;
+
     private Hotel hotel = new Hotel("Plaza", "address", null);
 
     @Test
-    public void test_GetBookingsForHotel_WithHotelId_ShouldReturnBookingsForHotel() throws Exception {
-        when(bookingService.getBookingsForHotel(any(Long.class)))
+    public void test_GetBookingsForHotel_WithHotelId_ShouldReturnBookingSummaries() throws Exception {
+        when(bookingService.getBookingSummariesForHotel(any(Long.class)))
                 .thenReturn(List.of(
-                        new Booking("R2", "D2", (short) 5, BigDecimal.TEN, "EUR", hotel),
-                        new Booking("C", "3Pio", (short) 3, BigDecimal.ONE, "USD", hotel))
+                        summary(8L, "D2"),
+                        summary(9L, "3Pio"))
                 );
 
         mockMvc.perform(get("/queries/bookings").param("hotelId", "1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0]", hasEntry("customerLastName", "D2")))
+                .andExpect(jsonPath("$[0].hotelId", is(1)))
+                .andExpect(jsonPath("$[0].hotel").doesNotExist())
                 .andExpect(jsonPath("$[1]", hasEntry("customerLastName", "3Pio")))
                 .andReturn();
+        verify(bookingService, never()).getBookingsForHotel(any(Long.class));
     }
 
     @Test
-    public void test_GetBookingsForHotel_WithHotelName_ShouldReturnBookingsForHotel() throws Exception {
-        when(bookingService.getBookingsForHotel(anyString()))
+    public void test_GetBookingsForHotel_WithHotelIdAndExpandHotel_ShouldReturnBookingsWithHotel() throws Exception {
+        when(bookingService.getBookingsForHotel(any(Long.class)))
                 .thenReturn(List.of(
                         new Booking("R2", "D2", (short) 5, BigDecimal.TEN, "EUR", hotel),
                         new Booking("C", "3Pio", (short) 3, BigDecimal.ONE, "USD", hotel))
                 );
 
+        mockMvc.perform(get("/queries/bookings").param("hotelId", "1").param("expand", "hotel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", hasEntry("customerLastName", "D2")))
+                .andExpect(jsonPath("$[0].hotel.name", is("Plaza")))
+                .andExpect(jsonPath("$[1]", hasEntry("customerLastName", "3Pio")))
+                .andReturn();
+    }
+
+    @Test
+    public void test_GetBookingsForHotel_WithUnknownExpansion_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/queries/bookings").param("hotelId", "1").param("expand", "customer"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void test_GetBookingsForHotel_WithHotelName_ShouldReturnBookingSummaries() throws Exception {
+        when(bookingService.getBookingSummariesForHotel(anyString()))
+                .thenReturn(List.of(
+                        summary(8L, "D2"),
+                        summary(9L, "3Pio"))
+                );
+
         mockMvc.perform(get("/queries/bookings").param("hotelName", "Plaza"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
@@ -71,10 +127,94 @@ public class QueryControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void test_GetBookingsPageForHotel_WithHotelIdAndLimit_ShouldReturnPage() throws Exception {
+        when(bookingService.getBookingSummariesForHotel(eq(1L), eq(5L), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(
+                        summary(6L, "D2")),
+                        6L));
+
+        mockMvc.perform(get("/queries/bookings").param("hotelId", "1").param("after", "5").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0]", hasEntry("customerLastName", "D2")))
+                .andExpect(jsonPath("$.nextCursor").value(6))
+                .andReturn();
+    }
+
+    @Test
+    public void test_GetBookingsPageForHotel_WithHotelNameLimitAndExpandHotel_ShouldReturnPage() throws Exception {
+        when(bookingService.getBookingsForHotel(eq("Plaza"), eq(null), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        mockMvc.perform(get("/queries/bookings").param("hotelName", "Plaza").param("limit", "1").param("expand", "hotel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andReturn();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_StreamBookingsForHotel_WithNdjsonAccept_ShouldWriteOneLinePerSummary() throws Exception {
+        doAnswer(i -> {
+            Consumer<BookingSummary> consumer = i.getArgument(1);
+            consumer.accept(summary(8L, "D2"));
+            consumer.accept(summary(9L, "3Pio"));
+            return null;
+        }).when(bookingService).streamBookingSummariesForHotel(eq(1L), any(Consumer.class));
+
+        final var asyncResult = mockMvc.perform(get("/queries/bookings")
+                .param("hotelId", "1")
+                .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final var lines = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], containsString("\"hotelId\":1"));
+        assertThat(lines[1], containsString("\"customerLastName\":\"3Pio\""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_StreamBookingsForHotel_WithNdjsonAcceptAndExpandHotel_ShouldWriteOneLinePerBooking() throws Exception {
+        doAnswer(i -> {
+            Consumer<Booking> consumer = i.getArgument(1);
+            consumer.accept(new Booking("R2", "D2", (short) 5, BigDecimal.TEN, "EUR", hotel));
+            consumer.accept(new Booking("C", "3Pio", (short) 3, BigDecimal.ONE, "USD", hotel));
+            return null;
+        }).when(bookingService).streamBookingsForHotel(eq(1L), any(Consumer.class));
+
+        final var asyncResult = mockMvc.perform(get("/queries/bookings")
+                .param("hotelId", "1")
+                .param("expand", "hotel")
+                .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final var body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final var lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], containsString("\"customerLastName\":\"D2\""));
+        assertThat(lines[1], containsString("\"customerLastName\":\"3Pio\""));
+    }
+
     @Test
     public void test_GetBookingsForHotel_WithNonExistingHotel_ShouldReturnEmptyList() throws Exception {
 
-        when(bookingService.getBookingsForHotel(anyString()))
+        when(bookingService.getBookingSummariesForHotel(anyString()))
                 .thenReturn(List.of());
 
         mockMvc.perform(get("/queries/bookings").param("hotelName", "Plaza"))
@@ -83,6 +223,29 @@ public class QueryControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void test_SearchBookings_WithCustomerLastNamePrefix_ShouldReturnRankedSummaries() throws Exception {
+        when(bookingService.searchBookingSummariesByCustomerLastNamePrefix("sky", 2))
+                .thenReturn(List.of(summary(3L, "Sky"), summary(1L, "Skywalker")));
+
+        mockMvc.perform(get("/queries/bookings").param("customerLastNamePrefix", "sky").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(3)))
+                .andExpect(jsonPath("$[1].customerLastName", is("Skywalker")));
+    }
+
+    @Test
+    public void test_SearchBookings_WithCustomerQueryAndExpandHotel_ShouldReturnBookingsWithHotel() throws Exception {
+        when(bookingService.searchBookingsByCustomer("luke skywlker", null))
+                .thenReturn(List.of(new Booking("Luke", "Skywalker", (short) 1, BigDecimal.TEN, "EUR", hotel)));
+
+        mockMvc.perform(get("/queries/bookings").param("customerQuery", "luke skywlker").param("expand", "hotel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].hotel.name", is("Plaza")));
+    }
+
 
     @Test
     public void test_GetHotelsForCustomer_WithCustomerLastName_ShouldReturnHotelsForCustomer() throws Exception {
@@ -99,4 +262,92 @@ public class QueryControllerTest {
                 .andExpect(jsonPath("$[1]", hasEntry("name", "Hotel2")))
                 .andReturn();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_SearchBookings_ShouldPassFiltersAndReturnPage() throws Exception {
+        var filter = new BookingFilter(List.of(1L, 2L), List.of("EUR"), null, (short) 2, null, null, new BigDecimal("200"));
+        when(bookingSearchService.searchBookings(filter, 5L, 1))
+                .thenReturn(new CursorPage<>(List.of(new BookingSummary(6L, "Han", "Solo", (short) 2, new BigDecimal("99.99"), "EUR", 1L, 0L)), 6L));
+
+        mockMvc.perform(get("/queries/bookings/search").param("hotelId", "1,2").param("currency", "EUR")
+                .param("minPax", "2").param("maxPrice", "200").param("after", "5").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].customerLastName", is("Solo")))
+                .andExpect(jsonPath("$.nextCursor", is(6)));
+    }
+
+    @Test
+    public void test_GetTopHotels_ShouldReturnLeaderboard() throws Exception {
+        when(bookingHotelService.getTopHotels("bookings", null, 3))
+                .thenReturn(List.of(new HotelRank(1, hotel, 4L, null, null)));
+
+        mockMvc.perform(get("/queries/hotels/top").param("by", "bookings").param("k", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].rank", is(1)))
+                .andExpect(jsonPath("$[0].hotel.name", is("Plaza")))
+                .andExpect(jsonPath("$[0].bookingCount", is(4)));
+    }
+
+    @Test
+    public void test_VerifyCustomerIndex_WithDrift_ShouldReturnDriftPerLastName() throws Exception {
+        when(bookingHotelService.verifyCustomerIndex())
+                .thenReturn(List.of(new CustomerHotelsDrift("D2", Map.of(1L, 2L), Map.of(1L, 1L))));
+
+        mockMvc.perform(get("/queries/hotels/customer-index/drift"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].customerLastName", is("D2")))
+                .andExpect(jsonPath("$[0].expectedBookingsPerHotel.1", is(2)))
+                .andExpect(jsonPath("$[0].actualBookingsPerHotel.1", is(1)));
+    }
+
+    @Test
+    public void test_RebuildCustomerIndex_ShouldReturnRepairedDrift() throws Exception {
+        when(bookingHotelService.rebuildCustomerIndex())
+                .thenReturn(List.of());
+
+        mockMvc.perform(post("/queries/hotels/customer-index/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void test_GetAvailability_WithHotelId_ShouldReturnPaxPerNight() throws Exception {
+        final LocalDate from = LocalDate.of(2025, 6, 1);
+        when(hotelAvailabilityService.getOccupancy(1L, from, from.plusDays(2)))
+                .thenReturn(new HotelOccupancy(1L, 5, from, from.plusDays(2), 4, 1,
+                        List.of(new NightOccupancy(from, 4), new NightOccupancy(from.plusDays(1), 2))));
+
+        mockMvc.perform(get("/queries/availability").param("hotelId", "1").param("from", "2025-06-01").param("to", "2025-06-03"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availablePax", is(1)))
+                .andExpect(jsonPath("$.nights", hasSize(2)))
+                .andExpect(jsonPath("$.nights[0].night", is("2025-06-01")))
+                .andExpect(jsonPath("$.nights[0].pax", is(4)));
+    }
+
+    @Test
+    public void test_GetAvailability_WithPax_ShouldReturnHotelsWithRoom() throws Exception {
+        final LocalDate from = LocalDate.of(2025, 6, 1);
+        when(hotelAvailabilityService.getAvailableHotels(from, from.plusDays(7), 2, null))
+                .thenReturn(List.of(new HotelAvailability(hotel, 3, 17)));
+
+        mockMvc.perform(get("/queries/availability").param("from", "2025-06-01").param("to", "2025-06-08").param("pax", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].hotel.name", is("Plaza")))
+                .andExpect(jsonPath("$[0].availablePax", is(17)));
+    }
+
+    @Test
+    public void test_GetAvailability_WithMalformedDate_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/queries/availability").param("from", "01/06/2025").param("to", "2025-06-08").param("pax", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static BookingSummary summary(Long id, String lastName) {
+        return new BookingSummary(id, "R2", lastName, (short) 1, BigDecimal.TEN, "EUR", 1L, 0L);
+    }
+}
@@ -3,6 +3,7 @@ package com.hotelcorp.data;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.notNullValue;
@@ -25,4 +26,20 @@ public class BookingTest {
         assertThat(booking.getCustomerLastName(), notNullValue());
         assertThat(booking.getHotel(), notNullValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_ValidateStay_WithBothOrNoDates_ShouldPass() {
+        Booking.validateStay(null, null);
+        Booking.validateStay(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_ValidateStay_WithCheckOutOnCheckIn_ShouldRaiseException() {
+        Booking.validateStay(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_ValidateStay_BeyondSupportedDates_ShouldRaiseException() {
+        Booking.validateStay(LocalDate.of(2299, 12, 1), LocalDate.of(2300, 1, 1));
+    }
+}
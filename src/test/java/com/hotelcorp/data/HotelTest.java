@@ -52,6 +52,23 @@ public class HotelTest {
         assertThat(hotel.getRating(), nullValue());
     }
 
+    @Test
+    public void test_HotelInstantiation_WithInvalidLongitude_ShouldRaiseException() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid longitude value: 181.0. Use values [-180, 180]");
+
+        new Hotel("Hilton", null, null, 37.97, 181.0);
+    }
+
+    @Test
+    public void test_HotelUpdate_WithInvalidLatitude_ShouldRaiseException() {
+        var hotel = new Hotel("Hilton", null, null);
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid latitude value: NaN. Use values [-90, 90]");
+        hotel.setLatitude(Double.NaN);
+    }
+
     @Test
     public void test_HotelUpdate_WithSourceContainingNullValues_ShouldNotOverrideNonNullValues() {
         var hotel = new Hotel("Hilton", "Syntagma Sq", Byte.valueOf("5"));
@@ -0,0 +1,51 @@
+package com.hotelcorp.data;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ScaledAmountTest {
+
+    @Test
+    public void test_ToUnits_ShouldCountThousandths() {
+        assertThat(ScaledAmount.toUnits(new BigDecimal("199.99")), is(199_990L));
+        assertThat(ScaledAmount.toUnits(new BigDecimal("-0.001")), is(-1L));
+        assertThat(ScaledAmount.toUnits(BigDecimal.TEN), is(10_000L));
+    }
+
+    @Test
+    public void test_ToUnits_WithFinerScale_ShouldRoundHalfUp() {
+        assertThat(ScaledAmount.toUnits(new BigDecimal("1.0005")), is(1_001L));
+        assertThat(ScaledAmount.toUnits(new BigDecimal("1.0004")), is(1_000L));
+    }
+
+    @Test
+    public void test_ToBigDecimal_ShouldKeepPriceScale() {
+        assertThat(ScaledAmount.toBigDecimal(199_990L), is(new BigDecimal("199.990")));
+        assertThat(ScaledAmount.toBigDecimal(ScaledAmount.toUnits(new BigDecimal("99.99"))), is(new BigDecimal("99.990")));
+    }
+
+    @Test
+    public void test_Add_ShouldBeExact() {
+        final long sum = ScaledAmount.add(ScaledAmount.toUnits(new BigDecimal("0.1")), ScaledAmount.toUnits(new BigDecimal("0.2")));
+        assertThat(ScaledAmount.toBigDecimal(sum), is(new BigDecimal("0.300")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void test_Add_WithOverflow_ShouldThrow() {
+        ScaledAmount.add(Long.MAX_VALUE, 1L);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void test_Subtract_WithOverflow_ShouldThrow() {
+        ScaledAmount.subtract(Long.MIN_VALUE, 1L);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void test_ToUnits_WithAmountOutOfRange_ShouldThrow() {
+        ScaledAmount.toUnits(new BigDecimal("1e20"));
+    }
+}
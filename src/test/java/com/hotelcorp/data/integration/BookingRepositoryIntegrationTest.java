@@ -3,6 +3,7 @@ package com.hotelcorp.data.integration;
 import com.hotelcorp.data.Booking;
 import com.hotelcorp.data.BookingPriceStatistics;
 import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.BookingSummary;
 import com.hotelcorp.data.Hotel;
 import org.junit.Before;
 import org.junit.Test;
@@ -10,13 +11,19 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.comparesEqualTo;
 import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 
 
 @RunWith(SpringRunner.class)
@@ -74,6 +81,32 @@ public class BookingRepositoryIntegrationTest {
         assertThat(bookings, emptyIterable());
     }
 
+    @Test
+    public void test_FindByHotelIdAndIdGreaterThan_ShouldSeekPastGivenIdInIdOrder() {
+        final var firstPage = bookingRepository.findByHotelIdAndIdGreaterThanOrderById(hotel.getId(), 0L, PageRequest.of(0, 1));
+        assertThat(firstPage, contains(booking1));
+
+        final var secondPage = bookingRepository.findByHotelIdAndIdGreaterThanOrderById(hotel.getId(), booking1.getId(), PageRequest.of(0, 1));
+        assertThat(secondPage, contains(booking2));
+    }
+
+    @Test
+    public void test_FindSummariesByHotelIdAndIdGreaterThan_ShouldSeekPastGivenIdInIdOrder() {
+        final var firstPage = bookingRepository.findSummariesByHotelIdAndIdGreaterThan(hotel.getId(), 0L, PageRequest.of(0, 1));
+        assertThat(firstPage, contains(new BookingSummary(booking1.getId(), "R2", "D2", (short) 5,
+                BigDecimal.TEN.setScale(3), "EUR", hotel.getId(), booking1.getVersion())));
+
+        final var secondPage = bookingRepository.findSummariesByHotelIdAndIdGreaterThan(hotel.getId(), booking1.getId(), PageRequest.of(0, 1));
+        assertThat(secondPage, hasSize(1));
+        assertThat(secondPage.get(0).getId(), is(booking2.getId()));
+    }
+
+    @Test
+    public void test_FindByHotelNameAndIdGreaterThan_WithLastIdAsCursor_ShouldReturnEmptyList() {
+        final var bookings = bookingRepository.findByHotelNameAndIdGreaterThanOrderById(hotel.getName(), booking2.getId(), PageRequest.of(0, 10));
+        assertThat(bookings, emptyIterable());
+    }
+
     @Test
     public void test_FindSumAmount_WithExistingHotelId_ShouldReturnSumPricesForGivenHotel() {
         final var expectedSumInEur = new BookingPriceStatistics("EUR", BigDecimal.TEN.setScale(3));
@@ -88,4 +121,35 @@ public class BookingRepositoryIntegrationTest {
         final var bookingStats = bookingRepository.findSumAmountForHotel(-1L);
         assertThat(bookingStats, emptyIterable());
     }
+
+    @Test
+    public void test_FindStatisticsPerHotel_ShouldAggregateEveryHotelAndCurrency() {
+        entityManager.persist(new Booking("C", "3Pio", Short.valueOf("1"), new BigDecimal("20"), "EUR", hotel));
+        entityManager.flush();
+
+        final var statistics = bookingRepository.findStatisticsPerHotel();
+
+        // Hilton (id 1) comes first: EUR, GBP in data.sql
+        assertThat(statistics.get(0).getHotelId(), is(1L));
+        assertThat(statistics.get(0).getCurrency(), is("EUR"));
+        final var plazaEur = statistics.stream()
+                .filter(s -> s.getHotelId().equals(hotel.getId()) && s.getCurrency().equals("EUR"))
+                .findFirst().orElseThrow();
+        assertThat(plazaEur.getHotelName(), is("Plaza"));
+        assertThat(plazaEur.getBookingCount(), is(2L));
+        assertThat(plazaEur.getSumAmount(), comparesEqualTo(new BigDecimal("30")));
+        assertThat(plazaEur.getMinAmount(), comparesEqualTo(BigDecimal.TEN));
+        assertThat(plazaEur.getMaxAmount(), comparesEqualTo(new BigDecimal("20")));
+        assertThat(plazaEur.getAvgAmount(), comparesEqualTo(new BigDecimal("15")));
+    }
+
+    @Test
+    public void test_FindStatisticsPerHotel_WithHotelIds_ShouldAggregateGivenHotelsOnly() {
+        final var statistics = bookingRepository.findStatisticsPerHotel(List.of(hotel.getId(), -1L));
+
+        assertThat(statistics, hasSize(2));
+        assertThat(statistics.get(0).getCurrency(), is("EUR"));
+        assertThat(statistics.get(1).getCurrency(), is("USD"));
+        assertThat(statistics.get(1).getBookingCount(), is(1L));
+    }
 }
@@ -0,0 +1,79 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class BookingAnalyticsIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Test
+    public void test_GroupBookings_ShouldServeBookingsLoadedAtStartup() throws Exception {
+        // A for Athens: bookings 2 and 3
+        mockMvc.perform(get("/analytics/bookings").param("groupBy", "hotel,currency").param("hotelId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].currency", contains("EUR", "USD")))
+                .andExpect(jsonPath("$[0].rating").doesNotExist())
+                .andExpect(jsonPath("$[0].revenue.EUR", is(99.0)))
+                .andExpect(jsonPath("$[1].totalPax", is(1)));
+    }
+
+    @Test
+    public void test_GroupBookings_ShouldFollowBookingAndHotelWrites() throws Exception {
+        final Hotel hotel = hotelService.createHotel(new Hotel("Analytics Palace", null, (byte) 2));
+        final Booking booking = bookingService.createBooking(new Booking("R2", "D2", (short) 2, new BigDecimal("10.5"), "CHF", hotel));
+        bookingService.createBooking(new Booking("C3", "PO", (short) 1, new BigDecimal("4.5"), "CHF", hotel));
+
+        mockMvc.perform(get("/analytics/bookings").param("groupBy", "rating,pax").param("hotelId", hotel.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].numberOfPax", contains(1, 2)))
+                .andExpect(jsonPath("$[*].rating", contains(2, 2)))
+                .andExpect(jsonPath("$[1].revenue.CHF", is(10.5)));
+
+        final Booking patch = new Booking(null, null, (short) 1, new BigDecimal("5.5"), null, null);
+        bookingService.patchBooking(patch, booking.getId(), null);
+        final Hotel rating = new Hotel(null, null, (byte) 3);
+        hotelService.patchHotel(rating, hotel.getId(), null);
+
+        mockMvc.perform(get("/analytics/bookings").param("groupBy", "rating,pax").param("hotelId", hotel.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].rating", is(3)))
+                .andExpect(jsonPath("$[0].bookingCount", is(2)))
+                .andExpect(jsonPath("$[0].revenue.CHF", is(10.0)));
+
+        bookingService.deleteBooking(booking.getId());
+        mockMvc.perform(get("/analytics/bookings").param("currency", "CHF").param("hotelId", hotel.getId().toString()))
+                .andExpect(jsonPath("$[0].bookingCount", is(1)));
+    }
+}
@@ -0,0 +1,62 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
+import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+@AutoConfigureTestDatabase
+public class BookingBatchIntegrationTests {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Test
+    public void test_CreateBookings_WithNewHotelAndOneFailingBooking_ShouldCreateHotelOnceAndIsolateFailure() {
+        final List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            bookings.add(new Booking("R2", "Batch" + i, (short) 1, BigDecimal.ONE, "EUR", new Hotel("Batch Plaza", null, null)));
+        }
+        // currency does not fit CHAR(3): refused by the database, not by validation
+        bookings.get(60).setCurrency("EURO");
+
+        final var results = bookingService.createBookings(bookings.iterator());
+
+        assertThat(results, hasSize(120));
+        assertThat(results.get(60).getStatus(), is(BookingBatchResult.Status.FAILED));
+        assertThat(results.stream().filter(r -> r.getStatus() == BookingBatchResult.Status.CREATED).count(), is(119L));
+        assertThat(results.stream().map(BookingBatchResult::getId).filter(id -> id != null).distinct().count(), is(119L));
+
+        final var hotel = hotelRepository.findByName("Batch Plaza");
+        assertThat(hotel.isPresent(), is(true));
+        assertThat(bookingRepository.findByHotelId(hotel.get().getId()), iterableWithSize(119));
+        // the rolled back chunk did not leave its revenue behind
+        assertThat(bookingService.getBookingStatsForHotel(hotel.get().getId()),
+                contains(new BookingPriceStatistics("EUR", new BigDecimal("119.000"))));
+    }
+}
@@ -0,0 +1,66 @@
+package com.hotelcorp.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.hotelcorp.utils.Utils.asJsonString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class BookingIntakeIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_PostAsync_ShouldCreateBookingOnceFlushed() throws Exception {
+        final var booking = new Booking("R2", "Async", (short) 2, new BigDecimal("80"), "EUR", new Hotel("Intake Plaza", null, null));
+
+        final String location = mockMvc.perform(post("/bookings").param("async", "true")
+                .content(asJsonString(booking))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        Map<String, Object> ticket = Map.of("status", "PENDING");
+        for (int attempt = 0; attempt < 100 && "PENDING".equals(ticket.get("status")); attempt++) {
+            Thread.sleep(50);
+            ticket = objectMapper.readValue(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), Map.class);
+        }
+
+        assertThat(ticket.get("status"), is("CREATED"));
+        final long bookingId = ((Number) ticket.get("bookingId")).longValue();
+        assertThat(bookingRepository.findById(bookingId).get().getCustomerLastName(), is("Async"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingAnalyticsStore;
+import com.hotelcorp.business.BookingSearchService;
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelRankingIndex;
+import com.hotelcorp.business.HotelRevenueService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.business.Leaderboard;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingFilter;
+import com.hotelcorp.data.BookingGroup;
+import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingSummary;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+// several chunks out of a handful of bookings
+@TestPropertySource(properties = "hotel-demo.bookings.reprice.chunk-size=2")
+public class BookingRepricingIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private HotelRevenueService hotelRevenueService;
+
+    @Autowired
+    private HotelRankingIndex hotelRankingIndex;
+
+    @Autowired
+    private BookingAnalyticsStore bookingAnalyticsStore;
+
+    @Autowired
+    private BookingSearchService bookingSearchService;
+
+    @Test
+    public void test_RepriceBookings_ShouldUpdatePricesRevenueAndIndexes() throws Exception {
+        // no other test books in zloty
+        final Hotel hotel = hotelService.createHotel(new Hotel("Reprice Plaza", null, null));
+        final Booking single = bookingService.createBooking(new Booking("Pln", "Single", (short) 1, new BigDecimal("100"), "PLN", hotel));
+        final Booking twin = bookingService.createBooking(new Booking("Pln", "Twin", (short) 2, new BigDecimal("200"), "PLN", hotel));
+        final Booking family = bookingService.createBooking(new Booking("Pln", "Family", (short) 4, new BigDecimal("300.005"), "PLN", hotel));
+        final Booking unpriced = bookingService.createBooking(new Booking("Pln", "Unpriced", (short) 2, null, "PLN", hotel));
+        final Booking euros = bookingService.createBooking(new Booking("Eur", "Single", (short) 1, new BigDecimal("100"), "EUR", hotel));
+
+        mockMvc.perform(post("/bookings/reprice").param("hotelId", hotel.getId().toString())
+                        .param("currency", "PLN").param("factor", "1.1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+        mockMvc.perform(post("/bookings/reprice").param("hotelId", hotel.getId().toString())
+                        .param("currency", "PLN").param("delta", "-10").param("minPax", "2"))
+                .andExpect(content().string("2"));
+
+        assertThat(bookingService.getBookingById(single.getId()).getPrice(), comparesEqualTo(new BigDecimal("110")));
+        assertThat(bookingService.getBookingById(twin.getId()).getPrice(), comparesEqualTo(new BigDecimal("210")));
+        // 330.0055 rounded half up
+        assertThat(bookingService.getBookingById(family.getId()).getPrice(), comparesEqualTo(new BigDecimal("320.006")));
+        assertThat(bookingService.getBookingById(family.getId()).getVersion(), is(family.getVersion() + 2));
+        assertThat(bookingService.getBookingById(unpriced.getId()).getPrice(), nullValue());
+        assertThat(bookingService.getBookingById(euros.getId()).getPrice(), comparesEqualTo(new BigDecimal("100")));
+
+        // the materialized revenue and the in-memory indexes moved along
+        assertThat(bookingService.getBookingStatsForHotel(hotel.getId()), containsInAnyOrder(
+                new BookingPriceStatistics("EUR", new BigDecimal("100.000")),
+                new BookingPriceStatistics("PLN", new BigDecimal("640.006"))));
+        assertThat(hotelRevenueService.verify(), empty());
+        assertThat(hotelRankingIndex.getTopByRevenue("PLN", 10).stream()
+                .filter(s -> s.getId() == hotel.getId())
+                .map(Leaderboard.Score::getScore)
+                .collect(Collectors.toList()), contains(640_006L));
+        final List<BookingGroup> groups = bookingAnalyticsStore.groupBy(EnumSet.noneOf(BookingGroup.Dimension.class),
+                hotel.getId(), null, "PLN", null, null);
+        assertThat(groups.get(0).getRevenue().get("PLN"), comparesEqualTo(new BigDecimal("640.006")));
+        final BookingFilter above = new BookingFilter(List.of(hotel.getId()), null, null, null, null, new BigDecimal("300"), null);
+        assertThat(bookingSearchService.searchBookings(above, null, null).getItems().stream()
+                .map(BookingSummary::getId).collect(Collectors.toList()), contains(family.getId()));
+    }
+
+    @Test
+    public void test_RepriceBookings_OutOfPriceRange_ShouldReturnBadRequestAndRepriceNothing() throws Exception {
+        final Hotel hotel = hotelService.createHotel(new Hotel("Reprice Lodge", null, null));
+        final Booking booking = bookingService.createBooking(new Booking("Pln", "Lodge", (short) 1, new BigDecimal("5000"), "PLN", hotel));
+
+        mockMvc.perform(post("/bookings/reprice").param("hotelId", hotel.getId().toString())
+                        .param("currency", "PLN").param("factor", "10000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/bookings/reprice").param("hotelId", hotel.getId().toString())
+                        .param("currency", "PLN").param("factor", "2").param("delta", "1"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(bookingService.getBookingById(booking.getId()).getPrice(), comparesEqualTo(new BigDecimal("5000")));
+    }
+
+    @Test
+    public void test_RepriceBookings_OfUnknownHotel_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(post("/bookings/reprice").param("hotelId", "999999")
+                        .param("currency", "PLN").param("factor", "2"))
+                .andExpect(status().isNotFound());
+    }
+}
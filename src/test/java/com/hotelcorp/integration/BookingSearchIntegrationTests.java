@@ -0,0 +1,96 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class BookingSearchIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Test
+    public void test_SearchBookings_ShouldCombineCriteriaAndFollowWrites() throws Exception {
+        // no other test books in Norwegian kroner
+        final Hotel inn = hotelService.createHotel(new Hotel("Search Inn", null, (byte) 3));
+        final Hotel suites = hotelService.createHotel(new Hotel("Search Suites", null, (byte) 5));
+        final Booking cheap = bookingService.createBooking(new Booking("Nok", "Single", (short) 2, new BigDecimal("80"), "NOK", inn));
+        final Booking family = bookingService.createBooking(new Booking("Nok", "Family", (short) 4, new BigDecimal("400"), "NOK", inn));
+        final Booking suite = bookingService.createBooking(new Booking("Nok", "Suite", (short) 2, new BigDecimal("900"), "NOK", suites));
+
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "NOK").param("minPax", "2").param("maxPax", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(cheap.getId().intValue(), suite.getId().intValue())));
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "NOK").param("rating", "3"))
+                .andExpect(jsonPath("$.items[*].id", contains(cheap.getId().intValue(), family.getId().intValue())));
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "NOK").param("minPrice", "100").param("maxPrice", "500"))
+                .andExpect(jsonPath("$.items[*].id", contains(family.getId().intValue())));
+        mockMvc.perform(get("/queries/bookings/search")
+                        .param("hotelId", inn.getId().toString(), suites.getId().toString()).param("minPrice", "300"))
+                .andExpect(jsonPath("$.items[*].id", contains(family.getId().intValue(), suite.getId().intValue())));
+
+        // the bookings of a hotel follow its rating, a booking its hotel and price
+        final Hotel rating = new Hotel(null, null, (byte) 5);
+        hotelService.patchHotel(rating, inn.getId(), null);
+        bookingService.patchBooking(new Booking(null, null, null, new BigDecimal("1000"), null, null), cheap.getId(), null);
+        bookingService.deleteBooking(suite.getId());
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "NOK").param("rating", "3"))
+                .andExpect(jsonPath("$.items", empty()));
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "NOK").param("rating", "5").param("minPrice", "500"))
+                .andExpect(jsonPath("$.items[*].id", contains(cheap.getId().intValue())));
+    }
+
+    @Test
+    public void test_SearchBookings_ShouldPageInIdOrder() throws Exception {
+        // no other test books in Danish kroner
+        final Hotel hotel = hotelService.createHotel(new Hotel("Search Hostel", null, null));
+        final Booking first = bookingService.createBooking(new Booking("Dkk", "First", (short) 1, new BigDecimal("20"), "DKK", hotel));
+        final Booking second = bookingService.createBooking(new Booking("Dkk", "Second", (short) 1, new BigDecimal("21"), "DKK", hotel));
+        final Booking third = bookingService.createBooking(new Booking("Dkk", "Third", (short) 1, new BigDecimal("22"), "DKK", hotel));
+
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "DKK").param("maxPrice", "21.5").param("limit", "1"))
+                .andExpect(jsonPath("$.items[*].id", contains(first.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", is(first.getId().intValue())));
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "DKK").param("maxPrice", "21.5")
+                        .param("after", first.getId().toString()).param("limit", "1"))
+                .andExpect(jsonPath("$.items[*].id", contains(second.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+        mockMvc.perform(get("/queries/bookings/search").param("currency", "DKK").param("after", second.getId().toString()))
+                .andExpect(jsonPath("$.items[*].id", contains(third.getId().intValue())));
+    }
+
+    @Test
+    public void test_SearchBookings_WithoutCriteria_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/queries/bookings/search"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,58 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.data.BookingRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * Plans of the price queries of the booking search, the point of each being the index it reads.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class BookingSearchQueryPlanIntegrationTests {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    public void test_IdsByPrice_ShouldSeekPriceIndex() {
+        final String plan = explain(BookingRepository.SQL_IDS_BY_PRICE,
+                Map.of("minPrice", BigDecimal.ONE, "maxPrice", BigDecimal.TEN, "afterId", 0L));
+
+        assertThat(plan, containsString("IDX_BOOKING_PRICE"));
+    }
+
+    @Test
+    public void test_IdsByIdAndPrice_ShouldLookUpPrimaryKey() {
+        final String plan = explain(BookingRepository.SQL_IDS_BY_ID_AND_PRICE,
+                Map.of("ids", List.of(1L, 2L, 3L), "minPrice", BigDecimal.ONE, "maxPrice", BigDecimal.TEN));
+
+        assertThat(plan, containsString("PRIMARY_KEY"));
+    }
+
+    @Test
+    public void test_IdsAfterByPrice_ShouldWalkPrimaryKeyInOrder() {
+        final String plan = explain(BookingRepository.SQL_IDS_AFTER_BY_PRICE,
+                Map.of("afterId", 0L, "minPrice", BigDecimal.ONE, "maxPrice", BigDecimal.TEN, "limit", 20));
+
+        assertThat(plan, allOf(containsString("PRIMARY_KEY"), containsString("index sorted")));
+    }
+
+    private String explain(String sql, Map<String, ?> params) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, params, String.class);
+    }
+}
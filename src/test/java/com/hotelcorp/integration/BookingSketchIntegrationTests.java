@@ -0,0 +1,82 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class BookingSketchIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Test
+    public void test_GetBookingSketches_ShouldServeBookingsLoadedAtStartup() throws Exception {
+        // A for Athens: bookings 2 and 3, both of Luke Skywalker
+        mockMvc.perform(get("/bookings/stats/sketches").param("hotelId", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices[*].currency", hasItem("USD")))
+                .andExpect(jsonPath("$.topCustomers[0].customerLastName", is("Skywalker")))
+                .andExpect(jsonPath("$.topCustomers[0].bookingCount", is(2)));
+    }
+
+    @Test
+    public void test_GetBookingSketches_ShouldFollowBookingWrites() throws Exception {
+        final Hotel hotel = hotelService.createHotel(new Hotel("Sketch Palace", null, null));
+        for (int i = 1; i <= 100; i++) {
+            bookingService.createBooking(new Booking("Customer", "No" + (i % 10), (short) 1, BigDecimal.valueOf(i), "CHF", hotel));
+        }
+        final Booking booking = bookingService.createBooking(new Booking("Customer", "No1", (short) 1, new BigDecimal("1000"), "CHF", hotel));
+
+        mockMvc.perform(get("/bookings/stats/sketches").param("hotelId", hotel.getId().toString()).param("top", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookingCount", is(101)))
+                .andExpect(jsonPath("$.distinctCustomers", is(10)))
+                // 51 within 1%
+                .andExpect(jsonPath("$.prices[0].p50", closeTo(51.0, 0.51)))
+                .andExpect(jsonPath("$.topCustomers", hasSize(1)))
+                .andExpect(jsonPath("$.topCustomers[0].customerLastName", is("No1")))
+                .andExpect(jsonPath("$.topCustomers[0].bookingCount", is(11)));
+
+        bookingService.deleteBooking(booking.getId());
+        mockMvc.perform(get("/bookings/stats/sketches").param("hotelId", hotel.getId().toString()))
+                .andExpect(jsonPath("$.bookingCount", is(100)))
+                .andExpect(jsonPath("$.prices[*].currency", contains("CHF")))
+                .andExpect(jsonPath("$.topCustomers", hasSize(10)));
+    }
+
+    @Test
+    public void test_GetBookingSketches_WithTooManyTopCustomers_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/bookings/stats/sketches").param("hotelId", "1").param("top", "21"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,149 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "hotel-demo.updates.max-attempts=100")
+public class ConcurrentUpdateIntegrationTests {
+
+    private static final int THREADS = 4;
+    private static final int UPDATES_PER_THREAD = 15;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    private String bookingUrl;
+
+    @Before
+    public void setup() {
+        final var booking = bookingService.createBooking(
+                new Booking("R2", "D2", (short) 0, BigDecimal.ONE, "EUR", hotelService.getHotelById(1L)));
+        bookingUrl = String.format("http://localhost:%d/bookings/%d", port, booking.getId());
+    }
+
+    @Test
+    public void test_Put_WithIfMatchReadModifyWriteLoops_ShouldLoseNoIncrement() throws Exception {
+        final AtomicInteger preconditionFailures = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                // read, increment and write back until no one else wrote in between
+                while (true) {
+                    final ResponseEntity<Booking> current = restTemplate.getForEntity(bookingUrl, Booking.class);
+                    final var increment = new Booking(null, null, (short) (current.getBody().getNumberOfPax() + 1), null, null, null);
+                    final var headers = new HttpHeaders();
+                    headers.setIfMatch(current.getHeaders().getETag());
+
+                    final var response = restTemplate.exchange(bookingUrl, HttpMethod.PUT,
+                            new HttpEntity<>(increment, headers), Booking.class);
+                    if (response.getStatusCode() == HttpStatus.OK) {
+                        break;
+                    }
+                    assertThat(response.getStatusCode(), isOneOf(HttpStatus.PRECONDITION_FAILED, HttpStatus.CONFLICT));
+                    preconditionFailures.incrementAndGet();
+                }
+            }
+        });
+
+        final var booking = restTemplate.getForObject(bookingUrl, Booking.class);
+        assertThat(booking.getNumberOfPax(), is((short) (THREADS * UPDATES_PER_THREAD)));
+        assertThat(booking.getVersion(), is((long) THREADS * UPDATES_PER_THREAD));
+    }
+
+    @Test
+    public void test_Put_WithRetryOnDifferentFields_ShouldKeepEveryWriterLastValue() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                final var response = restTemplate.exchange(bookingUrl + "?retry=true", HttpMethod.PUT,
+                        new HttpEntity<>(fieldUpdate(thread, i)), Booking.class);
+                // no client side retries: the server re-applies conflicting updates
+                assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            }
+        });
+
+        // every thread wrote its own field, the last value of each must have survived the others' writes
+        final var booking = restTemplate.getForObject(bookingUrl, Booking.class);
+        final int last = UPDATES_PER_THREAD - 1;
+        assertThat(booking.getCustomerName(), is("name-" + last));
+        assertThat(booking.getCustomerLastName(), is("lastName-" + last));
+        assertThat(booking.getNumberOfPax(), is((short) (last + 1)));
+        assertThat(booking.getPrice(), comparesEqualTo(BigDecimal.valueOf(last)));
+        assertThat(booking.getVersion(), is((long) THREADS * UPDATES_PER_THREAD));
+    }
+
+    private static Booking fieldUpdate(int thread, int i) {
+        switch (thread) {
+            case 0:
+                return new Booking("name-" + i, null, null, null, null, null);
+            case 1:
+                return new Booking(null, "lastName-" + i, null, null, null, null);
+            case 2:
+                return new Booking(null, null, (short) (i + 1), null, null, null);
+            default:
+                return new Booking(null, null, null, BigDecimal.valueOf(i), null, null);
+        }
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Worker worker) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(); // rethrows assertion errors of the workers
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.CustomerHotelIndex;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.CustomerHotelsDrift;
+import com.hotelcorp.data.Hotel;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class CustomerHotelIndexIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CustomerHotelIndex customerHotelIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void test_Load_ShouldIndexBookingsAlreadyInTheDatabase() throws Exception {
+        assertThat(customerHotelIndex.getHotelIds("Skywalker"), containsInAnyOrder(1L, 3L));
+        assertThat(customerHotelIndex.getHotelIds("Solo"), containsInAnyOrder(1L, 2L));
+
+        mockMvc.perform(get("/queries/hotels").param("customerLastName", "Skywalker"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name", is("Hilton")))
+                .andExpect(jsonPath("$[1].name", is("A for Athens")));
+    }
+
+    @Test
+    public void test_GetHotelsForCustomer_WithCachedHotels_ShouldNotQueryTheDatabase() throws Exception {
+        mockMvc.perform(get("/queries/hotels").param("customerLastName", "Solo"))
+                .andExpect(status().isOk());
+
+        statistics.clear();
+        mockMvc.perform(get("/queries/hotels").param("customerLastName", "Solo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+    }
+
+    @Test
+    public void test_BookingChanges_ShouldKeepIndexConsistentWithBookings() throws Exception {
+        final var booking = bookingService.createBooking(
+                new Booking("Wedge", "Antilles", (short) 1, BigDecimal.ONE, "EUR", hotelWithId(1L)));
+        assertThat(customerHotelIndex.getHotelIds("Antilles"), contains(1L));
+
+        // PUT moves the booking to another hotel
+        bookingService.updateBooking(new Booking(null, null, null, null, null, hotelWithId(2L)), booking.getId());
+        assertThat(customerHotelIndex.getHotelIds("Antilles"), contains(2L));
+
+        // PATCH renames the customer with a single UPDATE
+        mockMvc.perform(patch("/bookings/{id}", booking.getId())
+                .content("{\"customerLastName\": \"Celchu\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertThat(customerHotelIndex.getHotelIds("Antilles"), is(empty()));
+        assertThat(customerHotelIndex.getHotelIds("Celchu"), contains(2L));
+        assertThat(driftsOf("Antilles", "Celchu"), is(empty()));
+
+        bookingService.deleteBooking(booking.getId());
+        assertThat(customerHotelIndex.getHotelIds("Celchu"), is(empty()));
+        assertThat(driftsOf("Antilles", "Celchu"), is(empty()));
+    }
+
+    @Test
+    public void test_CreateBookings_ShouldIndexBatch() {
+        final var hotel = new Hotel("Hilton", null, null);
+        bookingService.createBookings(List.of(
+                new Booking("Biggs", "Darklighter", (short) 1, BigDecimal.ONE, "EUR", hotel),
+                new Booking("Biggs", "Darklighter", (short) 1, BigDecimal.ONE, "EUR", new Hotel("A for Athens", null, null)))
+                .iterator());
+
+        assertThat(customerHotelIndex.getHotelIds("Darklighter"), containsInAnyOrder(1L, 3L));
+        assertThat(driftsOf("Darklighter"), is(empty()));
+    }
+
+    private static Hotel hotelWithId(Long id) {
+        final var hotel = new Hotel(null, null, null);
+        hotel.setId(id);
+        return hotel;
+    }
+
+    // other tests of the shared context may leave their own drift behind
+    private List<CustomerHotelsDrift> driftsOf(String... lastNames) {
+        final var names = List.of(lastNames);
+        return customerHotelIndex.verify().stream()
+                .filter(d -> names.contains(d.getCustomerLastName()))
+                .collect(Collectors.toList());
+    }
+}
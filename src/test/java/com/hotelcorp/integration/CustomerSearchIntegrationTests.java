@@ -0,0 +1,89 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class CustomerSearchIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Test
+    public void test_SearchByLastNamePrefix_ShouldFindBookingsAlreadyInTheDatabase() throws Exception {
+        mockMvc.perform(get("/queries/bookings").param("customerLastNamePrefix", "sKy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(1, 2, 3)))
+                .andExpect(jsonPath("$[0].hotelId", is(1)));
+
+        mockMvc.perform(get("/queries/bookings").param("customerLastNamePrefix", "sky").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void test_SearchByQuery_WithTypoAndExpandHotel_ShouldReturnBookingsWithHotel() throws Exception {
+        mockMvc.perform(get("/queries/bookings").param("customerQuery", "obi-wan kenoby").param("expand", "hotel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(4)))
+                .andExpect(jsonPath("$[0].hotel.name", is("Hilton")));
+    }
+
+    @Test
+    public void test_SearchByQuery_WithBlankQuery_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/queries/bookings").param("customerQuery", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void test_BookingChanges_ShouldBeSearchableOnceCommitted() throws Exception {
+        final var booking = bookingService.createBooking(
+                new Booking("Mon", "Mothma", (short) 1, BigDecimal.ONE, "EUR", hotelWithId(1L)));
+        mockMvc.perform(get("/queries/bookings").param("customerQuery", "mothma"))
+                .andExpect(jsonPath("$[*].id", contains(booking.getId().intValue())));
+
+        mockMvc.perform(patch("/bookings/{id}", booking.getId())
+                .content("{\"customerLastName\": \"Dodonna\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/queries/bookings").param("customerLastNamePrefix", "mothma"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/queries/bookings").param("customerLastNamePrefix", "dodo"))
+                .andExpect(jsonPath("$[*].id", contains(booking.getId().intValue())));
+
+        bookingService.deleteBooking(booking.getId());
+        mockMvc.perform(get("/queries/bookings").param("customerQuery", "mon dodonna"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    private static Hotel hotelWithId(Long id) {
+        final var hotel = new Hotel(null, null, null);
+        hotel.setId(id);
+        return hotel;
+    }
+}
@@ -0,0 +1,108 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class HotelAvailabilityIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Test
+    public void test_GetOccupancy_ShouldCountStaysAlreadyInTheDatabase() throws Exception {
+        // Hilton, capacity 5
+        mockMvc.perform(get("/queries/availability").param("hotelId", "1").param("from", "2025-06-01").param("to", "2025-06-06"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nights[*].pax", contains(3, 3, 4, 5, 2)))
+                .andExpect(jsonPath("$.peakPax", is(5)))
+                .andExpect(jsonPath("$.availablePax", is(0)));
+    }
+
+    @Test
+    public void test_GetAvailableHotels_ShouldLeaveOutFullHotels() throws Exception {
+        mockMvc.perform(get("/queries/availability").param("from", "2025-06-01").param("to", "2025-06-05").param("pax", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].hotel.name", hasItem("Grande Bretagne")))
+                .andExpect(jsonPath("$[*].hotel.name", not(hasItem("Hilton"))))
+                .andExpect(jsonPath("$[*].hotel.name", not(hasItem("A for Athens"))));
+    }
+
+    @Test
+    public void test_BookingChanges_ShouldMoveOccupancyOnceCommitted() throws Exception {
+        final Hotel hotel = new Hotel("Electra Palace", "Nikodimou 18, Athina", null);
+        hotel.setCapacity(4);
+        final Long hotelId = hotelService.createHotel(hotel).getId();
+        final LocalDate checkIn = LocalDate.of(2026, 3, 10);
+        final var booking = bookingService.createBooking(new Booking("Mon", "Mothma", (short) 3, BigDecimal.ONE, "EUR",
+                checkIn, checkIn.plusDays(2), hotelWithId(hotelId)));
+
+        mockMvc.perform(get("/queries/availability").param("from", "2026-03-11").param("to", "2026-03-13").param("pax", "2"))
+                .andExpect(jsonPath("$[*].hotel.id", not(hasItem(hotelId.intValue()))));
+
+        mockMvc.perform(patch("/bookings/{id}", booking.getId())
+                .content("{\"checkIn\": \"2026-03-08\", \"checkOut\": \"2026-03-11\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/queries/availability").param("hotelId", hotelId.toString()).param("from", "2026-03-08").param("to", "2026-03-13"))
+                .andExpect(jsonPath("$.nights[*].pax", contains(3, 3, 3, 0, 0)));
+        mockMvc.perform(get("/queries/availability").param("from", "2026-03-11").param("to", "2026-03-13").param("pax", "2"))
+                .andExpect(jsonPath("$[*].hotel.id", hasItem(hotelId.intValue())));
+
+        bookingService.deleteBooking(booking.getId());
+        mockMvc.perform(get("/queries/availability").param("hotelId", hotelId.toString()).param("from", "2026-03-08").param("to", "2026-03-10"))
+                .andExpect(jsonPath("$.peakPax", is(0)));
+    }
+
+    @Test
+    public void test_PatchBooking_WithCheckOutBeforeCheckIn_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(patch("/bookings/{id}", 1)
+                .content("{\"checkOut\": \"2025-05-01\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void test_GetOccupancy_WithTooManyNights_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/queries/availability").param("hotelId", "1").param("from", "2025-01-01").param("to", "2026-06-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/queries/availability").param("hotelId", "1").param("from", "2025-06-05").param("to", "2025-06-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static Hotel hotelWithId(Long id) {
+        final var hotel = new Hotel(null, null, null);
+        hotel.setId(id);
+        return hotel;
+    }
+}
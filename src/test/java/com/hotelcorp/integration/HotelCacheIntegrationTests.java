@@ -0,0 +1,104 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.CacheStatisticsService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.CacheRegions;
+import com.hotelcorp.data.CacheStatistics;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "hotel-demo.cache.hotel.max-entries=3")
+public class HotelCacheIntegrationTests {
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void test_GetHotelById_WhenCached_ShouldNotQueryTheDatabase() {
+        hotelService.getHotelById(1L);
+
+        statistics.clear();
+        final var hotel = hotelService.getHotelById(1L);
+
+        assertThat(hotel.getName(), is("Hilton"));
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+        assertThat(regionStatistics(CacheRegions.HOTEL).getHitCount(), greaterThan(0L));
+    }
+
+    @Test
+    public void test_FindByName_WhenCached_ShouldNotQueryTheDatabase() {
+        hotelRepository.findByName("Grande Bretagne");
+
+        statistics.clear();
+        final var hotel = hotelRepository.findByName("Grande Bretagne");
+
+        assertThat(hotel.isPresent(), is(true));
+        assertThat(statistics.getPrepareStatementCount(), is(0L));
+        assertThat(regionStatistics(CacheRegions.HOTEL_BY_NAME).getHitCount(), greaterThan(0L));
+    }
+
+    @Test
+    public void test_FindByName_AfterHotelUpdate_ShouldNotReturnStaleResult() {
+        final var created = hotelService.createHotel(new Hotel("Cached Plaza", null, null));
+        assertThat(hotelRepository.findByName("Cached Plaza").isPresent(), is(true));
+
+        hotelService.updateHotel(new Hotel("Cached Plaza renamed", null, null), created.getId());
+
+        assertThat(hotelRepository.findByName("Cached Plaza").isPresent(), is(false));
+        assertThat(hotelRepository.findByName("Cached Plaza renamed").isPresent(), is(true));
+    }
+
+    @Test
+    public void test_GetHotelById_WithMoreHotelsThanMaxEntries_ShouldEvict() {
+        for (long id = 1; id <= 4; id++) {
+            hotelService.getHotelById(id);
+        }
+
+        final var hotelRegion = regionStatistics(CacheRegions.HOTEL);
+        assertThat(hotelRegion.getEvictionCount(), greaterThan(0L));
+    }
+
+    private CacheStatistics regionStatistics(String region) {
+        return StreamSupport.stream(cacheStatisticsService.getCacheStatistics().spliterator(), false)
+                .filter(s -> s.getRegion().equals(region))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelOccupancyIndex;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class HotelCapacityIntegrationTests {
+
+    private static final int CAPACITY = 5;
+    private static final int REQUESTS = 24;
+    private static final LocalDate CHECK_IN = LocalDate.of(2027, 8, 1);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private HotelOccupancyIndex hotelOccupancyIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    public void test_OverlappingStays_ShouldSeekHotelStayIndexOnCheckOut() {
+        // the conditions of BookingRepository.findSnapshotsOverlappingStay
+        final String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT ID FROM BOOKING "
+                        + "WHERE HOTEL_ID = :hotelId AND CHECK_IN < :to AND CHECK_OUT > :from AND ID <> :bookingId",
+                Map.of("hotelId", 1L, "from", CHECK_IN, "to", CHECK_IN.plusDays(2), "bookingId", 0L), String.class);
+
+        // the index conditions follow the index name, the WHERE clause only filters the rows it reads
+        assertThat(plan, containsString("IDX_BOOKING_HOTEL_STAY: CHECK_OUT >"));
+    }
+
+    @Test
+    public void test_CreateBookings_Concurrently_ShouldNeverExceedCapacity() throws Exception {
+        final Hotel hotel = createHotel("Capacity Storm", CAPACITY);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            // every stay includes the second night
+            final LocalDate checkIn = CHECK_IN.plusDays(i % 2);
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookingService.createBooking(new Booking("Wedge", "Antilles", (short) 1, BigDecimal.ONE, "EUR",
+                            checkIn, checkIn.plusDays(2), hotel));
+                    return true;
+                } catch (ResponseStatusException e) {
+                    assertThat(e.getStatus(), is(HttpStatus.CONFLICT));
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            created += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(created, is(CAPACITY));
+        assertThat(hotelOccupancyIndex.getPeakPax(hotel.getId(), CHECK_IN, CHECK_IN.plusDays(3)), is(CAPACITY));
+    }
+
+    @Test
+    public void test_CreateBooking_WhileAnotherHotelIsLocked_ShouldNotWait() throws Exception {
+        final Hotel locked = createHotel("Capacity Locked", CAPACITY);
+        final Hotel other = createHotel("Capacity Other", CAPACITY);
+        final CountDownLatch reserved = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        // keeps a reservation on the first hotel, and so its lock, until released
+        final Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            bookingService.createBooking(new Booking("Biggs", "Darklighter", (short) 1, BigDecimal.ONE, "EUR",
+                    CHECK_IN, CHECK_IN.plusDays(1), locked));
+            reserved.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        try {
+            assertThat(reserved.await(30, TimeUnit.SECONDS), is(true));
+            final Booking created = bookingService.createBooking(new Booking("Wedge", "Antilles", (short) 1, BigDecimal.ONE,
+                    "EUR", CHECK_IN, CHECK_IN.plusDays(1), other));
+            assertThat(created.getId(), notNullValue());
+        } finally {
+            release.countDown();
+            holder.get(30, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+    }
+
+    private Hotel createHotel(String name, int capacity) {
+        final Hotel hotel = new Hotel(name, null, null);
+        hotel.setCapacity(capacity);
+        return hotelService.createHotel(hotel);
+    }
+}
@@ -1,7 +1,9 @@
 package com.hotelcorp.integration;
 
 import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingSummary;
 import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelDistance;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,10 +11,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -45,6 +52,7 @@ public class HotelDemoIntegrationTests {
         // post
         final var created = restTemplate.postForObject(url, hotel, Hotel.class);
         assertThat(created, is(hotel));
+        assertThat(search("plaza"), arrayContaining(hotel));
 
         url += "/" + id;
 
@@ -57,11 +65,28 @@ public class HotelDemoIntegrationTests {
         restTemplate.put(url, hotel);
         final var updated = restTemplate.getForObject(url, Hotel.class);
         assertThat(updated, is(hotel));
+        assertThat(search("ADDRESS UPD"), arrayContaining(hotel));
 
         // delete
         restTemplate.delete(url);
         final var deleted = restTemplate.getForObject(url, Hotel.class);
         assertThat(deleted.getId(), nullValue());
+        assertThat(search("plaza"), emptyArray());
+    }
+
+    @Test
+    public void test_Retrieve_HotelsNear() {
+        // Syntagma square
+        final var hotels = restTemplate.getForObject(url + "/hotels/near?lat=37.9755&lon=23.7348&radiusKm=0.5", HotelDistance[].class);
+        assertThat(Arrays.stream(hotels).map(h -> h.getHotel().getName()).toArray(), arrayContaining("King George", "Grande Bretagne"));
+        assertThat(hotels[0].getDistanceKm(), lessThan(hotels[1].getDistanceKm()));
+    }
+
+    @Test
+    public void test_Search_Hotels() {
+        final var hotels = restTemplate.getForObject(url + "/hotels/search?q=syntagma square", Hotel[].class);
+        assertThat(Arrays.stream(hotels).map(Hotel::getName).toArray(),
+                arrayContainingInAnyOrder("Grande Bretagne", "King George"));
     }
 
     @Test
@@ -98,8 +123,27 @@ public class HotelDemoIntegrationTests {
 
     @Test
     public void test_Retrieve_BookingsForHotel() {
-        final var retrieved = restTemplate.getForObject(url + "queries/bookings?hotelId=1", Booking[].class);
+        final var retrieved = restTemplate.getForObject(url + "queries/bookings?hotelId=1", BookingSummary[].class);
+        assertThat(Arrays.asList(retrieved), hasSize(4));
+        assertThat(Arrays.asList(retrieved), everyItem(hasProperty("hotelId", is(1L))));
+    }
+
+    @Test
+    public void test_Retrieve_BookingsForHotel_WithExpandedHotel() {
+        final var retrieved = restTemplate.getForObject(url + "queries/bookings?hotelId=1&expand=hotel", Booking[].class);
         assertThat(Arrays.asList(retrieved), hasSize(4));
+        assertThat(retrieved[0].getHotel().getName(), is("Hilton"));
+    }
+
+    @Test
+    public void test_Stream_BookingsForHotel() {
+        final var headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
+
+        final var response = restTemplate.exchange(url + "/queries/bookings?hotelId=1",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(response.getBody().lines().count(), is(4L));
     }
 
     @Test
@@ -108,4 +152,7 @@ public class HotelDemoIntegrationTests {
         assertThat(Arrays.asList(retrieved), hasSize(2));
     }
 
+    private Hotel[] search(String query) {
+        return restTemplate.getForObject(String.format("http://localhost:%d/hotels/search?q={q}", port), Hotel[].class, query);
+    }
 }
@@ -0,0 +1,80 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.Hotel;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class HotelRankingIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Test
+    public void test_GetTopHotels_ShouldFollowBookingWrites() throws Exception {
+        // no other test books in Swedish kronor
+        final Hotel first = hotelService.createHotel(new Hotel("Ranking Palace", null, null));
+        final Hotel second = hotelService.createHotel(new Hotel("Ranking Lodge", null, null));
+        final Booking booking = bookingService.createBooking(new Booking("R2", "D2", (short) 1, new BigDecimal("500"), "SEK", first));
+        bookingService.createBooking(new Booking("C3", "PO", (short) 1, new BigDecimal("300"), "SEK", second));
+        bookingService.createBooking(new Booking("C3", "PO", (short) 1, new BigDecimal("300.5"), "SEK", second));
+
+        mockMvc.perform(get("/queries/hotels/top").param("by", "revenue").param("currency", "SEK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].hotel.name", contains("Ranking Lodge", "Ranking Palace")))
+                .andExpect(jsonPath("$[0].revenue", is(600.5)));
+
+        final Booking patch = new Booking(null, null, null, new BigDecimal("700"), null, null);
+        bookingService.patchBooking(patch, booking.getId(), null);
+        mockMvc.perform(get("/queries/hotels/top").param("by", "revenue").param("currency", "SEK").param("k", "1"))
+                .andExpect(jsonPath("$[*].hotel.name", contains("Ranking Palace")));
+
+        bookingService.deleteBooking(booking.getId());
+        mockMvc.perform(get("/queries/hotels/top").param("by", "revenue").param("currency", "SEK"))
+                .andExpect(jsonPath("$[*].hotel.name", contains("Ranking Lodge")));
+    }
+
+    @Test
+    public void test_GetTopHotels_ByBookings_ShouldServeBookingsLoadedAtStartup() throws Exception {
+        // at least the 4 Hilton bookings of data.sql, more when other tests have booked a hotel more often
+        mockMvc.perform(get("/queries/hotels/top").param("by", "bookings").param("k", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].rank", is(1)))
+                .andExpect(jsonPath("$[0].bookingCount", greaterThanOrEqualTo(4)));
+    }
+
+    @Test
+    public void test_GetTopHotels_ByUnknownRanking_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/queries/hotels/top").param("by", "rating"))
+                .andExpect(status().isBadRequest());
+    }
+}
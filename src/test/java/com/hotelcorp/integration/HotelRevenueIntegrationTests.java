@@ -0,0 +1,154 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.HotelRevenueService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRevenue;
+import com.hotelcorp.data.HotelRevenueRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+@AutoConfigureTestDatabase
+public class HotelRevenueIntegrationTests {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelRevenueService hotelRevenueService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private HotelRevenueRepository hotelRevenueRepository;
+
+    @Test
+    public void test_GetBookingStatsForHotel_AfterCreateUpdateAndDelete_ShouldMatchBookings() {
+        final var first = bookingService.createBooking(booking("Revenue Plaza", "100.50", "EUR"));
+        final var second = bookingService.createBooking(booking("Revenue Plaza", "20", "EUR"));
+        final var third = bookingService.createBooking(booking("Revenue Plaza", "30", null));
+        final var plazaId = first.getHotel().getId();
+
+        // price and currency change
+        bookingService.updateBooking(new Booking(null, null, null, new BigDecimal("25"), "USD", null), second.getId());
+        // move to another hotel
+        final var ritz = bookingService.createBooking(booking("Revenue Ritz", "1", "EUR")).getHotel();
+        bookingService.updateBooking(new Booking(null, null, null, null, null, ritz), third.getId());
+
+        assertThat(bookingService.getBookingStatsForHotel(plazaId), containsInAnyOrder(
+                new BookingPriceStatistics("EUR", new BigDecimal("100.500")),
+                new BookingPriceStatistics("USD", new BigDecimal("25.000"))));
+        // same answer as aggregating the bookings themselves
+        assertThat(bookingService.getBookingStatsForHotel(plazaId),
+                containsInAnyOrder(toArray(bookingRepository.findSumAmountForHotel(plazaId))));
+        assertThat(bookingService.getBookingStatsForHotel(ritz.getId()), containsInAnyOrder(
+                new BookingPriceStatistics("EUR", new BigDecimal("1.000")),
+                new BookingPriceStatistics(null, new BigDecimal("30.000"))));
+
+        bookingService.deleteBooking(second.getId());
+        assertThat(bookingService.getBookingStatsForHotel(plazaId), contains(
+                new BookingPriceStatistics("EUR", new BigDecimal("100.500"))));
+        assertThat(hotelRevenueService.verify(), is(empty()));
+    }
+
+    @Test
+    public void test_Verify_WithTamperedRevenue_ShouldReportDriftUntilRebuilt() {
+        assertThat(hotelRevenueService.verify(), is(empty()));
+
+        // Hilton EUR bookings, see data.sql
+        final var key = new HotelRevenue.Key(1L, "EUR");
+        final var revenue = hotelRevenueRepository.findById(key).orElseThrow();
+        revenue.setSumAmount(BigDecimal.ZERO);
+        hotelRevenueRepository.save(revenue);
+
+        final var drifts = hotelRevenueService.verify();
+        assertThat(drifts, hasSize(1));
+        assertThat(drifts.get(0).getHotelId(), is(1L));
+        assertThat(drifts.get(0).getExpectedSumAmount(), comparesEqualTo(new BigDecimal("299.98")));
+
+        assertThat(hotelRevenueService.rebuild(), hasSize(1));
+        assertThat(hotelRevenueService.verify(), is(empty()));
+    }
+
+    @Test
+    public void test_CreateBooking_ConcurrentlyForNewCurrencyOfHotel_ShouldInsertRevenueOnce() throws Exception {
+        final var hotel = bookingService.createBooking(booking("Revenue Race", "1", "EUR")).getHotel();
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<Booking>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    // all released together, so they all miss the revenue row of the currency
+                    start.await();
+                    return bookingService.createBooking(booking("Revenue Race", "10", "HUF"));
+                }));
+            }
+            start.countDown();
+            for (Future<Booking> future : futures) {
+                // rethrows whatever failed a thread
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final var revenue = hotelRevenueRepository.findById(new HotelRevenue.Key(hotel.getId(), "HUF")).orElseThrow();
+        assertThat(revenue.getBookingCount(), is((long) threads));
+        assertThat(revenue.getSumAmount(), comparesEqualTo(new BigDecimal("80")));
+    }
+
+    private static BookingPriceStatistics[] toArray(Iterable<BookingPriceStatistics> statistics) {
+        return StreamSupport.stream(statistics.spliterator(), false).toArray(BookingPriceStatistics[]::new);
+    }
+
+    @Test
+    public void test_GetBookingStats_WithReportingCurrency_ShouldConvertWithLoadedRates() {
+        // 0.8520 GBP per EUR in fx-rates.csv
+        final var hotelId = bookingService.createBooking(booking("Revenue Fx", "100", "EUR")).getHotel().getId();
+        bookingService.createBooking(booking("Revenue Fx", "85.20", "GBP"));
+        bookingService.createBooking(booking("Revenue Fx", "7", "XXX"));
+
+        assertThat(bookingService.getBookingStatsForHotel(hotelId, "EUR"), contains(
+                new BookingPriceStatistics("EUR", new BigDecimal("200.000")),
+                new BookingPriceStatistics("XXX", new BigDecimal("7.000"))));
+
+        final var statistics = StreamSupport.stream(bookingService.getBookingStats(List.of(hotelId), "EUR").spliterator(), false)
+                .collect(Collectors.toList());
+        assertThat(statistics, hasSize(2));
+        assertThat(statistics.get(0).getCurrency(), is("EUR"));
+        assertThat(statistics.get(0).getBookingCount(), is(2L));
+        assertThat(statistics.get(0).getMaxAmount(), is(new BigDecimal("100.000")));
+        assertThat(statistics.get(0).getAvgAmount(), is(new BigDecimal("100.000")));
+        assertThat(statistics.get(1).getCurrency(), is("XXX"));
+    }
+
+    private static Booking booking(String hotelName, String price, String currency) {
+        return new Booking("R2", "D2", (short) 1, new BigDecimal(price), currency, new Hotel(hotelName, null, null));
+    }
+}
@@ -0,0 +1,111 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingBatchResult;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = NONE)
+@AutoConfigureTestDatabase
+public class HotelUpsertIntegrationTests {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void test_CreateBooking_ConcurrentlyForNewHotel_ShouldInsertHotelOnceAndCreateAll() throws Exception {
+        final List<Long> hotelIds = runConcurrently(thread -> bookingService.createBooking(
+                new Booking("R" + thread, "D2", (short) 1, BigDecimal.ONE, "EUR", new Hotel("Upsert Plaza", null, null)))
+                .getHotel().getId());
+
+        final var hotel = hotelRepository.findByName("Upsert Plaza").orElseThrow();
+        assertThat(hotelIds, everyItem(is(hotel.getId())));
+        assertThat(hotelInserts(), is(1L));
+    }
+
+    @Test
+    public void test_CreateBookings_ConcurrentBatchesForNewHotel_ShouldInsertHotelOnceAndCreateAll() throws Exception {
+        final List<BookingBatchResult.Status> statuses = runConcurrently(thread -> bookingService.createBookings(List.of(
+                new Booking("R" + thread, "D2", (short) 1, BigDecimal.ONE, "EUR", new Hotel("Upsert Ritz", null, null))).iterator())
+                .get(0).getStatus());
+
+        assertThat(statuses, everyItem(is(BookingBatchResult.Status.CREATED)));
+        assertThat(hotelRepository.findByName("Upsert Ritz").isPresent(), is(true));
+        assertThat(hotelInserts(), is(1L));
+    }
+
+    private long hotelInserts() {
+        return statistics.getEntityStatistics(Hotel.class.getName()).getInsertCount();
+    }
+
+    /**
+     * Runs the task on all threads at once, released together so they all miss the new hotel.
+     */
+    private <T> List<T> runConcurrently(IntFunction<T> task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit((Callable<T>) () -> {
+                    start.await();
+                    return task.apply(thread);
+                }));
+            }
+            start.countDown();
+
+            final List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                // rethrows whatever failed a thread
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
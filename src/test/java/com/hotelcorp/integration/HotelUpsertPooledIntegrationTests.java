@@ -0,0 +1,18 @@
+package com.hotelcorp.integration;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace.NONE;
+
+/**
+ * The concurrent get-or-create tests against a connection pool smaller than the number of threads,
+ * which the unpooled test database cannot run out of.
+ */
+@AutoConfigureTestDatabase(replace = NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:upsert-pooled;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=5000"})
+public class HotelUpsertPooledIntegrationTests extends HotelUpsertIntegrationTests {
+}
@@ -0,0 +1,144 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.business.BookingService;
+import com.hotelcorp.business.BookingSketchIndex;
+import com.hotelcorp.business.HotelRevenueService;
+import com.hotelcorp.business.HotelService;
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingPriceStatistics;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.TopCustomer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that PATCH updates what PUT loads and then updates, reading no more of the booking than its indexes need.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+public class PartialUpdateIntegrationTests {
+
+    // each test books its own hotel
+    private static final AtomicInteger HOTELS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HotelService hotelService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelRevenueService hotelRevenueService;
+
+    @Autowired
+    private BookingSketchIndex bookingSketchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Booking booking;
+
+    @Before
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        booking = bookingService.createBooking(
+                new Booking("R2", "D2", (short) 1, BigDecimal.ONE, "EUR", new Hotel("Patched Plaza " + HOTELS.incrementAndGet(), null, null)));
+    }
+
+    @Test
+    public void test_PatchBooking_WithCustomerName_ShouldReadSnapshotInsteadOfBooking() throws Exception {
+        final long putStatements = statementsFor(put("/bookings/{id}", booking.getId())
+                .content("{\"customerName\": \"Luke\"}").contentType(MediaType.APPLICATION_JSON));
+        final long patchStatements = statementsFor(patch("/bookings/{id}", booking.getId())
+                .content("{\"customerName\": \"Leia\"}").contentType(MediaType.APPLICATION_JSON));
+
+        // snapshot of the booking (no hotel, no full row) and its update
+        assertThat(patchStatements, is(2L));
+        assertThat(putStatements, is(2L));
+        final var patched = bookingService.getBookingById(booking.getId());
+        assertThat(patched.getCustomerName(), is("Leia"));
+        assertThat(patched.getVersion(), is(2L));
+        assertThat(bookingSketchIndex.getSketches(booking.getHotel().getId(), null).getTopCustomers(),
+                contains(new TopCustomer("Leia", "D2", 1)));
+    }
+
+    @Test
+    public void test_PatchBooking_WithPrice_ShouldKeepHotelRevenueConsistent() throws Exception {
+        final long patchStatements = statementsFor(patch("/bookings/{id}", booking.getId())
+                .content("{\"price\": 25.5}").contentType(MediaType.APPLICATION_JSON));
+
+        // snapshot of the booking (no hotel, no full row), its update and the revenue update
+        assertThat(patchStatements, is(3L));
+        assertThat(bookingService.getBookingStatsForHotel(booking.getHotel().getId()),
+                contains(new BookingPriceStatistics("EUR", new BigDecimal("25.500"))));
+
+        mockMvc.perform(patch("/bookings/{id}", booking.getId())
+                .content("{\"currency\": \"USD\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertThat(bookingService.getBookingStatsForHotel(booking.getHotel().getId()),
+                contains(new BookingPriceStatistics("USD", new BigDecimal("25.500"))));
+        assertThat(hotelRevenueService.verify(), is(empty()));
+    }
+
+    @Test
+    public void test_PatchHotel_ShouldIssueSingleStatementAndKeepValidation() throws Exception {
+        final var hotelId = booking.getHotel().getId();
+
+        final long patchStatements = statementsFor(patch("/hotels/{id}", hotelId)
+                .content("{\"address\": \"Syntagma\", \"rating\": 5}").contentType(MediaType.APPLICATION_JSON));
+        assertThat(patchStatements, is(1L));
+
+        final var patched = hotelService.getHotelById(hotelId);
+        assertThat(patched.getAddress(), is("Syntagma"));
+        assertThat(patched.getRating(), is((byte) 5));
+        assertThat(patched.getVersion(), is(1L));
+
+        mockMvc.perform(patch("/hotels/{id}", hotelId)
+                .content("{\"rating\": 9}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/hotels/{id}", hotelId)
+                .content("{\"name\": \"Hilton\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/hotels/{id}", hotelId)
+                .header("If-Match", "\"0\"")
+                .content("{\"address\": \"stale\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/hotels/{id}", -1)
+                .content("{\"address\": \"none\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    private long statementsFor(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request)
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
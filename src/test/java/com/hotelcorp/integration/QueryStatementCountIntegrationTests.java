@@ -0,0 +1,131 @@
+package com.hotelcorp.integration;
+
+import com.hotelcorp.data.Booking;
+import com.hotelcorp.data.BookingRepository;
+import com.hotelcorp.data.Hotel;
+import com.hotelcorp.data.HotelRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the booking query endpoints issue a fixed number of SQL statements,
+ * whatever the number of distinct hotels of the returned bookings.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class QueryStatementCountIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void test_GetAllBookings_ShouldIssueFixedNumberOfStatements() throws Exception {
+        assertSameStatementCountForFewAndManyHotels("/bookings");
+    }
+
+    @Test
+    public void test_GetBookingsPage_ShouldIssueFixedNumberOfStatements() throws Exception {
+        assertSameStatementCountForFewAndManyHotels("/bookings?limit=100");
+    }
+
+    @Test
+    public void test_GetBookingsByCustomerLastName_ShouldIssueFixedNumberOfStatements() throws Exception {
+        assertSameStatementCountForFewAndManyHotels("/queries/hotels?customerLastName=Counted");
+    }
+
+    @Test
+    public void test_GetBookingsByHotelName_ShouldIssueOneStatement() throws Exception {
+        final Hotel hotel = addBookingsForNewHotels(1, 5).get(0);
+
+        statistics.clear();
+        mockMvc.perform(get("/queries/bookings").param("hotelName", hotel.getName()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)));
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+    }
+
+    @Test
+    public void test_GetBookingsByHotelId_ShouldIssueOneStatement() throws Exception {
+        assertThat(statementsFor("/queries/bookings?hotelId=1"), is(1L));
+    }
+
+    @Test
+    public void test_GetBookingsByHotelId_ShouldLoadNoEntitiesUnlessHotelIsExpanded() throws Exception {
+        assertThat(statementsFor("/queries/bookings?hotelId=1"), is(1L));
+        assertThat(statistics.getEntityLoadCount(), is(0L));
+
+        assertThat(statementsFor("/queries/bookings?hotelId=1&expand=hotel"), is(1L));
+        assertThat(statistics.getEntityLoadCount(), greaterThan(0L));
+    }
+
+    private void assertSameStatementCountForFewAndManyHotels(String uri) throws Exception {
+        addBookingsForNewHotels(1, 2);
+        final long withFewHotels = statementsFor(uri);
+
+        addBookingsForNewHotels(10, 2);
+        final long withManyHotels = statementsFor(uri);
+
+        assertThat(withManyHotels, is(withFewHotels));
+    }
+
+    private List<Hotel> addBookingsForNewHotels(int hotels, int bookingsPerHotel) {
+        final long existingHotels = hotelRepository.count();
+        final List<Hotel> added = new ArrayList<>();
+        for (int h = 0; h < hotels; h++) {
+            final Hotel hotel = hotelRepository.save(new Hotel("Counted " + (existingHotels + h), null, null));
+            for (int b = 0; b < bookingsPerHotel; b++) {
+                bookingRepository.save(new Booking("R2", "Counted", (short) 1, BigDecimal.ONE, "EUR", hotel));
+            }
+            added.add(hotel);
+        }
+        return added;
+    }
+
+    private long statementsFor(String uri) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}